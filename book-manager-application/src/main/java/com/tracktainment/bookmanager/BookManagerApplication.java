@@ -3,11 +3,11 @@ package com.tracktainment.bookmanager;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.openfeign.EnableFeignClients;
-import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.tracktainment.bookmanager", "com.playground"})
-@EnableJpaAuditing
 @EnableFeignClients
+@EnableScheduling
 public class BookManagerApplication {
 
 	public static void main(String[] args) {
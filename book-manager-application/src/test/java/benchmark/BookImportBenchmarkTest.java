@@ -0,0 +1,176 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.tracktainment.bookmanager.client.DuxManagerHttpClient;
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderMemory;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProviderMemory;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProviderRest;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookImportReport;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.memory.BookStore;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.ImportUseCase;
+import feign.Feign;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-application -am -Dtest=BookImportBenchmarkTest -Dbenchmark=true
+//   -Dsurefire.failIfNoSpecifiedTests=false
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookImportBenchmarkTest {
+
+    // One import chunk, whose assets are created as one batch
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 5_000);
+    private static final long DUX_MANAGER_LATENCY_MILLIS = Long.getLong("benchmark.duxManagerLatencyMillis", 5);
+    private static final int PARALLELISM = Integer.getInteger("benchmark.parallelism", 16);
+    private static final int RUNS = 3;
+    private static final String[] AUTHORS = {"Jane Austen", "Leo Tolstoy", "Toni Morrison", "Italo Calvino"};
+
+    private static HttpServer duxManager;
+    private static final AtomicInteger createdAssets = new AtomicInteger();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        // Dux Manager registers each asset after a fixed latency and never limits the load itself. Without TCP_NODELAY
+        // the headers and body written apart wait for a delayed ACK, which would add about 40 ms to every create
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        duxManager = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        duxManager.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        duxManager.createContext("/assets", exchange -> {
+            try {
+                Thread.sleep(DUX_MANAGER_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().readAllBytes();
+            createdAssets.incrementAndGet();
+            byte[] body = ("{\"id\":\"" + UUID.randomUUID() + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        duxManager.start();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (duxManager != null) {
+            duxManager.stop(0);
+        }
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void concurrentAssetCreatesShouldImportFasterThanSerialOnes() {
+        // Arrange
+        // The client as Spring Cloud OpenFeign builds it, on Feign's default client
+        HttpMessageConverters httpMessageConverters = new HttpMessageConverters();
+        DuxManagerHttpClient duxManagerHttpClient = Feign.builder()
+                .contract(new SpringMvcContract())
+                .encoder(new SpringEncoder(() -> httpMessageConverters))
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(() -> httpMessageConverters)))
+                .target(DuxManagerHttpClient.class, "http://localhost:" + duxManager.getAddress().getPort());
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject(UUID.randomUUID().toString())
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+
+        // Act
+        double serial = measure(duxManagerHttpClient, validator, 1);
+        double concurrent = measure(duxManagerHttpClient, validator, PARALLELISM);
+
+        // Assert
+        System.out.printf("%d rows, %d ms Dux Manager latency per asset, books kept in memory%n",
+                ROWS, DUX_MANAGER_LATENCY_MILLIS);
+        System.out.printf("%-12s %14s%n", "parallelism", "rows/s");
+        System.out.printf("%-12d %14.0f%n", 1, serial);
+        System.out.printf("%-12d %14.0f%n", PARALLELISM, concurrent);
+
+        assertTrue(concurrent > serial);
+    }
+
+    private double measure(DuxManagerHttpClient duxManagerHttpClient, Validator validator, int parallelism) {
+        DuxManagerDataProviderRest duxManagerDataProviderRest = new DuxManagerDataProviderRest(duxManagerHttpClient);
+        ReflectionTestUtils.setField(duxManagerDataProviderRest, "createParallelism", parallelism);
+
+        // The first run warms up the JIT and the connections
+        importBooks(duxManagerDataProviderRest, validator);
+
+        double[] rowsPerSecond = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            rowsPerSecond[i] = importBooks(duxManagerDataProviderRest, validator);
+        }
+
+        Arrays.sort(rowsPerSecond);
+        return rowsPerSecond[RUNS / 2];
+    }
+
+    private double importBooks(DuxManagerDataProviderRest duxManagerDataProviderRest, Validator validator) {
+        // A store of its own for every run, so that every title is new to it
+        BookStore bookStore = new BookStore();
+        ImportUseCase importUseCase = new ImportUseCase(
+                new BookDataProviderMemory(bookStore, JsonMapper.builder().findAndAddModules().build()),
+                new BookSearchDataProviderMemory(bookStore),
+                duxManagerDataProviderRest,
+                new SecurityUtil(),
+                validator
+        );
+
+        createdAssets.set(0);
+        BookImportReport report = importUseCase.execute(ImportUseCase.Input.builder()
+                        .jwt("Bearer token")
+                        .rows(LongStream.rangeClosed(1, ROWS)
+                                .mapToObj(line -> BookImportRow.builder()
+                                        .line(line)
+                                        .bookCreate(BookCreate.builder()
+                                                .title("Imported Book " + line)
+                                                .author(AUTHORS[(int) (line % AUTHORS.length)])
+                                                .genre("Fiction")
+                                                .publishedDate(LocalDate.of(2000, 1, 1).plusDays(line % 5000))
+                                                .language("English")
+                                                .build())
+                                        .build())
+                                .iterator())
+                        .build())
+                .getReport();
+
+        assertEquals(ROWS, report.getImported());
+        assertEquals(ROWS, createdAssets.get());
+        return report.getRowsPerSecond();
+    }
+}
@@ -0,0 +1,252 @@
+package benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.mapper.BookCriteriaSqlMapper;
+import com.tracktainment.bookmanager.mapper.BookEntityRowMapper;
+import com.tracktainment.bookmanager.mapper.BookListQueryMapper;
+import com.tracktainment.bookmanager.security.SecurityConfig;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import feign.Feign;
+import feign.Param;
+import feign.RequestLine;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jdk.jfr.consumer.RecordingStream;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-application -am -Dtest=BookVirtualThreadsBenchmarkTest -Dbenchmark=true
+//   -Dsurefire.failIfNoSpecifiedTests=false
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookVirtualThreadsBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 50_000);
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 5_000);
+    private static final long DUX_MANAGER_LATENCY_MILLIS = Long.getLong("benchmark.duxManagerLatencyMillis", 50);
+    // Tomcat's default maximum, what the platform-thread setup serves requests with
+    private static final int PLATFORM_THREADS = 200;
+    private static final int CONNECTIONS = 10;
+    private static final int PAGE_SIZE = 20;
+    private static final int RUNS = 5;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static EmbeddedPostgres embeddedPostgres;
+    private static HikariDataSource hikariDataSource;
+    private static HttpServer duxManager;
+
+    interface DuxManagerStub {
+
+        @RequestLine("GET /assets?digitalUserId={digitalUserId}")
+        String findAssets(@Param("digitalUserId") String digitalUserId);
+    }
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        embeddedPostgres = EmbeddedPostgres.builder().start();
+        Flyway.configure()
+                .dataSource(embeddedPostgres.getPostgresDatabase())
+                .load()
+                .migrate();
+
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(embeddedPostgres.getJdbcUrl("postgres", "postgres"));
+        hikariConfig.setMaximumPoolSize(CONNECTIONS);
+        hikariConfig.setConnectionInitSql("SET plan_cache_mode = force_custom_plan");
+        hikariDataSource = new HikariDataSource(hikariConfig);
+
+        // Dux Manager answers after a fixed latency and never limits the load itself
+        duxManager = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        duxManager.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        duxManager.createContext("/assets", exchange -> {
+            try {
+                Thread.sleep(DUX_MANAGER_LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        duxManager.start();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (duxManager != null) {
+            duxManager.stop(0);
+        }
+        if (hikariDataSource != null) {
+            hikariDataSource.close();
+        }
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void virtualThreadsShouldServeMoreRequestsWithoutPinning() throws Exception {
+        // Arrange
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(hikariDataSource);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                insert into books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at)
+                select nextval('books_db_id_seq'), gen_random_uuid(),
+                       'The ' || md5(i::text) || ' Chronicles',
+                       'Author ' || md5(mod(i, 5000)::text),
+                       (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                       '978-' || lpad(i::text, 13, '0'),
+                       'Publisher ' || md5(mod(i, 200)::text),
+                       date '1900-01-01' + mod(i, 40000),
+                       (array['English', 'Portuguese', 'Spanish', 'French'])[mod(i, 4) + 1],
+                       now()
+                from generate_series(1, %d) i""".formatted(CATALOG_SIZE));
+        jdbcTemplate.getJdbcTemplate().execute("analyze books");
+
+        // Feign's default client, which the Dux Manager client uses unless OkHttp is enabled
+        DuxManagerStub duxManagerStub = Feign.builder()
+                .target(DuxManagerStub.class, "http://localhost:" + duxManager.getAddress().getPort());
+        SecurityUtil securityUtil = new SecurityUtil();
+        TaskDecorator taskDecorator = new SecurityConfig().securityContextTaskDecorator();
+        String[] genres = {"Fiction", "Fantasy", "Mystery", "Biography", "History"};
+
+        // A list request as the application serves it: the user from the JWT, a Dux Manager call, then a page of books
+        Request request = call -> {
+            String digitalUserId = securityUtil.getDigitalUser().getId();
+            assertEquals("[]", duxManagerStub.findAssets(digitalUserId));
+
+            ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                    .genre(genres[call % genres.length])
+                    .orderByList(List.of(OrderBy.TITLE))
+                    .orderDirectionList(List.of(OrderDirection.ASC))
+                    .build();
+            MapSqlParameterSource parameters = new MapSqlParameterSource("limit", PAGE_SIZE);
+            String sql = "SELECT " + BookEntityRowMapper.COLUMNS + " FROM books" +
+                    BookCriteriaSqlMapper.toWhereClause(input, parameters) +
+                    BookCriteriaSqlMapper.toOrderByClause(BookListQueryMapper.toSorting(input)) +
+                    " LIMIT :limit";
+            List<BookEntity> bookEntities = jdbcTemplate.query(sql, parameters, new BookEntityRowMapper());
+
+            assertEquals(digitalUserId, securityUtil.getDigitalUser().getId());
+            return bookEntities.size();
+        };
+
+        // Act
+        Measurement platform = measure(() -> Executors.newFixedThreadPool(PLATFORM_THREADS), request, taskDecorator);
+
+        List<String> pinned = new ArrayList<>();
+        Measurement virtual;
+        try (RecordingStream recordingStream = new RecordingStream()) {
+            // Every park of a pinned virtual thread, however short
+            recordingStream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recordingStream.onEvent("jdk.VirtualThreadPinned", event -> {
+                synchronized (pinned) {
+                    pinned.add(event.getStackTrace() != null ? event.getStackTrace().getFrames().get(0).toString() : "");
+                }
+            });
+            recordingStream.startAsync();
+            virtual = measure(Executors::newVirtualThreadPerTaskExecutor, request, taskDecorator);
+        }
+
+        // Assert
+        System.out.printf("%d requests, %d ms Dux Manager latency, %d connections, catalog size: %d books%n",
+                REQUESTS, DUX_MANAGER_LATENCY_MILLIS, CONNECTIONS, CATALOG_SIZE);
+        System.out.printf("%-9s %14s %14s%n", "threads", "requests/s", "peak threads");
+        System.out.printf("%-9s %14.0f %14d%n", "platform", platform.requestsPerSecond(), platform.peakThreads());
+        System.out.printf("%-9s %14.0f %14d%n", "virtual", virtual.requestsPerSecond(), virtual.peakThreads());
+        System.out.printf("pinned parks: %d %s%n", pinned.size(), pinned.stream().distinct().limit(5).toList());
+
+        assertTrue(pinned.isEmpty());
+        assertTrue(virtual.requestsPerSecond() > platform.requestsPerSecond());
+    }
+
+    private Measurement measure(
+            Supplier<ExecutorService> executors,
+            Request request,
+            TaskDecorator taskDecorator
+    ) throws Exception {
+        // The first run warms up the JIT, the connections and the class loading
+        run(executors, request, taskDecorator);
+
+        long[] nanos = new long[RUNS];
+        int peakThreads = 0;
+        for (int i = 0; i < RUNS; i++) {
+            int baseline = THREAD_MX_BEAN.getThreadCount();
+            THREAD_MX_BEAN.resetPeakThreadCount();
+            long start = System.nanoTime();
+            run(executors, request, taskDecorator);
+            nanos[i] = System.nanoTime() - start;
+            peakThreads = Math.max(peakThreads, THREAD_MX_BEAN.getPeakThreadCount() - baseline);
+        }
+
+        Arrays.sort(nanos);
+        return new Measurement(REQUESTS / (nanos[RUNS / 2] / 1_000_000_000.0), peakThreads);
+    }
+
+    private void run(Supplier<ExecutorService> executors, Request request, TaskDecorator taskDecorator) throws Exception {
+        AtomicLong books = new AtomicLong();
+        try (ExecutorService executor = executors.get()) {
+            List<Future<?>> requests = new ArrayList<>(REQUESTS);
+            for (int call = 0; call < REQUESTS; call++) {
+                int page = call;
+
+                // Each request is submitted by its own user, whose security context the decorator hands over
+                Jwt jwt = Jwt.withTokenValue("token")
+                        .header("alg", "none")
+                        .subject("user-" + call % 100)
+                        .build();
+                SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+                try {
+                    requests.add(executor.submit(taskDecorator.decorate(() -> books.addAndGet(request.serve(page)))));
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }
+            for (Future<?> served : requests) {
+                served.get();
+            }
+        }
+
+        assertEquals((long) REQUESTS * PAGE_SIZE, books.get());
+    }
+
+    @FunctionalInterface
+    private interface Request {
+
+        int serve(int call);
+    }
+
+    private record Measurement(double requestsPerSecond, int peakThreads) {
+    }
+}
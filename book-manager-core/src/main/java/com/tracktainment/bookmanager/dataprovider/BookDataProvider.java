@@ -2,20 +2,37 @@ package com.tracktainment.bookmanager.dataprovider;
 
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
 import com.tracktainment.bookmanager.dto.BookUpdate;
 import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
 
+import java.io.OutputStream;
 import java.util.List;
 
 public interface BookDataProvider {
 
     Book create(BookCreate bookCreate);
 
+    List<Book> createAll(List<BookCreate> bookCreates);
+
+    BookImportResult importAll(List<BookImportRow> rows);
+
     Book findById(String id);
 
-    List<Book> listByCriteria(ListByCriteriaUseCase.Input input);
+    BookPage listByCriteria(ListByCriteriaUseCase.Input input);
+
+    long exportByCriteria(ListByCriteriaUseCase.Input input, OutputStream outputStream);
+
+    BookFacets facetsByCriteria(ListByCriteriaUseCase.Input input);
+
+    // A null version writes whatever version is stored, any other only the one it names
+    Book update(String id, BookUpdate bookUpdate, Long version);
 
-    Book update(String id, BookUpdate bookUpdate);
+    void delete(String id, Long version);
 
-    void delete(String id);
+    // Each book at the version it carries, in one write; books no longer stored at that version are left as they are
+    void deleteAll(List<Book> books);
 }
@@ -0,0 +1,18 @@
+package com.tracktainment.bookmanager.dataprovider;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BookSearchDataProvider {
+
+    void index(Book book);
+
+    void indexAll(List<Book> books);
+
+    void remove(String id);
+
+    List<BookSearchHit> search(String query, Collection<String> ids, int limit);
+}
@@ -14,6 +14,12 @@ public interface DuxManagerDataProvider {
             AssetRequest assetRequest
     );
 
+    List<AssetResponse> createAssets(
+            String jwt,
+            String digitalUserId,
+            List<AssetRequest> assetRequests
+    );
+
     List<AssetResponse> findAssetsByCriteria(
             String jwt,
             String digitalUserId,
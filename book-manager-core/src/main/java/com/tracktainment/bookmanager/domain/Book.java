@@ -1,5 +1,6 @@
 package com.tracktainment.bookmanager.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
@@ -44,4 +45,8 @@ public class Book {
 
     @Schema(description = "Book last update timestamp", example = "2023-02-20T15:45:30")
     private LocalDateTime updatedAt;
+
+    // Sent as the ETag of the book instead of in the body, writes made with If-Match only apply to this version
+    @JsonIgnore
+    private Long version;
 }
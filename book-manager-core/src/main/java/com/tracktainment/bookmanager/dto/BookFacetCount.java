@@ -0,0 +1,23 @@
+package com.tracktainment.bookmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Number of books sharing a value of a facet")
+public class BookFacetCount {
+
+    @Schema(description = "Value of the facet", example = "Drama")
+    private String value;
+
+    @Schema(description = "Number of matching books with this value", example = "12")
+    private long count;
+}
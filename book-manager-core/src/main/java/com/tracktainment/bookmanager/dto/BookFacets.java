@@ -0,0 +1,32 @@
+package com.tracktainment.bookmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Book counts per value of each facet, most frequent value first. Books without a value are " +
+        "left out of that facet")
+public class BookFacets {
+
+    @Schema(description = "Counts per genre")
+    private List<BookFacetCount> genres;
+
+    @Schema(description = "Counts per language")
+    private List<BookFacetCount> languages;
+
+    @Schema(description = "Counts per publisher")
+    private List<BookFacetCount> publishers;
+
+    @Schema(description = "Counts per year of publication")
+    private List<BookFacetCount> publishedYears;
+}
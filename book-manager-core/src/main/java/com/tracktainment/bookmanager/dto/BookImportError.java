@@ -0,0 +1,21 @@
+package com.tracktainment.bookmanager.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+@Schema(description = "Row rejected by an import")
+public class BookImportError {
+
+    @Schema(description = "Line of the row in the imported file", example = "42")
+    private long line;
+
+    @Schema(description = "Reason the row was rejected", example = "'title' is mandatory.")
+    private String message;
+}
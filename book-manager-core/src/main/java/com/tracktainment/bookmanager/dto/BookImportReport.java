@@ -0,0 +1,36 @@
+package com.tracktainment.bookmanager.dto;
+
+import com.tracktainment.bookmanager.util.Constants;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+@Schema(description = "Outcome of a bulk import")
+public class BookImportReport {
+
+    @Schema(description = "Rows read from the file", example = "250000")
+    private long rows;
+
+    @Schema(description = "Books imported", example = "249990")
+    private long imported;
+
+    @Schema(description = "Rows rejected", example = "10")
+    private long rejected;
+
+    @Schema(description = "Duration of the import in milliseconds", example = "12500")
+    private long durationMillis;
+
+    @Schema(description = "Rows processed per second", example = "20000.0")
+    private double rowsPerSecond;
+
+    @Schema(description = "Rejected rows, only the first " + Constants.MAX_IMPORT_ERRORS + " are reported")
+    private List<BookImportError> errors;
+}
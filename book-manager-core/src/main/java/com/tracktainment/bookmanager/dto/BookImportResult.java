@@ -0,0 +1,20 @@
+package com.tracktainment.bookmanager.dto;
+
+import com.tracktainment.bookmanager.domain.Book;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class BookImportResult {
+
+    private List<Book> books;
+
+    private List<BookImportError> errors;
+}
@@ -0,0 +1,21 @@
+package com.tracktainment.bookmanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class BookImportRow {
+
+    // Line of the row in the imported file
+    private long line;
+
+    private BookCreate bookCreate;
+
+    // Set instead of bookCreate when the row cannot be parsed
+    private String error;
+}
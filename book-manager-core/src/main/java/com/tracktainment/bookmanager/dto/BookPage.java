@@ -0,0 +1,35 @@
+package com.tracktainment.bookmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tracktainment.bookmanager.domain.Book;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Page of books returned by a listing")
+public class BookPage {
+
+    @Schema(description = "Books in the page")
+    private List<Book> books;
+
+    @Schema(description = "Opaque cursor pointing after the last book of the page, absent on the last page")
+    private String nextCursor;
+
+    @Schema(description = "Whether more books follow this page")
+    private boolean hasMore;
+
+    @Schema(description = "Number of books matching the criteria, only when requested")
+    private Long totalCount;
+
+    @Schema(description = "Whether totalCount is a planner estimate rather than an exact count")
+    private Boolean totalCountEstimated;
+}
@@ -0,0 +1,27 @@
+package com.tracktainment.bookmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.tracktainment.bookmanager.domain.Book;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Book matched by a search, with its relevance")
+public class BookSearchHit {
+
+    @Schema(description = "Unique identifier of the book", example = "123e4567-e89b-12d3-a456-426614174000")
+    private String id;
+
+    @Schema(description = "BM25 relevance score, higher is more relevant", example = "7.42")
+    private Double score;
+
+    @Schema(description = "Matched book")
+    private Book book;
+}
@@ -0,0 +1,13 @@
+package com.tracktainment.bookmanager.exception;
+
+public class PreconditionFailedException extends BusinessException {
+
+    public static final String ERROR_MESSAGE = "%s %s is not at version %s.";
+
+    public PreconditionFailedException(Class<?> clazz, String resourceAttribute, Object version) {
+        super(
+                ExceptionCode.PRECONDITION_FAILED,
+                String.format(ERROR_MESSAGE, clazz.getSimpleName(), resourceAttribute, version)
+        );
+    }
+}
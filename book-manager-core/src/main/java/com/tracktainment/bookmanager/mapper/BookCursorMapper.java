@@ -0,0 +1,102 @@
+package com.tracktainment.bookmanager.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.exception.ParameterValidationFailedException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class BookCursorMapper {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> TOKEN_TYPE = new TypeReference<>() {};
+
+    public static String toCursor(Book book, Long dbId, Map<OrderBy, OrderDirection> sorting) {
+        // The cursor carries the ordering it was built for, the sort key of the last book and its dbId as tie-breaker
+        List<String> tokens = new ArrayList<>();
+        tokens.add(toSignature(sorting));
+        sorting.keySet().forEach(orderBy -> tokens.add(toToken(book, orderBy)));
+        tokens.add(String.valueOf(dbId));
+
+        try {
+            return Base64.getUrlEncoder()
+                    .withoutPadding()
+                    .encodeToString(OBJECT_MAPPER.writeValueAsBytes(tokens));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode cursor.", e);
+        }
+    }
+
+    public static Cursor fromCursor(String cursor, Map<OrderBy, OrderDirection> sorting) {
+        List<String> tokens;
+        try {
+            tokens = OBJECT_MAPPER.readValue(
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8),
+                    TOKEN_TYPE
+            );
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new ParameterValidationFailedException("Invalid 'cursor': it could not be decoded.");
+        }
+
+        if (tokens == null || tokens.size() != sorting.size() + 2 || !toSignature(sorting).equals(tokens.get(0))) {
+            throw new ParameterValidationFailedException(
+                    "Invalid 'cursor': it does not match the requested orderBy and orderDirection."
+            );
+        }
+
+        try {
+            List<Comparable<?>> values = new ArrayList<>();
+            int i = 1;
+            for (OrderBy orderBy : sorting.keySet()) {
+                values.add(fromToken(tokens.get(i++), orderBy));
+            }
+
+            return new Cursor(values, Long.valueOf(tokens.get(i)));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new ParameterValidationFailedException("Invalid 'cursor': it contains malformed values.");
+        }
+    }
+
+    private static String toSignature(Map<OrderBy, OrderDirection> sorting) {
+        return sorting.entrySet().stream()
+                .map(entry -> entry.getKey().name() + ":" + entry.getValue().name())
+                .collect(Collectors.joining(","));
+    }
+
+    private static String toToken(Book book, OrderBy orderBy) {
+        return switch (orderBy) {
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case GENRE -> book.getGenre();
+            case CREATED_AT -> book.getCreatedAt() != null ? book.getCreatedAt().toString() : null;
+        };
+    }
+
+    private static Comparable<?> fromToken(String token, OrderBy orderBy) {
+        if (token == null) {
+            return null;
+        }
+
+        return orderBy == OrderBy.CREATED_AT ? LocalDateTime.parse(token) : token;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    public static class Cursor {
+        private final List<Comparable<?>> values;
+        private final Long dbId;
+    }
+}
@@ -0,0 +1,425 @@
+package com.tracktainment.bookmanager.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+public class BookInvertedIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_POSTINGS_CAPACITY = 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Term dictionary. Every term owns a postings list of docs, sorted ascending, with parallel term frequencies
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private int[][] postingDocs = new int[INITIAL_CAPACITY][];
+    private int[][] postingFrequencies = new int[INITIAL_CAPACITY][];
+    private int[] postingSizes = new int[INITIAL_CAPACITY];
+    private int termCount;
+
+    /* Per book state, indexed by doc: a dense ordinal of the index itself, not the dbId. Removed books hand their
+    doc to the next new one, so the arrays stay as long as the most books ever indexed at once, whatever the dbIds
+     */
+    private final Map<String, Integer> docsById = new HashMap<>();
+    private long[] docDbIds = new long[INITIAL_CAPACITY];
+    private String[] docIds = new String[INITIAL_CAPACITY];
+    private int[][] docTerms = new int[INITIAL_CAPACITY][];
+    private int[] docLengths = new int[INITIAL_CAPACITY];
+    private int[] freeDocs = new int[INITIAL_CAPACITY];
+    private int freeDocCount;
+    private int docLimit;
+    private int docCount;
+    private long totalLength;
+
+    public void put(long dbId, String id, String... fields) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docsById.get(id);
+            if (doc != null) {
+                unindexDoc(doc);
+                indexDoc(doc, dbId, id, fields);
+            } else {
+                indexDoc(newDoc(), dbId, id, fields);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putIfAbsent(long dbId, String id, String... fields) {
+        lock.writeLock().lock();
+        try {
+            if (!docsById.containsKey(id)) {
+                put(dbId, id, fields);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean replace(String id, String... fields) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docsById.get(id);
+            if (doc == null) {
+                return false;
+            }
+
+            unindexDoc(doc);
+            indexDoc(doc, docDbIds[doc], id, fields);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docsById.get(id);
+            if (doc != null) {
+                removeDoc(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Hit> search(String query, Collection<String> ids, int limit) {
+        List<String> queryTokens = tokenize(query).stream()
+                .distinct()
+                .toList();
+
+        lock.readLock().lock();
+        try {
+            int[] queryTerms = queryTokens.stream()
+                    .map(termIds::get)
+                    .filter(termId -> termId != null && postingSizes[termId] > 0)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            if (queryTerms.length == 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+
+            float[] idfs = new float[queryTerms.length];
+            for (int i = 0; i < queryTerms.length; i++) {
+                int documentFrequency = postingSizes[queryTerms[i]];
+                idfs[i] = (float) Math.log(1 + (docCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+            }
+
+            float averageLength = (float) totalLength / docCount;
+            TopHits topHits = new TopHits(limit, docDbIds);
+
+            if (ids == null) {
+                scoreAll(queryTerms, idfs, averageLength, topHits);
+            } else {
+                scoreCandidates(queryTerms, idfs, averageLength, ids, topHits);
+            }
+
+            return topHits.toHits(docIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void scoreAll(int[] queryTerms, float[] idfs, float averageLength, TopHits topHits) {
+        // Document at a time: walk every postings list in doc order, scoring each matching book once
+        int[] positions = new int[queryTerms.length];
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int i = 0; i < queryTerms.length; i++) {
+                if (positions[i] < postingSizes[queryTerms[i]]) {
+                    doc = Math.min(doc, postingDocs[queryTerms[i]][positions[i]]);
+                }
+            }
+
+            if (doc == Integer.MAX_VALUE) {
+                return;
+            }
+
+            float score = 0;
+            for (int i = 0; i < queryTerms.length; i++) {
+                int term = queryTerms[i];
+                if (positions[i] < postingSizes[term] && postingDocs[term][positions[i]] == doc) {
+                    score += termScore(idfs[i], postingFrequencies[term][positions[i]], docLengths[doc], averageLength);
+                    positions[i]++;
+                }
+            }
+
+            topHits.offer(doc, score);
+        }
+    }
+
+    private void scoreCandidates(
+            int[] queryTerms,
+            float[] idfs,
+            float averageLength,
+            Collection<String> ids,
+            TopHits topHits
+    ) {
+        // A digital user owns far fewer books than most postings lists hold, so gallop through each list to them
+        int[] candidates = ids.stream()
+                .map(docsById::get)
+                .filter(Objects::nonNull)
+                .mapToInt(Integer::intValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        float[] scores = new float[candidates.length];
+
+        for (int i = 0; i < queryTerms.length; i++) {
+            int term = queryTerms[i];
+            int position = 0;
+            for (int c = 0; c < candidates.length && position < postingSizes[term]; c++) {
+                position = gallop(postingDocs[term], position, postingSizes[term], candidates[c]);
+                if (position < postingSizes[term] && postingDocs[term][position] == candidates[c]) {
+                    scores[c] += termScore(
+                            idfs[i],
+                            postingFrequencies[term][position],
+                            docLengths[candidates[c]],
+                            averageLength
+                    );
+                }
+            }
+        }
+
+        for (int c = 0; c < candidates.length; c++) {
+            if (scores[c] > 0) {
+                topHits.offer(candidates[c], scores[c]);
+            }
+        }
+    }
+
+    private int gallop(int[] docs, int from, int size, int doc) {
+        // First position at or after from holding a doc >= doc
+        int bound = 1;
+        while (from + bound < size && docs[from + bound] < doc) {
+            bound *= 2;
+        }
+
+        int position = Arrays.binarySearch(docs, from + bound / 2, Math.min(from + bound + 1, size), doc);
+        return position >= 0 ? position : -position - 1;
+    }
+
+    private float termScore(float idf, int frequency, int docLength, float averageLength) {
+        return idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * docLength / averageLength));
+    }
+
+    private void indexDoc(int doc, long dbId, String id, String[] fields) {
+        List<String> tokens = tokenize(fields);
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+
+        int[] terms = new int[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            int term = termIds.computeIfAbsent(entry.getKey(), key -> newTerm());
+            addPosting(term, doc, entry.getValue());
+            terms[i++] = term;
+        }
+
+        docDbIds[doc] = dbId;
+        docIds[doc] = id;
+        docTerms[doc] = terms;
+        docLengths[doc] = tokens.size();
+        docsById.put(id, doc);
+        docCount++;
+        totalLength += tokens.size();
+    }
+
+    private void unindexDoc(int doc) {
+        for (int term : docTerms[doc]) {
+            removePosting(term, doc);
+        }
+
+        totalLength -= docLengths[doc];
+        docCount--;
+    }
+
+    private void removeDoc(int doc) {
+        unindexDoc(doc);
+        docsById.remove(docIds[doc]);
+        docIds[doc] = null;
+        docTerms[doc] = null;
+        docLengths[doc] = 0;
+        freeDocs[freeDocCount++] = doc;
+    }
+
+    private int newDoc() {
+        if (freeDocCount > 0) {
+            return freeDocs[--freeDocCount];
+        }
+
+        if (docLimit == docIds.length) {
+            int capacity = docLimit * 2;
+            docDbIds = Arrays.copyOf(docDbIds, capacity);
+            docIds = Arrays.copyOf(docIds, capacity);
+            docTerms = Arrays.copyOf(docTerms, capacity);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            freeDocs = Arrays.copyOf(freeDocs, capacity);
+        }
+        return docLimit++;
+    }
+
+    private int newTerm() {
+        if (termCount == postingDocs.length) {
+            int capacity = termCount * 2;
+            postingDocs = Arrays.copyOf(postingDocs, capacity);
+            postingFrequencies = Arrays.copyOf(postingFrequencies, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+
+        postingDocs[termCount] = new int[INITIAL_POSTINGS_CAPACITY];
+        postingFrequencies[termCount] = new int[INITIAL_POSTINGS_CAPACITY];
+        return termCount++;
+    }
+
+    private void addPosting(int term, int doc, int frequency) {
+        int size = postingSizes[term];
+        if (size == postingDocs[term].length) {
+            postingDocs[term] = Arrays.copyOf(postingDocs[term], size * 2);
+            postingFrequencies[term] = Arrays.copyOf(postingFrequencies[term], size * 2);
+        }
+
+        // New books get the highest doc, so this is an append unless a freed doc or a re-indexed book comes back
+        int position = -Arrays.binarySearch(postingDocs[term], 0, size, doc) - 1;
+        System.arraycopy(postingDocs[term], position, postingDocs[term], position + 1, size - position);
+        System.arraycopy(postingFrequencies[term], position, postingFrequencies[term], position + 1, size - position);
+        postingDocs[term][position] = doc;
+        postingFrequencies[term][position] = frequency;
+        postingSizes[term]++;
+    }
+
+    private void removePosting(int term, int doc) {
+        int size = postingSizes[term];
+        int position = Arrays.binarySearch(postingDocs[term], 0, size, doc);
+        System.arraycopy(postingDocs[term], position + 1, postingDocs[term], position, size - position - 1);
+        System.arraycopy(postingFrequencies[term], position + 1, postingFrequencies[term], position, size - position - 1);
+        postingSizes[term]--;
+    }
+
+    private static List<String> tokenize(String... fields) {
+        List<String> tokens = new ArrayList<>();
+        for (String field : fields) {
+            if (field == null) {
+                continue;
+            }
+
+            for (String token : TOKEN_SEPARATOR.split(field.toLowerCase(Locale.ROOT))) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+
+        return tokens;
+    }
+
+    @AllArgsConstructor
+    @Getter
+    public static class Hit {
+        private final String id;
+        private final float score;
+    }
+
+    private static class TopHits {
+
+        // Min-heap on (score, -dbId), so the root is always the weakest of the kept hits and older books win ties
+        private final int[] docs;
+        private final float[] scores;
+        private final long[] dbIds;
+        private int size;
+
+        TopHits(int limit, long[] dbIds) {
+            docs = new int[limit];
+            scores = new float[limit];
+            this.dbIds = dbIds;
+        }
+
+        void offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (isWeaker(docs[0], scores[0], doc, score)) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<Hit> toHits(String[] docIds) {
+            Hit[] hits = new Hit[size];
+            while (size > 0) {
+                hits[size - 1] = new Hit(docIds[docs[0]], scores[0]);
+                size--;
+                docs[0] = docs[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+
+            return Arrays.asList(hits);
+        }
+
+        private boolean isWeaker(int doc, float score, int otherDoc, float otherScore) {
+            return score < otherScore || (score == otherScore && dbIds[doc] > dbIds[otherDoc]);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!isWeaker(docs[i], scores[i], docs[parent], scores[parent])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int weakest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && isWeaker(docs[left], scores[left], docs[weakest], scores[weakest])) {
+                    weakest = left;
+                }
+                if (right < size && isWeaker(docs[right], scores[right], docs[weakest], scores[weakest])) {
+                    weakest = right;
+                }
+                if (weakest == i) {
+                    return;
+                }
+                swap(i, weakest);
+                i = weakest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int doc = docs[i];
+            docs[i] = docs[j];
+            docs[j] = doc;
+            float score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
@@ -8,19 +8,27 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+
 @Component
 @RequiredArgsConstructor
 public class SecurityUtil {
 
     public DigitalUser getDigitalUser() {
+        return findDigitalUser()
+                .orElseThrow(() -> new AuthenticationFailedException("JWT not found in security context."));
+    }
+
+    public Optional<DigitalUser> findDigitalUser() {
+        // Empty outside of authenticated requests, e.g. at startup or in scheduled jobs
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         if (authentication == null || !(authentication.getPrincipal() instanceof Jwt jwt)) {
-            throw new AuthenticationFailedException("JWT not found in security context.");
+            return Optional.empty();
         }
 
         DigitalUser digitalUser = new DigitalUser();
         digitalUser.setId(jwt.getSubject());
-        return digitalUser;
+        return Optional.of(digitalUser);
     }
 }
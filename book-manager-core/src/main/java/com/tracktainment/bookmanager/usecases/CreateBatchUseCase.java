@@ -0,0 +1,74 @@
+package com.tracktainment.bookmanager.usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.mapper.AssetMapper;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CreateBatchUseCase {
+
+    private final BookDataProvider bookDataProvider;
+    private final BookSearchDataProvider bookSearchDataProvider;
+    private final DuxManagerDataProvider duxManagerDataProvider;
+    private final SecurityUtil securityUtil;
+
+    public Output execute(Input input) {
+        // Create all books at once, a duplicate title fails the whole batch
+        List<Book> books = bookDataProvider.createAll(input.getBookCreates());
+
+        // Get digital user from jwt and create the batch assets in dux-manager
+        try {
+            DigitalUser digitalUser = securityUtil.getDigitalUser();
+
+            duxManagerDataProvider.createAssets(
+                    input.getJwt(),
+                    digitalUser.getId(),
+                    books.stream()
+                            .map(AssetMapper::toAssetRequest)
+                            .toList()
+            );
+
+        // If the assets cannot be created on dux-manager then rollback create books
+        } catch (Exception e) {
+            log.error("Could not create book batch in Dux Manager. Reason: {}", e.getMessage());
+            books.forEach(book -> bookDataProvider.delete(book.getId(), book.getVersion()));
+            throw e;
+        }
+
+        // Make the books searchable once they are kept
+        bookSearchDataProvider.indexAll(books);
+
+        return Output.builder()
+                .books(books)
+                .build();
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Input {
+        private String jwt;
+        private List<BookCreate> bookCreates;
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Output {
+        private List<Book> books;
+    }
+}
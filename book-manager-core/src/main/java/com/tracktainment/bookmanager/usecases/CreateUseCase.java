@@ -1,6 +1,7 @@
 package com.tracktainment.bookmanager.usecases;
 
 import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
 import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.dto.BookCreate;
@@ -17,6 +18,7 @@ import org.springframework.stereotype.Service;
 public class CreateUseCase {
 
     private final BookDataProvider bookDataProvider;
+    private final BookSearchDataProvider bookSearchDataProvider;
     private final DuxManagerDataProvider duxManagerDataProvider;
     private final SecurityUtil securityUtil;
 
@@ -37,10 +39,13 @@ public class CreateUseCase {
         // If asset cannot be created on dux-manager then rollback create book
         } catch (Exception e) {
             log.error("Could not create book in Dux Manager. Reason: {}", e.getMessage());
-            bookDataProvider.delete(book.getId());
+            bookDataProvider.delete(book.getId(), book.getVersion());
             throw e;
         }
 
+        // Make the book searchable once it is kept
+        bookSearchDataProvider.index(book);
+
         return Output.builder()
                 .book(book)
                 .build();
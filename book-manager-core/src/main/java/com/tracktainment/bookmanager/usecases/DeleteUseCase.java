@@ -1,12 +1,19 @@
 package com.tracktainment.bookmanager.usecases;
 
 import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
 import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
 import com.tracktainment.bookmanager.security.context.DigitalUser;
 import com.tracktainment.bookmanager.security.util.SecurityUtil;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -14,6 +21,7 @@ import org.springframework.stereotype.Service;
 public class DeleteUseCase {
 
     private final BookDataProvider bookDataProvider;
+    private final BookSearchDataProvider bookSearchDataProvider;
     private final DuxManagerDataProvider duxManagerDataProvider;
     private final SecurityUtil securityUtil;
 
@@ -21,6 +29,28 @@ public class DeleteUseCase {
         // Get digital user from jwt
         DigitalUser digitalUser = securityUtil.getDigitalUser();
 
+        // Only an owner can delete, same lookup as FindByIdUseCase
+        List<AssetResponse> assetResponseList = duxManagerDataProvider.findAssetsByCriteria(
+                input.getJwt(),
+                digitalUser.getId(),
+                input.getId(),
+                "com.tracktainment",
+                "book-manager",
+                "book",
+                null,
+                null,
+                null
+        );
+
+        if (CollectionUtils.isEmpty(assetResponseList)) {
+            throw new ResourceNotFoundException(Book.class, input.getId());
+        }
+
+        /* Delete the book first, conditional on the version when one is given. A concurrent update fails it before the
+        asset is touched, so the asset is only deleted once the book is gone and a book is never left without its asset
+         */
+        bookDataProvider.delete(input.getId(), input.getVersion());
+
         // Delete asset in dux-manager
         duxManagerDataProvider.deleteAssetByExternalId(
                 input.getJwt(),
@@ -28,8 +58,8 @@ public class DeleteUseCase {
                 input.getId()
         );
 
-        // Delete the book
-        bookDataProvider.delete(input.getId());
+        // Drop the book from the search index
+        bookSearchDataProvider.remove(input.getId());
     }
 
     @AllArgsConstructor
@@ -39,5 +69,6 @@ public class DeleteUseCase {
     public static class Input {
         private String jwt;
         private String id;
+        private Long version;
     }
 }
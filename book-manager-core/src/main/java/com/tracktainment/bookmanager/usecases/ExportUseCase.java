@@ -0,0 +1,110 @@
+package com.tracktainment.bookmanager.usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportUseCase {
+
+    private final BookDataProvider bookDataProvider;
+    private final DuxManagerDataProvider duxManagerDataProvider;
+    private final SecurityUtil securityUtil;
+
+    public Output execute(Input input) {
+        // Get digital user from jwt
+        DigitalUser digitalUser = securityUtil.getDigitalUser();
+
+        // Get assets by criteria from dux-manger, once for the whole export
+        List<AssetResponse> assetResponseList = duxManagerDataProvider.findAssetsByCriteria(
+                input.getJwt(),
+                digitalUser.getId(),
+                input.getIds(),
+                "com.tracktainment",
+                "book-manager",
+                "book",
+                input.getCreatedAt(),
+                input.getFrom(),
+                input.getTo()
+        );
+
+        // Without an owned book to restrict it to, the export would cover every user's books
+        if (assetResponseList.isEmpty()) {
+            return Output.builder()
+                    .exported(0)
+                    .build();
+        }
+
+        String assetIds = assetResponseList.stream()
+                .map(AssetResponse::getExternalId)
+                .collect(Collectors.joining(","));
+
+        ListByCriteriaUseCase.Input criteria = ListByCriteriaUseCase.Input.builder()
+                .ids(assetIds)
+                .title(input.getTitle())
+                .author(input.getAuthor())
+                .genre(input.getGenre())
+                .isbn(input.getIsbn())
+                .publisher(input.getPublisher())
+                .publishedDate(input.getPublishedDate())
+                .language(input.getLanguage())
+                .createdAt(input.getCreatedAt())
+                .from(input.getFrom())
+                .to(input.getTo())
+                .orderByList(input.getOrderByList())
+                .orderDirectionList(input.getOrderDirectionList())
+                .build();
+
+        // Every book is written out as soon as it is read, no page is ever collected
+        long exported = bookDataProvider.exportByCriteria(criteria, input.getOutputStream());
+
+        log.info("Exported {} books.", exported);
+        return Output.builder()
+                .exported(exported)
+                .build();
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Input {
+        private String jwt;
+        private String ids;
+        private String title;
+        private String author;
+        private String genre;
+        private String isbn;
+        private String publisher;
+        private LocalDate publishedDate;
+        private String language;
+        private LocalDate createdAt;
+        private LocalDate from;
+        private LocalDate to;
+        private List<OrderBy> orderByList;
+        private List<OrderDirection> orderDirectionList;
+        private OutputStream outputStream;
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Output {
+        private long exported;
+    }
+}
@@ -0,0 +1,106 @@
+package com.tracktainment.bookmanager.usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FacetsUseCase {
+
+    private final BookDataProvider bookDataProvider;
+    private final DuxManagerDataProvider duxManagerDataProvider;
+    private final SecurityUtil securityUtil;
+
+    public Output execute(Input input) {
+        // Get digital user from jwt
+        DigitalUser digitalUser = securityUtil.getDigitalUser();
+
+        // Get assets by criteria from dux-manger
+        List<AssetResponse> assetResponseList = duxManagerDataProvider.findAssetsByCriteria(
+                input.getJwt(),
+                digitalUser.getId(),
+                input.getIds(),
+                "com.tracktainment",
+                "book-manager",
+                "book",
+                input.getCreatedAt(),
+                input.getFrom(),
+                input.getTo()
+        );
+
+        // Without an owned book to restrict them to, the counts would cover every user's books
+        if (assetResponseList.isEmpty()) {
+            return Output.builder()
+                    .facets(BookFacets.builder()
+                            .genres(Collections.emptyList())
+                            .languages(Collections.emptyList())
+                            .publishers(Collections.emptyList())
+                            .publishedYears(Collections.emptyList())
+                            .build())
+                    .build();
+        }
+
+        String assetIds = assetResponseList.stream()
+                .map(AssetResponse::getExternalId)
+                .collect(Collectors.joining(","));
+
+        // The books a listing with these filters would return, counted instead of paged
+        ListByCriteriaUseCase.Input criteria = ListByCriteriaUseCase.Input.builder()
+                .ids(assetIds)
+                .title(input.getTitle())
+                .author(input.getAuthor())
+                .genre(input.getGenre())
+                .isbn(input.getIsbn())
+                .publisher(input.getPublisher())
+                .publishedDate(input.getPublishedDate())
+                .language(input.getLanguage())
+                .createdAt(input.getCreatedAt())
+                .from(input.getFrom())
+                .to(input.getTo())
+                .build();
+
+        return Output.builder()
+                .facets(bookDataProvider.facetsByCriteria(criteria))
+                .build();
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Input {
+        private String jwt;
+        private String ids;
+        private String title;
+        private String author;
+        private String genre;
+        private String isbn;
+        private String publisher;
+        private LocalDate publishedDate;
+        private String language;
+        private LocalDate createdAt;
+        private LocalDate from;
+        private LocalDate to;
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Output {
+        private BookFacets facets;
+    }
+}
@@ -0,0 +1,150 @@
+package com.tracktainment.bookmanager.usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportReport;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.mapper.AssetMapper;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.util.Constants;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportUseCase {
+
+    private final BookDataProvider bookDataProvider;
+    private final BookSearchDataProvider bookSearchDataProvider;
+    private final DuxManagerDataProvider duxManagerDataProvider;
+    private final SecurityUtil securityUtil;
+    private final Validator validator;
+
+    public Output execute(Input input) {
+        // Get digital user from jwt before any row is read, imported books belong to them like created ones
+        DigitalUser digitalUser = securityUtil.getDigitalUser();
+
+        long start = System.nanoTime();
+        BookImportReport report = BookImportReport.builder()
+                .errors(new ArrayList<>())
+                .build();
+
+        // Rows are read one at a time and kept in memory one chunk at a time, whatever the size of the file
+        List<BookImportRow> chunk = new ArrayList<>(Constants.IMPORT_CHUNK_SIZE);
+        Iterator<BookImportRow> rows = input.getRows();
+        while (rows.hasNext()) {
+            BookImportRow row = rows.next();
+            report.setRows(report.getRows() + 1);
+
+            String error = row.getError() != null ? row.getError() : validate(row.getBookCreate());
+            if (error != null) {
+                reject(report, new BookImportError(row.getLine(), error));
+            } else {
+                chunk.add(row);
+            }
+
+            if (chunk.size() == Constants.IMPORT_CHUNK_SIZE) {
+                importChunk(input.getJwt(), digitalUser, report, chunk);
+                chunk = new ArrayList<>(Constants.IMPORT_CHUNK_SIZE);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(input.getJwt(), digitalUser, report, chunk);
+        }
+
+        long durationNanos = System.nanoTime() - start;
+        report.setDurationMillis(durationNanos / 1_000_000);
+        report.setRowsPerSecond(durationNanos == 0 ? 0 : report.getRows() * 1e9 / durationNanos);
+
+        log.info("Imported {} of {} books in {} ms ({} rows/s).",
+                report.getImported(), report.getRows(), report.getDurationMillis(), Math.round(report.getRowsPerSecond()));
+
+        return Output.builder()
+                .report(report)
+                .build();
+    }
+
+    private String validate(BookCreate bookCreate) {
+        // Same rules as a single create, which validates BookCreate at the REST boundary
+        Set<ConstraintViolation<BookCreate>> violations = validator.validate(bookCreate);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(" "));
+    }
+
+    private void importChunk(String jwt, DigitalUser digitalUser, BookImportReport report, List<BookImportRow> chunk) {
+        BookImportResult result = bookDataProvider.importAll(chunk);
+        List<Book> books = result.getBooks();
+
+        // Create the chunk assets in dux-manager, as a batch create does, or every read would skip these books
+        if (!books.isEmpty()) {
+            try {
+                duxManagerDataProvider.createAssets(
+                        jwt,
+                        digitalUser.getId(),
+                        books.stream()
+                                .map(AssetMapper::toAssetRequest)
+                                .toList()
+                );
+
+            // If the assets cannot be created on dux-manager then rollback the chunk, earlier chunks stay imported
+            } catch (Exception e) {
+                log.error("Could not create imported books in Dux Manager. Reason: {}", e.getMessage());
+                bookDataProvider.deleteAll(books);
+                throw e;
+            }
+        }
+
+        report.setImported(report.getImported() + books.size());
+        result.getErrors().forEach(error -> reject(report, error));
+
+        // Make the books searchable once they are kept
+        bookSearchDataProvider.indexAll(books);
+    }
+
+    private void reject(BookImportReport report, BookImportError error) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < Constants.MAX_IMPORT_ERRORS) {
+            report.getErrors().add(error);
+        }
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Input {
+        private String jwt;
+        private Iterator<BookImportRow> rows;
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Output {
+        private BookImportReport report;
+    }
+}
@@ -5,6 +5,7 @@ import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.domain.OrderBy;
 import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookPage;
 import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
 import com.tracktainment.bookmanager.security.context.DigitalUser;
 import com.tracktainment.bookmanager.security.util.SecurityUtil;
@@ -61,8 +62,13 @@ public class ListByCriteriaUseCase {
         input.setIds(assetIds);
 
         // List the books
+        BookPage bookPage = bookDataProvider.listByCriteria(input);
         return Output.builder()
-                .books(bookDataProvider.listByCriteria(input))
+                .books(bookPage.getBooks())
+                .nextCursor(bookPage.getNextCursor())
+                .hasMore(bookPage.isHasMore())
+                .totalCount(bookPage.getTotalCount())
+                .totalCountEstimated(bookPage.getTotalCountEstimated())
                 .build();
     }
 
@@ -74,6 +80,7 @@ public class ListByCriteriaUseCase {
         private String jwt;
         private Integer offset;
         private Integer limit;
+        private String cursor;
         private String ids;
         private String title;
         private String author;
@@ -87,6 +94,7 @@ public class ListByCriteriaUseCase {
         private LocalDate to;
         private List<OrderBy> orderByList;
         private List<OrderDirection> orderDirectionList;
+        private boolean withTotalCount;
     }
 
     @AllArgsConstructor
@@ -95,5 +103,9 @@ public class ListByCriteriaUseCase {
     @Builder
     public static class Output {
         private List<Book> books;
+        private String nextCursor;
+        private boolean hasMore;
+        private Long totalCount;
+        private Boolean totalCountEstimated;
     }
 }
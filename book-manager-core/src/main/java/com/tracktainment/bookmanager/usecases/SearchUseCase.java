@@ -0,0 +1,104 @@
+package com.tracktainment.bookmanager.usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchUseCase {
+
+    private final BookDataProvider bookDataProvider;
+    private final BookSearchDataProvider bookSearchDataProvider;
+    private final DuxManagerDataProvider duxManagerDataProvider;
+    private final SecurityUtil securityUtil;
+
+    public Output execute(Input input) {
+        // Get digital user from jwt
+        DigitalUser digitalUser = securityUtil.getDigitalUser();
+
+        // Get the books the digital user owns from dux-manager, only those can be searched
+        List<String> ownedIds = duxManagerDataProvider.findAssetsByCriteria(
+                input.getJwt(),
+                digitalUser.getId(),
+                null,
+                "com.tracktainment",
+                "book-manager",
+                "book",
+                null,
+                null,
+                null
+        ).stream()
+                .map(AssetResponse::getExternalId)
+                .toList();
+
+        if (ownedIds.isEmpty()) {
+            return Output.builder()
+                    .hits(Collections.emptyList())
+                    .build();
+        }
+
+        // Rank the owned books against the query
+        List<BookSearchHit> hits = bookSearchDataProvider.search(input.getQuery(), ownedIds, input.getLimit());
+        if (hits.isEmpty()) {
+            return Output.builder()
+                    .hits(hits)
+                    .build();
+        }
+
+        // Load the ranked books, keeping the ranking order. Books deleted meanwhile are dropped
+        Map<String, Book> booksById = bookDataProvider.listByCriteria(ListByCriteriaUseCase.Input.builder()
+                        .offset(0)
+                        .limit(hits.size())
+                        .ids(hits.stream()
+                                .map(BookSearchHit::getId)
+                                .collect(Collectors.joining(",")))
+                        .build()
+                ).getBooks().stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        return Output.builder()
+                .hits(hits.stream()
+                        .filter(hit -> booksById.containsKey(hit.getId()))
+                        .map(hit -> BookSearchHit.builder()
+                                .id(hit.getId())
+                                .score(hit.getScore())
+                                .book(booksById.get(hit.getId()))
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Input {
+        private String jwt;
+        private String query;
+        private Integer limit;
+    }
+
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Data
+    @Builder
+    public static class Output {
+        private List<BookSearchHit> hits;
+    }
+}
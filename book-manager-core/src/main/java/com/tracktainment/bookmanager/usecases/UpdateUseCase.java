@@ -1,6 +1,7 @@
 package com.tracktainment.bookmanager.usecases;
 
 import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.dto.BookUpdate;
 import lombok.*;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Service;
 public class UpdateUseCase {
 
     private final BookDataProvider bookDataProvider;
+    private final BookSearchDataProvider bookSearchDataProvider;
     private final FindByIdUseCase findByIdUseCase;
 
     public Output execute(Input input) {
@@ -26,13 +28,20 @@ public class UpdateUseCase {
         ).getBook();
 
         /* Update and return the updated book. No action is necessary on Dux Manager as it only stores information on
-        what assets each digital user has. It does not contain information of the book itself.
+        what assets each digital user has. It does not contain information of the book itself. The write is a single
+        statement conditional on the version, so a concurrent update in between fails it instead of being overwritten.
          */
+        Book updatedBook = bookDataProvider.update(
+                input.getId(),
+                input.getBookUpdate(),
+                input.getVersion()
+        );
+
+        // Re-index the book so searches match its new details
+        bookSearchDataProvider.index(updatedBook);
+
         return Output.builder()
-                .book(bookDataProvider.update(
-                        input.getId(),
-                        input.getBookUpdate()
-                ))
+                .book(updatedBook)
                 .build();
     }
 
@@ -44,6 +53,7 @@ public class UpdateUseCase {
         private String jwt;
         private String id;
         private BookUpdate bookUpdate;
+        private Long version;
     }
 
     @AllArgsConstructor
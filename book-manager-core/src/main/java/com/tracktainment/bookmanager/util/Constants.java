@@ -12,8 +12,19 @@ public class Constants {
     public static final int MIN_OFFSET = 0;
     public static final int MIN_LIMIT = 1;
     public static final int MAX_LIMIT = 100;
+    public static final int MIN_BATCH_SIZE = 1;
+    public static final int MAX_BATCH_SIZE = 1000;
+    public static final int IMPORT_CHUNK_SIZE = 5000;
+    public static final int MAX_IMPORT_ERRORS = 1000;
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+    public static final int EXPORT_FETCH_SIZE = 1000;
     public static final String DEFAULT_ORDER = "TITLE";
     public static final String DEFAULT_DIRECTION = "ASC";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String HAS_MORE_HEADER = "X-Has-More";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_COUNT_ESTIMATED_HEADER = "X-Total-Count-Estimated";
+    public static final int EXACT_COUNT_LIMIT = 10_000;
 
 
     // Required fields validation
@@ -29,6 +40,8 @@ public class Constants {
     public static final String ISBN_REGEX = "^(97[89]-?)?\\d{1,5}-?\\d{1,7}-?\\d{1,7}-?[\\dX]$";
     public static final String PUBLISHER_REGEX = "^[A-Za-z0-9\\s\\-,\\.\\'\\\";!?&()]{1,150}$";
     public static final String LANGUAGE_REGEX = "^[\\p{L}\\s\\-']{1,50}$";
+    public static final String CURSOR_REGEX = "^[A-Za-z0-9_\\-]{1,2048}$";
+    public static final String SEARCH_QUERY_REGEX = "^[\\p{L}\\p{N}\\s\\-,\\.\\'\\\";:!?()&]{1,200}$";
 
 
     // Dux Manager Regex
@@ -51,6 +64,10 @@ public class Constants {
     public static final String LANGUAGE_INVALID_MSG = "'language' must match: " + LANGUAGE_REGEX + ".";
     public static final String OFFSET_INVALID_MSG = "'offset' must be positive.";
     public static final String LIMIT_INVALID_MSG = "'limit' must be in the range [" + MIN_LIMIT + ", " + MAX_LIMIT + "]";
+    public static final String CURSOR_INVALID_MSG = "'cursor' must match: " + CURSOR_REGEX + ".";
+    public static final String BATCH_SIZE_INVALID_MSG =
+            "'batch' size must be in the range [" + MIN_BATCH_SIZE + ", " + MAX_BATCH_SIZE + "]";
+    public static final String SEARCH_QUERY_INVALID_MSG = "'query' must match: " + SEARCH_QUERY_REGEX + ".";
 
 
     // Dux Manager fields validation
@@ -64,6 +64,14 @@ class ExceptionCodeTest {
         assertEquals("Parameter validation error.", ExceptionCode.PARAMETER_VALIDATION_ERROR.getReason());
     }
 
+    @Test
+    void shouldHaveCorrectValuesForPreconditionFailed() {
+        // Act & Assert
+        assertEquals("E-008", ExceptionCode.PRECONDITION_FAILED.getCode());
+        assertEquals(HttpStatus.PRECONDITION_FAILED.value(), ExceptionCode.PRECONDITION_FAILED.getHttpStatusCode());
+        assertEquals("Precondition failed.", ExceptionCode.PRECONDITION_FAILED.getReason());
+    }
+
     @Test
     void shouldHaveCorrectToStringRepresentation() {
         // Act & Assert
@@ -74,11 +82,12 @@ class ExceptionCodeTest {
         assertTrue(ExceptionCode.CLIENT_NOT_AUTHORIZED.toString().contains("CLIENT_NOT_AUTHORIZED"));
         assertTrue(ExceptionCode.CONFIGURATION_ERROR.toString().contains("CONFIGURATION_ERROR"));
         assertTrue(ExceptionCode.PARAMETER_VALIDATION_ERROR.toString().contains("PARAMETER_VALIDATION_ERROR"));
+        assertTrue(ExceptionCode.PRECONDITION_FAILED.toString().contains("PRECONDITION_FAILED"));
     }
 
     @Test
-    void shouldHaveSevenExceptionCodes() {
+    void shouldHaveEightExceptionCodes() {
         // Act & Assert
-        assertEquals(7, ExceptionCode.values().length);
+        assertEquals(8, ExceptionCode.values().length);
     }
 }
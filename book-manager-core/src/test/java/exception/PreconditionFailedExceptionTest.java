@@ -0,0 +1,38 @@
+package exception;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.exception.BusinessException;
+import com.tracktainment.bookmanager.exception.ExceptionCode;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreconditionFailedExceptionTest {
+
+    @Test
+    void shouldCreatePreconditionFailedExceptionWithClassAttributeAndVersion() {
+        // Arrange
+        String bookId = UUID.randomUUID().toString();
+
+        // Act
+        PreconditionFailedException exception = new PreconditionFailedException(Book.class, bookId, 3L);
+
+        // Assert
+        assertEquals(ExceptionCode.PRECONDITION_FAILED.getCode(), exception.getCode());
+        assertEquals(412, exception.getHttpStatusCode());
+        assertEquals("Precondition failed.", exception.getReason());
+        assertEquals(String.format("Book %s is not at version 3.", bookId), exception.getMessage());
+    }
+
+    @Test
+    void shouldBeSubclassOfBusinessException() {
+        // Arrange
+        PreconditionFailedException exception = new PreconditionFailedException(Book.class, "test", 0L);
+
+        // Assert
+        assertTrue(exception instanceof BusinessException);
+    }
+}
@@ -0,0 +1,80 @@
+package mapper;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.exception.ParameterValidationFailedException;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCursorMapperTest {
+
+    private Book book;
+    private Map<OrderBy, OrderDirection> sorting;
+
+    @BeforeEach
+    void setUp() {
+        book = Book.builder()
+                .id(UUID.randomUUID().toString())
+                .title("The Great Gatsby")
+                .author(null)
+                .createdAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123456000))
+                .build();
+
+        sorting = new LinkedHashMap<>();
+        sorting.put(OrderBy.TITLE, OrderDirection.ASC);
+        sorting.put(OrderBy.AUTHOR, OrderDirection.DESC);
+        sorting.put(OrderBy.CREATED_AT, OrderDirection.DESC);
+    }
+
+    @Test
+    void shouldRoundTripSortKeyAndDbId() {
+        // Act
+        String cursor = BookCursorMapper.toCursor(book, 42L, sorting);
+        BookCursorMapper.Cursor result = BookCursorMapper.fromCursor(cursor, sorting);
+
+        // Assert
+        assertTrue(cursor.matches("^[A-Za-z0-9_\\-]+$"), "Cursor should be URL safe");
+        assertEquals(3, result.getValues().size());
+        assertEquals("The Great Gatsby", result.getValues().get(0));
+        assertNull(result.getValues().get(1));
+        assertEquals(book.getCreatedAt(), result.getValues().get(2));
+        assertEquals(42L, result.getDbId());
+    }
+
+    @Test
+    void shouldRoundTripWithoutSorting() {
+        // Act
+        String cursor = BookCursorMapper.toCursor(book, 42L, new LinkedHashMap<>());
+        BookCursorMapper.Cursor result = BookCursorMapper.fromCursor(cursor, new LinkedHashMap<>());
+
+        // Assert
+        assertTrue(result.getValues().isEmpty());
+        assertEquals(42L, result.getDbId());
+    }
+
+    @Test
+    void shouldRejectCursorBuiltForAnotherOrdering() {
+        // Arrange
+        String cursor = BookCursorMapper.toCursor(book, 42L, sorting);
+        Map<OrderBy, OrderDirection> otherSorting = new LinkedHashMap<>();
+        otherSorting.put(OrderBy.TITLE, OrderDirection.DESC);
+
+        // Act & Assert
+        assertThrows(ParameterValidationFailedException.class, () -> BookCursorMapper.fromCursor(cursor, otherSorting));
+    }
+
+    @Test
+    void shouldRejectUndecodableCursor() {
+        // Act & Assert
+        assertThrows(ParameterValidationFailedException.class, () -> BookCursorMapper.fromCursor("not-a-cursor", sorting));
+    }
+}
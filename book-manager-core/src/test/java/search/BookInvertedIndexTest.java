@@ -0,0 +1,162 @@
+package search;
+
+import com.tracktainment.bookmanager.search.BookInvertedIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookInvertedIndexTest {
+
+    private BookInvertedIndex bookInvertedIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookInvertedIndex = new BookInvertedIndex();
+        bookInvertedIndex.put(1, "id-1", "The Great Gatsby", "F. Scott Fitzgerald", "Scribner", "Fiction");
+        bookInvertedIndex.put(2, "id-2", "Tender Is the Night", "F. Scott Fitzgerald", "Scribner", "Fiction");
+        bookInvertedIndex.put(3, "id-3", "Gatsby Gatsby Gatsby", "Anonymous", null, null);
+        bookInvertedIndex.put(4, "id-4", "Moby Dick", "Herman Melville", "Harper", "Adventure");
+    }
+
+    @Test
+    void shouldRankByBm25() {
+        // Act
+        List<BookInvertedIndex.Hit> hits = bookInvertedIndex.search("gatsby", null, 10);
+
+        // Assert
+        assertEquals(List.of("id-3", "id-1"), hits.stream().map(BookInvertedIndex.Hit::getId).toList());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    void shouldMatchAnyTermCaseInsensitively() {
+        // Act
+        List<BookInvertedIndex.Hit> hits = bookInvertedIndex.search("MELVILLE night", null, 10);
+
+        // Assert
+        assertEquals(2, hits.size());
+        assertTrue(hits.stream().anyMatch(hit -> hit.getId().equals("id-2")));
+        assertTrue(hits.stream().anyMatch(hit -> hit.getId().equals("id-4")));
+    }
+
+    @Test
+    void shouldKeepOnlyTheBestHitsUpToLimit() {
+        // Act
+        List<BookInvertedIndex.Hit> hits = bookInvertedIndex.search("fitzgerald gatsby", null, 1);
+
+        // Assert
+        assertEquals(1, hits.size());
+        assertEquals("id-1", hits.get(0).getId());
+    }
+
+    @Test
+    void shouldRestrictSearchToGivenIds() {
+        // Act
+        List<BookInvertedIndex.Hit> hits = bookInvertedIndex.search("gatsby", List.of("id-1", "id-4", "unknown"), 10);
+
+        // Assert
+        assertEquals(List.of("id-1"), hits.stream().map(BookInvertedIndex.Hit::getId).toList());
+    }
+
+    @Test
+    void shouldScoreTheSameWhetherRestrictedOrNot() {
+        // Act
+        float unrestricted = bookInvertedIndex.search("scott night", null, 10).get(0).getScore();
+        float restricted = bookInvertedIndex.search("scott night", List.of("id-2"), 10).get(0).getScore();
+
+        // Assert
+        assertEquals(unrestricted, restricted);
+    }
+
+    @Test
+    void shouldReplaceIndexedTerms() {
+        // Act
+        boolean replaced = bookInvertedIndex.replace("id-4", "Billy Budd", "Herman Melville", null, null);
+
+        // Assert
+        assertTrue(replaced);
+        assertTrue(bookInvertedIndex.search("moby", null, 10).isEmpty());
+        assertEquals("id-4", bookInvertedIndex.search("budd", null, 10).get(0).getId());
+        assertEquals(4, bookInvertedIndex.size());
+    }
+
+    @Test
+    void shouldNotReplaceUnknownBook() {
+        // Act & Assert
+        assertFalse(bookInvertedIndex.replace("id-5", "Ulysses"));
+        assertTrue(bookInvertedIndex.search("ulysses", null, 10).isEmpty());
+    }
+
+    @Test
+    void shouldRemoveBook() {
+        // Act
+        bookInvertedIndex.remove("id-3");
+
+        // Assert
+        assertEquals(List.of("id-1"), bookInvertedIndex.search("gatsby", null, 10).stream()
+                .map(BookInvertedIndex.Hit::getId)
+                .toList());
+        assertEquals(3, bookInvertedIndex.size());
+    }
+
+    @Test
+    void shouldNotOverwriteWithPutIfAbsent() {
+        // Act
+        bookInvertedIndex.putIfAbsent(4, "id-4", "Stale Title");
+
+        // Assert
+        assertTrue(bookInvertedIndex.search("stale", null, 10).isEmpty());
+        assertEquals("id-4", bookInvertedIndex.search("moby", null, 10).get(0).getId());
+    }
+
+    @Test
+    void shouldKeepPostingsSortedWhenOlderBookIsIndexedLast() {
+        // Arrange
+        bookInvertedIndex.remove("id-1");
+
+        // Act
+        bookInvertedIndex.put(1, "id-1", "The Great Gatsby");
+
+        // Assert
+        assertEquals(2, bookInvertedIndex.search("gatsby", List.of("id-1", "id-3"), 10).size());
+        assertEquals(2, bookInvertedIndex.search("gatsby", null, 10).size());
+    }
+
+    @Test
+    void shouldIndexDbIdsBeyondIntRange() {
+        // Arrange
+        long dbId = Integer.MAX_VALUE + 10L;
+
+        // Act
+        bookInvertedIndex.put(dbId, "id-5", "Ulysses", "James Joyce");
+
+        // Assert
+        assertEquals("id-5", bookInvertedIndex.search("ulysses", null, 10).get(0).getId());
+        assertEquals(5, bookInvertedIndex.size());
+    }
+
+    @Test
+    void shouldBreakTiesByDbIdWhenRemovedDocIsReused() {
+        // Arrange
+        bookInvertedIndex.remove("id-1");
+        bookInvertedIndex.put(6, "id-6", "Whale");
+
+        // Act
+        bookInvertedIndex.put(5, "id-5", "Whale");
+
+        // Assert
+        assertEquals(List.of("id-5", "id-6"), bookInvertedIndex.search("whale", null, 10).stream()
+                .map(BookInvertedIndex.Hit::getId)
+                .toList());
+    }
+
+    @Test
+    void shouldReturnNothingForUnknownOrBlankQuery() {
+        // Act & Assert
+        assertTrue(bookInvertedIndex.search("ulysses", null, 10).isEmpty());
+        assertTrue(bookInvertedIndex.search("  ", null, 10).isEmpty());
+    }
+}
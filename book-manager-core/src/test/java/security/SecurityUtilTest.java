@@ -14,6 +14,8 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -146,4 +148,48 @@ class SecurityUtilTest {
             verify(jwt).getSubject();
         }
     }
+
+    @Test
+    void shouldFindNoDigitalUserWhenNoAuthentication() {
+        // Arrange
+        try (MockedStatic<SecurityContextHolder> securityContextHolder = mockStatic(SecurityContextHolder.class)) {
+            securityContextHolder.when(SecurityContextHolder::getContext)
+                    .thenReturn(securityContext);
+
+            when(securityContext.getAuthentication())
+                    .thenReturn(null);
+
+            // Act
+            Optional<DigitalUser> result = securityUtil.findDigitalUser();
+
+            // Assert
+            assertTrue(result.isEmpty());
+            verifyNoInteractions(jwt);
+        }
+    }
+
+    @Test
+    void shouldFindDigitalUserFromJwt() {
+        // Arrange
+        try (MockedStatic<SecurityContextHolder> securityContextHolder = mockStatic(SecurityContextHolder.class)) {
+            securityContextHolder.when(SecurityContextHolder::getContext)
+                    .thenReturn(securityContext);
+
+            when(securityContext.getAuthentication())
+                    .thenReturn(authentication);
+
+            when(authentication.getPrincipal())
+                    .thenReturn(jwt);
+
+            when(jwt.getSubject())
+                    .thenReturn(subject);
+
+            // Act
+            Optional<DigitalUser> result = securityUtil.findDigitalUser();
+
+            // Assert
+            assertTrue(result.isPresent());
+            assertEquals(subject, result.get().getId());
+        }
+    }
 }
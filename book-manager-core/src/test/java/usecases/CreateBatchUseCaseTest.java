@@ -0,0 +1,118 @@
+package usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.CreateBatchUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import testutil.TestBookDataUtil;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CreateBatchUseCaseTest {
+
+    @Mock
+    private BookDataProvider bookDataProvider;
+
+    @Mock
+    private BookSearchDataProvider bookSearchDataProvider;
+
+    @Mock
+    private DuxManagerDataProvider duxManagerDataProvider;
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    @InjectMocks
+    private CreateBatchUseCase createBatchUseCase;
+
+    private List<BookCreate> bookCreates;
+    private List<Book> books;
+    private DigitalUser digitalUser;
+    private String jwt;
+    private CreateBatchUseCase.Input input;
+
+    @BeforeEach
+    void setUp() {
+        bookCreates = List.of(TestBookDataUtil.createTestBookCreate(), TestBookDataUtil.createTestBookCreate());
+        books = List.of(
+                TestBookDataUtil.createTestBookWithId(UUID.randomUUID().toString()),
+                TestBookDataUtil.createTestBookWithId(UUID.randomUUID().toString())
+        );
+        digitalUser = TestBookDataUtil.createTestDigitalUser();
+        jwt = "Bearer token";
+
+        input = CreateBatchUseCase.Input.builder()
+                .jwt(jwt)
+                .bookCreates(bookCreates)
+                .build();
+    }
+
+    @Test
+    void shouldCreateBatchAndRegisterAssetsAtOnce() {
+        // Arrange
+        when(bookDataProvider.createAll(bookCreates)).thenReturn(books);
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+
+        // Act
+        CreateBatchUseCase.Output output = createBatchUseCase.execute(input);
+
+        // Assert
+        assertEquals(books, output.getBooks());
+
+        verify(duxManagerDataProvider).createAssets(eq(jwt), eq(digitalUser.getId()), argThat(assetRequests ->
+                assetRequests.size() == 2 &&
+                        assetRequests.get(0).getExternalId().equals(books.get(0).getId()) &&
+                        assetRequests.get(1).getExternalId().equals(books.get(1).getId())
+        ));
+        verify(duxManagerDataProvider, never()).createAsset(any(), any(), any());
+        verify(bookSearchDataProvider).indexAll(books);
+    }
+
+    @Test
+    void shouldRollbackBatchWhenAssetCreationFails() {
+        // Arrange
+        when(bookDataProvider.createAll(bookCreates)).thenReturn(books);
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.createAssets(eq(jwt), eq(digitalUser.getId()), anyList()))
+                .thenThrow(new RuntimeException("Failed to create assets"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> createBatchUseCase.execute(input));
+        assertEquals("Failed to create assets", exception.getMessage());
+
+        verify(bookDataProvider).delete(books.get(0).getId(), books.get(0).getVersion());
+        verify(bookDataProvider).delete(books.get(1).getId(), books.get(1).getVersion());
+        verify(bookSearchDataProvider, never()).indexAll(any());
+    }
+
+    @Test
+    void shouldPropagateBookDataProviderExceptions() {
+        // Arrange
+        when(bookDataProvider.createAll(bookCreates))
+                .thenThrow(new ResourceAlreadyExistsException(Book.class, bookCreates.get(0).getTitle()));
+
+        // Act & Assert
+        assertThrows(ResourceAlreadyExistsException.class, () -> createBatchUseCase.execute(input));
+
+        verify(securityUtil, never()).getDigitalUser();
+        verify(duxManagerDataProvider, never()).createAssets(any(), any(), any());
+        verify(bookDataProvider, never()).delete(any(), any());
+    }
+}
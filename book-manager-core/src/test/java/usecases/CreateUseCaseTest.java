@@ -1,6 +1,7 @@
 package usecases;
 
 import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
 import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.dto.BookCreate;
@@ -28,6 +29,9 @@ class CreateUseCaseTest {
     @Mock
     private BookDataProvider bookDataProvider;
 
+    @Mock
+    private BookSearchDataProvider bookSearchDataProvider;
+
     @Mock
     private DuxManagerDataProvider duxManagerDataProvider;
 
@@ -77,6 +81,7 @@ class CreateUseCaseTest {
         verify(bookDataProvider).create(bookCreate);
         verify(securityUtil).getDigitalUser();
         verify(duxManagerDataProvider).createAsset(eq(jwt), eq(digitalUser.getId()), any(AssetRequest.class));
+        verify(bookSearchDataProvider).index(book);
     }
 
     @Test
@@ -101,7 +106,8 @@ class CreateUseCaseTest {
         verify(bookDataProvider).create(bookCreate);
         verify(securityUtil).getDigitalUser();
         verify(duxManagerDataProvider).createAsset(eq(jwt), eq(digitalUser.getId()), any(AssetRequest.class));
-        verify(bookDataProvider).delete(book.getId());
+        verify(bookDataProvider).delete(book.getId(), book.getVersion());
+        verify(bookSearchDataProvider, never()).index(any());
     }
 
     @Test
@@ -121,6 +127,6 @@ class CreateUseCaseTest {
         verify(bookDataProvider).create(bookCreate);
         verify(securityUtil, never()).getDigitalUser();
         verify(duxManagerDataProvider, never()).createAsset(any(), any(), any());
-        verify(bookDataProvider, never()).delete(any());
+        verify(bookDataProvider, never()).delete(any(), any());
     }
 }
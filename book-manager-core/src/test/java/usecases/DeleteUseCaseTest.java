@@ -1,9 +1,12 @@
 package usecases;
 
 import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
 import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
 import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
 import com.tracktainment.bookmanager.exception.AuthenticationFailedException;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
 import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
 import com.tracktainment.bookmanager.security.context.DigitalUser;
 import com.tracktainment.bookmanager.security.util.SecurityUtil;
@@ -11,11 +14,14 @@ import com.tracktainment.bookmanager.usecases.DeleteUseCase;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import testutil.TestBookDataUtil;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +34,9 @@ class DeleteUseCaseTest {
     @Mock
     private BookDataProvider bookDataProvider;
 
+    @Mock
+    private BookSearchDataProvider bookSearchDataProvider;
+
     @Mock
     private DuxManagerDataProvider duxManagerDataProvider;
 
@@ -52,8 +61,7 @@ class DeleteUseCaseTest {
     void shouldDeleteBookSuccessfully() {
         // Arrange
         when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
-        doNothing().when(duxManagerDataProvider).deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
-        doNothing().when(bookDataProvider).delete(bookId);
+        mockOwnedAsset();
 
         DeleteUseCase.Input input = DeleteUseCase.Input.builder()
                 .jwt(jwt)
@@ -63,15 +71,38 @@ class DeleteUseCaseTest {
         // Act & Assert
         assertDoesNotThrow(() -> deleteUseCase.execute(input));
 
-        verify(securityUtil).getDigitalUser();
-        verify(duxManagerDataProvider).deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
-        verify(bookDataProvider).delete(bookId);
+        InOrder inOrder = inOrder(bookDataProvider, duxManagerDataProvider, bookSearchDataProvider);
+        inOrder.verify(bookDataProvider).delete(bookId, null);
+        inOrder.verify(duxManagerDataProvider).deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
+        inOrder.verify(bookSearchDataProvider).remove(bookId);
+    }
+
+    @Test
+    void shouldNotDeleteBookOfAnotherUser() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                eq(jwt), eq(digitalUser.getId()), eq(bookId), anyString(), anyString(), anyString(),
+                isNull(), isNull(), isNull())
+        ).thenReturn(Collections.emptyList());
+
+        DeleteUseCase.Input input = DeleteUseCase.Input.builder()
+                .jwt(jwt)
+                .id(bookId)
+                .build();
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> deleteUseCase.execute(input));
+
+        verify(bookDataProvider, never()).delete(any(), any());
+        verify(duxManagerDataProvider, never()).deleteAssetByExternalId(any(), any(), any());
     }
 
     @Test
     void shouldPropagateExceptionFromDuxManagerDataProvider() {
         // Arrange
         when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        mockOwnedAsset();
         doThrow(new RuntimeException("Failed to delete asset")).when(duxManagerDataProvider)
                 .deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
 
@@ -83,17 +114,16 @@ class DeleteUseCaseTest {
         // Act & Assert
         assertThrows(RuntimeException.class, () -> deleteUseCase.execute(input));
 
-        verify(securityUtil).getDigitalUser();
-        verify(duxManagerDataProvider).deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
-        verify(bookDataProvider, never()).delete(any());
+        verify(bookDataProvider).delete(bookId, null);
+        verify(bookSearchDataProvider, never()).remove(any());
     }
 
     @Test
     void shouldPropagateExceptionFromBookDataProvider() {
         // Arrange
         when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
-        doNothing().when(duxManagerDataProvider).deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
-        doThrow(new ResourceNotFoundException(Book.class, bookId)).when(bookDataProvider).delete(bookId);
+        mockOwnedAsset();
+        doThrow(new ResourceNotFoundException(Book.class, bookId)).when(bookDataProvider).delete(bookId, null);
 
         DeleteUseCase.Input input = DeleteUseCase.Input.builder()
                 .jwt(jwt)
@@ -103,9 +133,8 @@ class DeleteUseCaseTest {
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> deleteUseCase.execute(input));
 
-        verify(securityUtil).getDigitalUser();
-        verify(duxManagerDataProvider).deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
-        verify(bookDataProvider).delete(bookId);
+        verify(bookDataProvider).delete(bookId, null);
+        verify(duxManagerDataProvider, never()).deleteAssetByExternalId(any(), any(), any());
     }
 
     @Test
@@ -123,6 +152,56 @@ class DeleteUseCaseTest {
 
         verify(securityUtil).getDigitalUser();
         verify(duxManagerDataProvider, never()).deleteAssetByExternalId(any(), any(), any());
-        verify(bookDataProvider, never()).delete(any());
+        verify(bookDataProvider, never()).delete(any(), any());
+    }
+
+    @Test
+    void shouldDeleteOnlyTheIfMatchVersion() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        mockOwnedAsset();
+
+        DeleteUseCase.Input input = DeleteUseCase.Input.builder()
+                .jwt(jwt)
+                .id(bookId)
+                .version(3L)
+                .build();
+
+        // Act
+        deleteUseCase.execute(input);
+
+        // Assert
+        verify(bookDataProvider).delete(bookId, 3L);
+        verify(duxManagerDataProvider).deleteAssetByExternalId(jwt, digitalUser.getId(), bookId);
+    }
+
+    @Test
+    void shouldKeepAssetWhenIfMatchVersionIsStale() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        mockOwnedAsset();
+        doThrow(new PreconditionFailedException(Book.class, bookId, 3L)).when(bookDataProvider).delete(bookId, 3L);
+
+        DeleteUseCase.Input input = DeleteUseCase.Input.builder()
+                .jwt(jwt)
+                .id(bookId)
+                .version(3L)
+                .build();
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> deleteUseCase.execute(input));
+
+        verify(duxManagerDataProvider, never()).deleteAssetByExternalId(any(), any(), any());
+        verify(bookSearchDataProvider, never()).remove(any());
+    }
+
+    private void mockOwnedAsset() {
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                eq(jwt), eq(digitalUser.getId()), eq(bookId), anyString(), anyString(), anyString(),
+                isNull(), isNull(), isNull())
+        ).thenReturn(List.of(AssetResponse.builder()
+                .externalId(bookId)
+                .type("book")
+                .build()));
     }
 }
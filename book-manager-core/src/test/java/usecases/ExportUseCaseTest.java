@@ -0,0 +1,125 @@
+package usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.ExportUseCase;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import testutil.TestBookDataUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportUseCaseTest {
+
+    @Mock
+    private BookDataProvider bookDataProvider;
+
+    @Mock
+    private DuxManagerDataProvider duxManagerDataProvider;
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    @InjectMocks
+    private ExportUseCase exportUseCase;
+
+    private DigitalUser digitalUser;
+    private String jwt;
+
+    @BeforeEach
+    void setUp() {
+        digitalUser = TestBookDataUtil.createTestDigitalUser();
+        jwt = "Bearer token";
+    }
+
+    @Test
+    void shouldExportEveryMatchingBookToOutputStream() {
+        // Arrange
+        Book book = TestBookDataUtil.createTestBook();
+        AssetResponse assetResponse = AssetResponse.builder()
+                .externalId(book.getId())
+                .type("book")
+                .build();
+
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                eq(jwt), eq(digitalUser.getId()), isNull(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), isNull())
+        ).thenReturn(List.of(assetResponse));
+        when(bookDataProvider.exportByCriteria(any(ListByCriteriaUseCase.Input.class), any(OutputStream.class)))
+                .thenReturn(2L);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ExportUseCase.Input input = ExportUseCase.Input.builder()
+                .jwt(jwt)
+                .title("gatsby")
+                .orderByList(Collections.singletonList(OrderBy.TITLE))
+                .orderDirectionList(Collections.singletonList(OrderDirection.ASC))
+                .outputStream(outputStream)
+                .build();
+
+        // Act
+        ExportUseCase.Output output = exportUseCase.execute(input);
+
+        // Assert
+        assertEquals(2, output.getExported());
+
+        ArgumentCaptor<ListByCriteriaUseCase.Input> criteriaCaptor = ArgumentCaptor.forClass(ListByCriteriaUseCase.Input.class);
+        verify(bookDataProvider).exportByCriteria(criteriaCaptor.capture(), eq(outputStream));
+        ListByCriteriaUseCase.Input criteria = criteriaCaptor.getValue();
+        assertEquals(book.getId(), criteria.getIds());
+        assertEquals("gatsby", criteria.getTitle());
+        assertEquals(List.of(OrderBy.TITLE), criteria.getOrderByList());
+        assertNull(criteria.getOffset());
+        assertNull(criteria.getLimit());
+        verify(duxManagerDataProvider, times(1)).findAssetsByCriteria(
+                any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldExportNothingWhenUserOwnsNoMatchingBooks() {
+        // Arrange
+        String ids = UUID.randomUUID().toString();
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                eq(jwt), eq(digitalUser.getId()), eq(ids), anyString(), anyString(), anyString(),
+                isNull(), isNull(), isNull())
+        ).thenReturn(Collections.emptyList());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ExportUseCase.Input input = ExportUseCase.Input.builder()
+                .jwt(jwt)
+                .ids(ids)
+                .outputStream(outputStream)
+                .build();
+
+        // Act
+        ExportUseCase.Output output = exportUseCase.execute(input);
+
+        // Assert
+        assertEquals(0, output.getExported());
+        assertEquals(0, outputStream.size());
+        verifyNoInteractions(bookDataProvider);
+    }
+}
@@ -0,0 +1,119 @@
+package usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.FacetsUseCase;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import testutil.TestBookDataUtil;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FacetsUseCaseTest {
+
+    @Mock
+    private BookDataProvider bookDataProvider;
+
+    @Mock
+    private DuxManagerDataProvider duxManagerDataProvider;
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    @InjectMocks
+    private FacetsUseCase facetsUseCase;
+
+    private DigitalUser digitalUser;
+    private String jwt;
+
+    @BeforeEach
+    void setUp() {
+        digitalUser = TestBookDataUtil.createTestDigitalUser();
+        jwt = "Bearer token";
+    }
+
+    @Test
+    void shouldCountFacetsOfTheUsersMatchingBooks() {
+        // Arrange
+        Book book = TestBookDataUtil.createTestBook();
+        AssetResponse assetResponse = AssetResponse.builder()
+                .externalId(book.getId())
+                .type("book")
+                .build();
+        BookFacets bookFacets = BookFacets.builder()
+                .genres(List.of(new BookFacetCount("Drama", 1)))
+                .build();
+        LocalDate from = LocalDate.of(2024, 1, 1);
+
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                eq(jwt), eq(digitalUser.getId()), isNull(), anyString(), anyString(), anyString(),
+                isNull(), eq(from), isNull())
+        ).thenReturn(List.of(assetResponse));
+        when(bookDataProvider.facetsByCriteria(any(ListByCriteriaUseCase.Input.class))).thenReturn(bookFacets);
+
+        FacetsUseCase.Input input = FacetsUseCase.Input.builder()
+                .jwt(jwt)
+                .author("fitzgerald")
+                .from(from)
+                .build();
+
+        // Act
+        FacetsUseCase.Output output = facetsUseCase.execute(input);
+
+        // Assert
+        assertEquals(bookFacets, output.getFacets());
+
+        ArgumentCaptor<ListByCriteriaUseCase.Input> criteriaCaptor = ArgumentCaptor.forClass(ListByCriteriaUseCase.Input.class);
+        verify(bookDataProvider).facetsByCriteria(criteriaCaptor.capture());
+        ListByCriteriaUseCase.Input criteria = criteriaCaptor.getValue();
+        assertEquals(book.getId(), criteria.getIds());
+        assertEquals("fitzgerald", criteria.getAuthor());
+        assertEquals(from, criteria.getFrom());
+        assertNull(criteria.getJwt());
+        assertNull(criteria.getOrderByList());
+    }
+
+    @Test
+    void shouldCountNothingWhenUserOwnsNoMatchingBooks() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                eq(jwt), eq(digitalUser.getId()), isNull(), anyString(), anyString(), anyString(),
+                isNull(), isNull(), isNull())
+        ).thenReturn(Collections.emptyList());
+
+        FacetsUseCase.Input input = FacetsUseCase.Input.builder()
+                .jwt(jwt)
+                .build();
+
+        // Act
+        FacetsUseCase.Output output = facetsUseCase.execute(input);
+
+        // Assert
+        assertTrue(output.getFacets().getGenres().isEmpty());
+        assertTrue(output.getFacets().getLanguages().isEmpty());
+        assertTrue(output.getFacets().getPublishers().isEmpty());
+        assertTrue(output.getFacets().getPublishedYears().isEmpty());
+        verifyNoInteractions(bookDataProvider);
+    }
+}
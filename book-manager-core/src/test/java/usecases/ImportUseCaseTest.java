@@ -0,0 +1,202 @@
+package usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportReport;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.exception.AuthenticationFailedException;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.ImportUseCase;
+import com.tracktainment.bookmanager.util.Constants;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import testutil.TestBookDataUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportUseCaseTest {
+
+    @Mock
+    private BookDataProvider bookDataProvider;
+
+    @Mock
+    private BookSearchDataProvider bookSearchDataProvider;
+
+    @Mock
+    private DuxManagerDataProvider duxManagerDataProvider;
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private ImportUseCase importUseCase;
+
+    private DigitalUser digitalUser;
+    private String jwt;
+
+    @BeforeEach
+    void setUp() {
+        importUseCase = new ImportUseCase(
+                bookDataProvider,
+                bookSearchDataProvider,
+                duxManagerDataProvider,
+                securityUtil,
+                validator
+        );
+        digitalUser = TestBookDataUtil.createTestDigitalUser();
+        jwt = "Bearer token";
+    }
+
+    @Test
+    void shouldImportValidRowsAndReportRejectedOnes() {
+        // Arrange
+        Book book = TestBookDataUtil.createTestBook();
+        BookImportRow validRow = createRow(1, TestBookDataUtil.createTestBookCreate());
+        BookImportRow duplicateRow = createRow(2, TestBookDataUtil.createTestBookCreate());
+        BookImportRow invalidRow = createRow(3, BookCreate.builder().title("Moby Dick").build());
+        BookImportRow unreadableRow = BookImportRow.builder().line(4).error("Invalid JSON: unexpected end-of-input").build();
+        BookImportError duplicateError = BookImportError.builder().line(2).message("BookEntity The Great Gatsby already exists.").build();
+
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(bookDataProvider.importAll(anyList())).thenReturn(BookImportResult.builder()
+                .books(List.of(book))
+                .errors(List.of(duplicateError))
+                .build());
+
+        // Act
+        BookImportReport report = execute(List.of(validRow, duplicateRow, invalidRow, unreadableRow).iterator());
+
+        // Assert
+        assertEquals(4, report.getRows());
+        assertEquals(1, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertEquals(List.of(
+                BookImportError.builder().line(3).message(Constants.AUTHOR_MANDATORY_MSG).build(),
+                BookImportError.builder().line(4).message("Invalid JSON: unexpected end-of-input").build(),
+                duplicateError
+        ), report.getErrors());
+        assertTrue(report.getRowsPerSecond() > 0);
+
+        verify(bookDataProvider).importAll(argThat(rows -> rows.equals(List.of(validRow, duplicateRow))));
+        verify(duxManagerDataProvider).createAssets(eq(jwt), eq(digitalUser.getId()), argThat(assetRequests ->
+                assetRequests.size() == 1 && assetRequests.get(0).getExternalId().equals(book.getId())
+        ));
+        verify(bookSearchDataProvider).indexAll(List.of(book));
+    }
+
+    @Test
+    void shouldRollbackChunkWhenAssetsCannotBeCreated() {
+        // Arrange
+        Book book = TestBookDataUtil.createTestBook();
+        book.setVersion(0L);
+        BookImportRow row = createRow(1, TestBookDataUtil.createTestBookCreate());
+
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(bookDataProvider.importAll(anyList())).thenReturn(BookImportResult.builder()
+                .books(List.of(book))
+                .errors(Collections.emptyList())
+                .build());
+        when(duxManagerDataProvider.createAssets(eq(jwt), eq(digitalUser.getId()), anyList()))
+                .thenThrow(new RuntimeException("Failed to create assets"));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> execute(List.of(row).iterator()));
+        assertEquals("Failed to create assets", exception.getMessage());
+
+        verify(bookDataProvider).deleteAll(List.of(book));
+        verify(bookDataProvider, never()).delete(anyString(), any());
+        verifyNoInteractions(bookSearchDataProvider);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRequireAuthenticatedUserBeforeReadingRows() {
+        // Arrange
+        Iterator<BookImportRow> rows = mock(Iterator.class);
+        when(securityUtil.getDigitalUser()).thenThrow(new AuthenticationFailedException("JWT not found in security context"));
+
+        // Act & Assert
+        assertThrows(AuthenticationFailedException.class, () -> execute(rows));
+
+        verifyNoInteractions(rows, bookDataProvider, duxManagerDataProvider);
+    }
+
+    @Test
+    void shouldImportInBoundedChunks() {
+        // Arrange
+        int rowCount = Constants.IMPORT_CHUNK_SIZE * 2 + 1;
+        Iterator<BookImportRow> rows = LongStream.rangeClosed(1, rowCount)
+                .mapToObj(line -> createRow(line, BookCreate.builder().title("Title " + line).author("Author").build()))
+                .iterator();
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(bookDataProvider.importAll(anyList())).thenAnswer(invocation -> {
+            chunkSizes.add(invocation.<List<BookImportRow>>getArgument(0).size());
+            return BookImportResult.builder()
+                    .books(Collections.emptyList())
+                    .errors(Collections.emptyList())
+                    .build();
+        });
+
+        // Act
+        BookImportReport report = execute(rows);
+
+        // Assert
+        assertEquals(rowCount, report.getRows());
+        assertEquals(List.of(Constants.IMPORT_CHUNK_SIZE, Constants.IMPORT_CHUNK_SIZE, 1), chunkSizes);
+    }
+
+    @Test
+    void shouldCapReportedErrors() {
+        // Arrange
+        int rowCount = Constants.MAX_IMPORT_ERRORS + 10;
+        Iterator<BookImportRow> rows = LongStream.rangeClosed(1, rowCount)
+                .mapToObj(line -> BookImportRow.builder().line(line).error("Invalid CSV").build())
+                .iterator();
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+
+        // Act
+        BookImportReport report = execute(rows);
+
+        // Assert
+        assertEquals(rowCount, report.getRejected());
+        assertEquals(Constants.MAX_IMPORT_ERRORS, report.getErrors().size());
+        verifyNoInteractions(bookDataProvider, bookSearchDataProvider, duxManagerDataProvider);
+    }
+
+    private BookImportReport execute(Iterator<BookImportRow> rows) {
+        return importUseCase.execute(ImportUseCase.Input.builder()
+                .jwt(jwt)
+                .rows(rows)
+                .build()).getReport();
+    }
+
+    private BookImportRow createRow(long line, BookCreate bookCreate) {
+        return BookImportRow.builder()
+                .line(line)
+                .bookCreate(bookCreate)
+                .build();
+    }
+}
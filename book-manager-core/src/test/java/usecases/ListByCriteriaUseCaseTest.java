@@ -5,6 +5,7 @@ import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.domain.OrderBy;
 import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookPage;
 import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
 import com.tracktainment.bookmanager.security.context.DigitalUser;
 import com.tracktainment.bookmanager.security.util.SecurityUtil;
@@ -97,7 +98,8 @@ class ListByCriteriaUseCaseTest {
                 isNull())
         ).thenReturn(assetResponses);
 
-        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class))).thenReturn(books);
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(BookPage.builder().books(books).build());
 
         List<OrderBy> orderByList = Collections.singletonList(OrderBy.TITLE);
         List<OrderDirection> orderDirectionList = Collections.singletonList(OrderDirection.ASC);
@@ -141,7 +143,8 @@ class ListByCriteriaUseCaseTest {
                 any(), any(), any(), any(), any(), any(), any(), any(), any())
         ).thenReturn(Collections.emptyList());
 
-        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class))).thenReturn(Collections.emptyList());
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(BookPage.builder().books(Collections.emptyList()).build());
 
         ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
                 .jwt(jwt)
@@ -189,7 +192,8 @@ class ListByCriteriaUseCaseTest {
                 isNull())
         ).thenReturn(Collections.singletonList(assetResponse1));
 
-        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class))).thenReturn(Collections.singletonList(book1));
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(BookPage.builder().books(Collections.singletonList(book1)).build());
 
         ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
                 .jwt(jwt)
@@ -240,7 +244,8 @@ class ListByCriteriaUseCaseTest {
                 eq(to))
         ).thenReturn(assetResponses);
 
-        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class))).thenReturn(books);
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(BookPage.builder().books(books).build());
 
         ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
                 .jwt(jwt)
@@ -271,4 +276,62 @@ class ListByCriteriaUseCaseTest {
         );
         verify(bookDataProvider).listByCriteria(any(ListByCriteriaUseCase.Input.class));
     }
+
+    @Test
+    void shouldPropagateNextCursor() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                any(), any(), any(), any(), any(), any(), any(), any(), any())
+        ).thenReturn(assetResponses);
+
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(BookPage.builder().books(books).nextCursor("next").build());
+
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .jwt(jwt)
+                .limit(2)
+                .cursor("previous")
+                .build();
+
+        // Act
+        ListByCriteriaUseCase.Output output = listByCriteriaUseCase.execute(input);
+
+        // Assert
+        assertEquals(books, output.getBooks());
+        assertEquals("next", output.getNextCursor());
+        verify(bookDataProvider).listByCriteria(argThat(criteria -> "previous".equals(criteria.getCursor())));
+    }
+
+    @Test
+    void shouldPropagateHasMoreAndTotalCount() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                any(), any(), any(), any(), any(), any(), any(), any(), any())
+        ).thenReturn(assetResponses);
+
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(BookPage.builder()
+                        .books(books)
+                        .hasMore(true)
+                        .totalCount(42L)
+                        .totalCountEstimated(false)
+                        .build());
+
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .jwt(jwt)
+                .limit(2)
+                .withTotalCount(true)
+                .build();
+
+        // Act
+        ListByCriteriaUseCase.Output output = listByCriteriaUseCase.execute(input);
+
+        // Assert
+        assertTrue(output.isHasMore());
+        assertEquals(42L, output.getTotalCount());
+        assertFalse(output.getTotalCountEstimated());
+        verify(bookDataProvider).listByCriteria(argThat(ListByCriteriaUseCase.Input::isWithTotalCount));
+    }
 }
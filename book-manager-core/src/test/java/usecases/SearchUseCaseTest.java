@@ -0,0 +1,157 @@
+package usecases;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.dataprovider.DuxManagerDataProvider;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.tracktainment.bookmanager.usecases.SearchUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import testutil.TestBookDataUtil;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchUseCaseTest {
+
+    @Mock
+    private BookDataProvider bookDataProvider;
+
+    @Mock
+    private BookSearchDataProvider bookSearchDataProvider;
+
+    @Mock
+    private DuxManagerDataProvider duxManagerDataProvider;
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    @InjectMocks
+    private SearchUseCase searchUseCase;
+
+    private Book book1;
+    private Book book2;
+    private DigitalUser digitalUser;
+    private String jwt;
+    private SearchUseCase.Input input;
+
+    @BeforeEach
+    void setUp() {
+        book1 = TestBookDataUtil.createTestBookWithId(UUID.randomUUID().toString());
+        book2 = TestBookDataUtil.createTestBookWithId(UUID.randomUUID().toString());
+        digitalUser = TestBookDataUtil.createTestDigitalUser();
+        jwt = "Bearer token";
+
+        input = SearchUseCase.Input.builder()
+                .jwt(jwt)
+                .query("gatsby")
+                .limit(10)
+                .build();
+    }
+
+    @Test
+    void shouldReturnOwnedBooksInRelevanceOrder() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(
+                eq(jwt), eq(digitalUser.getId()), isNull(), any(), any(), any(), isNull(), isNull(), isNull()
+        )).thenReturn(List.of(
+                AssetResponse.builder().externalId(book1.getId()).build(),
+                AssetResponse.builder().externalId(book2.getId()).build()
+        ));
+        when(bookSearchDataProvider.search("gatsby", List.of(book1.getId(), book2.getId()), 10)).thenReturn(List.of(
+                BookSearchHit.builder().id(book2.getId()).score(3.5).build(),
+                BookSearchHit.builder().id(book1.getId()).score(1.25).build()
+        ));
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class))).thenReturn(BookPage.builder()
+                .books(List.of(book1, book2))
+                .build());
+
+        // Act
+        SearchUseCase.Output output = searchUseCase.execute(input);
+
+        // Assert
+        assertEquals(2, output.getHits().size());
+        assertEquals(book2, output.getHits().get(0).getBook());
+        assertEquals(3.5, output.getHits().get(0).getScore());
+        assertEquals(book1, output.getHits().get(1).getBook());
+
+        verify(bookDataProvider).listByCriteria(argThat(listInput ->
+                listInput.getIds().equals(book2.getId() + "," + book1.getId()) &&
+                        listInput.getLimit() == 2
+        ));
+    }
+
+    @Test
+    void shouldDropHitsForBooksNoLongerStored() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(
+                        AssetResponse.builder().externalId(book1.getId()).build(),
+                        AssetResponse.builder().externalId(book2.getId()).build()
+                ));
+        when(bookSearchDataProvider.search(any(), any(), anyInt())).thenReturn(List.of(
+                BookSearchHit.builder().id(book2.getId()).score(3.5).build(),
+                BookSearchHit.builder().id(book1.getId()).score(1.25).build()
+        ));
+        when(bookDataProvider.listByCriteria(any(ListByCriteriaUseCase.Input.class))).thenReturn(BookPage.builder()
+                .books(List.of(book1))
+                .build());
+
+        // Act
+        SearchUseCase.Output output = searchUseCase.execute(input);
+
+        // Assert
+        assertEquals(1, output.getHits().size());
+        assertEquals(book1, output.getHits().get(0).getBook());
+    }
+
+    @Test
+    void shouldNotSearchWhenDigitalUserOwnsNoBooks() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        SearchUseCase.Output output = searchUseCase.execute(input);
+
+        // Assert
+        assertTrue(output.getHits().isEmpty());
+        verify(bookSearchDataProvider, never()).search(any(), any(), anyInt());
+        verify(bookDataProvider, never()).listByCriteria(any());
+    }
+
+    @Test
+    void shouldNotLoadBooksWhenNothingMatches() {
+        // Arrange
+        when(securityUtil.getDigitalUser()).thenReturn(digitalUser);
+        when(duxManagerDataProvider.findAssetsByCriteria(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(AssetResponse.builder().externalId(book1.getId()).build()));
+        when(bookSearchDataProvider.search(any(), any(), anyInt())).thenReturn(Collections.emptyList());
+
+        // Act
+        SearchUseCase.Output output = searchUseCase.execute(input);
+
+        // Assert
+        assertTrue(output.getHits().isEmpty());
+        verify(bookDataProvider, never()).listByCriteria(any());
+    }
+}
@@ -1,8 +1,10 @@
 package usecases;
 
 import com.tracktainment.bookmanager.dataprovider.BookDataProvider;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
 import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
 import com.tracktainment.bookmanager.usecases.FindByIdUseCase;
 import com.tracktainment.bookmanager.usecases.UpdateUseCase;
@@ -26,6 +28,9 @@ class UpdateUseCaseTest {
     @Mock
     private BookDataProvider bookDataProvider;
 
+    @Mock
+    private BookSearchDataProvider bookSearchDataProvider;
+
     @Mock
     private FindByIdUseCase findByIdUseCase;
 
@@ -54,7 +59,7 @@ class UpdateUseCaseTest {
                 FindByIdUseCase.Output.builder().book(book).build()
         );
 
-        when(bookDataProvider.update(eq(bookId), eq(bookUpdate))).thenReturn(updatedBook);
+        when(bookDataProvider.update(eq(bookId), eq(bookUpdate), isNull())).thenReturn(updatedBook);
 
         UpdateUseCase.Input input = UpdateUseCase.Input.builder()
                 .jwt(jwt)
@@ -70,7 +75,8 @@ class UpdateUseCaseTest {
         assertEquals(updatedBook, output.getBook());
 
         verify(findByIdUseCase).execute(any(FindByIdUseCase.Input.class));
-        verify(bookDataProvider).update(bookId, bookUpdate);
+        verify(bookDataProvider).update(bookId, bookUpdate, null);
+        verify(bookSearchDataProvider).index(updatedBook);
     }
 
     @Test
@@ -89,7 +95,7 @@ class UpdateUseCaseTest {
         assertThrows(ResourceNotFoundException.class, () -> updateUseCase.execute(input));
 
         verify(findByIdUseCase).execute(any(FindByIdUseCase.Input.class));
-        verify(bookDataProvider, never()).update(any(), any());
+        verify(bookDataProvider, never()).update(any(), any(), any());
     }
 
     @Test
@@ -99,7 +105,7 @@ class UpdateUseCaseTest {
                 FindByIdUseCase.Output.builder().book(book).build()
         );
 
-        when(bookDataProvider.update(eq(bookId), eq(bookUpdate)))
+        when(bookDataProvider.update(eq(bookId), eq(bookUpdate), isNull()))
                 .thenThrow(new RuntimeException("Database error"));
 
         UpdateUseCase.Input input = UpdateUseCase.Input.builder()
@@ -112,7 +118,7 @@ class UpdateUseCaseTest {
         assertThrows(RuntimeException.class, () -> updateUseCase.execute(input));
 
         verify(findByIdUseCase).execute(any(FindByIdUseCase.Input.class));
-        verify(bookDataProvider).update(bookId, bookUpdate);
+        verify(bookDataProvider).update(bookId, bookUpdate, null);
     }
 
     @Test
@@ -122,7 +128,7 @@ class UpdateUseCaseTest {
                 FindByIdUseCase.Output.builder().book(book).build()
         );
 
-        when(bookDataProvider.update(eq(bookId), eq(bookUpdate))).thenReturn(updatedBook);
+        when(bookDataProvider.update(eq(bookId), eq(bookUpdate), isNull())).thenReturn(updatedBook);
 
         UpdateUseCase.Input input = UpdateUseCase.Input.builder()
                 .jwt(jwt)
@@ -139,4 +145,27 @@ class UpdateUseCaseTest {
                         findByIdInput.getId().equals(bookId)
         ));
     }
+
+    @Test
+    void shouldPassTheIfMatchVersionToBookDataProvider() {
+        // Arrange
+        when(findByIdUseCase.execute(any(FindByIdUseCase.Input.class))).thenReturn(
+                FindByIdUseCase.Output.builder().book(book).build()
+        );
+
+        when(bookDataProvider.update(bookId, bookUpdate, 3L))
+                .thenThrow(new PreconditionFailedException(Book.class, bookId, 3L));
+
+        UpdateUseCase.Input input = UpdateUseCase.Input.builder()
+                .jwt(jwt)
+                .id(bookId)
+                .bookUpdate(bookUpdate)
+                .version(3L)
+                .build();
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> updateUseCase.execute(input));
+
+        verify(bookSearchDataProvider, never()).index(any());
+    }
 }
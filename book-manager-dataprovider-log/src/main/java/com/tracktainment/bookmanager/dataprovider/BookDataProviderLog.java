@@ -0,0 +1,326 @@
+package com.tracktainment.bookmanager.dataprovider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.log.BookLog;
+import com.tracktainment.bookmanager.log.BookLogOrdering;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.memory.BookFilter;
+import com.tracktainment.bookmanager.memory.BookOrdering;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.tracktainment.bookmanager.util.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+// Books kept on local disk by BookLog, for single-node deployments without a database. Every read decodes the book
+// from its mapped segment into a new object, so nothing handed out is shared. There are no sorted indexes: lists,
+// counts, facets and exports scan the live books, and a page only keeps the books up to its end while doing so
+@Service
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "log")
+@RequiredArgsConstructor
+public class BookDataProviderLog implements BookDataProvider {
+
+    private static final Comparator<BookFacetCount> FACET_ORDER = Comparator.comparingLong(BookFacetCount::getCount)
+            .reversed()
+            .thenComparing(BookFacetCount::getValue);
+
+    private final BookLog bookLog;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Book create(BookCreate bookCreate) {
+        return bookLog.appendAll(List.of(toBook(bookCreate, now()))).get(0);
+    }
+
+    @Override
+    public List<Book> createAll(List<BookCreate> bookCreates) {
+        LocalDateTime now = now();
+        return bookLog.appendAll(bookCreates.stream().map(bookCreate -> toBook(bookCreate, now)).toList());
+    }
+
+    @Override
+    public BookImportResult importAll(List<BookImportRow> rows) {
+        // Titles that are already stored, or repeated within the chunk, are skipped instead of failing the chunk
+        LocalDateTime now = now();
+        Map<Book, BookImportRow> rowsByBook = new IdentityHashMap<>();
+        List<Book> books = new ArrayList<>();
+        for (BookImportRow row : rows) {
+            Book book = toBook(row.getBookCreate(), now);
+            rowsByBook.put(book, row);
+            books.add(book);
+        }
+
+        List<Book> imported = bookLog.appendAbsent(books);
+        imported.forEach(rowsByBook::remove);
+        List<BookImportError> errors = books.stream()
+                .filter(rowsByBook::containsKey)
+                .map(book -> BookImportError.builder()
+                        .line(rowsByBook.get(book).getLine())
+                        .message(String.format(
+                                ResourceAlreadyExistsException.ERROR_MESSAGE,
+                                Book.class.getSimpleName(),
+                                book.getTitle()
+                        ))
+                        .build())
+                .toList();
+
+        return BookImportResult.builder()
+                .books(imported)
+                .errors(errors)
+                .build();
+    }
+
+    @Override
+    public Book findById(String id) {
+        // One probe of the id index and one decode from the mapped segment, no lock and no file read
+        BookLog.Entry entry = bookLog.read(UUID.fromString(id));
+        if (entry == null) {
+            throw new ResourceNotFoundException(Book.class, id);
+        }
+
+        return entry.book();
+    }
+
+    @Override
+    public BookPage listByCriteria(ListByCriteriaUseCase.Input input) {
+        Map<OrderBy, OrderDirection> sorting = BookOrdering.toSorting(input);
+        BookCursorMapper.Cursor cursor = input.getCursor() != null ?
+                BookCursorMapper.fromCursor(input.getCursor(), sorting) :
+                null;
+
+        int limit = input.getLimit() != null ? input.getLimit() : Integer.parseInt(Constants.DEFAULT_LIMIT);
+        // A cursor skips straight past the last seen book, so the offset only applies to the first page
+        int offset = cursor == null && input.getOffset() != null ? input.getOffset() : Constants.MIN_OFFSET;
+
+        // The heap holds the first offset + limit + 1 books seen so far with the last of them on top, one book more
+        // than the page tells whether another page follows
+        BookFilter filter = BookFilter.of(input);
+        BookLogOrdering ordering = new BookLogOrdering(sorting);
+        int kept = offset + limit + 1;
+        PriorityQueue<BookLog.Entry> firstEntries = new PriorityQueue<>(ordering.reversed());
+        long[] count = {0};
+        bookLog.forEach(filter.getIds(), entry -> {
+            if (!filter.matches(entry.book())) {
+                return true;
+            }
+
+            // The count ignores the cursor and the page, it is the size of the whole result
+            count[0]++;
+            if (cursor == null || ordering.isAfter(entry, cursor)) {
+                firstEntries.add(entry);
+                if (firstEntries.size() > kept) {
+                    firstEntries.poll();
+                }
+            }
+            return true;
+        });
+
+        List<BookLog.Entry> entries = new ArrayList<>(firstEntries);
+        entries.sort(ordering);
+        boolean hasMore = entries.size() == kept;
+        List<BookLog.Entry> page = entries.subList(
+                Math.min(offset, entries.size()),
+                Math.min(offset + limit, entries.size())
+        );
+
+        // Listed books carry no version, like the SQL data provider's projections
+        List<Book> books = new ArrayList<>(page.size());
+        for (BookLog.Entry entry : page) {
+            entry.book().setVersion(null);
+            books.add(entry.book());
+        }
+
+        BookLog.Entry last = hasMore ? page.get(page.size() - 1) : null;
+        BookPage bookPage = BookPage.builder()
+                .books(books)
+                .nextCursor(last != null ? BookCursorMapper.toCursor(last.book(), last.dbId(), sorting) : null)
+                .hasMore(hasMore)
+                .build();
+
+        if (input.isWithTotalCount()) {
+            // The scan visits every matching book anyway, the count is exact
+            bookPage.setTotalCount(count[0]);
+            bookPage.setTotalCountEstimated(false);
+        }
+
+        return bookPage;
+    }
+
+    @Override
+    public long exportByCriteria(ListByCriteriaUseCase.Input input, OutputStream outputStream) {
+        // Without sorted indexes the whole result is collected and sorted before the first line goes out
+        Map<OrderBy, OrderDirection> sorting = BookOrdering.toSorting(input);
+        BookFilter filter = BookFilter.of(input);
+        List<BookLog.Entry> entries = new ArrayList<>();
+        bookLog.forEach(filter.getIds(), entry -> {
+            if (filter.matches(entry.book())) {
+                entries.add(entry);
+            }
+            return true;
+        });
+        entries.sort(new BookLogOrdering(sorting));
+
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(StreamWriteFeature.AUTO_CLOSE_TARGET.mappedFeature());
+            // Each line ends with its own newline, the default root separator is not needed
+            generator.setRootValueSeparator(null);
+            long rows = 0;
+            for (BookLog.Entry entry : entries) {
+                writer.writeValue(generator, entry.book());
+                generator.writeRaw('\n');
+
+                // The first line goes out right away, the rest as the buffers fill
+                if (rows++ == 0) {
+                    generator.flush();
+                }
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public BookFacets facetsByCriteria(ListByCriteriaUseCase.Input input) {
+        // One pass over the matching books counts all four facets
+        Map<String, long[]> genres = new HashMap<>();
+        Map<String, long[]> languages = new HashMap<>();
+        Map<String, long[]> publishers = new HashMap<>();
+        Map<String, long[]> publishedYears = new HashMap<>();
+
+        BookFilter filter = BookFilter.of(input);
+        bookLog.forEach(filter.getIds(), entry -> {
+            Book book = entry.book();
+            if (filter.matches(book)) {
+                increment(genres, book.getGenre());
+                increment(languages, book.getLanguage());
+                increment(publishers, book.getPublisher());
+                increment(publishedYears, book.getPublishedDate() != null ?
+                        String.valueOf(book.getPublishedDate().getYear()) :
+                        null);
+            }
+            return true;
+        });
+
+        return BookFacets.builder()
+                .genres(toFacetCounts(genres))
+                .languages(toFacetCounts(languages))
+                .publishers(toFacetCounts(publishers))
+                .publishedYears(toFacetCounts(publishedYears))
+                .build();
+    }
+
+    @Override
+    public Book update(String id, BookUpdate bookUpdate, Long version) {
+        // Only the non-null fields are set, matching the null-ignore semantics of BookUpdate
+        if (isEmpty(bookUpdate)) {
+            Book book = findById(id);
+            if (version != null && !version.equals(book.getVersion())) {
+                throw new PreconditionFailedException(Book.class, id, version);
+            }
+
+            return book;
+        }
+
+        LocalDateTime now = now();
+        return bookLog.replace(id, version, current -> Book.builder()
+                .id(current.getId())
+                .title(valueOr(bookUpdate.getTitle(), current.getTitle()))
+                .author(valueOr(bookUpdate.getAuthor(), current.getAuthor()))
+                .genre(valueOr(bookUpdate.getGenre(), current.getGenre()))
+                .isbn(valueOr(bookUpdate.getIsbn(), current.getIsbn()))
+                .publisher(valueOr(bookUpdate.getPublisher(), current.getPublisher()))
+                .publishedDate(valueOr(bookUpdate.getPublishedDate(), current.getPublishedDate()))
+                .language(valueOr(bookUpdate.getLanguage(), current.getLanguage()))
+                .createdAt(current.getCreatedAt())
+                .updatedAt(now)
+                .build());
+    }
+
+    @Override
+    public void delete(String id, Long version) {
+        bookLog.remove(id, version);
+    }
+
+    @Override
+    public void deleteAll(List<Book> books) {
+        bookLog.removeAll(books);
+    }
+
+    private Book toBook(BookCreate bookCreate, LocalDateTime now) {
+        return Book.builder()
+                .id(UUID.randomUUID().toString())
+                .title(bookCreate.getTitle())
+                .author(bookCreate.getAuthor())
+                .genre(bookCreate.getGenre())
+                .isbn(bookCreate.getIsbn())
+                .publisher(bookCreate.getPublisher())
+                .publishedDate(bookCreate.getPublishedDate())
+                .language(bookCreate.getLanguage())
+                .createdAt(now)
+                .updatedAt(now)
+                .version(0L)
+                .build();
+    }
+
+    private boolean isEmpty(BookUpdate bookUpdate) {
+        return bookUpdate.getTitle() == null && bookUpdate.getAuthor() == null && bookUpdate.getGenre() == null &&
+                bookUpdate.getIsbn() == null && bookUpdate.getPublisher() == null &&
+                bookUpdate.getPublishedDate() == null && bookUpdate.getLanguage() == null;
+    }
+
+    private <T> T valueOr(T value, T current) {
+        return value != null ? value : current;
+    }
+
+    private void increment(Map<String, long[]> counts, String value) {
+        if (value != null) {
+            counts.computeIfAbsent(value, key -> new long[1])[0]++;
+        }
+    }
+
+    private List<BookFacetCount> toFacetCounts(Map<String, long[]> counts) {
+        return counts.entrySet().stream()
+                .map(entry -> new BookFacetCount(entry.getKey(), entry.getValue()[0]))
+                .sorted(FACET_ORDER)
+                .toList();
+    }
+
+    private LocalDateTime now() {
+        // Postgres keeps timestamps to the microsecond, cursors built from them have to round-trip exactly
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
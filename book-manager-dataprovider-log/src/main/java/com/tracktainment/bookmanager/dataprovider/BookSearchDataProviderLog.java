@@ -0,0 +1,73 @@
+package com.tracktainment.bookmanager.dataprovider;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.log.BookLog;
+import com.tracktainment.bookmanager.search.BookInvertedIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// The search index of the books in BookLog. The log outlives the process and the index does not, so it is built from
+// the recovered books when the bean is created, before any request can write
+@Service
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "log")
+@Slf4j
+public class BookSearchDataProviderLog implements BookSearchDataProvider {
+
+    private final BookLog bookLog;
+    private final BookInvertedIndex bookInvertedIndex = new BookInvertedIndex();
+
+    public BookSearchDataProviderLog(BookLog bookLog) {
+        this.bookLog = bookLog;
+
+        long start = System.currentTimeMillis();
+        bookLog.forEach(null, entry -> {
+            bookInvertedIndex.put(entry.dbId(), entry.book().getId(), toFields(entry.book()));
+            return true;
+        });
+        log.info("Search index built with {} books in {} ms.", bookInvertedIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void index(Book book) {
+        // A book removed before it is indexed is no longer in the log and stays out
+        BookLog.Entry entry = bookLog.read(UUID.fromString(book.getId()));
+        if (entry != null) {
+            bookInvertedIndex.put(entry.dbId(), book.getId(), toFields(book));
+        }
+    }
+
+    @Override
+    public void indexAll(List<Book> books) {
+        books.forEach(this::index);
+    }
+
+    @Override
+    public void remove(String id) {
+        bookInvertedIndex.remove(id);
+    }
+
+    @Override
+    public List<BookSearchHit> search(String query, Collection<String> ids, int limit) {
+        return bookInvertedIndex.search(query, ids, limit).stream()
+                .map(hit -> BookSearchHit.builder()
+                        .id(hit.getId())
+                        .score((double) hit.getScore())
+                        .build())
+                .toList();
+    }
+
+    private String[] toFields(Book book) {
+        return new String[]{
+                book.getTitle(),
+                book.getAuthor(),
+                book.getPublisher(),
+                book.getGenre()
+        };
+    }
+}
@@ -0,0 +1,623 @@
+package com.tracktainment.bookmanager.log;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Books kept in an append-only log of checksummed records, split into segment files under one directory. Every write
+// appends a record, a put with the whole book or a delete, and moves the book's entry in the id index to it; nothing in
+// a segment is ever overwritten. Reads go through the index straight to the mapped segment and decode the book there.
+// Writers are serialized by one lock, readers take none. Compaction copies the live records of the sealed segments
+// into new ones and deletes the old, recovery scans all segments and keeps the record with the highest lsn of each book
+@Component
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "log")
+@Slf4j
+public class BookLog implements Closeable {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("books-(\\d+)\\.log");
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    private static final String COMPACTED_LIST = "books.compacted";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final ConcurrentHashMap<UUID, Location> index;
+
+    // Owned by the writer holding the lock
+    private final Map<String, UUID> titles;
+    private final List<Segment> sealed = new ArrayList<>();
+    private Segment active;
+    private long nextSegment;
+    private long nextLsn;
+    private long nextDbId;
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    public BookLog(
+            @Value("${books.log.directory:data/books}") Path directory,
+            @Value("${books.log.segment-size:64MB}") DataSize segmentSize,
+            @Value("${books.log.fsync:true}") boolean fsync
+    ) {
+        this.directory = directory;
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.fsync = fsync;
+
+        long start = System.nanoTime();
+        List<Scan> scans = scanSegments();
+        // Sized for every record found, the books of a freshly compacted log fill them without a resize
+        int records = scans.stream().mapToInt(Scan::count).sum();
+        this.index = new ConcurrentHashMap<>(records);
+        this.titles = HashMap.newHashMap(records);
+        recover(scans);
+        log.info("Recovered {} books from {} segments of {} in {} ms", index.size(), sealed.size(), directory,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public Entry read(UUID id) {
+        Location location = index.get(id);
+        return location != null ? location.entry() : null;
+    }
+
+    // Visits the live books, or those of the given ids, in no particular order until the visitor returns false
+    public void forEach(UUID[] ids, Predicate<Entry> visitor) {
+        if (ids != null) {
+            for (UUID id : Arrays.stream(ids).distinct().toList()) {
+                Entry entry = read(id);
+                if (entry != null && !visitor.test(entry)) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        for (Location location : index.values()) {
+            if (!visitor.test(location.entry())) {
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public List<Book> appendAll(List<Book> books) {
+        writeLock.lock();
+        try {
+            // A title repeated within the batch fails it as a whole, like a title that is already stored
+            Set<String> batchTitles = new HashSet<>();
+            for (Book book : books) {
+                if (!batchTitles.add(book.getTitle()) || titles.containsKey(book.getTitle())) {
+                    throw new ResourceAlreadyExistsException(Book.class, book.getTitle());
+                }
+            }
+
+            append(books);
+            return books;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public List<Book> appendAbsent(List<Book> books) {
+        writeLock.lock();
+        try {
+            // The first book of each title that is not stored yet claims it, the others are left out
+            Set<String> batchTitles = new HashSet<>();
+            List<Book> absent = new ArrayList<>();
+            for (Book book : books) {
+                if (batchTitles.add(book.getTitle()) && !titles.containsKey(book.getTitle())) {
+                    absent.add(book);
+                }
+            }
+
+            append(absent);
+            return absent;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Book replace(String id, Long version, UnaryOperator<Book> change) {
+        writeLock.lock();
+        try {
+            UUID uuid = UUID.fromString(id);
+            Location location = findWritable(uuid, id, version);
+            Book current = location.entry().book();
+            Book replacement = change.apply(current);
+            replacement.setVersion(current.getVersion() + 1);
+
+            boolean titleChanged = !current.getTitle().equals(replacement.getTitle());
+            if (titleChanged && titles.containsKey(replacement.getTitle())) {
+                throw new ResourceAlreadyExistsException(Book.class, replacement.getTitle());
+            }
+
+            // The book keeps its dbId, so cursors handed out before the update stay where they were
+            long dbId = BookRecordCodec.dbId(location.segment().buffer(), location.offset());
+            Segment first = active;
+            int from = active.end();
+            Location replaced = write(BookRecordCodec.encodePut(scratch, nextLsn++, dbId, replacement));
+            flush(first, from);
+
+            index.put(uuid, replaced);
+            if (titleChanged) {
+                titles.remove(current.getTitle());
+                titles.put(replacement.getTitle(), uuid);
+            }
+            location.addGarbage();
+            return replacement;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(String id, Long version) {
+        writeLock.lock();
+        try {
+            UUID uuid = UUID.fromString(id);
+            Location location = findWritable(uuid, id, version);
+            String title = BookRecordCodec.title(location.segment().buffer(), location.offset());
+
+            // The delete record only has to outlive the puts before it, compaction drops both
+            Segment first = active;
+            int from = active.end();
+            Location deleted = write(BookRecordCodec.encodeDelete(scratch, nextLsn++, uuid));
+            flush(first, from);
+
+            index.remove(uuid);
+            titles.remove(title);
+            location.addGarbage();
+            deleted.addGarbage();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void removeAll(List<Book> books) {
+        writeLock.lock();
+        try {
+            // Books already removed, or stored at another version than the one they carry, are left out
+            Map<UUID, Location> removed = new LinkedHashMap<>();
+            for (Book book : books) {
+                UUID uuid = UUID.fromString(book.getId());
+                Location location = index.get(uuid);
+                if (location != null && Objects.equals(book.getVersion(), location.entry().book().getVersion())) {
+                    removed.put(uuid, location);
+                }
+            }
+            if (removed.isEmpty()) {
+                return;
+            }
+
+            List<String> removedTitles = removed.values().stream()
+                    .map(location -> BookRecordCodec.title(location.segment().buffer(), location.offset()))
+                    .toList();
+
+            // All the delete records are flushed at once, like the puts of a batch
+            Segment first = active;
+            int from = active.end();
+            List<Location> deletes = new ArrayList<>(removed.size());
+            for (UUID uuid : removed.keySet()) {
+                deletes.add(write(BookRecordCodec.encodeDelete(scratch, nextLsn++, uuid)));
+            }
+            flush(first, from);
+
+            removed.keySet().forEach(index::remove);
+            removedTitles.forEach(titles::remove);
+            removed.values().forEach(Location::addGarbage);
+            deletes.forEach(Location::addGarbage);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // The share of the sealed segments taken by records that compaction would drop
+    public double garbageRatio() {
+        writeLock.lock();
+        try {
+            long used = 0;
+            long garbage = 0;
+            for (Segment segment : sealed) {
+                used += segment.used();
+                garbage += segment.garbage();
+            }
+            return used > 0 ? (double) garbage / used : 0;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Rewrites the sealed segments with their live records only and returns the bytes reclaimed. Writers keep going
+    // meanwhile: the sealed segments never change, and a book written again during the copy keeps its newer record
+    public long compact() {
+        compactionLock.lock();
+        try {
+            List<Segment> compacted;
+            writeLock.lock();
+            try {
+                compacted = List.copyOf(sealed);
+            } finally {
+                writeLock.unlock();
+            }
+            if (compacted.isEmpty()) {
+                return 0;
+            }
+
+            // Live records are copied as they are, checksum and lsn included, into files that only count once renamed
+            List<Segment> outputs = new ArrayList<>();
+            List<Path> outputPaths = new ArrayList<>();
+            List<Move> moves = new ArrayList<>();
+            Segment output = null;
+            for (Segment segment : compacted) {
+                ByteBuffer buffer = segment.buffer();
+                for (int offset = Segment.FILE_HEADER_SIZE, size; offset < segment.end(); offset += size) {
+                    size = BookRecordCodec.size(buffer, offset);
+                    Location location = new Location(segment, offset);
+                    if (BookRecordCodec.type(buffer, offset) != BookRecordCodec.PUT ||
+                            !location.equals(index.get(BookRecordCodec.id(buffer, offset)))) {
+                        continue;
+                    }
+
+                    if (output == null || !output.fits(size)) {
+                        if (output != null) {
+                            output.force(0);
+                        }
+                        long number = allocateSegmentNumber();
+                        Path outputPath = compactingPath(number);
+                        output = Segment.create(number, outputPath, segmentSize);
+                        outputs.add(output);
+                        outputPaths.add(outputPath);
+                    }
+                    Location moved = new Location(output, output.append(segment, offset, size));
+                    moves.add(new Move(BookRecordCodec.id(buffer, offset), location, moved));
+                }
+            }
+            if (output != null) {
+                output.force(0);
+            }
+            for (int i = 0; i < outputs.size(); i++) {
+                Files.move(outputPaths.get(i), segmentPath(outputs.get(i).number()), StandardCopyOption.ATOMIC_MOVE);
+            }
+            syncDirectory();
+
+            writeLock.lock();
+            try {
+                for (Move move : moves) {
+                    if (!index.replace(move.id(), move.from(), move.to())) {
+                        move.to().addGarbage();
+                    }
+                }
+                Set<Segment> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+                removed.addAll(compacted);
+                sealed.removeIf(removed::contains);
+                sealed.addAll(outputs);
+            } finally {
+                writeLock.unlock();
+            }
+
+            // Until the old files are gone, recovery finds each moved record twice, with the same lsn. Deletes are not
+            // copied, so the old files go all together: the list written first lets recovery finish an interrupted
+            // removal, instead of finding a put whose delete record is already gone
+            Path compactedList = directory.resolve(COMPACTED_LIST);
+            Path compactedListDraft = directory.resolve(COMPACTED_LIST + COMPACTING_SUFFIX);
+            Files.write(compactedListDraft, compacted.stream()
+                    .map(segment -> String.valueOf(segment.number()))
+                    .toList());
+            try (FileChannel channel = FileChannel.open(compactedListDraft, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(compactedListDraft, compactedList, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+
+            long reclaimed = 0;
+            for (Segment segment : compacted) {
+                Files.deleteIfExists(segmentPath(segment.number()));
+                reclaimed += segment.used();
+            }
+            for (Segment segment : outputs) {
+                reclaimed -= segment.used();
+            }
+            Files.delete(compactedList);
+            syncDirectory();
+            return reclaimed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            active.force(0);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void append(List<Book> books) {
+        Segment first = active;
+        int from = active.end();
+        Location[] locations = new Location[books.size()];
+        for (int i = 0; i < books.size(); i++) {
+            locations[i] = write(BookRecordCodec.encodePut(scratch, nextLsn++, nextDbId++, books.get(i)));
+        }
+        flush(first, from);
+
+        // Published only once durable, a reader never sees a book that a crash could take back
+        for (int i = 0; i < books.size(); i++) {
+            UUID id = UUID.fromString(books.get(i).getId());
+            index.put(id, locations[i]);
+            titles.put(books.get(i).getTitle(), id);
+        }
+    }
+
+    private Location write(ByteBuffer record) {
+        scratch = record;
+        if (!active.fits(record.remaining())) {
+            if (record.remaining() > segmentSize - Segment.FILE_HEADER_SIZE) {
+                throw new IllegalArgumentException(
+                        "A record of " + record.remaining() + " bytes does not fit in a segment of " + segmentSize);
+            }
+
+            // A sealed segment is flushed whole whatever the fsync setting, compaction relies on it being on disk
+            active.force(0);
+            sealed.add(active);
+            active = Segment.create(nextSegment, segmentPath(nextSegment), segmentSize);
+            nextSegment++;
+            syncDirectory();
+        }
+
+        return new Location(active, active.append(record));
+    }
+
+    private void flush(Segment first, int from) {
+        // Segments sealed since the first record of the write were flushed as they were sealed
+        if (fsync) {
+            active.force(first == active ? from : 0);
+        }
+    }
+
+    private Location findWritable(UUID uuid, String id, Long version) {
+        Location location = index.get(uuid);
+        if (location == null) {
+            throw new ResourceNotFoundException(Book.class, id);
+        }
+
+        // The version is compared and bumped under the lock, so of two writes read at the same version only one applies
+        if (version != null && !version.equals(location.entry().book().getVersion())) {
+            throw new PreconditionFailedException(Book.class, id, version);
+        }
+
+        return location;
+    }
+
+    private long allocateSegmentNumber() {
+        writeLock.lock();
+        try {
+            return nextSegment++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private List<Scan> scanSegments() {
+        List<Path> paths = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            // A compaction that stopped while removing the segments it had copied
+            Path compactedList = directory.resolve(COMPACTED_LIST);
+            if (Files.exists(compactedList)) {
+                for (String number : Files.readAllLines(compactedList)) {
+                    Files.deleteIfExists(segmentPath(Long.parseLong(number)));
+                }
+                Files.delete(compactedList);
+            }
+
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : files.toList()) {
+                    // Left by a compaction that did not finish, the segments it was compacting are all still there
+                    if (path.getFileName().toString().endsWith(COMPACTING_SUFFIX)) {
+                        Files.delete(path);
+                    } else if (SEGMENT_FILE.matcher(path.getFileName().toString()).matches()) {
+                        paths.add(path);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Checksums are verified on all segments in parallel, which is most of the reading
+        return paths.parallelStream().map(this::scan).toList();
+    }
+
+    private void recover(List<Scan> scans) {
+        // Each book keeps its record with the highest lsn, wherever the segments put it; the others are garbage
+        long lastLsn = -1;
+        long lastDbId = -1;
+        long lastSegment = -1;
+        for (Scan scan : scans) {
+            Segment segment = scan.segment();
+            lastSegment = Math.max(lastSegment, segment.number());
+            lastLsn = Math.max(lastLsn, scan.lastLsn());
+            lastDbId = Math.max(lastDbId, scan.lastDbId());
+            if (scan.count() == 0) {
+                deleteQuietly(segmentPath(segment.number()));
+                continue;
+            }
+
+            sealed.add(segment);
+            for (int i = 0; i < scan.count(); i++) {
+                Location location = new Location(segment, scan.offsets()[i]);
+                UUID id = BookRecordCodec.id(segment.buffer(), location.offset());
+                Location previous = index.putIfAbsent(id, location);
+                if (previous != null && previous.lsn() >= location.lsn()) {
+                    location.addGarbage();
+                } else if (previous != null) {
+                    previous.addGarbage();
+                    index.put(id, location);
+                }
+            }
+        }
+
+        // Deletes only had to shadow the puts before them
+        for (Iterator<Map.Entry<UUID, Location>> entries = index.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<UUID, Location> entry = entries.next();
+            Location location = entry.getValue();
+            if (location.type() == BookRecordCodec.DELETE) {
+                location.addGarbage();
+                entries.remove();
+            } else {
+                titles.put(BookRecordCodec.title(location.segment().buffer(), location.offset()), entry.getKey());
+            }
+        }
+
+        // Writes always start a new segment, the one written when the last process stopped is sealed as it is
+        nextLsn = lastLsn + 1;
+        nextDbId = lastDbId + 1;
+        nextSegment = lastSegment + 2;
+        active = Segment.create(lastSegment + 1, segmentPath(lastSegment + 1), segmentSize);
+        syncDirectory();
+    }
+
+    private Scan scan(Path path) {
+        Matcher matcher = SEGMENT_FILE.matcher(path.getFileName().toString());
+        matcher.matches();
+        Segment segment = Segment.open(Long.parseLong(matcher.group(1)), path);
+        ByteBuffer buffer = segment.buffer();
+        CRC32C checksum = new CRC32C();
+
+        int[] offsets = new int[1024];
+        int count = 0;
+        long lastLsn = -1;
+        long lastDbId = -1;
+        int offset = Segment.FILE_HEADER_SIZE;
+        for (int size; (size = BookRecordCodec.check(buffer, offset, segment.end(), checksum)) > 0; offset += size) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = offset;
+
+            lastLsn = Math.max(lastLsn, BookRecordCodec.lsn(buffer, offset));
+            if (BookRecordCodec.type(buffer, offset) == BookRecordCodec.PUT) {
+                lastDbId = Math.max(lastDbId, BookRecordCodec.dbId(buffer, offset));
+            }
+        }
+
+        // Only the segment being written can end in a record cut short; it is cut back to the last whole record.
+        // Zeros past it are the unwritten rest of a segment mapped at full size
+        if (offset < segment.end()) {
+            if (!BookRecordCodec.isUnwritten(buffer, offset, segment.end())) {
+                log.warn("Dropping a damaged or partly written record at offset {} of {}", offset, path);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segment.truncate(offset);
+        }
+
+        return new Scan(segment, offsets, count, lastLsn, lastDbId);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("books-%012d.log", number));
+    }
+
+    private Path compactingPath(long number) {
+        return directory.resolve(segmentPath(number).getFileName() + COMPACTING_SUFFIX);
+    }
+
+    private void syncDirectory() {
+        // New and renamed files only survive a crash once their directory entry is flushed as well. Not every platform
+        // can open a directory, there the file system is left to it
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not flush directory {}", directory, e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete empty segment {}", path, e);
+        }
+    }
+
+    // A stored book and the dbId it was given when created, which orders books of equal keys
+    public record Entry(Book book, long dbId) {
+    }
+
+    // Segments compare by identity, a location equals another only when both point at the same record
+    private record Location(Segment segment, int offset) {
+
+        Entry entry() {
+            ByteBuffer buffer = segment.buffer();
+            return new Entry(BookRecordCodec.decode(buffer, offset), BookRecordCodec.dbId(buffer, offset));
+        }
+
+        byte type() {
+            return BookRecordCodec.type(segment.buffer(), offset);
+        }
+
+        long lsn() {
+            return BookRecordCodec.lsn(segment.buffer(), offset);
+        }
+
+        void addGarbage() {
+            segment.addGarbage(BookRecordCodec.size(segment.buffer(), offset));
+        }
+    }
+
+    private record Move(UUID id, Location from, Location to) {
+    }
+
+    // The offsets of the whole records of a segment, in the order they were written
+    private record Scan(Segment segment, int[] offsets, int count, long lastLsn, long lastDbId) {
+    }
+}
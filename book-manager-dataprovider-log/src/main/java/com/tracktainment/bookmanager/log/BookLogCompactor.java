@@ -0,0 +1,39 @@
+package com.tracktainment.bookmanager.log;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "log")
+@Slf4j
+public class BookLogCompactor {
+
+    private final BookLog bookLog;
+    private final double minGarbageRatio;
+
+    public BookLogCompactor(
+            BookLog bookLog,
+            @Value("${books.log.compaction.min-garbage-ratio:0.5}") double minGarbageRatio
+    ) {
+        this.bookLog = bookLog;
+        this.minGarbageRatio = minGarbageRatio;
+    }
+
+    // Checking is cheap, the sealed segments are only rewritten once enough of them is taken by replaced and deleted
+    // books; the segment being written is left alone
+    @Scheduled(cron = "${books.log.compaction.cron:0 * * * * *}")
+    public void compact() {
+        double garbageRatio = bookLog.garbageRatio();
+        if (garbageRatio < minGarbageRatio || garbageRatio == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        long reclaimed = bookLog.compact();
+        log.info("Compacted the book log at a garbage ratio of {}, reclaimed {} bytes in {} ms",
+                String.format("%.2f", garbageRatio), reclaimed, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,70 @@
+package com.tracktainment.bookmanager.log;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+
+import java.util.Comparator;
+import java.util.Map;
+
+// The order of the SQL list queries over log entries: the requested keys, nulls last ascending and first descending,
+// then the dbId in the direction of the last key. Texts compare by Java String order, like the Postgres C collation
+public class BookLogOrdering implements Comparator<BookLog.Entry> {
+
+    private final OrderBy[] keys;
+    private final boolean[] descending;
+    private final boolean tieBreakerDescending;
+
+    public BookLogOrdering(Map<OrderBy, OrderDirection> sorting) {
+        this.keys = sorting.keySet().toArray(OrderBy[]::new);
+        this.descending = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            descending[i] = sorting.get(keys[i]) == OrderDirection.DESC;
+        }
+        this.tieBreakerDescending = keys.length > 0 && descending[keys.length - 1];
+    }
+
+    @Override
+    public int compare(BookLog.Entry first, BookLog.Entry second) {
+        for (int i = 0; i < keys.length; i++) {
+            int compared = compareKeys(key(first.book(), keys[i]), key(second.book(), keys[i]));
+            if (compared != 0) {
+                return descending[i] ? -compared : compared;
+            }
+        }
+
+        return tieBreakerDescending ?
+                Long.compare(second.dbId(), first.dbId()) :
+                Long.compare(first.dbId(), second.dbId());
+    }
+
+    // Whether the entry comes after the last book of the page the cursor was made for
+    public boolean isAfter(BookLog.Entry entry, BookCursorMapper.Cursor cursor) {
+        for (int i = 0; i < keys.length; i++) {
+            int compared = compareKeys(key(entry.book(), keys[i]), cursor.getValues().get(i));
+            if (compared != 0) {
+                return (descending[i] ? -compared : compared) > 0;
+            }
+        }
+
+        return tieBreakerDescending ? entry.dbId() < cursor.getDbId() : entry.dbId() > cursor.getDbId();
+    }
+
+    private static Comparable<?> key(Book book, OrderBy orderBy) {
+        return switch (orderBy) {
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case GENRE -> book.getGenre();
+            case CREATED_AT -> book.getCreatedAt();
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Comparable a, Comparable b) {
+        if (a == null) {
+            return b == null ? 0 : 1;
+        }
+        return b == null ? -1 : a.compareTo(b);
+    }
+}
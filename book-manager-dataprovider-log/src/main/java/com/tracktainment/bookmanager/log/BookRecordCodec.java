@@ -0,0 +1,262 @@
+package com.tracktainment.bookmanager.log;
+
+import com.tracktainment.bookmanager.domain.Book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+// A record is its payload length, the CRC32C of the payload and the payload itself:
+//   type (byte), lsn, id (two longs), and for a put dbId, version, a bitmask of the fields that are set (short) and the
+//   set fields: strings as a varint byte length and UTF-8, the publication date as an epoch day (int), the timestamps
+//   as epoch microseconds (long).
+// The fixed prefix up to the dbId is read on recovery without decoding the rest
+final class BookRecordCodec {
+
+    static final int HEADER_SIZE = 8;
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final int TYPE = HEADER_SIZE;
+    private static final int LSN = TYPE + 1;
+    private static final int ID = LSN + 8;
+    private static final int DB_ID = ID + 16;
+    private static final int VERSION = DB_ID + 8;
+    private static final int FIELDS = VERSION + 8;
+    private static final int PUT_PREFIX_SIZE = FIELDS + 2;
+    private static final int DELETE_SIZE = DB_ID;
+
+    private static final int TITLE = 1;
+    private static final int AUTHOR = 1 << 1;
+    private static final int GENRE = 1 << 2;
+    private static final int ISBN = 1 << 3;
+    private static final int PUBLISHER = 1 << 4;
+    private static final int LANGUAGE = 1 << 5;
+    private static final int PUBLISHED_DATE = 1 << 6;
+    private static final int CREATED_AT = 1 << 7;
+    private static final int UPDATED_AT = 1 << 8;
+
+    private BookRecordCodec() {
+    }
+
+    // Writes the whole record into the start of the buffer, which is grown when too small, and returns it with its
+    // limit at the end of the record
+    static ByteBuffer encodePut(ByteBuffer buffer, long lsn, long dbId, Book book) {
+        byte[][] texts = {
+                bytes(book.getTitle()),
+                bytes(book.getAuthor()),
+                bytes(book.getGenre()),
+                bytes(book.getIsbn()),
+                bytes(book.getPublisher()),
+                bytes(book.getLanguage())
+        };
+
+        int fields = 0;
+        int size = PUT_PREFIX_SIZE;
+        for (int i = 0; i < texts.length; i++) {
+            if (texts[i] != null) {
+                fields |= 1 << i;
+                size += varIntSize(texts[i].length) + texts[i].length;
+            }
+        }
+        if (book.getPublishedDate() != null) {
+            fields |= PUBLISHED_DATE;
+            size += 4;
+        }
+        if (book.getCreatedAt() != null) {
+            fields |= CREATED_AT;
+            size += 8;
+        }
+        if (book.getUpdatedAt() != null) {
+            fields |= UPDATED_AT;
+            size += 8;
+        }
+
+        ByteBuffer record = capacity(buffer, size);
+        UUID id = UUID.fromString(book.getId());
+        record.put(TYPE, PUT)
+                .putLong(LSN, lsn)
+                .putLong(ID, id.getMostSignificantBits())
+                .putLong(ID + 8, id.getLeastSignificantBits())
+                .putLong(DB_ID, dbId)
+                .putLong(VERSION, book.getVersion())
+                .putShort(FIELDS, (short) fields)
+                .position(PUT_PREFIX_SIZE);
+        for (byte[] text : texts) {
+            if (text != null) {
+                putVarInt(record, text.length);
+                record.put(text);
+            }
+        }
+        if (book.getPublishedDate() != null) {
+            record.putInt(Math.toIntExact(book.getPublishedDate().toEpochDay()));
+        }
+        if (book.getCreatedAt() != null) {
+            record.putLong(toMicros(book.getCreatedAt()));
+        }
+        if (book.getUpdatedAt() != null) {
+            record.putLong(toMicros(book.getUpdatedAt()));
+        }
+
+        return seal(record, size);
+    }
+
+    static ByteBuffer encodeDelete(ByteBuffer buffer, long lsn, UUID id) {
+        ByteBuffer record = capacity(buffer, DELETE_SIZE);
+        record.put(TYPE, DELETE)
+                .putLong(LSN, lsn)
+                .putLong(ID, id.getMostSignificantBits())
+                .putLong(ID + 8, id.getLeastSignificantBits());
+        return seal(record, DELETE_SIZE);
+    }
+
+    // The size of the valid record at the offset, or -1 at the end of the written records: zeros never written, a
+    // record cut short by a crash or one whose checksum does not match
+    static int check(ByteBuffer buffer, int offset, int end, CRC32C checksum) {
+        if (offset > end - HEADER_SIZE) {
+            return -1;
+        }
+
+        int length = buffer.getInt(offset);
+        if (length < DELETE_SIZE - HEADER_SIZE || length > end - offset - HEADER_SIZE) {
+            return -1;
+        }
+
+        checksum.reset();
+        checksum.update(buffer.slice(offset + HEADER_SIZE, length));
+        return (int) checksum.getValue() == buffer.getInt(offset + 4) ? HEADER_SIZE + length : -1;
+    }
+
+    // Whether the offset holds no record at all, as opposed to a damaged one
+    static boolean isUnwritten(ByteBuffer buffer, int offset, int end) {
+        return offset > end - HEADER_SIZE || buffer.getInt(offset) == 0;
+    }
+
+    static int size(ByteBuffer buffer, int offset) {
+        return HEADER_SIZE + buffer.getInt(offset);
+    }
+
+    static byte type(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + TYPE);
+    }
+
+    static long lsn(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + LSN);
+    }
+
+    static UUID id(ByteBuffer buffer, int offset) {
+        return new UUID(buffer.getLong(offset + ID), buffer.getLong(offset + ID + 8));
+    }
+
+    static long dbId(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + DB_ID);
+    }
+
+    // Reads the title alone, for the unique titles rebuilt on recovery
+    static String title(ByteBuffer buffer, int offset) {
+        if ((buffer.getShort(offset + FIELDS) & TITLE) == 0) {
+            return null;
+        }
+
+        int[] position = {offset + PUT_PREFIX_SIZE};
+        return getText(buffer, position);
+    }
+
+    // Only absolute reads, so readers can share the buffer of a segment without copying it
+    static Book decode(ByteBuffer buffer, int offset) {
+        int fields = buffer.getShort(offset + FIELDS);
+        int[] position = {offset + PUT_PREFIX_SIZE};
+
+        Book book = new Book();
+        book.setId(id(buffer, offset).toString());
+        book.setVersion(buffer.getLong(offset + VERSION));
+        book.setTitle((fields & TITLE) != 0 ? getText(buffer, position) : null);
+        book.setAuthor((fields & AUTHOR) != 0 ? getText(buffer, position) : null);
+        book.setGenre((fields & GENRE) != 0 ? getText(buffer, position) : null);
+        book.setIsbn((fields & ISBN) != 0 ? getText(buffer, position) : null);
+        book.setPublisher((fields & PUBLISHER) != 0 ? getText(buffer, position) : null);
+        book.setLanguage((fields & LANGUAGE) != 0 ? getText(buffer, position) : null);
+        if ((fields & PUBLISHED_DATE) != 0) {
+            book.setPublishedDate(LocalDate.ofEpochDay(buffer.getInt(position[0])));
+            position[0] += 4;
+        }
+        if ((fields & CREATED_AT) != 0) {
+            book.setCreatedAt(fromMicros(buffer.getLong(position[0])));
+            position[0] += 8;
+        }
+        if ((fields & UPDATED_AT) != 0) {
+            book.setUpdatedAt(fromMicros(buffer.getLong(position[0])));
+        }
+
+        return book;
+    }
+
+    private static ByteBuffer capacity(ByteBuffer buffer, int size) {
+        ByteBuffer record = buffer.capacity() >= size ?
+                buffer :
+                ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+        return record.clear();
+    }
+
+    private static ByteBuffer seal(ByteBuffer record, int size) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(record.array(), HEADER_SIZE, size - HEADER_SIZE);
+        return record.putInt(0, size - HEADER_SIZE)
+                .putInt(4, (int) checksum.getValue())
+                .limit(size)
+                .position(0);
+    }
+
+    private static String getText(ByteBuffer buffer, int[] position) {
+        int length = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position[0]++);
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        byte[] text = new byte[length];
+        buffer.get(position[0], text);
+        position[0] += length;
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static byte[] bytes(String text) {
+        return text != null ? text.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000,
+                ZoneOffset.UTC
+        );
+    }
+}
@@ -0,0 +1,126 @@
+package com.tracktainment.bookmanager.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// One file of the log, mapped whole into memory. The file starts with a magic number and the format version, records
+// follow back to back. A segment being written is mapped at its full capacity and appended to through the mapping; the
+// mapping outlives the channel and the file itself, so readers holding a location keep reading after compaction
+// deleted the segment
+final class Segment {
+
+    static final int FILE_HEADER_SIZE = 8;
+
+    private static final int MAGIC = 0x424B4C47;
+    private static final int FORMAT_VERSION = 1;
+
+    private final long number;
+    private final MappedByteBuffer buffer;
+
+    // Written and read under the write lock of BookLog; readers only go to offsets published through its index
+    private int end;
+    private long garbage;
+
+    private Segment(long number, MappedByteBuffer buffer, int end) {
+        this.number = number;
+        this.buffer = buffer;
+        this.end = end;
+    }
+
+    static Segment create(long number, Path path, int capacity) {
+        try (FileChannel channel = FileChannel.open(
+                path,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        )) {
+            // Mapping past the end grows the file; the bytes not written yet read as zeros, which ends a scan
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC).putInt(4, FORMAT_VERSION);
+            buffer.force(0, FILE_HEADER_SIZE);
+            return new Segment(number, buffer, FILE_HEADER_SIZE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static Segment open(long number, Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Segment " + path + " is larger than a segment can be");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < FILE_HEADER_SIZE ||
+                    buffer.getInt(0) != MAGIC ||
+                    buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IllegalStateException("Segment " + path + " is not a book log segment of version " +
+                        FORMAT_VERSION);
+            }
+
+            return new Segment(number, buffer, buffer.capacity());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long number() {
+        return number;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    int end() {
+        return end;
+    }
+
+    // Records at and past the end are dropped, after recovery found them cut short
+    void truncate(int end) {
+        this.end = end;
+    }
+
+    boolean fits(int size) {
+        return size <= buffer.capacity() - end;
+    }
+
+    int append(ByteBuffer record) {
+        int offset = end;
+        buffer.put(offset, record, record.position(), record.remaining());
+        end += record.remaining();
+        return offset;
+    }
+
+    int append(Segment source, int offset, int size) {
+        int appendedAt = end;
+        buffer.put(appendedAt, source.buffer, offset, size);
+        end += size;
+        return appendedAt;
+    }
+
+    // Flushes the pages holding the records from the offset on to the file
+    void force(int from) {
+        if (from < end) {
+            buffer.force(from, end - from);
+        }
+    }
+
+    long garbage() {
+        return garbage;
+    }
+
+    void addGarbage(int size) {
+        garbage += size;
+    }
+
+    // The bytes taken by records, live or not
+    long used() {
+        return end - FILE_HEADER_SIZE;
+    }
+}
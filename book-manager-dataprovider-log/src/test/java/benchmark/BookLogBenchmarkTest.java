@@ -0,0 +1,123 @@
+package benchmark;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.log.BookLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-log -am -Dtest=BookLogBenchmarkTest -Dbenchmark=true
+//   -Dsurefire.failIfNoSpecifiedTests=false
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookLogBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 1_000_000);
+    private static final int LOOKUPS = 1_000_000;
+    private static final int CHUNK_SIZE = 5_000;
+    private static final int RUNS = 5;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverQuicklyAndFindByIdFromMappedSegments() throws IOException {
+        // Arrange
+        String[] genres = {"Fiction", "Fantasy", "Mystery", "Biography", "History"};
+        String[] languages = {"English", "Portuguese", "Spanish", "French"};
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // Flushed once per chunk, like a createAll of that many books
+        BookLog bookLog = new BookLog(directory, DataSize.ofMegabytes(64), true);
+        UUID[] ids = new UUID[CATALOG_SIZE];
+        List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+        long writeStart = System.nanoTime();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            ids[i] = UUID.randomUUID();
+            chunk.add(Book.builder()
+                    .id(ids[i].toString())
+                    .title("The " + Integer.toHexString(i * 31) + " Chronicles " + i)
+                    .author("Author " + i % 5_000)
+                    .genre(genres[i % genres.length])
+                    .publishedDate(LocalDate.of(1900, 1, 1).plusDays(i % 40_000))
+                    .language(languages[i % languages.length])
+                    .createdAt(createdAt.plusSeconds(i))
+                    .updatedAt(createdAt.plusSeconds(i))
+                    .version(0L)
+                    .build());
+            if (chunk.size() == CHUNK_SIZE) {
+                bookLog.appendAll(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        bookLog.appendAll(chunk);
+        bookLog.close();
+        long writeNanos = System.nanoTime() - writeStart;
+
+        // Act
+        long recoveryStart = System.nanoTime();
+        BookLog recovered = new BookLog(directory, DataSize.ofMegabytes(64), true);
+        long recoveryNanos = System.nanoTime() - recoveryStart;
+
+        // Looked up in an order unrelated to the log, so segments are not read in sequence
+        int[] order = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            order[i] = (int) ((i * 7_919L) % CATALOG_SIZE);
+        }
+
+        long[] nanos = new long[RUNS];
+        long found = 0;
+        // The first run warms up the JIT and faults the segments in
+        for (int run = -1; run < RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i : order) {
+                found += recovered.read(ids[i]) != null ? 1 : 0;
+            }
+            if (run >= 0) {
+                nanos[run] = System.nanoTime() - start;
+            }
+        }
+
+        // Assert
+        Arrays.sort(nanos);
+        double nanosPerLookup = (double) nanos[RUNS / 2] / LOOKUPS;
+        System.out.printf("catalog size: %d books, %d lookups per run%n", CATALOG_SIZE, LOOKUPS);
+        System.out.printf("%-16s %12d%n", "ms to write", writeNanos / 1_000_000);
+        System.out.printf("%-16s %12d%n", "ms to recover", recoveryNanos / 1_000_000);
+        System.out.printf("%-16s %12.0f%n", "ns per findById", nanosPerLookup);
+        System.out.printf("%-16s %12d%n", "bytes per book", logSize() / CATALOG_SIZE);
+
+        assertEquals(CATALOG_SIZE, recovered.size());
+        assertEquals((long) (RUNS + 1) * LOOKUPS, found);
+        // Mostly the garbage collector copying the index as it grows, a few seconds for a million books on one core
+        assertTrue(recoveryNanos < 10_000_000_000L);
+        assertTrue(nanosPerLookup < 5_000);
+    }
+
+    private long logSize() throws IOException {
+        // Recovery cut the segments back to their records; the last one is the new, empty segment mapped at full size
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.sorted().toList();
+        }
+
+        long size = 0;
+        for (Path segment : segments.subList(0, segments.size() - 1)) {
+            size += Files.size(segment);
+        }
+        return size;
+    }
+}
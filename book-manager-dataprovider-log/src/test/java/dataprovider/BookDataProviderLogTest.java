@@ -0,0 +1,283 @@
+package dataprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderLog;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.log.BookLog;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDataProviderLogTest {
+
+    @TempDir
+    Path directory;
+
+    private ObjectMapper objectMapper;
+    private BookDataProviderLog bookDataProviderLog;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        bookDataProviderLog = new BookDataProviderLog(newBookLog(), objectMapper);
+    }
+
+    @Test
+    void shouldCreateAndFindBook() {
+        // Arrange
+        BookCreate bookCreate = bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama");
+
+        // Act
+        Book created = bookDataProviderLog.create(bookCreate);
+        Book found = bookDataProviderLog.findById(created.getId().toUpperCase());
+
+        // Assert
+        assertEquals(created, found);
+        assertEquals("The Great Gatsby", found.getTitle());
+        assertEquals(0L, found.getVersion());
+        assertNotNull(found.getCreatedAt());
+    }
+
+    @Test
+    void shouldKeepBooksAcrossRestart() {
+        // Arrange
+        Book book = bookDataProviderLog.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        bookDataProviderLog.update(book.getId(), BookUpdate.builder().genre("Tragedy").build(), 0L);
+
+        // Act
+        BookDataProviderLog restarted = new BookDataProviderLog(newBookLog(), objectMapper);
+
+        // Assert
+        Book found = restarted.findById(book.getId());
+        assertEquals("Tragedy", found.getGenre());
+        assertEquals(1L, found.getVersion());
+        assertEquals(book.getCreatedAt(), found.getCreatedAt());
+        assertThrows(ResourceAlreadyExistsException.class,
+                () -> restarted.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama")));
+    }
+
+    @Test
+    void shouldFailBatchWithDuplicateTitle() {
+        // Arrange
+        bookDataProviderLog.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        List<BookCreate> bookCreates = List.of(
+                bookCreate("Tender Is the Night", "F. Scott Fitzgerald", "Drama"),
+                bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama")
+        );
+
+        // Act & Assert
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookDataProviderLog.createAll(bookCreates));
+        assertEquals(1L, bookDataProviderLog.listByCriteria(listInput().withTotalCount(true).build()).getTotalCount());
+    }
+
+    @Test
+    void shouldImportAbsentTitlesAndReportTheOthers() {
+        // Arrange
+        bookDataProviderLog.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        List<BookImportRow> rows = List.of(
+                new BookImportRow(1, bookCreate("Tender Is the Night", "F. Scott Fitzgerald", "Drama"), null),
+                new BookImportRow(2, bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"), null),
+                new BookImportRow(3, bookCreate("Tender Is the Night", "F. Scott Fitzgerald", "Drama"), null)
+        );
+
+        // Act
+        BookImportResult result = bookDataProviderLog.importAll(rows);
+
+        // Assert
+        assertEquals(List.of("Tender Is the Night"), result.getBooks().stream().map(Book::getTitle).toList());
+        assertEquals(List.of(2L, 3L), result.getErrors().stream().map(BookImportError::getLine).toList());
+        assertEquals("Book The Great Gatsby already exists.", result.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void shouldPageThroughSortedBooksWithCursor() {
+        // Arrange
+        bookDataProviderLog.createAll(List.of(
+                bookCreate("Emma", "Jane Austen", "Romance"),
+                bookCreate("Persuasion", "Jane Austen", null),
+                bookCreate("Dracula", "Bram Stoker", "Horror"),
+                bookCreate("Ulysses", "James Joyce", null),
+                bookCreate("Beloved", "Toni Morrison", "Drama")
+        ));
+
+        // Act
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookPage bookPage = bookDataProviderLog.listByCriteria(listInput()
+                    .limit(2)
+                    .cursor(cursor)
+                    .orderByList(List.of(OrderBy.GENRE, OrderBy.TITLE))
+                    .orderDirectionList(List.of(OrderDirection.DESC, OrderDirection.ASC))
+                    .build());
+            bookPage.getBooks().forEach(book -> titles.add(book.getTitle()));
+            assertEquals(bookPage.isHasMore(), bookPage.getNextCursor() != null);
+            cursor = bookPage.getNextCursor();
+        } while (cursor != null);
+
+        // Assert
+        // Postgres puts nulls first when descending
+        assertEquals(List.of("Persuasion", "Ulysses", "Emma", "Dracula", "Beloved"), titles);
+    }
+
+    @Test
+    void shouldFilterAndCountBooks() {
+        // Arrange
+        bookDataProviderLog.createAll(List.of(
+                bookCreate("Emma", "Jane Austen", "Romance"),
+                bookCreate("Persuasion", "Jane Austen", "Romance"),
+                bookCreate("Dracula", "Bram Stoker", "Horror")
+        ));
+
+        // Act
+        BookPage bookPage = bookDataProviderLog.listByCriteria(listInput()
+                .author("AUSTEN")
+                .offset(1)
+                .withTotalCount(true)
+                .orderByList(List.of(OrderBy.TITLE))
+                .orderDirectionList(List.of(OrderDirection.ASC))
+                .build());
+
+        // Assert
+        assertEquals(List.of("Persuasion"), bookPage.getBooks().stream().map(Book::getTitle).toList());
+        assertNull(bookPage.getBooks().get(0).getVersion());
+        assertFalse(bookPage.isHasMore());
+        assertEquals(2L, bookPage.getTotalCount());
+        assertFalse(bookPage.getTotalCountEstimated());
+    }
+
+    @Test
+    void shouldCountFacetsOfMatchingBooks() {
+        // Arrange
+        bookDataProviderLog.createAll(List.of(
+                bookCreate("Emma", "Jane Austen", "Romance"),
+                bookCreate("Persuasion", "Jane Austen", "Romance"),
+                bookCreate("Dracula", "Bram Stoker", "Horror"),
+                bookCreate("Ulysses", "James Joyce", null)
+        ));
+
+        // Act
+        BookFacets bookFacets = bookDataProviderLog.facetsByCriteria(listInput().build());
+
+        // Assert
+        assertEquals(List.of(new BookFacetCount("Romance", 2), new BookFacetCount("Horror", 1)), bookFacets.getGenres());
+        assertEquals(List.of(new BookFacetCount("1925", 4)), bookFacets.getPublishedYears());
+        assertEquals(List.of(), bookFacets.getLanguages());
+    }
+
+    @Test
+    void shouldUpdateOnlyAtTheReadVersion() {
+        // Arrange
+        Book book = bookDataProviderLog.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        BookUpdate bookUpdate = BookUpdate.builder()
+                .title("Tender Is the Night")
+                .build();
+
+        // Act
+        Book updated = bookDataProviderLog.update(book.getId(), bookUpdate, 0L);
+
+        // Assert
+        assertEquals("Tender Is the Night", updated.getTitle());
+        assertEquals("F. Scott Fitzgerald", updated.getAuthor());
+        assertEquals(1L, updated.getVersion());
+        assertThrows(PreconditionFailedException.class, () -> bookDataProviderLog.update(book.getId(), bookUpdate, 0L));
+        assertEquals(List.of("Tender Is the Night"), bookDataProviderLog.listByCriteria(listInput()
+                        .orderByList(List.of(OrderBy.TITLE))
+                        .orderDirectionList(List.of(OrderDirection.ASC))
+                        .build())
+                .getBooks().stream().map(Book::getTitle).toList());
+    }
+
+    @Test
+    void shouldDeleteBook() {
+        // Arrange
+        Book book = bookDataProviderLog.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+
+        // Act
+        bookDataProviderLog.delete(book.getId(), 0L);
+
+        // Assert
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderLog.findById(book.getId()));
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderLog.delete(book.getId(), null));
+        assertTrue(bookDataProviderLog.listByCriteria(listInput().build()).getBooks().isEmpty());
+    }
+
+    @Test
+    void shouldDeleteAllBooksStillAtTheirVersions() {
+        // Arrange
+        Book gatsby = bookDataProviderLog.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        Book dune = bookDataProviderLog.create(bookCreate("Dune", "Frank Herbert", "Science Fiction"));
+        Book emma = bookDataProviderLog.create(bookCreate("Emma", "Jane Austen", "Romance"));
+        bookDataProviderLog.update(emma.getId(), BookUpdate.builder().genre("Drama").build(), 0L);
+
+        // Act
+        bookDataProviderLog.deleteAll(List.of(gatsby, dune, emma));
+
+        // Assert
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderLog.findById(gatsby.getId()));
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderLog.findById(dune.getId()));
+        assertEquals(List.of("Emma"), bookDataProviderLog.listByCriteria(listInput().build())
+                .getBooks().stream().map(Book::getTitle).toList());
+    }
+
+    @Test
+    void shouldExportBooksAsNdjsonWithoutVersion() {
+        // Arrange
+        Book book = bookDataProviderLog.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", null));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long exported = bookDataProviderLog.exportByCriteria(listInput().build(), outputStream);
+
+        // Assert
+        assertEquals(1, exported);
+        String line = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(line.startsWith("{\"id\":\"" + book.getId() + "\",\"title\":\"The Great Gatsby\""));
+        assertTrue(line.endsWith("}\n"));
+        assertFalse(line.contains("version"));
+    }
+
+    private BookLog newBookLog() {
+        return new BookLog(directory, DataSize.ofKilobytes(64), true);
+    }
+
+    private ListByCriteriaUseCase.Input.InputBuilder listInput() {
+        return ListByCriteriaUseCase.Input.builder();
+    }
+
+    private BookCreate bookCreate(String title, String author, String genre) {
+        return BookCreate.builder()
+                .title(title)
+                .author(author)
+                .genre(genre)
+                .publishedDate(LocalDate.of(1925, 4, 10))
+                .build();
+    }
+}
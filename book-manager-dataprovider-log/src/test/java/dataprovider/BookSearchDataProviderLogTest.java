@@ -0,0 +1,92 @@
+package dataprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderLog;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProviderLog;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.log.BookLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchDataProviderLogTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void shouldIndexTheRecoveredBooksAtStartup() throws Exception {
+        // Arrange
+        BookLog bookLog = newBookLog();
+        List<Book> books = new BookDataProviderLog(bookLog, objectMapper).createAll(List.of(
+                bookCreate("Dune", "Frank Herbert"),
+                bookCreate("Eden", "Frank Herbert"),
+                bookCreate("Emma", "Jane Austen")
+        ));
+        bookLog.close();
+
+        // Act
+        BookSearchDataProviderLog bookSearchDataProviderLog = new BookSearchDataProviderLog(newBookLog());
+        List<BookSearchHit> hits = bookSearchDataProviderLog.search("herbert", null, 10);
+
+        // Assert
+        assertEquals(List.of(books.get(0).getId(), books.get(1).getId()), hits.stream().map(BookSearchHit::getId).toList());
+    }
+
+    @Test
+    void shouldIndexWrittenBooksAndForgetRemovedOnes() {
+        // Arrange
+        BookLog bookLog = newBookLog();
+        BookDataProviderLog bookDataProviderLog = new BookDataProviderLog(bookLog, objectMapper);
+        BookSearchDataProviderLog bookSearchDataProviderLog = new BookSearchDataProviderLog(bookLog);
+        Book dune = bookDataProviderLog.create(bookCreate("Dune", "Frank Herbert"));
+        Book emma = bookDataProviderLog.create(bookCreate("Emma", "Jane Austen"));
+
+        // Act
+        bookSearchDataProviderLog.indexAll(List.of(dune, emma));
+        bookDataProviderLog.delete(emma.getId(), null);
+        bookSearchDataProviderLog.remove(emma.getId());
+
+        // Assert
+        assertEquals(List.of(dune.getId()), bookSearchDataProviderLog.search("dune", null, 10).stream()
+                .map(BookSearchHit::getId)
+                .toList());
+        assertTrue(bookSearchDataProviderLog.search("austen", null, 10).isEmpty());
+    }
+
+    @Test
+    void shouldNotIndexBookRemovedBeforeIndexing() {
+        // Arrange
+        BookLog bookLog = newBookLog();
+        BookDataProviderLog bookDataProviderLog = new BookDataProviderLog(bookLog, objectMapper);
+        BookSearchDataProviderLog bookSearchDataProviderLog = new BookSearchDataProviderLog(bookLog);
+        Book dune = bookDataProviderLog.create(bookCreate("Dune", "Frank Herbert"));
+        bookDataProviderLog.delete(dune.getId(), null);
+
+        // Act
+        bookSearchDataProviderLog.index(dune);
+
+        // Assert
+        assertTrue(bookSearchDataProviderLog.search("dune", null, 10).isEmpty());
+    }
+
+    private BookLog newBookLog() {
+        return new BookLog(directory, DataSize.ofKilobytes(64), true);
+    }
+
+    private BookCreate bookCreate(String title, String author) {
+        return BookCreate.builder()
+                .title(title)
+                .author(author)
+                .build();
+    }
+}
@@ -0,0 +1,172 @@
+package log;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.log.BookLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookLogTest {
+
+    private static final DataSize SEGMENT_SIZE = DataSize.ofKilobytes(4);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverLatestRecordOfEachBook() {
+        // Arrange
+        BookLog bookLog = new BookLog(directory, SEGMENT_SIZE, true);
+        Book emma = book("Emma", "Jane Austen");
+        Book dracula = book("Dracula", "Bram Stoker");
+        Book ulysses = book("Ulysses", "James Joyce");
+        bookLog.appendAll(List.of(emma, dracula, ulysses));
+        long draculaDbId = bookLog.read(id(dracula)).dbId();
+        bookLog.replace(dracula.getId(), 0L, current -> book(current.getId(), "Carmilla", "Bram Stoker"));
+        bookLog.remove(emma.getId(), null);
+        bookLog.close();
+
+        // Act
+        BookLog recovered = new BookLog(directory, SEGMENT_SIZE, true);
+
+        // Assert
+        assertEquals(2, recovered.size());
+        assertNull(recovered.read(id(emma)));
+        BookLog.Entry entry = recovered.read(id(dracula));
+        assertEquals("Carmilla", entry.book().getTitle());
+        assertEquals(1L, entry.book().getVersion());
+        assertEquals(draculaDbId, entry.dbId());
+        assertEquals(ulysses, recovered.read(id(ulysses)).book());
+        assertThrows(ResourceAlreadyExistsException.class,
+                () -> recovered.appendAll(List.of(book("Ulysses", "Homer"))));
+        assertThrows(PreconditionFailedException.class, () -> recovered.remove(dracula.getId(), 0L));
+        assertEquals(List.of("Emma"), recovered.appendAbsent(List.of(book("Emma", "Jane Austen"))).stream()
+                .map(Book::getTitle)
+                .toList());
+    }
+
+    @Test
+    void shouldDropPartlyWrittenRecordOnRecovery() throws IOException {
+        // Arrange
+        BookLog bookLog = new BookLog(directory, DataSize.ofKilobytes(64), true);
+        List<Book> books = List.of(book("Emma", "Jane Austen"), book("Dracula", "Bram Stoker"));
+        bookLog.appendAll(books);
+        bookLog.close();
+
+        // A crash while the last record was written leaves its length behind but not all of its bytes
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            int offset = 8;
+            int last = offset;
+            for (int length; channel.read(header.clear(), offset) == 4 && (length = header.getInt(0)) != 0; ) {
+                last = offset;
+                offset += 8 + length;
+            }
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), last + 12);
+        }
+
+        // Act
+        BookLog recovered = new BookLog(directory, DataSize.ofKilobytes(64), true);
+
+        // Assert
+        assertEquals(1, recovered.size());
+        assertEquals(books.get(0), recovered.read(id(books.get(0))).book());
+        assertNull(recovered.read(id(books.get(1))));
+        recovered.appendAll(List.of(books.get(1)));
+        assertEquals(2, new BookLog(directory, DataSize.ofKilobytes(64), true).size());
+    }
+
+    @Test
+    void shouldReclaimSpaceOfReplacedAndDeletedBooks() throws IOException {
+        // Arrange
+        BookLog bookLog = new BookLog(directory, SEGMENT_SIZE, true);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            books.add(book("Title " + i, "Author " + i % 7));
+        }
+        bookLog.appendAll(books);
+        for (int i = 0; i < books.size(); i++) {
+            if (i % 2 == 0) {
+                bookLog.remove(books.get(i).getId(), 0L);
+            } else {
+                bookLog.replace(
+                        books.get(i).getId(),
+                        0L,
+                        current -> book(current.getId(), current.getTitle(), "Anonymous")
+                );
+            }
+        }
+        long sizeBefore = directorySize();
+
+        // Act
+        long reclaimed = bookLog.compact();
+
+        // Assert
+        assertTrue(reclaimed > 0);
+        assertTrue(directorySize() < sizeBefore);
+        assertEquals(0.0, bookLog.garbageRatio());
+        for (BookLog recovered : List.of(bookLog, new BookLog(directory, SEGMENT_SIZE, true))) {
+            assertEquals(100, recovered.size());
+            for (int i = 0; i < books.size(); i++) {
+                BookLog.Entry entry = recovered.read(id(books.get(i)));
+                if (i % 2 == 0) {
+                    assertNull(entry);
+                } else {
+                    assertEquals("Anonymous", entry.book().getAuthor());
+                    assertEquals(1L, entry.book().getVersion());
+                }
+            }
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private long directorySize() throws IOException {
+        long size = 0;
+        for (Path segment : segments()) {
+            size += Files.size(segment);
+        }
+        return size;
+    }
+
+    private UUID id(Book book) {
+        return UUID.fromString(book.getId());
+    }
+
+    private Book book(String title, String author) {
+        return book(UUID.randomUUID().toString(), title, author);
+    }
+
+    private Book book(String id, String title, String author) {
+        return Book.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .publishedDate(LocalDate.of(1925, 4, 10))
+                .createdAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000))
+                .version(0L)
+                .build();
+    }
+}
@@ -0,0 +1,346 @@
+package com.tracktainment.bookmanager.dataprovider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.memory.BookFilter;
+import com.tracktainment.bookmanager.memory.BookOrdering;
+import com.tracktainment.bookmanager.memory.BookStore;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.tracktainment.bookmanager.util.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Books held in process by BookStore, for single-node deployments, tests and demos: nothing survives a restart.
+// Stored books are shared with concurrent readers and never handed out, callers get copies
+@Service
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "memory")
+@RequiredArgsConstructor
+public class BookDataProviderMemory implements BookDataProvider {
+
+    private static final Comparator<BookFacetCount> FACET_ORDER = Comparator.comparingLong(BookFacetCount::getCount)
+            .reversed()
+            .thenComparing(BookFacetCount::getValue);
+
+    private final BookStore bookStore;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Book create(BookCreate bookCreate) {
+        return copy(bookStore.insertAll(List.of(toBook(bookCreate, now()))).get(0), true);
+    }
+
+    @Override
+    public List<Book> createAll(List<BookCreate> bookCreates) {
+        LocalDateTime now = now();
+        return bookStore.insertAll(bookCreates.stream().map(bookCreate -> toBook(bookCreate, now)).toList()).stream()
+                .map(book -> copy(book, true))
+                .toList();
+    }
+
+    @Override
+    public BookImportResult importAll(List<BookImportRow> rows) {
+        // Titles that are already stored, or repeated within the chunk, are skipped instead of failing the chunk
+        LocalDateTime now = now();
+        Map<Book, BookImportRow> rowsByBook = new IdentityHashMap<>();
+        List<Book> books = new ArrayList<>();
+        for (BookImportRow row : rows) {
+            Book book = toBook(row.getBookCreate(), now);
+            rowsByBook.put(book, row);
+            books.add(book);
+        }
+
+        List<Book> imported = bookStore.insertAbsent(books);
+        imported.forEach(rowsByBook::remove);
+        List<BookImportError> errors = books.stream()
+                .filter(rowsByBook::containsKey)
+                .map(book -> BookImportError.builder()
+                        .line(rowsByBook.get(book).getLine())
+                        .message(String.format(
+                                ResourceAlreadyExistsException.ERROR_MESSAGE,
+                                Book.class.getSimpleName(),
+                                book.getTitle()
+                        ))
+                        .build())
+                .toList();
+
+        return BookImportResult.builder()
+                .books(imported.stream().map(book -> copy(book, true)).toList())
+                .errors(errors)
+                .build();
+    }
+
+    @Override
+    public Book findById(String id) {
+        // One probe of the id table and one page read, no lock and no copy of anything but the book itself
+        Book book = bookStore.snapshot().book(UUID.fromString(id));
+        if (book == null) {
+            throw new ResourceNotFoundException(Book.class, id);
+        }
+
+        return copy(book, true);
+    }
+
+    @Override
+    public BookPage listByCriteria(ListByCriteriaUseCase.Input input) {
+        Map<OrderBy, OrderDirection> sorting = BookOrdering.toSorting(input);
+        BookCursorMapper.Cursor cursor = input.getCursor() != null ?
+                BookCursorMapper.fromCursor(input.getCursor(), sorting) :
+                null;
+
+        int limit = input.getLimit() != null ? input.getLimit() : Integer.parseInt(Constants.DEFAULT_LIMIT);
+        // A cursor seeks straight past the last seen book, so the offset only applies to the first page
+        int offset = cursor == null && input.getOffset() != null ? input.getOffset() : Constants.MIN_OFFSET;
+
+        // Reaching one book more than the page tells whether another page follows
+        BookFilter filter = BookFilter.of(input);
+        BookStore.Snapshot snapshot = bookStore.snapshot();
+        BookOrdering ordering = new BookOrdering(sorting, snapshot);
+        List<Book> books = new ArrayList<>();
+        int[] skipped = {0};
+        int[] lastSlot = {-1};
+        boolean[] hasMore = {false};
+        ordering.forEach(filter, cursor, slot -> {
+            Book book = snapshot.book(slot);
+            if (book == null) {
+                return true;
+            }
+            if (skipped[0] < offset) {
+                skipped[0]++;
+                return true;
+            }
+            if (books.size() == limit) {
+                hasMore[0] = true;
+                return false;
+            }
+
+            // Listed books carry no version, like the SQL data provider's projections
+            books.add(copy(book, false));
+            lastSlot[0] = slot;
+            return true;
+        });
+
+        BookPage bookPage = BookPage.builder()
+                .books(books)
+                .nextCursor(hasMore[0] ? BookCursorMapper.toCursor(books.get(limit - 1), (long) lastSlot[0], sorting) : null)
+                .hasMore(hasMore[0])
+                .build();
+
+        if (input.isWithTotalCount()) {
+            // Counting in memory is cheap enough to always be exact
+            bookPage.setTotalCount(count(filter, ordering, snapshot));
+            bookPage.setTotalCountEstimated(false);
+        }
+
+        return bookPage;
+    }
+
+    @Override
+    public long exportByCriteria(ListByCriteriaUseCase.Input input, OutputStream outputStream) {
+        Map<OrderBy, OrderDirection> sorting = BookOrdering.toSorting(input);
+        BookStore.Snapshot snapshot = bookStore.snapshot();
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(StreamWriteFeature.AUTO_CLOSE_TARGET.mappedFeature());
+            // Each line ends with its own newline, the default root separator is not needed
+            generator.setRootValueSeparator(null);
+            long[] rows = {0};
+            new BookOrdering(sorting, snapshot).forEach(BookFilter.of(input), null, slot -> {
+                Book book = snapshot.book(slot);
+                if (book == null) {
+                    return true;
+                }
+
+                try {
+                    writer.writeValue(generator, book);
+                    generator.writeRaw('\n');
+
+                    // The first line goes out right away, the rest as the buffers fill
+                    if (rows[0]++ == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+            return rows[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public BookFacets facetsByCriteria(ListByCriteriaUseCase.Input input) {
+        // One pass over the matching books counts all four facets, there is no query worth caching
+        Map<String, long[]> genres = new HashMap<>();
+        Map<String, long[]> languages = new HashMap<>();
+        Map<String, long[]> publishers = new HashMap<>();
+        Map<String, long[]> publishedYears = new HashMap<>();
+
+        BookStore.Snapshot snapshot = bookStore.snapshot();
+        new BookOrdering(Map.of(), snapshot).forEachMatch(BookFilter.of(input), slot -> {
+            Book book = snapshot.book(slot);
+            if (book != null) {
+                increment(genres, book.getGenre());
+                increment(languages, book.getLanguage());
+                increment(publishers, book.getPublisher());
+                increment(publishedYears, book.getPublishedDate() != null ?
+                        String.valueOf(book.getPublishedDate().getYear()) :
+                        null);
+            }
+            return true;
+        });
+
+        return BookFacets.builder()
+                .genres(toFacetCounts(genres))
+                .languages(toFacetCounts(languages))
+                .publishers(toFacetCounts(publishers))
+                .publishedYears(toFacetCounts(publishedYears))
+                .build();
+    }
+
+    @Override
+    public Book update(String id, BookUpdate bookUpdate, Long version) {
+        // Only the non-null fields are set, matching the null-ignore semantics of BookUpdate
+        if (isEmpty(bookUpdate)) {
+            Book book = findById(id);
+            if (version != null && !version.equals(book.getVersion())) {
+                throw new PreconditionFailedException(Book.class, id, version);
+            }
+
+            return book;
+        }
+
+        LocalDateTime now = now();
+        Book book = bookStore.replace(id, version, current -> Book.builder()
+                .id(current.getId())
+                .title(valueOr(bookUpdate.getTitle(), current.getTitle()))
+                .author(valueOr(bookUpdate.getAuthor(), current.getAuthor()))
+                .genre(valueOr(bookUpdate.getGenre(), current.getGenre()))
+                .isbn(valueOr(bookUpdate.getIsbn(), current.getIsbn()))
+                .publisher(valueOr(bookUpdate.getPublisher(), current.getPublisher()))
+                .publishedDate(valueOr(bookUpdate.getPublishedDate(), current.getPublishedDate()))
+                .language(valueOr(bookUpdate.getLanguage(), current.getLanguage()))
+                .createdAt(current.getCreatedAt())
+                .updatedAt(now)
+                .build());
+        return copy(book, true);
+    }
+
+    @Override
+    public void delete(String id, Long version) {
+        bookStore.remove(id, version);
+    }
+
+    @Override
+    public void deleteAll(List<Book> books) {
+        bookStore.removeAll(books);
+    }
+
+    private long count(BookFilter filter, BookOrdering ordering, BookStore.Snapshot snapshot) {
+        if (filter.isEmpty()) {
+            return snapshot.live();
+        }
+
+        // The count ignores the cursor and the page, it is the size of the whole result
+        long[] count = {0};
+        ordering.forEachMatch(filter, slot -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    private Book toBook(BookCreate bookCreate, LocalDateTime now) {
+        return Book.builder()
+                .id(UUID.randomUUID().toString())
+                .title(bookCreate.getTitle())
+                .author(bookCreate.getAuthor())
+                .genre(bookCreate.getGenre())
+                .isbn(bookCreate.getIsbn())
+                .publisher(bookCreate.getPublisher())
+                .publishedDate(bookCreate.getPublishedDate())
+                .language(bookCreate.getLanguage())
+                .createdAt(now)
+                .updatedAt(now)
+                .version(0L)
+                .build();
+    }
+
+    private Book copy(Book book, boolean withVersion) {
+        return new Book(
+                book.getId(),
+                book.getTitle(),
+                book.getAuthor(),
+                book.getGenre(),
+                book.getIsbn(),
+                book.getPublisher(),
+                book.getPublishedDate(),
+                book.getLanguage(),
+                book.getCreatedAt(),
+                book.getUpdatedAt(),
+                withVersion ? book.getVersion() : null
+        );
+    }
+
+    private boolean isEmpty(BookUpdate bookUpdate) {
+        return bookUpdate.getTitle() == null && bookUpdate.getAuthor() == null && bookUpdate.getGenre() == null &&
+                bookUpdate.getIsbn() == null && bookUpdate.getPublisher() == null &&
+                bookUpdate.getPublishedDate() == null && bookUpdate.getLanguage() == null;
+    }
+
+    private <T> T valueOr(T value, T current) {
+        return value != null ? value : current;
+    }
+
+    private void increment(Map<String, long[]> counts, String value) {
+        if (value != null) {
+            counts.computeIfAbsent(value, key -> new long[1])[0]++;
+        }
+    }
+
+    private List<BookFacetCount> toFacetCounts(Map<String, long[]> counts) {
+        return counts.entrySet().stream()
+                .map(entry -> new BookFacetCount(entry.getKey(), entry.getValue()[0]))
+                .sorted(FACET_ORDER)
+                .toList();
+    }
+
+    private LocalDateTime now() {
+        // Postgres keeps timestamps to the microsecond, cursors built from them have to round-trip exactly
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+}
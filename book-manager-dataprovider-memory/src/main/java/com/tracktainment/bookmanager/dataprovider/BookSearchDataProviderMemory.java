@@ -0,0 +1,62 @@
+package com.tracktainment.bookmanager.dataprovider;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.memory.BookStore;
+import com.tracktainment.bookmanager.search.BookInvertedIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// The search index next to BookStore, in process like it and empty at startup like it. Slots stand in for dbIds, so
+// equal scores rank the book stored first first, as with the other data providers
+@Service
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "memory")
+@RequiredArgsConstructor
+public class BookSearchDataProviderMemory implements BookSearchDataProvider {
+
+    private final BookStore bookStore;
+    private final BookInvertedIndex bookInvertedIndex = new BookInvertedIndex();
+
+    @Override
+    public void index(Book book) {
+        // A book removed before it is indexed has no slot left and stays out
+        int slot = bookStore.snapshot().find(UUID.fromString(book.getId()));
+        if (slot != -1) {
+            bookInvertedIndex.put(slot, book.getId(), toFields(book));
+        }
+    }
+
+    @Override
+    public void indexAll(List<Book> books) {
+        books.forEach(this::index);
+    }
+
+    @Override
+    public void remove(String id) {
+        bookInvertedIndex.remove(id);
+    }
+
+    @Override
+    public List<BookSearchHit> search(String query, Collection<String> ids, int limit) {
+        return bookInvertedIndex.search(query, ids, limit).stream()
+                .map(hit -> BookSearchHit.builder()
+                        .id(hit.getId())
+                        .score((double) hit.getScore())
+                        .build())
+                .toList();
+    }
+
+    private String[] toFields(Book book) {
+        return new String[]{
+                book.getTitle(),
+                book.getAuthor(),
+                book.getPublisher(),
+                book.getGenre()
+        };
+    }
+}
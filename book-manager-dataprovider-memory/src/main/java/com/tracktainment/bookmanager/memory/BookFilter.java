@@ -0,0 +1,121 @@
+package com.tracktainment.bookmanager.memory;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.UUID;
+
+// The list filters of BookCriteriaSqlMapper evaluated on a book: case-insensitive contains on the text fields, equality
+// on the publication date and one created_at range from the from, to and createdAt days
+public class BookFilter {
+
+    private final UUID[] ids;
+    private final String title;
+    private final String author;
+    private final String genre;
+    private final String isbn;
+    private final String publisher;
+    private final LocalDate publishedDate;
+    private final String language;
+    // Inclusive bounds in microseconds, as BookStore keys created_at
+    private final long createdFrom;
+    private final long createdTo;
+
+    private BookFilter(ListByCriteriaUseCase.Input input) {
+        this.ids = input.getIds() != null ?
+                Arrays.stream(input.getIds().split(",")).map(UUID::fromString).toArray(UUID[]::new) :
+                null;
+        this.title = input.getTitle();
+        this.author = input.getAuthor();
+        this.genre = input.getGenre();
+        this.isbn = input.getIsbn();
+        this.publisher = input.getPublisher();
+        this.publishedDate = input.getPublishedDate();
+        this.language = input.getLanguage();
+
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        for (LocalDate day : new LocalDate[]{input.getFrom(), input.getCreatedAt()}) {
+            if (day != null) {
+                from = Math.max(from, BookStore.toMicros(day.atStartOfDay()));
+            }
+        }
+        for (LocalDate day : new LocalDate[]{input.getTo(), input.getCreatedAt()}) {
+            if (day != null) {
+                to = Math.min(to, BookStore.toMicros(day.plusDays(1).atStartOfDay()) - 1);
+            }
+        }
+        this.createdFrom = from;
+        this.createdTo = to;
+    }
+
+    public static BookFilter of(ListByCriteriaUseCase.Input input) {
+        return new BookFilter(input);
+    }
+
+    // The requested ids, looked up directly instead of scanned for; null when the list is not restricted to ids
+    public UUID[] getIds() {
+        return ids;
+    }
+
+    public boolean hasCreatedRange() {
+        return createdFrom != Long.MIN_VALUE || createdTo != Long.MAX_VALUE;
+    }
+
+    public long getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public long getCreatedTo() {
+        return createdTo;
+    }
+
+    // Whether every book matches, so counts need no scan
+    public boolean isEmpty() {
+        return ids == null && title == null && author == null && genre == null && isbn == null && publisher == null &&
+                publishedDate == null && language == null && !hasCreatedRange();
+    }
+
+    public boolean matches(Book book) {
+        if (!contains(book.getTitle(), title) ||
+                !contains(book.getAuthor(), author) ||
+                !contains(book.getGenre(), genre) ||
+                !contains(book.getIsbn(), isbn) ||
+                !contains(book.getPublisher(), publisher) ||
+                !contains(book.getLanguage(), language)) {
+            return false;
+        }
+
+        if (publishedDate != null && !publishedDate.equals(book.getPublishedDate())) {
+            return false;
+        }
+
+        if (hasCreatedRange()) {
+            long createdAt = BookStore.toMicros(book.getCreatedAt());
+            return createdAt >= createdFrom && createdAt <= createdTo;
+        }
+
+        return true;
+    }
+
+    private static boolean contains(String value, String filter) {
+        if (filter == null) {
+            return true;
+        }
+
+        // Like lower(column) LIKE '%filter%': a null value never matches, and nothing is lowered into a new string
+        if (value == null) {
+            return false;
+        }
+
+        int last = value.length() - filter.length();
+        for (int i = 0; i <= last; i++) {
+            if (value.regionMatches(true, i, filter, 0, filter.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
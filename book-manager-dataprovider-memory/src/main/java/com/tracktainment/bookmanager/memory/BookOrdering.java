@@ -0,0 +1,244 @@
+package com.tracktainment.bookmanager.memory;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntPredicate;
+
+// The order of the SQL list queries over a snapshot: the requested keys, nulls last ascending and first descending,
+// then the slot as dbId in the direction of the last key. The first key is read from its sorted index, forwards or
+// backwards; only runs of books sharing it are sorted, by the keys that follow
+public class BookOrdering {
+
+    private final BookStore.Snapshot snapshot;
+    private final OrderBy[] keys;
+    private final boolean[] descending;
+    private final boolean tieBreakerDescending;
+
+    public BookOrdering(Map<OrderBy, OrderDirection> sorting, BookStore.Snapshot snapshot) {
+        this.snapshot = snapshot;
+        this.keys = sorting.keySet().toArray(OrderBy[]::new);
+        this.descending = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            descending[i] = sorting.get(keys[i]) == OrderDirection.DESC;
+        }
+        this.tieBreakerDescending = keys.length > 0 && descending[keys.length - 1];
+    }
+
+    // Same as BookListQueryMapper.toSorting, so cursors carry the same signature as the SQL data provider's
+    public static Map<OrderBy, OrderDirection> toSorting(ListByCriteriaUseCase.Input input) {
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+
+        if (input.getOrderByList() != null && input.getOrderDirectionList() != null) {
+            for (int i = 0; i < input.getOrderByList().size(); i++) {
+                OrderBy orderBy = input.getOrderByList().get(i);
+                OrderDirection orderDirection = input.getOrderDirectionList().get(i);
+
+                if (orderBy != null && orderDirection != null) {
+                    sorting.putIfAbsent(orderBy, orderDirection);
+                }
+            }
+        }
+
+        return sorting;
+    }
+
+    // Visits the slots of the matching books after the cursor in list order, until the visitor returns false
+    public void forEach(BookFilter filter, BookCursorMapper.Cursor cursor, IntPredicate visitor) {
+        if (filter.getIds() != null) {
+            visitSorted(candidates(filter), 0, filter, cursor, visitor);
+            return;
+        }
+
+        if (keys.length == 0) {
+            int first = cursor != null ? (int) Math.min(Math.max(cursor.getDbId() + 1, 0), snapshot.size()) : 0;
+            for (int slot = first; slot < snapshot.size(); slot++) {
+                if (matches(slot, filter) && !visitor.test(slot)) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        SortedIndex index = snapshot.index(keys[0]);
+        int low = 0;
+        int high = index.size();
+        if (keys[0] == OrderBy.CREATED_AT && filter.hasCreatedRange()) {
+            low = index.lowerBound(filter.getCreatedFrom());
+            high = index.upperBound(filter.getCreatedTo());
+        }
+
+        Object cursorKey = cursor != null ? toKey(cursor.getValues().get(0), keys[0]) : null;
+        if (cursor != null) {
+            // A single key seeks past the cursor's entry itself, more keys to the run of its first key
+            if (keys.length == 1) {
+                if (descending[0]) {
+                    high = Math.min(high, index.higher(cursorKey, cursor.getDbId() - 1));
+                } else {
+                    low = Math.max(low, index.higher(cursorKey, cursor.getDbId()));
+                }
+            } else if (descending[0]) {
+                high = Math.min(high, index.upperBound(cursorKey));
+            } else {
+                low = Math.max(low, index.lowerBound(cursorKey));
+            }
+        }
+
+        int step = descending[0] ? -1 : 1;
+        int position = descending[0] ? high - 1 : low;
+        if (keys.length == 1) {
+            for (; position >= low && position < high; position += step) {
+                int slot = index.slot(position);
+                if (matches(slot, filter) && !visitor.test(slot)) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        while (position >= low && position < high) {
+            int start = position;
+            int[] run = new int[8];
+            int size = 0;
+            for (; position >= low && position < high && index.sameKey(position, start); position += step) {
+                if (size == run.length) {
+                    run = Arrays.copyOf(run, size * 2);
+                }
+                run[size++] = index.slot(position);
+            }
+
+            // Only the run of the cursor's first key holds books before it
+            boolean cursorRun = cursor != null && index.compareKey(start, cursorKey) == 0;
+            if (!visitSorted(Arrays.copyOf(run, size), 1, filter, cursorRun ? cursor : null, visitor)) {
+                return;
+            }
+        }
+    }
+
+    // Visits the matching books in no particular order, for counts and facets
+    public void forEachMatch(BookFilter filter, IntPredicate visitor) {
+        if (filter.getIds() != null) {
+            for (int slot : candidates(filter)) {
+                if (matches(slot, filter) && !visitor.test(slot)) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        if (filter.hasCreatedRange()) {
+            SortedIndex index = snapshot.index(OrderBy.CREATED_AT);
+            int high = index.upperBound(filter.getCreatedTo());
+            for (int position = index.lowerBound(filter.getCreatedFrom()); position < high; position++) {
+                int slot = index.slot(position);
+                if (matches(slot, filter) && !visitor.test(slot)) {
+                    return;
+                }
+            }
+            return;
+        }
+
+        for (int slot = 0; slot < snapshot.size(); slot++) {
+            if (matches(slot, filter) && !visitor.test(slot)) {
+                return;
+            }
+        }
+    }
+
+    private boolean visitSorted(
+            int[] slots,
+            int fromKey,
+            BookFilter filter,
+            BookCursorMapper.Cursor cursor,
+            IntPredicate visitor
+    ) {
+        // Books are read once, a concurrent write cannot change them under the sort
+        Book[] books = new Book[slots.length];
+        int size = 0;
+        for (int slot : slots) {
+            Book book = snapshot.book(slot);
+            if (book != null && filter.matches(book) &&
+                    (cursor == null || compareToCursor(book, slot, cursor, fromKey) > 0)) {
+                books[size] = book;
+                slots[size++] = slot;
+            }
+        }
+
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(books[a], slots[a], books[b], slots[b], fromKey));
+
+        for (int i : order) {
+            if (!visitor.test(slots[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] candidates(BookFilter filter) {
+        // Each id is one probe of the id table, the slots come out in dbId order and without repeats
+        UUID[] ids = filter.getIds();
+        int[] slots = new int[ids.length];
+        int size = 0;
+        for (UUID id : ids) {
+            int slot = snapshot.find(id);
+            if (slot != SlotTable.NONE) {
+                slots[size++] = slot;
+            }
+        }
+        return Arrays.stream(slots, 0, size).sorted().distinct().toArray();
+    }
+
+    private boolean matches(int slot, BookFilter filter) {
+        Book book = snapshot.book(slot);
+        return book != null && filter.matches(book);
+    }
+
+    private int compare(Book first, int firstSlot, Book second, int secondSlot, int fromKey) {
+        for (int i = fromKey; i < keys.length; i++) {
+            int compared = compareKeys(BookStore.key(first, keys[i]), BookStore.key(second, keys[i]));
+            if (compared != 0) {
+                return descending[i] ? -compared : compared;
+            }
+        }
+
+        return tieBreakerDescending ? Integer.compare(secondSlot, firstSlot) : Integer.compare(firstSlot, secondSlot);
+    }
+
+    private int compareToCursor(Book book, int slot, BookCursorMapper.Cursor cursor, int fromKey) {
+        for (int i = fromKey; i < keys.length; i++) {
+            int compared = compareKeys(BookStore.key(book, keys[i]), toKey(cursor.getValues().get(i), keys[i]));
+            if (compared != 0) {
+                return descending[i] ? -compared : compared;
+            }
+        }
+
+        return tieBreakerDescending ? Long.compare(cursor.getDbId(), slot) : Long.compare(slot, cursor.getDbId());
+    }
+
+    private static int compareKeys(Object a, Object b) {
+        if (a instanceof Long first && b instanceof Long second) {
+            return Long.compare(first, second);
+        }
+        return SortedIndex.compareTexts((String) a, (String) b);
+    }
+
+    private static Object toKey(Comparable<?> cursorValue, OrderBy orderBy) {
+        // created_at is never null, a cursor saying otherwise is placed where nulls would sort
+        if (orderBy == OrderBy.CREATED_AT) {
+            return cursorValue != null ? BookStore.toMicros((LocalDateTime) cursorValue) : Long.MAX_VALUE;
+        }
+        return cursorValue;
+    }
+}
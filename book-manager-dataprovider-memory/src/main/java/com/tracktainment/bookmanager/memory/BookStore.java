@@ -0,0 +1,352 @@
+package com.tracktainment.bookmanager.memory;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+// Books live in fixed-size pages addressed by slot, a dense int handed out in insertion order that also serves as the
+// dbId of cursors. Slots are never reused, a deleted book leaves an empty slot behind.
+// Writers are serialized by one lock; readers take no lock at all, they read the last published Snapshot
+@Component
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "memory")
+public class BookStore {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final SlotTable ids = new SlotTable(this::hashOfId);
+    // Only consulted by writers, for the unique titles
+    private final SlotTable titles = new SlotTable(slot -> writtenBook(slot).getTitle().hashCode());
+
+    // Owned by the writer holding the lock, readers only see them through a published snapshot
+    private Page[] pages = new Page[0];
+    private int size;
+
+    private volatile Snapshot snapshot = new Snapshot(0, 0, pages, emptyIndexes(), ids);
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public List<Book> insertAll(List<Book> books) {
+        writeLock.lock();
+        try {
+            // A title repeated within the batch fails it as a whole, like a title that is already stored
+            Set<String> batchTitles = new HashSet<>();
+            for (Book book : books) {
+                if (!batchTitles.add(book.getTitle()) || findTitle(book.getTitle()) != SlotTable.NONE) {
+                    throw new ResourceAlreadyExistsException(Book.class, book.getTitle());
+                }
+            }
+
+            insert(books);
+            return books;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public List<Book> insertAbsent(List<Book> books) {
+        writeLock.lock();
+        try {
+            // The first book of each title that is not stored yet claims it, the others are left out
+            Set<String> batchTitles = new HashSet<>();
+            List<Book> absent = new ArrayList<>();
+            for (Book book : books) {
+                if (batchTitles.add(book.getTitle()) && findTitle(book.getTitle()) == SlotTable.NONE) {
+                    absent.add(book);
+                }
+            }
+
+            insert(absent);
+            return absent;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public Book replace(String id, Long version, UnaryOperator<Book> change) {
+        writeLock.lock();
+        try {
+            int slot = findWritable(id, version);
+            Book current = writtenBook(slot);
+            Book replacement = change.apply(current);
+            replacement.setVersion(current.getVersion() + 1);
+
+            boolean titleChanged = !current.getTitle().equals(replacement.getTitle());
+            if (titleChanged && findTitle(replacement.getTitle()) != SlotTable.NONE) {
+                throw new ResourceAlreadyExistsException(Book.class, replacement.getTitle());
+            }
+
+            // The title table hashes the stored book, so the slot leaves it before its book is replaced
+            if (titleChanged) {
+                titles.remove(slot);
+            }
+            page(pages, slot).books.set(slot & PAGE_MASK, replacement);
+            if (titleChanged) {
+                titles.add(slot);
+            }
+
+            // Only the indexes whose key changed are copied; until they are published, a reader can find the new book
+            // where the old one was ordered
+            Snapshot published = snapshot;
+            SortedIndex[] indexes = published.indexes.clone();
+            for (OrderBy orderBy : OrderBy.values()) {
+                Object oldKey = key(current, orderBy);
+                Object newKey = key(replacement, orderBy);
+                if (!isSameKey(oldKey, newKey)) {
+                    indexes[orderBy.ordinal()] = indexes[orderBy.ordinal()].withMoved(slot, oldKey, newKey);
+                }
+            }
+
+            snapshot = new Snapshot(published.size, published.live, pages, indexes, ids);
+            return replacement;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(String id, Long version) {
+        writeLock.lock();
+        try {
+            removeSlots(new int[]{findWritable(id, version)});
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void removeAll(List<Book> books) {
+        writeLock.lock();
+        try {
+            // Books already removed, or stored at another version than the one they carry, are left out
+            int[] slots = books.stream()
+                    .mapToInt(book -> {
+                        int slot = snapshot.find(UUID.fromString(book.getId()));
+                        return slot != SlotTable.NONE && Objects.equals(book.getVersion(), writtenBook(slot).getVersion())
+                                ? slot
+                                : SlotTable.NONE;
+                    })
+                    .filter(slot -> slot != SlotTable.NONE)
+                    .distinct()
+                    .toArray();
+            removeSlots(slots);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    static Object key(Book book, OrderBy orderBy) {
+        return switch (orderBy) {
+            case TITLE -> book.getTitle();
+            case AUTHOR -> book.getAuthor();
+            case GENRE -> book.getGenre();
+            case CREATED_AT -> toMicros(book.getCreatedAt());
+        };
+    }
+
+    static long toMicros(LocalDateTime dateTime) {
+        // Postgres keeps timestamps to the microsecond, so do the index and the cursors
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    private void insert(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+
+        int first = size;
+        int last = first + books.size();
+        if (((last - 1) >> PAGE_BITS) >= pages.length) {
+            // Only the page directory is copied, pages themselves stay where readers find them
+            Page[] grown = Arrays.copyOf(pages, ((last - 1) >> PAGE_BITS) + 1);
+            for (int i = pages.length; i < grown.length; i++) {
+                grown[i] = new Page();
+            }
+            pages = grown;
+        }
+
+        int[] added = new int[books.size()];
+        for (int i = 0; i < added.length; i++) {
+            int slot = first + i;
+            Book book = books.get(i);
+            UUID id = UUID.fromString(book.getId());
+            Page page = page(pages, slot);
+            page.mostSignificantBits[slot & PAGE_MASK] = id.getMostSignificantBits();
+            page.leastSignificantBits[slot & PAGE_MASK] = id.getLeastSignificantBits();
+            page.books.set(slot & PAGE_MASK, book);
+            added[i] = slot;
+        }
+        size = last;
+
+        // Readers ignore slots past the published size, so the tables can take them before the snapshot is out
+        for (int slot : added) {
+            ids.add(slot);
+            titles.add(slot);
+        }
+
+        Snapshot published = snapshot;
+        SortedIndex[] indexes = new SortedIndex[OrderBy.values().length];
+        for (OrderBy orderBy : OrderBy.values()) {
+            Object[] keys = new Object[added.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = key(books.get(i), orderBy);
+            }
+            indexes[orderBy.ordinal()] = published.indexes[orderBy.ordinal()].withAdded(keys, added);
+        }
+
+        snapshot = new Snapshot(last, published.live + added.length, pages, indexes, ids);
+    }
+
+    private void removeSlots(int[] slots) {
+        if (slots.length == 0) {
+            return;
+        }
+
+        Snapshot published = snapshot;
+        SortedIndex[] indexes = published.indexes.clone();
+        for (int slot : slots) {
+            Book removed = writtenBook(slot);
+            ids.remove(slot);
+            titles.remove(slot);
+            page(pages, slot).books.set(slot & PAGE_MASK, null);
+            for (OrderBy orderBy : OrderBy.values()) {
+                indexes[orderBy.ordinal()] = indexes[orderBy.ordinal()].withRemoved(slot, key(removed, orderBy));
+            }
+        }
+
+        // Until the indexes without the slots are published, readers skip their entries as they find them empty
+        snapshot = new Snapshot(published.size, published.live - slots.length, pages, indexes, ids);
+    }
+
+    private int findWritable(String id, Long version) {
+        int slot = snapshot.find(UUID.fromString(id));
+        if (slot == SlotTable.NONE) {
+            throw new ResourceNotFoundException(Book.class, id);
+        }
+
+        // The version is compared and bumped under the lock, so of two writes read at the same version only one applies
+        if (version != null && !version.equals(writtenBook(slot).getVersion())) {
+            throw new PreconditionFailedException(Book.class, id, version);
+        }
+
+        return slot;
+    }
+
+    private int findTitle(String title) {
+        return titles.find(title.hashCode(), slot -> title.equals(writtenBook(slot).getTitle()));
+    }
+
+    private Book writtenBook(int slot) {
+        return page(pages, slot).books.get(slot & PAGE_MASK);
+    }
+
+    private int hashOfId(int slot) {
+        Page page = page(pages, slot);
+        return hashOfHalves(page.mostSignificantBits[slot & PAGE_MASK], page.leastSignificantBits[slot & PAGE_MASK]);
+    }
+
+    private static int hashOfHalves(long mostSignificantBits, long leastSignificantBits) {
+        return Long.hashCode(mostSignificantBits ^ leastSignificantBits);
+    }
+
+    private static boolean isSameKey(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static Page page(Page[] pages, int slot) {
+        return pages[slot >>> PAGE_BITS];
+    }
+
+    private static SortedIndex[] emptyIndexes() {
+        SortedIndex[] indexes = new SortedIndex[OrderBy.values().length];
+        for (OrderBy orderBy : OrderBy.values()) {
+            indexes[orderBy.ordinal()] = orderBy == OrderBy.CREATED_AT ? SortedIndex.ofTimes() : SortedIndex.ofTexts();
+        }
+        return indexes;
+    }
+
+    // Ids are kept as their two halves, a lookup compares longs instead of parsing or comparing strings
+    private static class Page {
+        private final AtomicReferenceArray<Book> books = new AtomicReferenceArray<>(PAGE_SIZE);
+        private final long[] mostSignificantBits = new long[PAGE_SIZE];
+        private final long[] leastSignificantBits = new long[PAGE_SIZE];
+    }
+
+    // What a reader works with: the slots written when it was published, the indexes of that moment and the live
+    // books in the pages. Books replaced or removed since are seen as they are now
+    public static class Snapshot {
+
+        private final int size;
+        private final int live;
+        private final Page[] pages;
+        private final SortedIndex[] indexes;
+        private final SlotTable ids;
+
+        private Snapshot(int size, int live, Page[] pages, SortedIndex[] indexes, SlotTable ids) {
+            this.size = size;
+            this.live = live;
+            this.pages = pages;
+            this.indexes = indexes;
+            this.ids = ids;
+        }
+
+        // Slots that were ever written, including the empty ones of deleted books
+        public int size() {
+            return size;
+        }
+
+        public int live() {
+            return live;
+        }
+
+        // Null for the slot of a deleted book
+        public Book book(int slot) {
+            return page(pages, slot).books.get(slot & PAGE_MASK);
+        }
+
+        // Null when no book has the id
+        public Book book(UUID id) {
+            int slot = find(id);
+            return slot != SlotTable.NONE ? book(slot) : null;
+        }
+
+        // The slot of the book with the id, -1 when no book has it
+        public int find(UUID id) {
+            long mostSignificantBits = id.getMostSignificantBits();
+            long leastSignificantBits = id.getLeastSignificantBits();
+            return ids.find(hashOfHalves(mostSignificantBits, leastSignificantBits), slot -> {
+                if (slot >= size) {
+                    return false;
+                }
+
+                Page page = page(pages, slot);
+                return page.mostSignificantBits[slot & PAGE_MASK] == mostSignificantBits &&
+                        page.leastSignificantBits[slot & PAGE_MASK] == leastSignificantBits &&
+                        page.books.get(slot & PAGE_MASK) != null;
+            });
+        }
+
+        SortedIndex index(OrderBy orderBy) {
+            return indexes[orderBy.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.tracktainment.bookmanager.memory;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+// Open-addressing hash table of slots, the dense internal ids of BookStore. It keeps no keys of its own: a probed slot
+// is compared by the caller against the columns of that slot, so an entry costs one int
+class SlotTable {
+
+    static final int NONE = -1;
+
+    private static final int REMOVED = -2;
+    private static final int MIN_CAPACITY = 16;
+
+    private final IntUnaryOperator hashOfSlot;
+    private volatile int[] cells;
+    private int live;
+    private int occupied;
+
+    SlotTable(IntUnaryOperator hashOfSlot) {
+        this.hashOfSlot = hashOfSlot;
+        this.cells = newCells(MIN_CAPACITY);
+    }
+
+    // Lock-free: a reader probes whichever array is published, cells are only ever filled, marked removed or replaced
+    // as a whole on resize
+    int find(int hash, IntPredicate matches) {
+        int[] table = cells;
+        int mask = table.length - 1;
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            int slot = table[i];
+            if (slot == NONE) {
+                return NONE;
+            }
+            if (slot != REMOVED && matches.test(slot)) {
+                return slot;
+            }
+        }
+    }
+
+    // Writers are serialized by BookStore
+    void add(int slot) {
+        // At most half full, counting removed cells, so probes stay short and always reach an empty cell
+        if ((occupied + 1) * 2 > cells.length) {
+            resize(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, live + 1) * 4 - 1) << 1));
+        }
+
+        int[] table = cells;
+        int mask = table.length - 1;
+        for (int i = spread(hashOfSlot.applyAsInt(slot)) & mask; ; i = (i + 1) & mask) {
+            if (table[i] == NONE) {
+                table[i] = slot;
+                occupied++;
+                live++;
+                return;
+            }
+        }
+    }
+
+    void remove(int slot) {
+        int[] table = cells;
+        int mask = table.length - 1;
+        for (int i = spread(hashOfSlot.applyAsInt(slot)) & mask; table[i] != NONE; i = (i + 1) & mask) {
+            if (table[i] == slot) {
+                // Probes for other slots still have to pass this cell, it is only reclaimed by the next resize
+                table[i] = REMOVED;
+                live--;
+                return;
+            }
+        }
+    }
+
+    int size() {
+        return live;
+    }
+
+    private void resize(int capacity) {
+        int[] table = newCells(capacity);
+        int mask = capacity - 1;
+        for (int slot : cells) {
+            if (slot >= 0) {
+                int i = spread(hashOfSlot.applyAsInt(slot)) & mask;
+                while (table[i] != NONE) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = slot;
+            }
+        }
+
+        occupied = live;
+        cells = table;
+    }
+
+    private static int[] newCells(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, NONE);
+        return table;
+    }
+
+    private static int spread(int hash) {
+        // Fibonacci hashing, so keys that only differ in their high bits still spread over the low ones
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,308 @@
+package com.tracktainment.bookmanager.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Slots ordered by (key, slot) ascending, nulls last like Postgres sorts them ascending; read backwards it is the
+// descending order with nulls first. Immutable: a writer publishes a changed copy, a reader keeps walking the one it
+// started with. Keys sit next to their slots, so seeks and runs of equal keys never touch the books.
+// The entries are split into chunks of at most MAX_CHUNK_SIZE. A copy shares the chunks it leaves as they are and only
+// copies the chunk directory, so a write costs a few chunks and the directory instead of the whole index
+class SortedIndex {
+
+    private static final int MAX_CHUNK_SIZE = 1024;
+    // Chunks grown past the maximum are split into chunks of about this size, which leaves room for the next writes
+    private static final int SPLIT_CHUNK_SIZE = MAX_CHUNK_SIZE / 2;
+
+    private final boolean timed;
+    private final Chunk[] chunks;
+    // Position of the first entry of each chunk, followed by the size of the index
+    private final int[] starts;
+
+    private SortedIndex(boolean timed, Chunk[] chunks) {
+        this.timed = timed;
+        this.chunks = chunks;
+        starts = new int[chunks.length + 1];
+        for (int i = 0; i < chunks.length; i++) {
+            starts[i + 1] = starts[i] + chunks[i].size();
+        }
+    }
+
+    static SortedIndex ofTexts() {
+        return new SortedIndex(false, new Chunk[0]);
+    }
+
+    static SortedIndex ofTimes() {
+        return new SortedIndex(true, new Chunk[0]);
+    }
+
+    int size() {
+        return starts[chunks.length];
+    }
+
+    int slot(int position) {
+        int chunk = chunkOf(position);
+        return chunks[chunk].slots[position - starts[chunk]];
+    }
+
+    // The key is a String for text indexes and a Long for timestamp ones
+    int compareKey(int position, Object key) {
+        int chunk = chunkOf(position);
+        return chunks[chunk].compareKey(position - starts[chunk], key);
+    }
+
+    boolean sameKey(int position, int other) {
+        int chunk = chunkOf(position);
+        int otherChunk = chunkOf(other);
+        if (timed) {
+            return chunks[chunk].times[position - starts[chunk]] == chunks[otherChunk].times[other - starts[otherChunk]];
+        }
+        return compareTexts(
+                chunks[chunk].texts[position - starts[chunk]],
+                chunks[otherChunk].texts[other - starts[otherChunk]]
+        ) == 0;
+    }
+
+    // First position whose key is not less than the given one
+    int lowerBound(Object key) {
+        return search(key, Long.MIN_VALUE);
+    }
+
+    // First position whose key is greater than the given one
+    int upperBound(Object key) {
+        return search(key, Long.MAX_VALUE);
+    }
+
+    // First position after the entry (key, slot), whether or not that entry is still indexed
+    int higher(Object key, long slot) {
+        return search(key, slot);
+    }
+
+    SortedIndex withAdded(Object[] keys, int[] added) {
+        // The batch is sorted on its own, then each chunk is merged with the entries up to its last one in one pass.
+        // The chunks no entry falls into are shared with this index
+        Integer[] order = new Integer[added.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int compared = compareKeys(keys[a], keys[b]);
+            return compared != 0 ? compared : Integer.compare(added[a], added[b]);
+        });
+
+        if (chunks.length == 0) {
+            List<Chunk> merged = new ArrayList<>();
+            split(Chunk.empty(timed).merge(keys, added, order, 0, order.length), merged);
+            return new SortedIndex(timed, merged.toArray(Chunk[]::new));
+        }
+
+        List<Chunk> merged = new ArrayList<>(chunks.length + 1);
+        int next = 0;
+        for (int i = 0; i < chunks.length; i++) {
+            Chunk chunk = chunks[i];
+            // Entries past the last chunk are appended to it
+            int end = next;
+            if (i == chunks.length - 1) {
+                end = order.length;
+            } else {
+                while (end < order.length && chunk.compareEntry(chunk.size() - 1, keys[order[end]], added[order[end]]) > 0) {
+                    end++;
+                }
+            }
+
+            if (end == next) {
+                merged.add(chunk);
+            } else {
+                split(chunk.merge(keys, added, order, next, end), merged);
+                next = end;
+            }
+        }
+
+        return new SortedIndex(timed, merged.toArray(Chunk[]::new));
+    }
+
+    SortedIndex withRemoved(int slot, Object key) {
+        int position = search(key, slot - 1L);
+        if (position == size() || slot(position) != slot) {
+            throw new IllegalStateException("Slot " + slot + " is not indexed under its key.");
+        }
+
+        // Only the chunk of the entry is copied, a chunk left empty is dropped from the directory
+        int chunk = chunkOf(position);
+        Chunk remaining = chunks[chunk].without(position - starts[chunk]);
+        if (remaining.size() > 0) {
+            Chunk[] changed = chunks.clone();
+            changed[chunk] = remaining;
+            return new SortedIndex(timed, changed);
+        }
+
+        Chunk[] changed = new Chunk[chunks.length - 1];
+        System.arraycopy(chunks, 0, changed, 0, chunk);
+        System.arraycopy(chunks, chunk + 1, changed, chunk, changed.length - chunk);
+        return new SortedIndex(timed, changed);
+    }
+
+    SortedIndex withMoved(int slot, Object oldKey, Object newKey) {
+        return withRemoved(slot, oldKey).withAdded(new Object[]{newKey}, new int[]{slot});
+    }
+
+    static int compareTexts(String a, String b) {
+        if (a == null) {
+            return b == null ? 0 : 1;
+        }
+        return b == null ? -1 : a.compareTo(b);
+    }
+
+    private int search(Object key, long slot) {
+        // The first chunk whose last entry is after (key, slot) holds the position, without one it is the end
+        int low = 0;
+        int high = chunks.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Chunk chunk = chunks[middle];
+            if (chunk.compareEntry(chunk.size() - 1, key, slot) > 0) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low == chunks.length ? size() : starts[low] + chunks[low].search(key, slot);
+    }
+
+    private int chunkOf(int position) {
+        // Chunks are never empty, so the last chunk starting at or before the position holds it
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private int compareKeys(Object a, Object b) {
+        return timed ? Long.compare((Long) a, (Long) b) : compareTexts((String) a, (String) b);
+    }
+
+    private static void split(Chunk chunk, List<Chunk> chunks) {
+        if (chunk.size() <= MAX_CHUNK_SIZE) {
+            chunks.add(chunk);
+            return;
+        }
+
+        int pieces = (chunk.size() + SPLIT_CHUNK_SIZE - 1) / SPLIT_CHUNK_SIZE;
+        for (int piece = 0; piece < pieces; piece++) {
+            chunks.add(chunk.range(
+                    (int) ((long) chunk.size() * piece / pieces),
+                    (int) ((long) chunk.size() * (piece + 1) / pieces)
+            ));
+        }
+    }
+
+    // A run of consecutive entries, in the same parallel arrays the whole index used to be
+    private static final class Chunk {
+
+        private final int[] slots;
+        // Text keys in String order, or timestamps in microseconds, whichever the field is
+        private final String[] texts;
+        private final long[] times;
+
+        private Chunk(int[] slots, String[] texts, long[] times) {
+            this.slots = slots;
+            this.texts = texts;
+            this.times = times;
+        }
+
+        private static Chunk empty(boolean timed) {
+            return ofSize(timed, 0);
+        }
+
+        private static Chunk ofSize(boolean timed, int size) {
+            return new Chunk(new int[size], timed ? null : new String[size], timed ? new long[size] : null);
+        }
+
+        private int size() {
+            return slots.length;
+        }
+
+        private int compareKey(int position, Object key) {
+            if (times != null) {
+                return Long.compare(times[position], (Long) key);
+            }
+            return compareTexts(texts[position], (String) key);
+        }
+
+        private int compareEntry(int position, Object key, long slot) {
+            int compared = compareKey(position, key);
+            return compared != 0 ? compared : Long.compare(slots[position], slot);
+        }
+
+        // First position after the entry (key, slot)
+        private int search(Object key, long slot) {
+            int low = 0;
+            int high = slots.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (compareEntry(middle, key, slot) > 0) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+
+        // This chunk with the batch entries order[from] to order[to - 1], which are sorted
+        private Chunk merge(Object[] keys, int[] added, Integer[] order, int from, int to) {
+            Chunk merged = ofSize(times != null, slots.length + to - from);
+            int size = 0;
+            int i = 0;
+            int j = from;
+            while (i < slots.length || j < to) {
+                if (i == slots.length || (j < to && compareEntry(i, keys[order[j]], added[order[j]]) > 0)) {
+                    merged.set(size++, keys[order[j]], added[order[j]]);
+                    j++;
+                } else {
+                    merged.copyRange(size++, this, i++, 1);
+                }
+            }
+            return merged;
+        }
+
+        private Chunk without(int position) {
+            Chunk remaining = ofSize(times != null, slots.length - 1);
+            remaining.copyRange(0, this, 0, position);
+            remaining.copyRange(position, this, position + 1, slots.length - position - 1);
+            return remaining;
+        }
+
+        private Chunk range(int from, int to) {
+            Chunk range = ofSize(times != null, to - from);
+            range.copyRange(0, this, from, to - from);
+            return range;
+        }
+
+        private void set(int position, Object key, int slot) {
+            slots[position] = slot;
+            if (times != null) {
+                times[position] = (Long) key;
+            } else {
+                texts[position] = (String) key;
+            }
+        }
+
+        private void copyRange(int position, Chunk source, int sourcePosition, int length) {
+            System.arraycopy(source.slots, sourcePosition, slots, position, length);
+            if (times != null) {
+                System.arraycopy(source.times, sourcePosition, times, position, length);
+            } else {
+                System.arraycopy(source.texts, sourcePosition, texts, position, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.memory.BookStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-memory -am -Dtest=BookMemoryBenchmarkTest -Dbenchmark=true
+//   -Dsurefire.failIfNoSpecifiedTests=false
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookMemoryBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 1_000_000);
+    private static final int LOOKUPS = 1_000_000;
+    private static final int CHUNK_SIZE = 5_000;
+    private static final int RUNS = 5;
+
+    @Test
+    void findByIdShouldTakeLessThanAMicrosecond() {
+        // Arrange
+        String[] genres = {"Fiction", "Fantasy", "Mystery", "Biography", "History"};
+        String[] languages = {"English", "Portuguese", "Spanish", "French"};
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        // The same strings for every book are shared, so the heap grows by what each book costs on its own
+        long heapBefore = usedHeap();
+        BookStore bookStore = new BookStore();
+        UUID[] ids = new UUID[CATALOG_SIZE];
+        List<Book> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            ids[i] = UUID.randomUUID();
+            chunk.add(Book.builder()
+                    .id(ids[i].toString())
+                    .title("The " + Integer.toHexString(i * 31) + " Chronicles " + i)
+                    .author("Author " + i % 5_000)
+                    .genre(genres[i % genres.length])
+                    .publishedDate(LocalDate.of(1900, 1, 1).plusDays(i % 40_000))
+                    .language(languages[i % languages.length])
+                    .createdAt(createdAt.plusSeconds(i))
+                    .version(0L)
+                    .build());
+            if (chunk.size() == CHUNK_SIZE) {
+                bookStore.insertAll(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        bookStore.insertAll(chunk);
+        long bytesPerBook = (usedHeap() - heapBefore) / CATALOG_SIZE;
+
+        // Looked up in an order unrelated to the slots, so pages and table cells are not read in sequence
+        int[] order = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            order[i] = (int) ((i * 7_919L) % CATALOG_SIZE);
+        }
+
+        // Act
+        long[] nanos = new long[RUNS];
+        long found = 0;
+        // The first run warms up the JIT
+        for (int run = -1; run < RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i : order) {
+                found += bookStore.snapshot().book(ids[i]) != null ? 1 : 0;
+            }
+            if (run >= 0) {
+                nanos[run] = System.nanoTime() - start;
+            }
+        }
+
+        // Assert
+        Arrays.sort(nanos);
+        double nanosPerLookup = (double) nanos[RUNS / 2] / LOOKUPS;
+        System.out.printf("catalog size: %d books, %d lookups per run%n", CATALOG_SIZE, LOOKUPS);
+        System.out.printf("%-16s %12.0f%n", "ns per findById", nanosPerLookup);
+        System.out.printf("%-16s %12d%n", "bytes per book", bytesPerBook);
+
+        assertEquals((long) (RUNS + 1) * LOOKUPS, found);
+        assertTrue(nanosPerLookup < 1_000);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
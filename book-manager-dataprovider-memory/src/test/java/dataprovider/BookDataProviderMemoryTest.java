@@ -0,0 +1,254 @@
+package dataprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderMemory;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.memory.BookStore;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDataProviderMemoryTest {
+
+    private BookDataProviderMemory bookDataProviderMemory;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        bookDataProviderMemory = new BookDataProviderMemory(new BookStore(), objectMapper);
+    }
+
+    @Test
+    void shouldCreateAndFindBook() {
+        // Arrange
+        BookCreate bookCreate = bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama");
+
+        // Act
+        Book created = bookDataProviderMemory.create(bookCreate);
+        Book found = bookDataProviderMemory.findById(created.getId().toUpperCase());
+
+        // Assert
+        assertEquals(created, found);
+        assertEquals("The Great Gatsby", found.getTitle());
+        assertEquals(0L, found.getVersion());
+        assertNotNull(found.getCreatedAt());
+    }
+
+    @Test
+    void shouldFailBatchWithDuplicateTitle() {
+        // Arrange
+        bookDataProviderMemory.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        List<BookCreate> bookCreates = List.of(
+                bookCreate("Tender Is the Night", "F. Scott Fitzgerald", "Drama"),
+                bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama")
+        );
+
+        // Act & Assert
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookDataProviderMemory.createAll(bookCreates));
+        assertEquals(1L, bookDataProviderMemory.listByCriteria(listInput().withTotalCount(true).build()).getTotalCount());
+    }
+
+    @Test
+    void shouldImportAbsentTitlesAndReportTheOthers() {
+        // Arrange
+        bookDataProviderMemory.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        List<BookImportRow> rows = List.of(
+                new BookImportRow(1, bookCreate("Tender Is the Night", "F. Scott Fitzgerald", "Drama"), null),
+                new BookImportRow(2, bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"), null),
+                new BookImportRow(3, bookCreate("Tender Is the Night", "F. Scott Fitzgerald", "Drama"), null)
+        );
+
+        // Act
+        BookImportResult result = bookDataProviderMemory.importAll(rows);
+
+        // Assert
+        assertEquals(List.of("Tender Is the Night"), result.getBooks().stream().map(Book::getTitle).toList());
+        assertEquals(List.of(2L, 3L), result.getErrors().stream().map(BookImportError::getLine).toList());
+        assertEquals("Book The Great Gatsby already exists.", result.getErrors().get(0).getMessage());
+    }
+
+    @Test
+    void shouldPageThroughSortedBooksWithCursor() {
+        // Arrange
+        bookDataProviderMemory.createAll(List.of(
+                bookCreate("Emma", "Jane Austen", "Romance"),
+                bookCreate("Persuasion", "Jane Austen", null),
+                bookCreate("Dracula", "Bram Stoker", "Horror"),
+                bookCreate("Ulysses", "James Joyce", null),
+                bookCreate("Beloved", "Toni Morrison", "Drama")
+        ));
+
+        // Act
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            BookPage bookPage = bookDataProviderMemory.listByCriteria(listInput()
+                    .limit(2)
+                    .cursor(cursor)
+                    .orderByList(List.of(OrderBy.GENRE, OrderBy.TITLE))
+                    .orderDirectionList(List.of(OrderDirection.DESC, OrderDirection.ASC))
+                    .build());
+            bookPage.getBooks().forEach(book -> titles.add(book.getTitle()));
+            assertEquals(bookPage.isHasMore(), bookPage.getNextCursor() != null);
+            cursor = bookPage.getNextCursor();
+        } while (cursor != null);
+
+        // Assert
+        // Postgres puts nulls first when descending
+        assertEquals(List.of("Persuasion", "Ulysses", "Emma", "Dracula", "Beloved"), titles);
+    }
+
+    @Test
+    void shouldFilterAndCountBooks() {
+        // Arrange
+        bookDataProviderMemory.createAll(List.of(
+                bookCreate("Emma", "Jane Austen", "Romance"),
+                bookCreate("Persuasion", "Jane Austen", "Romance"),
+                bookCreate("Dracula", "Bram Stoker", "Horror")
+        ));
+
+        // Act
+        BookPage bookPage = bookDataProviderMemory.listByCriteria(listInput()
+                .author("AUSTEN")
+                .offset(1)
+                .withTotalCount(true)
+                .orderByList(List.of(OrderBy.TITLE))
+                .orderDirectionList(List.of(OrderDirection.ASC))
+                .build());
+
+        // Assert
+        assertEquals(List.of("Persuasion"), bookPage.getBooks().stream().map(Book::getTitle).toList());
+        assertNull(bookPage.getBooks().get(0).getVersion());
+        assertFalse(bookPage.isHasMore());
+        assertEquals(2L, bookPage.getTotalCount());
+        assertFalse(bookPage.getTotalCountEstimated());
+    }
+
+    @Test
+    void shouldCountFacetsOfMatchingBooks() {
+        // Arrange
+        bookDataProviderMemory.createAll(List.of(
+                bookCreate("Emma", "Jane Austen", "Romance"),
+                bookCreate("Persuasion", "Jane Austen", "Romance"),
+                bookCreate("Dracula", "Bram Stoker", "Horror"),
+                bookCreate("Ulysses", "James Joyce", null)
+        ));
+
+        // Act
+        BookFacets bookFacets = bookDataProviderMemory.facetsByCriteria(listInput().build());
+
+        // Assert
+        assertEquals(List.of(new BookFacetCount("Romance", 2), new BookFacetCount("Horror", 1)), bookFacets.getGenres());
+        assertEquals(List.of(new BookFacetCount("1925", 4)), bookFacets.getPublishedYears());
+        assertEquals(List.of(), bookFacets.getLanguages());
+    }
+
+    @Test
+    void shouldUpdateOnlyAtTheReadVersion() {
+        // Arrange
+        Book book = bookDataProviderMemory.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        BookUpdate bookUpdate = BookUpdate.builder()
+                .title("Tender Is the Night")
+                .build();
+
+        // Act
+        Book updated = bookDataProviderMemory.update(book.getId(), bookUpdate, 0L);
+
+        // Assert
+        assertEquals("Tender Is the Night", updated.getTitle());
+        assertEquals("F. Scott Fitzgerald", updated.getAuthor());
+        assertEquals(1L, updated.getVersion());
+        assertThrows(PreconditionFailedException.class, () -> bookDataProviderMemory.update(book.getId(), bookUpdate, 0L));
+        assertEquals(List.of("Tender Is the Night"), bookDataProviderMemory.listByCriteria(listInput()
+                        .orderByList(List.of(OrderBy.TITLE))
+                        .orderDirectionList(List.of(OrderDirection.ASC))
+                        .build())
+                .getBooks().stream().map(Book::getTitle).toList());
+    }
+
+    @Test
+    void shouldDeleteBook() {
+        // Arrange
+        Book book = bookDataProviderMemory.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+
+        // Act
+        bookDataProviderMemory.delete(book.getId(), 0L);
+
+        // Assert
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderMemory.findById(book.getId()));
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderMemory.delete(book.getId(), null));
+        assertTrue(bookDataProviderMemory.listByCriteria(listInput().build()).getBooks().isEmpty());
+    }
+
+    @Test
+    void shouldDeleteAllBooksStillAtTheirVersions() {
+        // Arrange
+        Book gatsby = bookDataProviderMemory.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", "Drama"));
+        Book dune = bookDataProviderMemory.create(bookCreate("Dune", "Frank Herbert", "Science Fiction"));
+        Book emma = bookDataProviderMemory.create(bookCreate("Emma", "Jane Austen", "Romance"));
+        bookDataProviderMemory.update(emma.getId(), BookUpdate.builder().genre("Drama").build(), 0L);
+
+        // Act
+        bookDataProviderMemory.deleteAll(List.of(gatsby, dune, emma));
+
+        // Assert
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderMemory.findById(gatsby.getId()));
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderMemory.findById(dune.getId()));
+        assertEquals(List.of("Emma"), bookDataProviderMemory.listByCriteria(listInput().build())
+                .getBooks().stream().map(Book::getTitle).toList());
+    }
+
+    @Test
+    void shouldExportBooksAsNdjsonWithoutVersion() {
+        // Arrange
+        Book book = bookDataProviderMemory.create(bookCreate("The Great Gatsby", "F. Scott Fitzgerald", null));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long exported = bookDataProviderMemory.exportByCriteria(listInput().build(), outputStream);
+
+        // Assert
+        assertEquals(1, exported);
+        String line = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(line.startsWith("{\"id\":\"" + book.getId() + "\",\"title\":\"The Great Gatsby\""));
+        assertTrue(line.endsWith("}\n"));
+        assertFalse(line.contains("version"));
+    }
+
+    private ListByCriteriaUseCase.Input.InputBuilder listInput() {
+        return ListByCriteriaUseCase.Input.builder();
+    }
+
+    private BookCreate bookCreate(String title, String author, String genre) {
+        return BookCreate.builder()
+                .title(title)
+                .author(author)
+                .genre(genre)
+                .publishedDate(LocalDate.of(1925, 4, 10))
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package dataprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderMemory;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProviderMemory;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.memory.BookStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchDataProviderMemoryTest {
+
+    private BookDataProviderMemory bookDataProviderMemory;
+    private BookSearchDataProviderMemory bookSearchDataProviderMemory;
+
+    @BeforeEach
+    void setUp() {
+        BookStore bookStore = new BookStore();
+        bookDataProviderMemory = new BookDataProviderMemory(bookStore, new ObjectMapper().findAndRegisterModules());
+        bookSearchDataProviderMemory = new BookSearchDataProviderMemory(bookStore);
+    }
+
+    @Test
+    void shouldRankEqualScoresByStoreOrder() {
+        // Arrange
+        List<Book> books = bookDataProviderMemory.createAll(List.of(
+                bookCreate("Dune", "Frank Herbert"),
+                bookCreate("Eden", "Frank Herbert"),
+                bookCreate("Emma", "Jane Austen")
+        ));
+        bookSearchDataProviderMemory.indexAll(books.reversed());
+
+        // Act
+        List<BookSearchHit> hits = bookSearchDataProviderMemory.search("herbert", null, 10);
+
+        // Assert
+        assertEquals(List.of(books.get(0).getId(), books.get(1).getId()), hits.stream().map(BookSearchHit::getId).toList());
+    }
+
+    @Test
+    void shouldFindReplacedFieldsAndForgetRemovedBooks() {
+        // Arrange
+        Book dune = bookDataProviderMemory.create(bookCreate("Dune", "Frank Herbert"));
+        Book emma = bookDataProviderMemory.create(bookCreate("Emma", "Jane Austen"));
+        bookSearchDataProviderMemory.indexAll(List.of(dune, emma));
+
+        Book renamed = bookDataProviderMemory.update(dune.getId(), BookUpdate.builder().title("Children of Dune").build(), null);
+        bookSearchDataProviderMemory.index(renamed);
+        bookDataProviderMemory.delete(emma.getId(), null);
+        bookSearchDataProviderMemory.remove(emma.getId());
+
+        // Act
+        List<BookSearchHit> children = bookSearchDataProviderMemory.search("children", null, 10);
+        List<BookSearchHit> austen = bookSearchDataProviderMemory.search("austen", null, 10);
+
+        // Assert
+        assertEquals(List.of(dune.getId()), children.stream().map(BookSearchHit::getId).toList());
+        assertTrue(austen.isEmpty());
+    }
+
+    @Test
+    void shouldNotIndexBookRemovedBeforeIndexing() {
+        // Arrange
+        Book dune = bookDataProviderMemory.create(bookCreate("Dune", "Frank Herbert"));
+        bookDataProviderMemory.delete(dune.getId(), null);
+
+        // Act
+        bookSearchDataProviderMemory.index(dune);
+
+        // Assert
+        assertTrue(bookSearchDataProviderMemory.search("dune", null, 10).isEmpty());
+    }
+
+    @Test
+    void shouldOnlySearchTheGivenIds() {
+        // Arrange
+        List<Book> books = bookDataProviderMemory.createAll(List.of(
+                bookCreate("Dune", "Frank Herbert"),
+                bookCreate("Dune Messiah", "Frank Herbert")
+        ));
+        bookSearchDataProviderMemory.indexAll(books);
+
+        // Act
+        List<BookSearchHit> hits = bookSearchDataProviderMemory.search("dune", List.of(books.get(1).getId()), 10);
+
+        // Assert
+        assertEquals(List.of(books.get(1).getId()), hits.stream().map(BookSearchHit::getId).toList());
+        assertTrue(hits.get(0).getScore() > 0);
+    }
+
+    private BookCreate bookCreate(String title, String author) {
+        return BookCreate.builder()
+                .title(title)
+                .author(author)
+                .build();
+    }
+}
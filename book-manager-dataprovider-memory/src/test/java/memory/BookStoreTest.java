@@ -0,0 +1,165 @@
+package memory;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.memory.BookFilter;
+import com.tracktainment.bookmanager.memory.BookOrdering;
+import com.tracktainment.bookmanager.memory.BookStore;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookStoreTest {
+
+    private BookStore bookStore;
+
+    @BeforeEach
+    void setUp() {
+        bookStore = new BookStore();
+    }
+
+    @Test
+    void shouldFindBooksAcrossPagesAndTableResizes() {
+        // Arrange
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            books.add(book("Title " + i, "Author " + i % 7));
+        }
+
+        // Act
+        bookStore.insertAll(books.subList(0, 3));
+        bookStore.insertAll(books.subList(3, books.size()));
+
+        // Assert
+        BookStore.Snapshot snapshot = bookStore.snapshot();
+        assertEquals(10_000, snapshot.live());
+        for (Book book : books) {
+            assertSame(book, snapshot.book(UUID.fromString(book.getId())));
+        }
+        assertNull(snapshot.book(UUID.randomUUID()));
+    }
+
+    @Test
+    void shouldKeepPublishedSnapshotsUnchangedByLaterInserts() {
+        // Arrange
+        Book first = book("Emma", "Jane Austen");
+        Book second = book("Persuasion", "Jane Austen");
+        bookStore.insertAll(List.of(first));
+        BookStore.Snapshot before = bookStore.snapshot();
+
+        // Act
+        bookStore.insertAll(List.of(second));
+
+        // Assert
+        assertEquals(1, before.live());
+        assertNull(before.book(UUID.fromString(second.getId())));
+        assertNotNull(bookStore.snapshot().book(UUID.fromString(second.getId())));
+    }
+
+    @Test
+    void shouldReorderReplacedBookAndBumpVersion() {
+        // Arrange
+        Book emma = book("Emma", "Jane Austen");
+        Book dracula = book("Dracula", "Bram Stoker");
+        bookStore.insertAll(List.of(emma, dracula));
+
+        // Act
+        Book replaced = bookStore.replace(emma.getId(), 0L, current -> book(current.getId(), "Sense and Sensibility", "Jane Austen"));
+
+        // Assert
+        assertEquals(1L, replaced.getVersion());
+        assertEquals(List.of("Dracula", "Sense and Sensibility"), titlesBy(OrderBy.TITLE, OrderDirection.ASC));
+        assertThrows(PreconditionFailedException.class, () -> bookStore.replace(emma.getId(), 0L, current -> current));
+        assertThrows(ResourceAlreadyExistsException.class,
+                () -> bookStore.replace(dracula.getId(), null, current -> book(current.getId(), "Sense and Sensibility", "Bram Stoker")));
+    }
+
+    @Test
+    void shouldFreeTitleOfRemovedBook() {
+        // Arrange
+        Book emma = book("Emma", "Jane Austen");
+        bookStore.insertAll(List.of(emma, book("Dracula", "Bram Stoker")));
+
+        // Act
+        bookStore.remove(emma.getId(), null);
+        List<Book> inserted = bookStore.insertAbsent(List.of(book("Emma", "Jane Austen"), book("Dracula", "Bram Stoker")));
+
+        // Assert
+        assertEquals(List.of("Emma"), inserted.stream().map(Book::getTitle).toList());
+        assertEquals(2, bookStore.snapshot().live());
+        assertEquals(List.of("Emma", "Dracula"), titlesBy(OrderBy.TITLE, OrderDirection.DESC));
+    }
+
+    @Test
+    void shouldKeepOrderAcrossIndexChunksThroughSingleWrites() {
+        // Arrange
+        List<String> expected = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            // Titles arrive out of order, so single inserts land all over the index and split its chunks
+            Book book = book(String.format("Title %05d", i * 7_919 % 5_000), "Author " + i % 7);
+            books.add(book);
+            bookStore.insertAll(List.of(book));
+        }
+
+        // Act
+        for (int i = 0; i < books.size(); i += 3) {
+            bookStore.remove(books.get(i).getId(), null);
+        }
+        for (int i = 1; i < books.size(); i += 3) {
+            String title = "Moved " + books.get(i).getTitle();
+            bookStore.replace(books.get(i).getId(), null, current -> book(current.getId(), title, current.getAuthor()));
+        }
+
+        // Assert
+        for (int i = 0; i < books.size(); i++) {
+            if (i % 3 != 0) {
+                expected.add((i % 3 == 1 ? "Moved " : "") + books.get(i).getTitle());
+            }
+        }
+        expected.sort(null);
+        assertEquals(expected, titlesBy(OrderBy.TITLE, OrderDirection.ASC));
+        assertEquals(expected.reversed(), titlesBy(OrderBy.TITLE, OrderDirection.DESC));
+        assertEquals(expected.size(), bookStore.snapshot().live());
+    }
+
+    private List<String> titlesBy(OrderBy orderBy, OrderDirection orderDirection) {
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+        sorting.put(orderBy, orderDirection);
+        BookStore.Snapshot snapshot = bookStore.snapshot();
+
+        List<String> titles = new ArrayList<>();
+        new BookOrdering(sorting, snapshot).forEach(
+                BookFilter.of(ListByCriteriaUseCase.Input.builder().build()),
+                null,
+                slot -> titles.add(snapshot.book(slot).getTitle())
+        );
+        return titles;
+    }
+
+    private Book book(String title, String author) {
+        return book(UUID.randomUUID().toString(), title, author);
+    }
+
+    private Book book(String id, String title, String author) {
+        return Book.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .createdAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30))
+                .version(0L)
+                .build();
+    }
+}
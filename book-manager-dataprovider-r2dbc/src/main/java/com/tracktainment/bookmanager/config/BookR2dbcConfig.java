@@ -0,0 +1,48 @@
+package com.tracktainment.bookmanager.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactoryProvider;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.Map;
+
+// Spring Boot's R2DBC auto-configuration is excluded, its transaction manager would stand next to the JPA one
+@Configuration
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "r2dbc")
+public class BookR2dbcConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool bookConnectionPool(
+            @Value("${books.r2dbc.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${books.r2dbc.pool.max-size:10}") int maxSize
+    ) {
+        // Same credentials and planner setting as the JDBC pools, so both providers get the same plans
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .option(PostgresqlConnectionFactoryProvider.OPTIONS, Map.of("plan_cache_mode", "force_custom_plan"))
+                .build());
+
+        // Sized like a Hikari pool by default, the r2dbc.pool.* metrics are tagged with its name
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("books-r2dbc")
+                .initialSize(maxSize)
+                .maxSize(maxSize)
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient bookDatabaseClient(ConnectionPool bookConnectionPool) {
+        return DatabaseClient.create(bookConnectionPool);
+    }
+}
@@ -0,0 +1,117 @@
+package com.tracktainment.bookmanager.dataprovider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.facet.BookFacetCache;
+import com.tracktainment.bookmanager.reactive.BookReactiveDataProvider;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.tracktainment.bookmanager.util.Constants;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// The use cases are synchronous, so each call waits here for its statement; the pooled connections are only held while
+// Postgres works, never while a caller thread is busy elsewhere
+@Service
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "r2dbc")
+@RequiredArgsConstructor
+public class BookDataProviderR2dbc implements BookDataProvider {
+
+    private final BookReactiveDataProvider bookReactiveDataProvider;
+    private final BookFacetCache bookFacetCache;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Book create(BookCreate bookCreate) {
+        Book book = bookReactiveDataProvider.create(bookCreate).block();
+        bookFacetCache.evictCurrentUser();
+        return book;
+    }
+
+    @Override
+    public List<Book> createAll(List<BookCreate> bookCreates) {
+        List<Book> books = bookReactiveDataProvider.createAll(bookCreates).collectList().block();
+        bookFacetCache.evictCurrentUser();
+        return books;
+    }
+
+    @Override
+    public BookImportResult importAll(List<BookImportRow> rows) {
+        BookImportResult bookImportResult = bookReactiveDataProvider.importAll(rows).block();
+        bookFacetCache.evictCurrentUser();
+        return bookImportResult;
+    }
+
+    @Override
+    public Book findById(String id) {
+        return bookReactiveDataProvider.findById(id).block();
+    }
+
+    @Override
+    public BookPage listByCriteria(ListByCriteriaUseCase.Input input) {
+        return bookReactiveDataProvider.listByCriteria(input).block();
+    }
+
+    @Override
+    public long exportByCriteria(ListByCriteriaUseCase.Input input, OutputStream outputStream) {
+        // Books are requested a fetch at a time as the stream takes them, so a slow client never buffers the result
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(StreamWriteFeature.AUTO_CLOSE_TARGET.mappedFeature());
+            // Each line ends with its own newline, the default root separator is not needed
+            generator.setRootValueSeparator(null);
+            long rows = 0;
+            for (Book book : bookReactiveDataProvider.exportByCriteria(input).toIterable(Constants.EXPORT_FETCH_SIZE)) {
+                writer.writeValue(generator, book);
+                generator.writeRaw('\n');
+
+                // The first line goes out right away, the rest as the buffers fill
+                if (rows++ == 0) {
+                    generator.flush();
+                }
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public BookFacets facetsByCriteria(ListByCriteriaUseCase.Input input) {
+        return bookFacetCache.get(input, () -> bookReactiveDataProvider.facetsByCriteria(input).block());
+    }
+
+    @Override
+    public Book update(String id, BookUpdate bookUpdate, Long version) {
+        Book book = bookReactiveDataProvider.update(id, bookUpdate, version).block();
+        bookFacetCache.evictCurrentUser();
+        return book;
+    }
+
+    @Override
+    public void delete(String id, Long version) {
+        bookReactiveDataProvider.delete(id, version).block();
+        bookFacetCache.evictCurrentUser();
+    }
+
+    @Override
+    public void deleteAll(List<Book> books) {
+        bookReactiveDataProvider.deleteAll(books).block();
+        bookFacetCache.evictCurrentUser();
+    }
+}
@@ -0,0 +1,46 @@
+package com.tracktainment.bookmanager.mapper;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.entity.BookProjection;
+import io.r2dbc.spi.Readable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class BookReadableMapper {
+
+    // Rows selected with BookEntityRowMapper.COLUMNS, read by name like BookEntityRowMapper reads them over JDBC
+    public static Book toBook(Readable row) {
+        return Book.builder()
+                .id(row.get("id", UUID.class).toString())
+                .title(row.get("title", String.class))
+                .author(row.get("author", String.class))
+                .genre(row.get("genre", String.class))
+                .isbn(row.get("isbn", String.class))
+                .publisher(row.get("publisher", String.class))
+                .publishedDate(row.get("published_date", LocalDate.class))
+                .language(row.get("language", String.class))
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    // Pages keep the dbId of their last book for the next cursor, like the JPQL projection of the list queries
+    public static BookProjection toBookProjection(Readable row) {
+        return new BookProjection(
+                row.get("db_id", Long.class),
+                row.get("id", UUID.class),
+                row.get("title", String.class),
+                row.get("author", String.class),
+                row.get("genre", String.class),
+                row.get("isbn", String.class),
+                row.get("publisher", String.class),
+                row.get("published_date", LocalDate.class),
+                row.get("language", String.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class)
+        );
+    }
+}
@@ -0,0 +1,460 @@
+package com.tracktainment.bookmanager.reactive;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.entity.BookProjection;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.mapper.BookCriteriaSqlMapper;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.mapper.BookEntityRowMapper;
+import com.tracktainment.bookmanager.mapper.BookListQueryMapper;
+import com.tracktainment.bookmanager.mapper.BookReadableMapper;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.tracktainment.bookmanager.util.Constants;
+import io.r2dbc.postgresql.api.PostgresqlException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// The operations of BookDataProvider over R2DBC: no call holds a thread while Postgres works, only a pooled connection
+@Component
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "r2dbc")
+@RequiredArgsConstructor
+public class BookReactiveDataProvider {
+
+    private static final String SELECT = "SELECT " + BookEntityRowMapper.COLUMNS + " FROM books";
+    // Through book_ids like BookDataProviderSql, so a lookup by id only reads the partition of the book
+    private static final String ID_CONDITION = "created_at = (SELECT created_at FROM book_ids WHERE id = :id) AND id = :id";
+    private static final String FIND_BY_ID = SELECT + " WHERE " + ID_CONDITION + " AND deleted_at IS NULL";
+    private static final String EXISTS_BY_ID = "SELECT 1 FROM books WHERE " + ID_CONDITION + " AND deleted_at IS NULL";
+    // Creates bind each column as one array, so a batch is a single statement whatever its size
+    private static final String INSERT = """
+            INSERT INTO books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at, updated_at)
+            SELECT nextval('%s'), b.id, b.title, b.author, b.genre, b.isbn, b.publisher, b.published_date, b.language, :now, :now
+            FROM unnest(:ids::uuid[], :titles::text[], :authors::text[], :genres::text[], :isbns::text[],
+                        :publishers::text[], :publishedDates::date[], :languages::text[])
+                WITH ORDINALITY AS b(id, title, author, genre, isbn, publisher, published_date, language, position)
+            ORDER BY b.position
+            RETURNING %s""".formatted(BookEntity.DB_ID_SEQUENCE, BookEntityRowMapper.COLUMNS);
+    // The import statement of BookDataProviderSql, reading the chunk from the bound arrays instead of a staging table
+    private static final String IMPORT_INSERT = """
+            WITH import_rows AS (
+                SELECT * FROM unnest(:lines::bigint[], :ids::uuid[], :titles::text[], :authors::text[], :genres::text[],
+                                     :isbns::text[], :publishers::text[], :publishedDates::date[], :languages::text[])
+                    AS i(line, id, title, author, genre, isbn, publisher, published_date, language)
+            ), first_lines AS (
+                SELECT DISTINCT ON (title) line, title FROM import_rows ORDER BY title, line
+            ), claimed AS (
+                INSERT INTO book_titles (title, db_id)
+                SELECT title, nextval('%s') FROM first_lines ORDER BY line
+                ON CONFLICT (title) DO NOTHING
+                RETURNING title, db_id
+            )
+            INSERT INTO books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at, updated_at)
+            SELECT claimed.db_id, i.id, i.title, i.author, i.genre, i.isbn, i.publisher, i.published_date, i.language, :now, :now
+            FROM import_rows i
+            JOIN first_lines ON first_lines.line = i.line
+            JOIN claimed ON claimed.title = i.title
+            ORDER BY i.line
+            RETURNING %s""".formatted(BookEntity.DB_ID_SEQUENCE, BookEntityRowMapper.COLUMNS);
+    // The delete of a single book for a whole list read from the bound arrays, each book only in its own partition
+    private static final String DELETE_ALL = """
+            UPDATE books b SET deleted_at = :deletedAt
+            FROM book_ids i, unnest(:ids::uuid[], :versions::bigint[]) AS d(id, version)
+            WHERE i.id = d.id AND b.created_at = i.created_at AND b.id = d.id AND b.version = d.version
+            AND b.deleted_at IS NULL""";
+    private static final Pattern PLAN_ROWS_PATTERN = Pattern.compile(" rows=(\\d+) ");
+    private static final Pattern DUPLICATE_TITLE_PATTERN = Pattern.compile("Key \\(title\\)=\\((.*)\\) already exists");
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Book> create(BookCreate bookCreate) {
+        return createAll(List.of(bookCreate)).single();
+    }
+
+    public Flux<Book> createAll(List<BookCreate> bookCreates) {
+        // A title repeated within the batch fails it as a whole, like a title that is already stored
+        Set<String> titles = new HashSet<>();
+        for (BookCreate bookCreate : bookCreates) {
+            if (!titles.add(bookCreate.getTitle())) {
+                return Flux.error(new ResourceAlreadyExistsException(BookEntity.class, bookCreate.getTitle()));
+            }
+        }
+
+        // The claim_book_title trigger detects stored titles in the same statement, also across concurrent creates
+        List<UUID> ids = bookCreates.stream()
+                .map(bookCreate -> UUID.randomUUID())
+                .toList();
+        return bindColumns(databaseClient.sql(INSERT), ids, bookCreates)
+                .bind("now", LocalDateTime.now())
+                .map(BookReadableMapper::toBook)
+                .all()
+                .onErrorMap(DuplicateKeyException.class, e -> new ResourceAlreadyExistsException(
+                        BookEntity.class,
+                        extractDuplicateTitle(e, bookCreates)
+                ));
+    }
+
+    public Mono<BookImportResult> importAll(List<BookImportRow> rows) {
+        Map<UUID, BookImportRow> rowsById = new LinkedHashMap<>();
+        rows.forEach(row -> rowsById.put(UUID.randomUUID(), row));
+        List<BookCreate> bookCreates = rowsById.values().stream()
+                .map(BookImportRow::getBookCreate)
+                .toList();
+
+        // Titles that are already stored, or repeated within the chunk, are skipped instead of failing the chunk
+        return bindColumns(databaseClient.sql(IMPORT_INSERT), new ArrayList<>(rowsById.keySet()), bookCreates)
+                .bind("lines", rowsById.values().stream().map(BookImportRow::getLine).toArray(Long[]::new))
+                .bind("now", LocalDateTime.now())
+                .map(BookReadableMapper::toBook)
+                .all()
+                .collectList()
+                .map(books -> {
+                    books.forEach(book -> rowsById.remove(UUID.fromString(book.getId())));
+                    List<BookImportError> errors = rowsById.values().stream()
+                            .map(row -> BookImportError.builder()
+                                    .line(row.getLine())
+                                    .message(String.format(
+                                            ResourceAlreadyExistsException.ERROR_MESSAGE,
+                                            BookEntity.class.getSimpleName(),
+                                            row.getBookCreate().getTitle()
+                                    ))
+                                    .build())
+                            .toList();
+
+                    return BookImportResult.builder()
+                            .books(books)
+                            .errors(errors)
+                            .build();
+                });
+    }
+
+    public Mono<Book> findById(String id) {
+        return databaseClient.sql(FIND_BY_ID)
+                .bind("id", UUID.fromString(id))
+                .map(BookReadableMapper::toBook)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(BookEntity.class, id)));
+    }
+
+    public Mono<BookPage> listByCriteria(ListByCriteriaUseCase.Input input) {
+        return Mono.defer(() -> {
+            Map<OrderBy, OrderDirection> sorting = BookListQueryMapper.toSorting(input);
+            BookCursorMapper.Cursor cursor = input.getCursor() != null ?
+                    BookCursorMapper.fromCursor(input.getCursor(), sorting) :
+                    null;
+            int limit = input.getLimit() != null ? input.getLimit() : Integer.parseInt(Constants.DEFAULT_LIMIT);
+
+            // The filters, seek and order of the JPQL list queries, rendered over the columns
+            MapSqlParameterSource parameters = new MapSqlParameterSource();
+            String sql = SELECT + BookCriteriaSqlMapper.toWhereClause(input, parameters) +
+                    (cursor != null ? " AND " + BookCriteriaSqlMapper.toCursorCondition(sorting, cursor, parameters) : "") +
+                    BookCriteriaSqlMapper.toOrderByClause(sorting) +
+                    " LIMIT :limit OFFSET :offset";
+
+            // One row more than the page tells whether another page follows without counting anything.
+            // A cursor seeks straight past the last seen row, so the offset only applies to the first page
+            parameters.addValue("limit", limit + 1);
+            parameters.addValue("offset", cursor == null && input.getOffset() != null ?
+                    input.getOffset() :
+                    Constants.MIN_OFFSET);
+
+            Mono<BookPage> bookPage = bind(databaseClient.sql(sql), parameters)
+                    .map(BookReadableMapper::toBookProjection)
+                    .all()
+                    .collectList()
+                    .map(bookProjections -> toBookPage(bookProjections, limit, sorting));
+
+            return input.isWithTotalCount() ? bookPage.flatMap(page -> countByCriteria(input, page)) : bookPage;
+        });
+    }
+
+    public Flux<Book> exportByCriteria(ListByCriteriaUseCase.Input input) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = SELECT + BookCriteriaSqlMapper.toWhereClause(input, parameters) +
+                BookCriteriaSqlMapper.toOrderByClause(BookListQueryMapper.toSorting(input));
+
+        // Rows are fetched as the subscriber asks for them, never the whole result at once
+        return bind(databaseClient.sql(sql), parameters)
+                .filter(statement -> statement.fetchSize(Constants.EXPORT_FETCH_SIZE))
+                .map(BookReadableMapper::toBook)
+                .all();
+    }
+
+    public Mono<BookFacets> facetsByCriteria(ListByCriteriaUseCase.Input input) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = BookCriteriaSqlMapper.toFacetsQuery(input, parameters);
+
+        // Rows come ordered by facet and count, each is appended to its facet as is
+        return bind(databaseClient.sql(sql), parameters)
+                .map(row -> new FacetRow(
+                        row.get("facet", String.class),
+                        row.get("value", String.class),
+                        row.get("books", Long.class)
+                ))
+                .all()
+                .filter(facetRow -> facetRow.value() != null)
+                .collect(
+                        () -> BookFacets.builder()
+                                .genres(new ArrayList<>())
+                                .languages(new ArrayList<>())
+                                .publishers(new ArrayList<>())
+                                .publishedYears(new ArrayList<>())
+                                .build(),
+                        (bookFacets, facetRow) -> {
+                            BookFacetCount bookFacetCount = new BookFacetCount(facetRow.value(), facetRow.books());
+                            switch (facetRow.facet()) {
+                                case "genre" -> bookFacets.getGenres().add(bookFacetCount);
+                                case "language" -> bookFacets.getLanguages().add(bookFacetCount);
+                                case "publisher" -> bookFacets.getPublishers().add(bookFacetCount);
+                                default -> bookFacets.getPublishedYears().add(bookFacetCount);
+                            }
+                        }
+                );
+    }
+
+    public Mono<Book> update(String id, BookUpdate bookUpdate, Long version) {
+        // Only the non-null fields are set, matching the null-ignore semantics of BookUpdate
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", UUID.fromString(id));
+        List<String> assignments = new ArrayList<>();
+        addAssignment(assignments, parameters, "title", bookUpdate.getTitle());
+        addAssignment(assignments, parameters, "author", bookUpdate.getAuthor());
+        addAssignment(assignments, parameters, "genre", bookUpdate.getGenre());
+        addAssignment(assignments, parameters, "isbn", bookUpdate.getIsbn());
+        addAssignment(assignments, parameters, "publisher", bookUpdate.getPublisher());
+        addAssignment(assignments, parameters, "published_date", bookUpdate.getPublishedDate());
+        addAssignment(assignments, parameters, "language", bookUpdate.getLanguage());
+
+        if (assignments.isEmpty()) {
+            return findById(id).flatMap(book -> version != null && !version.equals(book.getVersion()) ?
+                    Mono.<Book>error(new PreconditionFailedException(BookEntity.class, id, version)) :
+                    Mono.just(book));
+        }
+
+        // Compare and set in one statement, like BookDataProviderSql: the version is checked and bumped by the write
+        addAssignment(assignments, parameters, "updated_at", LocalDateTime.now());
+        assignments.add("version = version + 1");
+        String sql = "UPDATE books SET " + String.join(", ", assignments) +
+                " WHERE " + ID_CONDITION + " AND deleted_at IS NULL" + toVersionCondition(parameters, version) +
+                " RETURNING " + BookEntityRowMapper.COLUMNS;
+
+        return bind(databaseClient.sql(sql), parameters)
+                .map(BookReadableMapper::toBook)
+                .one()
+                // id and db_id are never set, so the only unique constraint this statement can violate is the title's
+                .onErrorMap(DuplicateKeyException.class, e -> new ResourceAlreadyExistsException(
+                        BookEntity.class,
+                        bookUpdate.getTitle()
+                ))
+                .switchIfEmpty(Mono.defer(() -> toWriteMissedError(id, version)));
+    }
+
+    public Mono<Void> delete(String id, Long version) {
+        // A single-row update, BookPurger deletes the tombstone later in a batch
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", UUID.fromString(id))
+                .addValue("deletedAt", LocalDateTime.now());
+        String sql = "UPDATE books SET deleted_at = :deletedAt WHERE " + ID_CONDITION + " AND deleted_at IS NULL" +
+                toVersionCondition(parameters, version) + " RETURNING db_id";
+
+        return bind(databaseClient.sql(sql), parameters)
+                .map(row -> row.get("db_id", Long.class))
+                .one()
+                .switchIfEmpty(Mono.defer(() -> toWriteMissedError(id, version)))
+                .then();
+    }
+
+    public Mono<Void> deleteAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return Mono.empty();
+        }
+
+        return databaseClient.sql(DELETE_ALL)
+                .bind("deletedAt", LocalDateTime.now())
+                .bind("ids", books.stream().map(book -> UUID.fromString(book.getId())).toArray(UUID[]::new))
+                .bind("versions", books.stream().map(Book::getVersion).toArray(Long[]::new))
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    private Mono<BookPage> countByCriteria(ListByCriteriaUseCase.Input input, BookPage bookPage) {
+        // The count ignores the cursor and the page, it is the size of the whole result
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String from = " FROM books" + BookCriteriaSqlMapper.toWhereClause(input, parameters);
+
+        // Planning is cheap and tells broad queries apart, which are never scanned just to be counted
+        return bind(databaseClient.sql("EXPLAIN SELECT 1" + from), parameters)
+                .map(row -> row.get(0, String.class))
+                .first()
+                .map(BookReactiveDataProvider::toRowEstimate)
+                .flatMap(estimate -> {
+                    if (estimate > Constants.EXACT_COUNT_LIMIT) {
+                        return Mono.just(withTotalCount(bookPage, estimate, true));
+                    }
+
+                    // A selective query is counted, but never past the limit, so a bad estimate cannot make it scan
+                    // everything
+                    parameters.addValue("countLimit", Constants.EXACT_COUNT_LIMIT + 1);
+                    return bind(
+                            databaseClient.sql("SELECT count(*) FROM (SELECT 1" + from + " LIMIT :countLimit) matching"),
+                            parameters
+                    )
+                            .map(row -> row.get(0, Long.class))
+                            .one()
+                            .map(count -> count <= Constants.EXACT_COUNT_LIMIT ?
+                                    withTotalCount(bookPage, count, false) :
+                                    withTotalCount(bookPage, Math.max(estimate, Constants.EXACT_COUNT_LIMIT + 1), true));
+                });
+    }
+
+    private <T> Mono<T> toWriteMissedError(String id, Long version) {
+        if (version == null) {
+            return Mono.error(new ResourceNotFoundException(BookEntity.class, id));
+        }
+
+        // Only looked up once a conditional write missed, to tell a stale version from a book that is gone
+        return databaseClient.sql(EXISTS_BY_ID)
+                .bind("id", UUID.fromString(id))
+                .map(row -> Boolean.TRUE)
+                .first()
+                .hasElement()
+                .flatMap(exists -> Mono.error(exists ?
+                        new PreconditionFailedException(BookEntity.class, id, version) :
+                        new ResourceNotFoundException(BookEntity.class, id)));
+    }
+
+    private static BookPage toBookPage(
+            List<BookProjection> bookProjections,
+            int limit,
+            Map<OrderBy, OrderDirection> sorting
+    ) {
+        boolean hasMore = bookProjections.size() > limit;
+        if (hasMore) {
+            bookProjections = bookProjections.subList(0, limit);
+        }
+
+        BookProjection last = hasMore ? bookProjections.get(limit - 1) : null;
+        return BookPage.builder()
+                .books(bookProjections.stream()
+                        .map(BookProjection::getBook)
+                        .toList())
+                .nextCursor(hasMore ? BookCursorMapper.toCursor(last.getBook(), last.getDbId(), sorting) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static BookPage withTotalCount(BookPage bookPage, long totalCount, boolean estimated) {
+        bookPage.setTotalCount(totalCount);
+        bookPage.setTotalCountEstimated(estimated);
+        return bookPage;
+    }
+
+    private static long toRowEstimate(String plan) {
+        // The first line of the plan carries the planner's row estimate for the whole query
+        Matcher matcher = PLAN_ROWS_PATTERN.matcher(plan);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(
+            DatabaseClient.GenericExecuteSpec spec,
+            MapSqlParameterSource parameters
+    ) {
+        // Rendered by the same mappers as the JDBC statements, the named parameters are never null
+        for (String name : parameters.getParameterNames()) {
+            spec = spec.bind(name, parameters.getValue(name));
+        }
+        return spec;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindColumns(
+            DatabaseClient.GenericExecuteSpec spec,
+            List<UUID> ids,
+            List<BookCreate> bookCreates
+    ) {
+        return spec.bind("ids", ids.toArray(UUID[]::new))
+                .bind("titles", toColumn(bookCreates, BookCreate::getTitle))
+                .bind("authors", toColumn(bookCreates, BookCreate::getAuthor))
+                .bind("genres", toColumn(bookCreates, BookCreate::getGenre))
+                .bind("isbns", toColumn(bookCreates, BookCreate::getIsbn))
+                .bind("publishers", toColumn(bookCreates, BookCreate::getPublisher))
+                .bind("publishedDates", bookCreates.stream().map(BookCreate::getPublishedDate).toArray(LocalDate[]::new))
+                .bind("languages", toColumn(bookCreates, BookCreate::getLanguage));
+    }
+
+    private static String[] toColumn(List<BookCreate> bookCreates, Function<BookCreate, String> field) {
+        return bookCreates.stream()
+                .map(field)
+                .toArray(String[]::new);
+    }
+
+    private static void addAssignment(
+            List<String> assignments,
+            MapSqlParameterSource parameters,
+            String column,
+            Object value
+    ) {
+        if (value != null) {
+            assignments.add(column + " = :" + column);
+            parameters.addValue(column, value);
+        }
+    }
+
+    private static String toVersionCondition(MapSqlParameterSource parameters, Long version) {
+        if (version == null) {
+            return "";
+        }
+
+        parameters.addValue("version", version);
+        return " AND version = :version";
+    }
+
+    private static String extractDuplicateTitle(DuplicateKeyException e, List<BookCreate> bookCreates) {
+        // The batch runs in one statement, so the offending title is only known from the Postgres error detail
+        if (e.getCause() instanceof PostgresqlException postgresqlException) {
+            Matcher matcher = DUPLICATE_TITLE_PATTERN.matcher(
+                    postgresqlException.getErrorDetails().getDetail().orElse("")
+            );
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+
+        return bookCreates.stream()
+                .map(BookCreate::getTitle)
+                .collect(Collectors.joining(", "));
+    }
+
+    private record FacetRow(String facet, String value, long books) {
+    }
+}
@@ -0,0 +1,242 @@
+package benchmark;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.mapper.BookCriteriaSqlMapper;
+import com.tracktainment.bookmanager.mapper.BookEntityRowMapper;
+import com.tracktainment.bookmanager.mapper.BookListQueryMapper;
+import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
+import com.tracktainment.bookmanager.reactive.BookReactiveDataProvider;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionConfiguration;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mapstruct.factory.Mappers;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-r2dbc -am -Dtest=BookR2dbcLoadBenchmarkTest -Dbenchmark=true
+//   -Dsurefire.failIfNoSpecifiedTests=false
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookR2dbcLoadBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 100_000);
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 200);
+    private static final int CONNECTIONS = 10;
+    private static final int PAGE_SIZE = 20;
+    private static final int CALLS = 5_000;
+    private static final int RUNS = 5;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final BookMapperDataProvider MAPPER = Mappers.getMapper(BookMapperDataProvider.class);
+
+    private static EmbeddedPostgres embeddedPostgres;
+    private static HikariDataSource hikariDataSource;
+    private static ConnectionPool connectionPool;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        embeddedPostgres = EmbeddedPostgres.builder().start();
+        Flyway.configure()
+                .dataSource(embeddedPostgres.getPostgresDatabase())
+                .load()
+                .migrate();
+
+        // Both sides get the same number of connections, only the way callers wait for them differs
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(embeddedPostgres.getJdbcUrl("postgres", "postgres"));
+        hikariConfig.setMaximumPoolSize(CONNECTIONS);
+        hikariConfig.setConnectionInitSql("SET plan_cache_mode = force_custom_plan");
+        hikariDataSource = new HikariDataSource(hikariConfig);
+
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(new PostgresqlConnectionFactory(
+                        PostgresqlConnectionConfiguration.builder()
+                                .host("localhost")
+                                .port(embeddedPostgres.getPort())
+                                .username("postgres")
+                                .database("postgres")
+                                .options(Map.of("plan_cache_mode", "force_custom_plan"))
+                                .build()))
+                .initialSize(CONNECTIONS)
+                .maxSize(CONNECTIONS)
+                .build());
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+        if (hikariDataSource != null) {
+            hikariDataSource.close();
+        }
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void reactiveListsShouldServeTheSameLoadOnFewerThreads() throws Exception {
+        // Arrange
+        NamedParameterJdbcTemplate jdbcTemplate = new NamedParameterJdbcTemplate(hikariDataSource);
+        jdbcTemplate.getJdbcTemplate().execute("""
+                insert into books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at)
+                select nextval('books_db_id_seq'), gen_random_uuid(),
+                       'The ' || md5(i::text) || ' Chronicles',
+                       'Author ' || md5(mod(i, 5000)::text),
+                       (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                       '978-' || lpad(i::text, 13, '0'),
+                       'Publisher ' || md5(mod(i, 200)::text),
+                       date '1900-01-01' + mod(i, 40000),
+                       (array['English', 'Portuguese', 'Spanish', 'French'])[mod(i, 4) + 1],
+                       now()
+                from generate_series(1, %d) i""".formatted(CATALOG_SIZE));
+        jdbcTemplate.getJdbcTemplate().execute("analyze books");
+
+        // Pages of one genre at varying offsets, the kind of list a client pages through
+        String[] genres = {"Fiction", "Fantasy", "Mystery", "Biography", "History"};
+        IntFunction<ListByCriteriaUseCase.Input> inputs = call -> ListByCriteriaUseCase.Input.builder()
+                .offset(call % 50 * PAGE_SIZE)
+                .limit(PAGE_SIZE)
+                .genre(genres[call % genres.length])
+                .orderByList(List.of(OrderBy.TITLE))
+                .orderDirectionList(List.of(OrderDirection.ASC))
+                .build();
+
+        // The same statement the reactive provider sends, run by a thread per request that blocks on its connection
+        IntFunction<List<Book>> jdbcList = call -> {
+            ListByCriteriaUseCase.Input input = inputs.apply(call);
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("limit", PAGE_SIZE + 1)
+                    .addValue("offset", input.getOffset());
+            String sql = "SELECT " + BookEntityRowMapper.COLUMNS + " FROM books" +
+                    BookCriteriaSqlMapper.toWhereClause(input, parameters) +
+                    BookCriteriaSqlMapper.toOrderByClause(BookListQueryMapper.toSorting(input)) +
+                    " LIMIT :limit OFFSET :offset";
+            return jdbcTemplate.query(sql, parameters, new BookEntityRowMapper()).stream()
+                    .limit(PAGE_SIZE)
+                    .map(MAPPER::toBook)
+                    .toList();
+        };
+        BookReactiveDataProvider bookReactiveDataProvider = new BookReactiveDataProvider(DatabaseClient.create(connectionPool));
+
+        for (int call = 0; call < 50; call++) {
+            List<Book> reactivePage = bookReactiveDataProvider.listByCriteria(inputs.apply(call)).block().getBooks();
+            List<Book> jdbcPage = jdbcList.apply(call);
+            assertEquals(jdbcPage.stream().map(Book::getId).toList(), reactivePage.stream().map(Book::getId).toList());
+        }
+
+        // Act
+        // A list's latency runs from the moment a thread picks it up, or flatMap subscribes to it, until its page is
+        // read, so neither side counts the wait for one of the CONCURRENCY slots
+        Measurement jdbc = measure(latencies -> {
+            ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+            try {
+                List<Future<List<Book>>> pages = new ArrayList<>();
+                for (int call = 0; call < CALLS; call++) {
+                    int page = call;
+                    pages.add(executor.submit(() -> {
+                        long start = System.nanoTime();
+                        List<Book> books = jdbcList.apply(page);
+                        latencies[page] = System.nanoTime() - start;
+                        return books;
+                    }));
+                }
+                long books = 0;
+                for (Future<List<Book>> page : pages) {
+                    books += page.get().size();
+                }
+                return books;
+            } finally {
+                // Threads still winding down would otherwise count in the baseline of the next run
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+            }
+        });
+
+        // At most CONCURRENCY lists in flight as well, but none of them holds a thread while it waits
+        Measurement reactive = measure(latencies -> Flux.range(0, CALLS)
+                .flatMap(call -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return bookReactiveDataProvider.listByCriteria(inputs.apply(call))
+                            .doOnNext(bookPage -> latencies[call] = System.nanoTime() - start);
+                }), CONCURRENCY)
+                .map(bookPage -> (long) bookPage.getBooks().size())
+                .reduce(0L, Long::sum)
+                .block());
+
+        // Assert
+        System.out.printf("catalog size: %d books, %d connections, %d lists in flight, %d calls per run%n",
+                CATALOG_SIZE, CONNECTIONS, CONCURRENCY, CALLS);
+        System.out.printf("%-9s %14s %14s %14s %14s%n", "list", "lists/s", "p50 ms", "p99 ms", "peak threads");
+        System.out.printf("%-9s %14.0f %14.1f %14.1f %14d%n", "jdbc",
+                jdbc.listsPerSecond(), jdbc.p50Millis(), jdbc.p99Millis(), jdbc.peakThreads());
+        System.out.printf("%-9s %14.0f %14.1f %14.1f %14d%n", "r2dbc",
+                reactive.listsPerSecond(), reactive.p50Millis(), reactive.p99Millis(), reactive.peakThreads());
+
+        assertTrue(reactive.peakThreads() < jdbc.peakThreads());
+    }
+
+    private Measurement measure(Load load) throws Exception {
+        // The first run warms up both the JIT and the connections
+        assertEquals((long) CALLS * PAGE_SIZE, load.run(new long[CALLS]));
+
+        long[] nanos = new long[RUNS];
+        long[] latencies = new long[RUNS * CALLS];
+        int peakThreads = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long[] runLatencies = new long[CALLS];
+            int baseline = THREAD_MX_BEAN.getThreadCount();
+            THREAD_MX_BEAN.resetPeakThreadCount();
+            long start = System.nanoTime();
+            load.run(runLatencies);
+            nanos[i] = System.nanoTime() - start;
+            peakThreads = Math.max(peakThreads, THREAD_MX_BEAN.getPeakThreadCount() - baseline);
+            System.arraycopy(runLatencies, 0, latencies, i * CALLS, CALLS);
+        }
+
+        Arrays.sort(nanos);
+        Arrays.sort(latencies);
+        return new Measurement(
+                CALLS / (nanos[RUNS / 2] / 1_000_000_000.0),
+                latencies[latencies.length / 2] / 1_000_000.0,
+                latencies[latencies.length * 99 / 100] / 1_000_000.0,
+                peakThreads
+        );
+    }
+
+    // Runs CALLS lists, stores the latency of each under its call and returns the number of books listed
+    private interface Load {
+        long run(long[] latencies) throws Exception;
+    }
+
+    private record Measurement(double listsPerSecond, double p50Millis, double p99Millis, int peakThreads) {
+    }
+}
@@ -0,0 +1,179 @@
+package dataprovider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderR2dbc;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.dto.BookUpdate;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.facet.BookFacetCache;
+import com.tracktainment.bookmanager.reactive.BookReactiveDataProvider;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookDataProviderR2dbcTest {
+
+    @Mock
+    private BookReactiveDataProvider bookReactiveDataProvider;
+
+    @Mock
+    private BookFacetCache bookFacetCache;
+
+    private BookDataProviderR2dbc bookDataProviderR2dbc;
+    private Book book;
+    private String bookId;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        bookDataProviderR2dbc = new BookDataProviderR2dbc(bookReactiveDataProvider, bookFacetCache, objectMapper);
+
+        bookId = UUID.randomUUID().toString();
+        book = Book.builder()
+                .id(bookId)
+                .title("The Great Gatsby")
+                .author("F. Scott Fitzgerald")
+                .publishedDate(LocalDate.of(1925, 4, 10))
+                .createdAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30))
+                .version(3L)
+                .build();
+    }
+
+    @Test
+    void shouldCreateBookAndEvictFacets() {
+        // Arrange
+        BookCreate bookCreate = BookCreate.builder()
+                .title("The Great Gatsby")
+                .build();
+        when(bookReactiveDataProvider.create(bookCreate)).thenReturn(Mono.just(book));
+
+        // Act
+        Book result = bookDataProviderR2dbc.create(bookCreate);
+
+        // Assert
+        assertEquals(book, result);
+        verify(bookFacetCache).evictCurrentUser();
+    }
+
+    @Test
+    void shouldRethrowErrorOfReactiveProvider() {
+        // Arrange
+        when(bookReactiveDataProvider.findById(bookId))
+                .thenReturn(Mono.error(new ResourceNotFoundException(BookEntity.class, bookId)));
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderR2dbc.findById(bookId));
+    }
+
+    @Test
+    void shouldNotEvictFacetsWhenUpdateFails() {
+        // Arrange
+        BookUpdate bookUpdate = BookUpdate.builder()
+                .title("Tender Is the Night")
+                .build();
+        when(bookReactiveDataProvider.update(bookId, bookUpdate, 2L))
+                .thenReturn(Mono.error(new PreconditionFailedException(BookEntity.class, bookId, 2L)));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> bookDataProviderR2dbc.update(bookId, bookUpdate, 2L));
+        verifyNoInteractions(bookFacetCache);
+    }
+
+    @Test
+    void shouldDeleteAllBooksAndEvictFacets() {
+        // Arrange
+        when(bookReactiveDataProvider.deleteAll(List.of(book))).thenReturn(Mono.empty());
+
+        // Act
+        bookDataProviderR2dbc.deleteAll(List.of(book));
+
+        // Assert
+        verify(bookReactiveDataProvider).deleteAll(List.of(book));
+        verify(bookFacetCache).evictCurrentUser();
+    }
+
+    @Test
+    void shouldListBooksOfReactiveProvider() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder().build();
+        BookPage bookPage = BookPage.builder()
+                .books(List.of(book))
+                .hasMore(false)
+                .build();
+        when(bookReactiveDataProvider.listByCriteria(input)).thenReturn(Mono.just(bookPage));
+
+        // Act
+        BookPage result = bookDataProviderR2dbc.listByCriteria(input);
+
+        // Assert
+        assertEquals(bookPage, result);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldLoadFacetsThroughCache() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder().build();
+        BookFacets bookFacets = BookFacets.builder()
+                .genres(List.of())
+                .build();
+        when(bookReactiveDataProvider.facetsByCriteria(input)).thenReturn(Mono.just(bookFacets));
+        when(bookFacetCache.get(eq(input), any(Supplier.class)))
+                .thenAnswer(invocation -> invocation.<Supplier<BookFacets>>getArgument(1).get());
+
+        // Act
+        BookFacets result = bookDataProviderR2dbc.facetsByCriteria(input);
+
+        // Assert
+        assertEquals(bookFacets, result);
+    }
+
+    @Test
+    void shouldExportBooksAsNdjsonWithoutVersion() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder().build();
+        Book other = Book.builder()
+                .id(UUID.randomUUID().toString())
+                .title("Tender Is the Night")
+                .build();
+        when(bookReactiveDataProvider.exportByCriteria(input)).thenReturn(Flux.just(book, other));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long exported = bookDataProviderR2dbc.exportByCriteria(input, outputStream);
+
+        // Assert
+        assertEquals(2, exported);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":\"" + bookId + "\",\"title\":\"The Great Gatsby\",\"author\":\"F. Scott Fitzgerald\"," +
+                "\"publishedDate\":\"1925-04-10\",\"createdAt\":\"2024-05-01T10:15:30\"}", lines[0]);
+        assertEquals("{\"id\":\"" + other.getId() + "\",\"title\":\"Tender Is the Night\"}", lines[1]);
+    }
+}
@@ -0,0 +1,71 @@
+package mapper;
+
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.entity.BookProjection;
+import com.tracktainment.bookmanager.mapper.BookReadableMapper;
+import io.r2dbc.spi.Readable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookReadableMapperTest {
+
+    // Lenient, the columns a test leaves out are read too and stay null
+    @Mock(strictness = Mock.Strictness.LENIENT)
+    private Readable row;
+
+    @Test
+    void shouldMapRowToBook() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 15, 30);
+
+        when(row.get("id", UUID.class)).thenReturn(id);
+        when(row.get("title", String.class)).thenReturn("The Great Gatsby");
+        when(row.get("author", String.class)).thenReturn("F. Scott Fitzgerald");
+        when(row.get("published_date", LocalDate.class)).thenReturn(LocalDate.of(1925, 4, 10));
+        when(row.get("created_at", LocalDateTime.class)).thenReturn(createdAt);
+        when(row.get("version", Long.class)).thenReturn(3L);
+
+        // Act
+        Book book = BookReadableMapper.toBook(row);
+
+        // Assert
+        assertEquals(id.toString(), book.getId());
+        assertEquals("The Great Gatsby", book.getTitle());
+        assertEquals("F. Scott Fitzgerald", book.getAuthor());
+        assertEquals(LocalDate.of(1925, 4, 10), book.getPublishedDate());
+        assertEquals(createdAt, book.getCreatedAt());
+        assertEquals(3L, book.getVersion());
+        assertNull(book.getGenre());
+        assertNull(book.getUpdatedAt());
+    }
+
+    @Test
+    void shouldMapRowToBookProjectionWithDbId() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+
+        when(row.get("db_id", Long.class)).thenReturn(42L);
+        when(row.get("id", UUID.class)).thenReturn(id);
+        when(row.get("title", String.class)).thenReturn("The Great Gatsby");
+
+        // Act
+        BookProjection bookProjection = BookReadableMapper.toBookProjection(row);
+
+        // Assert
+        assertEquals(42L, bookProjection.getDbId());
+        assertEquals(id.toString(), bookProjection.getBook().getId());
+        assertEquals("The Great Gatsby", bookProjection.getBook().getTitle());
+        assertNull(bookProjection.getBook().getVersion());
+    }
+}
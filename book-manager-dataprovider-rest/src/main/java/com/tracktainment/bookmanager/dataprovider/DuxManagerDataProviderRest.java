@@ -5,10 +5,19 @@ import com.tracktainment.bookmanager.dto.duxmanager.request.AssetRequest;
 import com.tracktainment.bookmanager.dto.duxmanager.response.AssetResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
@@ -17,6 +26,10 @@ public class DuxManagerDataProviderRest implements DuxManagerDataProvider {
 
     private final DuxManagerHttpClient duxManagerHttpClient;
 
+    // Requests of one batch in flight at the same time
+    @Value("${http.dux-manager.create-parallelism:16}")
+    private int createParallelism;
+
     @Override
     public AssetResponse createAsset(
             String jwt,
@@ -30,6 +43,54 @@ public class DuxManagerDataProviderRest implements DuxManagerDataProvider {
         );
     }
 
+    @Override
+    public List<AssetResponse> createAssets(
+            String jwt,
+            String digitalUserId,
+            List<AssetRequest> assetRequests
+    ) {
+        // Dux Manager registers one asset per request, so the requests of the batch are made side by side, each waiting
+        // on a virtual thread of its own. No request is started once one has failed
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<AssetResponse>> creates = forEachConcurrently(assetRequests, failed, assetRequest -> {
+            try {
+                return duxManagerHttpClient.createAsset(jwt, digitalUserId, assetRequest);
+            } catch (RuntimeException e) {
+                failed.set(true);
+                throw e;
+            }
+        });
+
+        List<AssetResponse> assetResponses = new ArrayList<>(creates.size());
+        List<String> createdExternalIds = new ArrayList<>();
+        RuntimeException failure = null;
+        for (int i = 0; i < creates.size(); i++) {
+            try {
+                assetResponses.add(creates.get(i).get());
+                createdExternalIds.add(assetRequests.get(i).getExternalId());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // A failure removes the assets already created for the batch
+        if (failure != null) {
+            log.error("Could not create asset batch in Dux Manager, removing {} created assets.", createdExternalIds.size());
+            forEachConcurrently(createdExternalIds, new AtomicBoolean(), externalId -> {
+                deleteCreatedAsset(jwt, digitalUserId, externalId);
+                return null;
+            });
+            throw failure;
+        }
+
+        return assetResponses;
+    }
+
     @Override
     public List<AssetResponse> findAssetsByCriteria(
             String jwt,
@@ -67,4 +128,36 @@ public class DuxManagerDataProviderRest implements DuxManagerDataProvider {
                 externalId
         );
     }
+
+    // Returns once every call has ended; at most createParallelism of them run at a time
+    private <T, R> List<Future<R>> forEachConcurrently(List<T> items, AtomicBoolean stop, Function<T, R> call) {
+        Semaphore permits = new Semaphore(createParallelism);
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T item : items) {
+                permits.acquireUninterruptibly();
+                if (stop.get()) {
+                    permits.release();
+                    break;
+                }
+
+                futures.add(executor.submit(() -> {
+                    try {
+                        return call.apply(item);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        }
+        return futures;
+    }
+
+    private void deleteCreatedAsset(String jwt, String digitalUserId, String externalId) {
+        try {
+            duxManagerHttpClient.deleteAssetByExternalId(jwt, digitalUserId, externalId);
+        } catch (Exception e) {
+            log.error("Could not remove asset {} from Dux Manager. Reason: {}", externalId, e.getMessage());
+        }
+    }
 }
@@ -10,12 +10,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import testutil.TestBookDataUtil;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -43,6 +48,7 @@ class DuxManagerDataProviderRestTest {
         assetRequest = TestBookDataUtil.createTestAssetRequest(UUID.randomUUID().toString());
         assetResponse1 = TestBookDataUtil.createTestAssetResponse();
         assetResponse2 = TestBookDataUtil.createTestAssetResponse();
+        ReflectionTestUtils.setField(duxManagerDataProviderRest, "createParallelism", 4);
     }
 
     @Test
@@ -191,6 +197,68 @@ class DuxManagerDataProviderRestTest {
         verify(duxManagerHttpClient).createAsset(jwt, digitalUserId, assetRequest);
     }
 
+    @Test
+    void shouldCreateAllAssetsOfBatch() {
+        // Arrange
+        AssetRequest anotherAssetRequest = TestBookDataUtil.createTestAssetRequest(UUID.randomUUID().toString());
+        when(duxManagerHttpClient.createAsset(jwt, digitalUserId, assetRequest)).thenReturn(assetResponse1);
+        when(duxManagerHttpClient.createAsset(jwt, digitalUserId, anotherAssetRequest)).thenReturn(assetResponse2);
+
+        // Act
+        List<AssetResponse> result = duxManagerDataProviderRest.createAssets(
+                jwt, digitalUserId, List.of(assetRequest, anotherAssetRequest)
+        );
+
+        // Assert
+        assertEquals(List.of(assetResponse1, assetResponse2), result);
+        verify(duxManagerHttpClient, never()).deleteAssetByExternalId(any(), any(), any());
+    }
+
+    @Test
+    void shouldCreateAssetsOfBatchConcurrentlyUpToParallelism() {
+        // Arrange
+        List<AssetRequest> assetRequests = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            assetRequests.add(TestBookDataUtil.createTestAssetRequest(UUID.randomUUID().toString()));
+        }
+        // Each request waits until four are in flight, which never happens if they are made one after another
+        CountDownLatch started = new CountDownLatch(4);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(duxManagerHttpClient.createAsset(eq(jwt), eq(digitalUserId), any(AssetRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            started.countDown();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            inFlight.decrementAndGet();
+            return assetResponse1;
+        });
+
+        // Act
+        List<AssetResponse> result = duxManagerDataProviderRest.createAssets(jwt, digitalUserId, assetRequests);
+
+        // Assert
+        assertEquals(12, result.size());
+        assertEquals(4, maxInFlight.get());
+        verify(duxManagerHttpClient, times(12)).createAsset(eq(jwt), eq(digitalUserId), any(AssetRequest.class));
+    }
+
+    @Test
+    void shouldRemoveCreatedAssetsWhenBatchFails() {
+        // Arrange
+        AssetRequest failingAssetRequest = TestBookDataUtil.createTestAssetRequest(UUID.randomUUID().toString());
+        when(duxManagerHttpClient.createAsset(jwt, digitalUserId, assetRequest)).thenReturn(assetResponse1);
+        when(duxManagerHttpClient.createAsset(jwt, digitalUserId, failingAssetRequest))
+                .thenThrow(new RuntimeException("API connection error"));
+
+        // Act & Assert
+        RuntimeException thrown = assertThrows(RuntimeException.class, () ->
+                duxManagerDataProviderRest.createAssets(jwt, digitalUserId, List.of(assetRequest, failingAssetRequest)));
+
+        assertEquals("API connection error", thrown.getMessage());
+        verify(duxManagerHttpClient).deleteAssetByExternalId(jwt, digitalUserId, assetRequest.getExternalId());
+        verify(duxManagerHttpClient, never()).deleteAssetByExternalId(jwt, digitalUserId, failingAssetRequest.getExternalId());
+    }
+
     @Test
     void shouldDeleteAssetSuccessfully() {
         // Arrange
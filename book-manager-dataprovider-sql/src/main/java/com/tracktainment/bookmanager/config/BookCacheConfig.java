@@ -0,0 +1,34 @@
+package com.tracktainment.bookmanager.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+@Configuration
+@ConditionalOnPostgres
+public class BookCacheConfig {
+
+    @Bean
+    public MeterBinder bookCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        // Exposes cache.gets (hit/miss), cache.puts, cache.removals and cache.evictions per second-level cache region
+        return registry -> {
+            RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getCache()
+                    .getRegionFactory();
+
+            if (regionFactory instanceof JCacheRegionFactory jCacheRegionFactory) {
+                CacheManager cacheManager = jCacheRegionFactory.getCacheManager();
+                cacheManager.getCacheNames().forEach(
+                        cacheName -> JCacheMetrics.monitor(registry, cacheManager.getCache(cacheName))
+                );
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.tracktainment.bookmanager.config;
+
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Without replica urls this stays off and Spring Boot's single datasource is used as before
+@Configuration
+@ConditionalOnPostgres
+@ConditionalOnExpression("!'${books.datasource.replica-urls:}'.isBlank()")
+public class BookDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource primaryDataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+
+        // Pool names tag the hikaricp.* metrics, one set per route
+        primaryDataSource.setPoolName("books-primary");
+        return primaryDataSource;
+    }
+
+    @Bean
+    public BookRoutingDataSource routingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${books.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${books.datasource.read-your-writes-window:5s}") Duration readYourWritesWindow,
+            SecurityUtil securityUtil,
+            ObjectProvider<MeterRegistry> meterRegistryProvider
+    ) {
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        if (primaryDataSource.getMetricsTrackerFactory() == null) {
+            primaryDataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+
+        // Replicas share the primary's credentials and pool settings, including its connection-init-sql
+        List<HikariDataSource> replicaDataSources = new ArrayList<>();
+        for (String replicaUrl : replicaUrls) {
+            HikariDataSource replicaDataSource = new HikariDataSource();
+            primaryDataSource.copyStateTo(replicaDataSource);
+            replicaDataSource.setJdbcUrl(replicaUrl.trim());
+            replicaDataSource.setPoolName("books-replica-" + (replicaDataSources.size() + 1));
+            replicaDataSource.setReadOnly(true);
+            replicaDataSources.add(replicaDataSource);
+        }
+
+        return new BookRoutingDataSource(
+                primaryDataSource,
+                replicaDataSources,
+                readYourWritesWindow,
+                securityUtil,
+                meterRegistry
+        );
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(BookRoutingDataSource routingDataSource) {
+        // Transactions only take a connection at their first statement, once their read-only flag is set
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
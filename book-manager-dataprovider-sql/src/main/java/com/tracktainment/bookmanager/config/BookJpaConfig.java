@@ -0,0 +1,11 @@
+package com.tracktainment.bookmanager.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+// Fills createdAt and updatedAt of BaseEntity, there is no JPA to audit without Postgres
+@Configuration
+@ConditionalOnPostgres
+@EnableJpaAuditing
+public class BookJpaConfig {
+}
@@ -0,0 +1,52 @@
+package com.tracktainment.bookmanager.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/* Without Postgres as the store, the datasource, JPA and Flyway are left unconfigured, so the memory and log data
+providers start without a database or its spring.datasource settings. The exclusions are added to the configured ones,
+a property source of its own would otherwise replace them
+ */
+public class BookPostgresEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String PROPERTY_SOURCE_NAME = "booksPostgresExclusions";
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+    private static final List<String> POSTGRES_AUTO_CONFIGURATIONS = List.of(
+            DataSourceAutoConfiguration.class.getName(),
+            DataSourceTransactionManagerAutoConfiguration.class.getName(),
+            JdbcTemplateAutoConfiguration.class.getName(),
+            HibernateJpaAutoConfiguration.class.getName(),
+            JpaRepositoriesAutoConfiguration.class.getName(),
+            FlywayAutoConfiguration.class.getName()
+    );
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (OnPostgresDataProviderCondition.matches(environment)) {
+            return;
+        }
+
+        List<String> excluded = new ArrayList<>(Binder.get(environment)
+                .bind(EXCLUDE_PROPERTY, Bindable.listOf(String.class))
+                .orElse(List.of()));
+        excluded.addAll(POSTGRES_AUTO_CONFIGURATIONS);
+        environment.getPropertySources().addFirst(new MapPropertySource(
+                PROPERTY_SOURCE_NAME,
+                Map.of(EXCLUDE_PROPERTY, String.join(",", excluded))
+        ));
+    }
+}
@@ -0,0 +1,128 @@
+package com.tracktainment.bookmanager.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BookRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+    public static final String ROUTES_METRIC = "books.datasource.routes";
+
+    private static final int MAX_PINNED_USERS = 100_000;
+
+    private final List<String> replicas = new ArrayList<>();
+    private final List<HikariDataSource> replicaDataSources;
+    private final SecurityUtil securityUtil;
+    // Users who wrote through this node, other nodes do not know about them
+    private final Cache<String, Boolean> pinnedUsers;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Counter readWriteRoutes;
+    private final Counter readYourWritesRoutes;
+    private final Counter replicaRoutes;
+
+    public BookRoutingDataSource(
+            DataSource primaryDataSource,
+            List<HikariDataSource> replicaDataSources,
+            Duration readYourWritesWindow,
+            SecurityUtil securityUtil,
+            MeterRegistry meterRegistry
+    ) {
+        this.replicaDataSources = replicaDataSources;
+        this.securityUtil = securityUtil;
+        this.pinnedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(readYourWritesWindow)
+                .maximumSize(MAX_PINNED_USERS)
+                .build();
+
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primaryDataSource);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            String replica = "replica-" + (i + 1);
+            replicas.add(replica);
+            targetDataSources.put(replica, replicaDataSources.get(i));
+        }
+
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primaryDataSource);
+
+        // replica / (replica + primary) is the share of connections taken off the primary
+        readWriteRoutes = routes(meterRegistry, PRIMARY, "read-write");
+        readYourWritesRoutes = routes(meterRegistry, PRIMARY, "read-your-writes");
+        replicaRoutes = routes(meterRegistry, "replica", "read-only");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Asked once per transaction, when its first statement needs a connection and its read-only flag is known
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicas.isEmpty()) {
+            pinCurrentUserAfterCommit();
+            readWriteRoutes.increment();
+            return PRIMARY;
+        }
+
+        // Replicas lag behind the primary, so users who just wrote keep reading from the primary for a while
+        String userId = currentUserId();
+        if (userId != null && pinnedUsers.getIfPresent(userId) != null) {
+            readYourWritesRoutes.increment();
+            return PRIMARY;
+        }
+
+        replicaRoutes.increment();
+        return replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+    }
+
+    @Override
+    public void close() {
+        // The primary pool is a bean of its own, the replica pools only live here
+        replicaDataSources.forEach(HikariDataSource::close);
+    }
+
+    private void pinCurrentUserAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        String userId = currentUserId();
+        if (userId == null) {
+            return;
+        }
+
+        // The window starts once the write is visible on the primary, not when the transaction began
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pinnedUsers.put(userId, Boolean.TRUE);
+            }
+        });
+    }
+
+    private String currentUserId() {
+        return securityUtil.findDigitalUser()
+                .map(DigitalUser::getId)
+                .orElse(null);
+    }
+
+    private static Counter routes(MeterRegistry meterRegistry, String route, String reason) {
+        return Counter.builder(ROUTES_METRIC)
+                .description("Connections handed out per datasource route")
+                .tag("route", route)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
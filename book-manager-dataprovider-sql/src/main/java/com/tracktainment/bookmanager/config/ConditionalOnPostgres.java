@@ -0,0 +1,17 @@
+package com.tracktainment.bookmanager.config;
+
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Beans that work on the Postgres database, only created when the books are kept there
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnPostgresDataProviderCondition.class)
+public @interface ConditionalOnPostgres {
+}
@@ -0,0 +1,23 @@
+package com.tracktainment.bookmanager.config;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Set;
+
+// sql, the default, and r2dbc keep the books in Postgres; memory and log keep them in process or on local disk
+public class OnPostgresDataProviderCondition implements Condition {
+
+    private static final Set<String> POSTGRES_DATA_PROVIDERS = Set.of("sql", "r2dbc");
+
+    public static boolean matches(Environment environment) {
+        return POSTGRES_DATA_PROVIDERS.contains(environment.getProperty("books.dataprovider", "sql"));
+    }
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return matches(context.getEnvironment());
+    }
+}
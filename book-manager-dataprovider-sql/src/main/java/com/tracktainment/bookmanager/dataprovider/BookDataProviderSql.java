@@ -1,240 +1,635 @@
 package com.tracktainment.bookmanager.dataprovider;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.domain.OrderBy;
 import com.tracktainment.bookmanager.domain.OrderDirection;
 import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportError;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
 import com.tracktainment.bookmanager.dto.BookUpdate;
 import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.entity.BookProjection;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
 import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
 import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.facet.BookFacetCache;
+import com.tracktainment.bookmanager.mapper.BookCriteriaSqlMapper;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.mapper.BookEntityRowMapper;
+import com.tracktainment.bookmanager.mapper.BookJsonRowWriter;
+import com.tracktainment.bookmanager.mapper.BookListQueryMapper;
 import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
 import com.tracktainment.bookmanager.repository.BookRepository;
+import com.tracktainment.bookmanager.stats.BookQueryStats;
 import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
 import com.tracktainment.bookmanager.util.Constants;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.criteria.*;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.FlushMode;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jpa.HibernateHints;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnProperty(name = "books.dataprovider", havingValue = "sql", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class BookDataProviderSql implements BookDataProvider {
 
+    private static final BookEntityRowMapper ROW_MAPPER = new BookEntityRowMapper();
+    private static final BookJsonRowWriter JSON_ROW_WRITER = new BookJsonRowWriter();
+    private static final JsonFactory NDJSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+    private static final String IMPORT_TABLE_DDL = """
+            CREATE TEMPORARY TABLE IF NOT EXISTS books_import (
+                line bigint, id uuid, title text, author text, genre text, isbn text,
+                publisher text, published_date date, language text
+            ) ON COMMIT DELETE ROWS""";
+    private static final String IMPORT_COPY = "COPY books_import " +
+            "(line, id, title, author, genre, isbn, publisher, published_date, language) FROM STDIN (FORMAT csv)";
+    // books is partitioned and holds no unique title, so the first line of each title claims it in book_titles first
+    private static final String IMPORT_INSERT = """
+            WITH first_lines AS (
+                SELECT DISTINCT ON (title) line, title FROM books_import ORDER BY title, line
+            ), claimed AS (
+                INSERT INTO book_titles (title, db_id)
+                SELECT title, nextval('%s') FROM first_lines ORDER BY line
+                ON CONFLICT (title) DO NOTHING
+                RETURNING title, db_id
+            )
+            INSERT INTO books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at, updated_at)
+            SELECT claimed.db_id, i.id, i.title, i.author, i.genre, i.isbn, i.publisher, i.published_date, i.language, :now, :now
+            FROM books_import i
+            JOIN first_lines ON first_lines.line = i.line
+            JOIN claimed ON claimed.title = i.title
+            ORDER BY i.line
+            RETURNING %s""".formatted(BookEntity.DB_ID_SEQUENCE, BookEntityRowMapper.COLUMNS);
+    // The index on id only holds per partition, book_ids tells the created_at of the id so only its partition is read
+    private static final String ID_CONDITION = "created_at = (SELECT created_at FROM book_ids WHERE id = :id) AND id = :id";
+    private static final String FIND_BY_ID = "SELECT " + BookEntityRowMapper.COLUMNS + " FROM books WHERE " +
+            ID_CONDITION + " AND deleted_at IS NULL";
+    // The books are found through book_ids like a single one, each only in its own partition
+    private static final String DELETE_ALL = """
+            UPDATE books b SET deleted_at = :deletedAt
+            FROM book_ids i
+            WHERE i.id IN (:ids) AND b.created_at = i.created_at AND b.id = i.id
+            AND (b.id, b.version) IN (:versions) AND b.deleted_at IS NULL
+            RETURNING b.db_id""";
+    private static final Pattern PLAN_ROWS_PATTERN = Pattern.compile(" rows=(\\d+) ");
+    private static final Pattern DUPLICATE_TITLE_PATTERN = Pattern.compile("Key \\(title\\)=\\((.*)\\) already exists");
+
     private final BookRepository bookRepository;
     private final BookMapperDataProvider mapper;
     private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BookFacetCache bookFacetCache;
+    private final BookQueryStats bookQueryStats;
 
     @Override
     @Transactional
     public Book create(BookCreate bookCreate) {
-        if (existsByTitle(bookCreate.getTitle())) {
-            throw new ResourceAlreadyExistsException(BookEntity.class, bookCreate.getTitle());
+        // The unique constraint on title detects duplicates in the same statement, also across concurrent creates
+        try {
+            Book book = mapper.toBook(bookRepository.saveAndFlush(mapper.toBookEntity(bookCreate)));
+            evictFacetsAfterCommit();
+            return book;
+        } catch (DataIntegrityViolationException e) {
+            throw toResourceAlreadyExistsException(e, bookCreate.getTitle());
         }
-
-        return mapper.toBook(bookRepository.save(mapper.toBookEntity(bookCreate)));
-    }
-
-    @Override
-    public Book findById(String id) {
-        return mapper.toBook(findBookEntityById(id));
     }
 
     @Override
-    public List<Book> listByCriteria(ListByCriteriaUseCase.Input input) {
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<BookEntity> criteriaQuery = criteriaBuilder.createQuery(BookEntity.class);
-        Root<BookEntity> root = criteriaQuery.from(BookEntity.class);
-
-        Predicate[] predicates = buildPredicates(criteriaBuilder, root, input);
-        criteriaQuery.where(predicates);
+    @Transactional
+    public List<Book> createAll(List<BookCreate> bookCreates) {
+        // A title repeated within the batch fails it as a whole, like a title that is already stored
+        Set<String> titles = new HashSet<>();
+        for (BookCreate bookCreate : bookCreates) {
+            if (!titles.add(bookCreate.getTitle())) {
+                throw new ResourceAlreadyExistsException(BookEntity.class, bookCreate.getTitle());
+            }
+        }
 
-        applyListSorting(criteriaBuilder, criteriaQuery, root, input);
-        log.info("offset: {}", input.getOffset());
-        return entityManager.createQuery(criteriaQuery)
-                .setFirstResult(input.getOffset() != null ? input.getOffset() : Constants.MIN_OFFSET)
-                .setMaxResults(input.getLimit() != null ? input.getLimit() : Integer.parseInt(Constants.DEFAULT_LIMIT))
-                .getResultList()
-                .stream()
-                .map(mapper::toBook)
+        // dbIds come from the pooled sequence, so the inserts are sent in JDBC batches of hibernate.jdbc.batch_size
+        List<BookEntity> bookEntities = bookCreates.stream()
+                .map(mapper::toBookEntity)
                 .toList();
+
+        try {
+            List<Book> books = bookRepository.saveAllAndFlush(bookEntities).stream()
+                    .map(mapper::toBook)
+                    .toList();
+            evictFacetsAfterCommit();
+            return books;
+        } catch (DataIntegrityViolationException e) {
+            throw toResourceAlreadyExistsException(e, extractDuplicateTitle(e, bookCreates));
+        }
     }
 
     @Override
     @Transactional
-    public Book update(String id, BookUpdate bookUpdate) {
-        BookEntity bookEntity = findBookEntityById(id);
-        mapper.updateBookEntity(bookEntity, bookUpdate);
-        return mapper.toBook(bookRepository.save(bookEntity));
+    public BookImportResult importAll(List<BookImportRow> rows) {
+        // COPY streams the chunk into a staging table, which is far cheaper than row by row inserts
+        Map<UUID, BookImportRow> rowsById = new LinkedHashMap<>();
+        StringBuilder csv = new StringBuilder();
+        for (BookImportRow row : rows) {
+            UUID id = UUID.randomUUID();
+            rowsById.put(id, row);
+            appendCsvRow(csv, row.getLine(), id, row.getBookCreate());
+        }
+
+        jdbcTemplate.getJdbcTemplate().execute(IMPORT_TABLE_DDL);
+        jdbcTemplate.getJdbcTemplate().execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(IMPORT_COPY, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Could not copy books to the import table", e);
+            }
+        });
+
+        // Titles that are already stored, or repeated within the chunk, are skipped instead of failing the chunk
+        List<BookEntity> bookEntities = bookQueryStats.record(
+                "import",
+                IMPORT_INSERT,
+                () -> jdbcTemplate.query(IMPORT_INSERT, new MapSqlParameterSource("now", LocalDateTime.now()), ROW_MAPPER),
+                List::size
+        );
+
+        bookEntities.forEach(bookEntity -> rowsById.remove(bookEntity.getId()));
+        List<BookImportError> errors = rowsById.values().stream()
+                .map(row -> BookImportError.builder()
+                        .line(row.getLine())
+                        .message(String.format(
+                                ResourceAlreadyExistsException.ERROR_MESSAGE,
+                                BookEntity.class.getSimpleName(),
+                                row.getBookCreate().getTitle()
+                        ))
+                        .build())
+                .toList();
+
+        evictListQueriesAfterCommit();
+        return BookImportResult.builder()
+                .books(bookEntities.stream().map(mapper::toBook).toList())
+                .errors(errors)
+                .build();
     }
 
     @Override
-    @Transactional
-    public void delete(String id) {
-        if (existsById(id)) {
-            bookRepository.deleteById(id);
-        } else {
+    @Transactional(readOnly = true)
+    public Book findById(String id) {
+        // Hibernate would look the natural id up in every partition, this statement only reads the book's own
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", mapper.toUuid(id));
+        List<BookEntity> bookEntities = bookQueryStats.recordRead(
+                "find",
+                FIND_BY_ID,
+                parameters,
+                () -> jdbcTemplate.query(FIND_BY_ID, parameters, ROW_MAPPER),
+                List::size
+        );
+
+        if (bookEntities.isEmpty()) {
             throw new ResourceNotFoundException(BookEntity.class, id);
         }
+
+        return mapper.toBook(bookEntities.get(0));
     }
 
-    private boolean existsByTitle(String title) {
-        return bookRepository.findByTitle(title).isPresent();
+    @Override
+    @Transactional(readOnly = true)
+    public BookPage listByCriteria(ListByCriteriaUseCase.Input input) {
+        Map<OrderBy, OrderDirection> sorting = BookListQueryMapper.toSorting(input);
+        BookCursorMapper.Cursor cursor = input.getCursor() != null ?
+                BookCursorMapper.fromCursor(input.getCursor(), sorting) :
+                null;
+
+        // The JPQL is cached per query shape and always the same string for it, so Hibernate reuses its
+        // interpretation and the driver its server-side prepared statement, only the parameters are bound per call
+        BookListQueryMapper.ListQuery listQuery = BookListQueryMapper.toListQuery(input, sorting, cursor);
+
+        log.info("offset: {}", input.getOffset());
+        int limit = input.getLimit() != null ? input.getLimit() : Integer.parseInt(Constants.DEFAULT_LIMIT);
+        // Rows are projected straight into Book, nothing is managed, snapshotted or flushed.
+        // One row more than the page tells whether another page follows without counting anything
+        TypedQuery<BookProjection> query = entityManager.createQuery(listQuery.getJpql(), BookProjection.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, BookEntity.LIST_QUERY_CACHE_REGION)
+                .setMaxResults(limit + 1);
+        listQuery.getParameters().forEach(query::setParameter);
+
+        // A cursor seeks straight past the last seen row, so the offset only applies to the first page
+        if (input.getCursor() == null) {
+            query.setFirstResult(input.getOffset() != null ? input.getOffset() : Constants.MIN_OFFSET);
+        }
+
+        List<BookProjection> bookProjections = bookQueryStats.recordRead(
+                "list",
+                listQuery.getJpql(),
+                () -> toNativeListQuery(input, sorting, limit),
+                query::getResultList,
+                List::size
+        );
+        boolean hasMore = bookProjections.size() > limit;
+        if (hasMore) {
+            bookProjections = bookProjections.subList(0, limit);
+        }
+
+        BookProjection last = hasMore ? bookProjections.get(limit - 1) : null;
+        BookPage bookPage = BookPage.builder()
+                .books(bookProjections.stream()
+                        .map(BookProjection::getBook)
+                        .toList())
+                .nextCursor(hasMore ? BookCursorMapper.toCursor(last.getBook(), last.getDbId(), sorting) : null)
+                .hasMore(hasMore)
+                .build();
+
+        if (input.isWithTotalCount()) {
+            countByCriteria(input, bookPage);
+        }
+
+        return bookPage;
     }
 
-    private boolean existsById(String id) {
-        return bookRepository.findById(id).isPresent();
+    @Override
+    @Transactional(readOnly = true)
+    public long exportByCriteria(ListByCriteriaUseCase.Input input, OutputStream outputStream) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String sql = "SELECT " + BookJsonRowWriter.COLUMNS + " FROM books" +
+                BookCriteriaSqlMapper.toWhereClause(input, parameters) +
+                BookCriteriaSqlMapper.toOrderByClause(BookListQueryMapper.toSorting(input));
+
+        // Columns go from the result set straight into the generator, no entity, Book or reflection in between.
+        // Inside a transaction the driver reads through a server-side cursor, one fetch at a time
+        Long exported = bookQueryStats.record("export", sql, () -> jdbcTemplate.execute(sql, parameters, preparedStatement -> {
+            preparedStatement.setFetchSize(Constants.EXPORT_FETCH_SIZE);
+            try (ResultSet resultSet = preparedStatement.executeQuery();
+                 JsonGenerator generator = NDJSON_FACTORY.createGenerator(outputStream)) {
+                // Each line ends with its own newline, the default root separator is not needed
+                generator.setRootValueSeparator(null);
+                long rows = 0;
+                while (resultSet.next()) {
+                    JSON_ROW_WRITER.write(resultSet, generator);
+                    generator.writeRaw('\n');
+
+                    // The first line goes out right away, the rest as the buffers fill
+                    if (rows++ == 0) {
+                        generator.flush();
+                    }
+                }
+                return rows;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }), count -> count != null ? count : 0);
+
+        return exported != null ? exported : 0;
     }
 
-    private BookEntity findBookEntityById(String id) {
-        return bookRepository.findById(id)
-                .orElseThrow(
-                        () -> new ResourceNotFoundException(BookEntity.class, id)
-                );
+    @Override
+    @Transactional(readOnly = true)
+    public BookFacets facetsByCriteria(ListByCriteriaUseCase.Input input) {
+        return bookFacetCache.get(input, () -> {
+            MapSqlParameterSource parameters = new MapSqlParameterSource();
+            String sql = BookCriteriaSqlMapper.toFacetsQuery(input, parameters);
+
+            BookFacets bookFacets = BookFacets.builder()
+                    .genres(new ArrayList<>())
+                    .languages(new ArrayList<>())
+                    .publishers(new ArrayList<>())
+                    .publishedYears(new ArrayList<>())
+                    .build();
+
+            // Rows come ordered by facet and count, each is appended to its facet as is
+            return bookQueryStats.recordRead("facets", sql, parameters, () -> {
+                jdbcTemplate.query(sql, parameters, (RowCallbackHandler) resultSet -> {
+                    String value = resultSet.getString("value");
+                    if (value == null) {
+                        return;
+                    }
+
+                    BookFacetCount bookFacetCount = new BookFacetCount(value, resultSet.getLong("books"));
+                    switch (resultSet.getString("facet")) {
+                        case "genre" -> bookFacets.getGenres().add(bookFacetCount);
+                        case "language" -> bookFacets.getLanguages().add(bookFacetCount);
+                        case "publisher" -> bookFacets.getPublishers().add(bookFacetCount);
+                        default -> bookFacets.getPublishedYears().add(bookFacetCount);
+                    }
+                });
+                return bookFacets;
+            }, facets -> facets.getGenres().size() + facets.getLanguages().size() +
+                    facets.getPublishers().size() + facets.getPublishedYears().size());
+        });
     }
 
-    private Predicate[] buildPredicates(
-            CriteriaBuilder criteriaBuilder,
-            Root<BookEntity> root,
-            ListByCriteriaUseCase.Input input
-    ) {
-        List<Predicate> predicates = new ArrayList<>();
+    @Override
+    @Transactional
+    public Book update(String id, BookUpdate bookUpdate, Long version) {
+        // Only the non-null fields are set, matching the null-ignore semantics of BookUpdate
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", mapper.toUuid(id));
+        List<String> assignments = new ArrayList<>();
+        addAssignment(assignments, parameters, "title", bookUpdate.getTitle());
+        addAssignment(assignments, parameters, "author", bookUpdate.getAuthor());
+        addAssignment(assignments, parameters, "genre", bookUpdate.getGenre());
+        addAssignment(assignments, parameters, "isbn", bookUpdate.getIsbn());
+        addAssignment(assignments, parameters, "publisher", bookUpdate.getPublisher());
+        addAssignment(assignments, parameters, "published_date", bookUpdate.getPublishedDate());
+        addAssignment(assignments, parameters, "language", bookUpdate.getLanguage());
+
+        if (assignments.isEmpty()) {
+            Book book = findById(id);
+            if (version != null && !version.equals(book.getVersion())) {
+                throw new PreconditionFailedException(BookEntity.class, id, version);
+            }
 
-        if (input.getIds() != null) {
-            List<String> ids = List.of(input.getIds().split(","));
-            predicates.add(criteriaBuilder.in(root.get("id")).value(ids));
+            return book;
         }
 
-        if (input.getTitle() != null) {
-            predicates.add(criteriaBuilder.like(
-                    root.get("title"),
-                    "%" + input.getTitle() + "%"
-            ));
+        // The statement bypasses the persistence context, so the audit and version columns are set here
+        addAssignment(assignments, parameters, "updated_at", LocalDateTime.now());
+        assignments.add("version = version + 1");
+        String sql = "UPDATE books SET " + String.join(", ", assignments) +
+                " WHERE " + ID_CONDITION + " AND deleted_at IS NULL" + toVersionCondition(parameters, version) +
+                " RETURNING " + BookEntityRowMapper.COLUMNS;
+
+        // Compare and set in one statement: the row lock is only held for the write itself, and of two updates read
+        // at the same version the second finds it bumped once the first commits and changes nothing
+        List<BookEntity> bookEntities;
+        try {
+            bookEntities = bookQueryStats.record(
+                    "update",
+                    sql,
+                    () -> jdbcTemplate.query(sql, parameters, ROW_MAPPER),
+                    List::size
+            );
+        } catch (DuplicateKeyException e) {
+            // id and db_id are never set, so the only unique constraint this statement can violate is the title's
+            throw new ResourceAlreadyExistsException(BookEntity.class, bookUpdate.getTitle());
         }
 
-        if (input.getAuthor() != null) {
-            predicates.add(criteriaBuilder.like(
-                    root.get("author"),
-                    "%" + input.getAuthor() + "%"
-            ));
+        if (bookEntities.isEmpty()) {
+            throw toWriteMissedException(id, version);
         }
 
-        if (input.getGenre() != null) {
-            predicates.add(criteriaBuilder.like(
-                    root.get("genre"),
-                    "%" + input.getGenre() + "%"
-            ));
-        }
+        evictFromCacheAfterCommit(bookEntities.get(0).getDbId());
+        return mapper.toBook(bookEntities.get(0));
+    }
 
-        if (input.getIsbn() != null) {
-            predicates.add(criteriaBuilder.like(
-                    root.get("isbn"),
-                    "%" + input.getIsbn() + "%"
-            ));
+    @Override
+    @Transactional
+    public void delete(String id, Long version) {
+        // A single-row update, BookPurger deletes the tombstone later in a batch, off the request path
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", mapper.toUuid(id))
+                .addValue("deletedAt", LocalDateTime.now());
+        String sql = "UPDATE books SET deleted_at = :deletedAt WHERE " + ID_CONDITION + " AND deleted_at IS NULL" +
+                toVersionCondition(parameters, version) + " RETURNING db_id";
+        List<Long> dbIds = bookQueryStats.record(
+                "delete",
+                sql,
+                () -> jdbcTemplate.queryForList(sql, parameters, Long.class),
+                List::size
+        );
+
+        if (dbIds.isEmpty()) {
+            throw toWriteMissedException(id, version);
         }
 
-        if (input.getPublisher() != null) {
-            predicates.add(criteriaBuilder.like(
-                    root.get("publisher"),
-                    "%" + input.getPublisher() + "%"
-            ));
+        evictFromCacheAfterCommit(dbIds.get(0));
+    }
+
+    @Override
+    @Transactional
+    public void deleteAll(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
         }
 
-        if (input.getPublishedDate() != null) {
-            predicates.add(criteriaBuilder.equal(
-                    root.get("publishedDate"),
-                    input.getPublishedDate()
-            ));
+        // One statement for the whole list, as many tombstones as books still stored at their version
+        MapSqlParameterSource parameters = new MapSqlParameterSource("deletedAt", LocalDateTime.now())
+                .addValue("ids", books.stream().map(book -> mapper.toUuid(book.getId())).toList())
+                .addValue("versions", books.stream()
+                        .map(book -> new Object[]{mapper.toUuid(book.getId()), book.getVersion()})
+                        .toList());
+        List<Long> dbIds = bookQueryStats.record(
+                "deleteAll",
+                DELETE_ALL,
+                () -> jdbcTemplate.queryForList(DELETE_ALL, parameters, Long.class),
+                List::size
+        );
+
+        evictAllFromCacheAfterCommit(dbIds);
+    }
+
+    private void countByCriteria(ListByCriteriaUseCase.Input input, BookPage bookPage) {
+        // The count ignores the cursor and the page, it is the size of the whole result
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        String from = " FROM books" + BookCriteriaSqlMapper.toWhereClause(input, parameters);
+
+        // Planning is cheap and tells broad queries apart, which are never scanned just to be counted
+        long estimate = estimateRows("SELECT 1" + from, parameters);
+        if (estimate <= Constants.EXACT_COUNT_LIMIT) {
+            // A selective query is counted, but never past the limit, so a bad estimate cannot make it scan everything
+            parameters.addValue("countLimit", Constants.EXACT_COUNT_LIMIT + 1);
+            String sql = "SELECT count(*) FROM (SELECT 1" + from + " LIMIT :countLimit) matching";
+            Long count = bookQueryStats.recordRead(
+                    "count",
+                    sql,
+                    parameters,
+                    () -> jdbcTemplate.queryForObject(sql, parameters, Long.class),
+                    counted -> 1
+            );
+
+            if (count != null && count <= Constants.EXACT_COUNT_LIMIT) {
+                bookPage.setTotalCount(count);
+                bookPage.setTotalCountEstimated(false);
+                return;
+            }
+
+            estimate = Math.max(estimate, Constants.EXACT_COUNT_LIMIT + 1);
         }
 
-        if (input.getLanguage() != null) {
-            predicates.add(criteriaBuilder.like(
-                    root.get("language"),
-                    "%" + input.getLanguage() + "%"
-            ));
+        bookPage.setTotalCount(estimate);
+        bookPage.setTotalCountEstimated(true);
+    }
+
+    private long estimateRows(String sql, MapSqlParameterSource parameters) {
+        // The first line of the plan carries the planner's row estimate for the whole query
+        String plan = jdbcTemplate.queryForList("EXPLAIN " + sql, parameters, String.class).get(0);
+        Matcher matcher = PLAN_ROWS_PATTERN.matcher(plan);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private BookQueryStats.NativeQuery toNativeListQuery(
+            ListByCriteriaUseCase.Input input,
+            Map<OrderBy, OrderDirection> sorting,
+            int limit
+    ) {
+        // Same filters, order and page size as the JPQL; a cursor page is planned as the first page of its query
+        int offset = input.getCursor() == null && input.getOffset() != null ? input.getOffset() : Constants.MIN_OFFSET;
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("limit", limit + 1)
+                .addValue("offset", offset);
+        String sql = "SELECT " + BookEntityRowMapper.COLUMNS + " FROM books" +
+                BookCriteriaSqlMapper.toWhereClause(input, parameters) +
+                BookCriteriaSqlMapper.toOrderByClause(sorting) +
+                " LIMIT :limit OFFSET :offset";
+        return new BookQueryStats.NativeQuery(sql, parameters);
+    }
+
+    private void evictFromCacheAfterCommit(Long dbId) {
+        // Statements run through the JdbcTemplate bypass Hibernate, so its caches are invalidated by hand
+        runAfterCommit(() -> {
+            Cache cache = entityManager.getEntityManagerFactory().getCache();
+            cache.evict(BookEntity.class, dbId);
+            cache.unwrap(org.hibernate.Cache.class).evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+            bookFacetCache.evictCurrentUser();
+        });
+    }
+
+    private void evictAllFromCacheAfterCommit(List<Long> dbIds) {
+        runAfterCommit(() -> {
+            Cache cache = entityManager.getEntityManagerFactory().getCache();
+            dbIds.forEach(dbId -> cache.evict(BookEntity.class, dbId));
+            cache.unwrap(org.hibernate.Cache.class).evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+            bookFacetCache.evictCurrentUser();
+        });
+    }
+
+    private void evictListQueriesAfterCommit() {
+        runAfterCommit(() -> {
+            entityManager.getEntityManagerFactory()
+                    .getCache()
+                    .unwrap(org.hibernate.Cache.class)
+                    .evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+            bookFacetCache.evictCurrentUser();
+        });
+    }
+
+    private void evictFacetsAfterCommit() {
+        // Hibernate keeps its own caches in step with the writes it makes, the facet counts are not among them
+        runAfterCommit(bookFacetCache::evictCurrentUser);
+    }
+
+    private void runAfterCommit(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
         }
+    }
 
-        if (input.getFrom() != null) {
-            predicates.add(criteriaBuilder.greaterThanOrEqualTo(
-                    root.get("createdAt"),
-                    input.getFrom().atStartOfDay()
-            ));
+    private void appendCsvRow(StringBuilder csv, long line, UUID id, BookCreate bookCreate) {
+        csv.append(line).append(',').append(id);
+        for (Object value : new Object[]{
+                bookCreate.getTitle(),
+                bookCreate.getAuthor(),
+                bookCreate.getGenre(),
+                bookCreate.getIsbn(),
+                bookCreate.getPublisher(),
+                bookCreate.getPublishedDate(),
+                bookCreate.getLanguage()
+        }) {
+            // Unquoted empty fields are NULL in the COPY csv format, quoted ones are values
+            csv.append(',');
+            if (value != null) {
+                csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+            }
         }
+        csv.append('\n');
+    }
 
-        if (input.getTo() != null) {
-            predicates.add(criteriaBuilder.lessThanOrEqualTo(
-                    root.get("createdAt"),
-                    input.getTo().atTime(23, 59, 59, 999999999)
-            ));
+    private void addAssignment(List<String> assignments, MapSqlParameterSource parameters, String column, Object value) {
+        if (value != null) {
+            assignments.add(column + " = :" + column);
+            parameters.addValue(column, value);
         }
+    }
 
-        if (input.getCreatedAt() != null) {
-            predicates.add(criteriaBuilder.between(
-                    root.get("createdAt"),
-                    input.getCreatedAt().atStartOfDay(),
-                    input.getCreatedAt().atTime(23, 59, 59, 999999999)
-            ));
+    private String toVersionCondition(MapSqlParameterSource parameters, Long version) {
+        if (version == null) {
+            return "";
         }
 
-        return predicates.toArray(new Predicate[0]);
+        parameters.addValue("version", version);
+        return " AND version = :version";
     }
 
-    private void applyListSorting(
-            CriteriaBuilder criteriaBuilder,
-            CriteriaQuery<BookEntity> criteriaQuery,
-            Root<BookEntity> root,
-            ListByCriteriaUseCase.Input input
-    ) {
-        if (input.getOrderByList() != null && input.getOrderDirectionList() != null) {
-            List<Order> orderList = new ArrayList<>();
-            for (int i=0; i<input.getOrderByList().size(); i++) {
-                OrderBy orderBy = input.getOrderByList().get(i);
-                OrderDirection orderDirection = input.getOrderDirectionList().get(i);
-
-                if (orderBy != null && orderDirection != null) {
-                    if (orderBy == OrderBy.TITLE) {
-                        if (orderDirection == OrderDirection.ASC) {
-                            orderList.add(criteriaBuilder.asc(root.get("title")));
-                        } else {
-                            orderList.add(criteriaBuilder.desc(root.get("title")));
-                        }
-                    }
+    private RuntimeException toWriteMissedException(String id, Long version) {
+        // Only looked up once a conditional write missed, to tell a stale version from a book that is gone
+        if (version != null && !jdbcTemplate.queryForList(
+                "SELECT 1 FROM books WHERE " + ID_CONDITION + " AND deleted_at IS NULL",
+                new MapSqlParameterSource("id", mapper.toUuid(id)),
+                Integer.class
+        ).isEmpty()) {
+            return new PreconditionFailedException(BookEntity.class, id, version);
+        }
 
-                    if (orderBy == OrderBy.AUTHOR) {
-                        if (orderDirection == OrderDirection.ASC) {
-                            orderList.add(criteriaBuilder.asc(root.get("author")));
-                        } else {
-                            orderList.add(criteriaBuilder.desc(root.get("author")));
-                        }
-                    }
+        return new ResourceNotFoundException(BookEntity.class, id);
+    }
 
-                    if (orderBy == OrderBy.GENRE) {
-                        if (orderDirection == OrderDirection.ASC) {
-                            orderList.add(criteriaBuilder.asc(root.get("genre")));
-                        } else {
-                            orderList.add(criteriaBuilder.desc(root.get("genre")));
-                        }
-                    }
+    private RuntimeException toResourceAlreadyExistsException(DataIntegrityViolationException e, String title) {
+        if (e.getCause() instanceof ConstraintViolationException constraintViolationException &&
+                BookEntity.TITLE_UNIQUE_CONSTRAINT.equals(constraintViolationException.getConstraintName())) {
+            return new ResourceAlreadyExistsException(BookEntity.class, title);
+        }
 
-                    if (orderBy == OrderBy.CREATED_AT) {
-                        if (orderDirection == OrderDirection.ASC) {
-                            orderList.add(criteriaBuilder.asc(root.get("createdAt")));
-                        } else {
-                            orderList.add(criteriaBuilder.desc(root.get("createdAt")));
-                        }
-                    }
-                }
-            }
+        return e;
+    }
 
-            if (!orderList.isEmpty()) {
-                criteriaQuery.orderBy(orderList);
-            }
+    private String extractDuplicateTitle(DataIntegrityViolationException e, List<BookCreate> bookCreates) {
+        // The batch runs in one statement, so the offending title is only known from the Postgres error detail
+        Matcher matcher = DUPLICATE_TITLE_PATTERN.matcher(String.valueOf(e.getMostSpecificCause().getMessage()));
+        if (matcher.find()) {
+            return matcher.group(1);
         }
+
+        return bookCreates.stream()
+                .map(BookCreate::getTitle)
+                .collect(Collectors.joining(", "));
     }
 }
@@ -0,0 +1,194 @@
+package com.tracktainment.bookmanager.dataprovider;
+
+import com.tracktainment.bookmanager.config.ConditionalOnPostgres;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
+import com.tracktainment.bookmanager.repository.BookRepository;
+import com.tracktainment.bookmanager.search.BookInvertedIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+@ConditionalOnPostgres
+@RequiredArgsConstructor
+@Slf4j
+public class BookSearchDataProviderSql implements BookSearchDataProvider {
+
+    private static final int WARM_UP_PAGE_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final BookMapperDataProvider mapper;
+    // j.u.c locks rather than monitors, so a virtual thread waiting on one, or holding one across a query, never pins
+    // its carrier thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantLock writesLock = new ReentrantLock();
+    private volatile BookInvertedIndex bookInvertedIndex = new BookInvertedIndex();
+    // Ids written while a rebuild runs, guarded by writesLock
+    private Set<String> rebuildWrites;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /* The index lives in this JVM and only sees the writes this node serves, so with several nodes each one reloads it
+    from the database on books.search.rebuild-cron to pick up the others' writes. Searches keep using the current index
+    until the new one is complete
+     */
+    @Scheduled(cron = "${books.search.rebuild-cron:-}")
+    public void rebuild() {
+        // Only rebuilds wait on this lock, writers never take it
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            BookInvertedIndex rebuiltIndex = new BookInvertedIndex();
+            writesLock.lock();
+            try {
+                rebuildWrites = new HashSet<>();
+            } finally {
+                writesLock.unlock();
+            }
+
+            long lastDbId = 0L;
+            List<BookEntity> bookEntities;
+            do {
+                bookEntities = bookRepository.findTop1000ByDbIdGreaterThanOrderByDbIdAsc(lastDbId);
+                for (BookEntity bookEntity : bookEntities) {
+                    rebuiltIndex.put(bookEntity.getDbId(), mapper.toId(bookEntity.getId()), toFields(bookEntity));
+                    lastDbId = bookEntity.getDbId();
+                }
+            } while (bookEntities.size() == WARM_UP_PAGE_SIZE);
+
+            // A book written meanwhile may have been read before its write, so it is read again before the swap. The
+            // ids are taken under writesLock and read outside it; the ones written during that read make another round,
+            // and the swap happens under the lock once a round finds none. Writers record their id before touching the
+            // index, so after the swap they only ever write to the rebuilt one
+            while (true) {
+                Set<String> writtenIds;
+                writesLock.lock();
+                try {
+                    if (rebuildWrites.isEmpty()) {
+                        bookInvertedIndex = rebuiltIndex;
+                        rebuildWrites = null;
+                        break;
+                    }
+                    writtenIds = rebuildWrites;
+                    rebuildWrites = new HashSet<>();
+                } finally {
+                    writesLock.unlock();
+                }
+                reread(rebuiltIndex, writtenIds);
+            }
+
+            log.info("Search index built with {} books in {} ms.", rebuiltIndex.size(), System.currentTimeMillis() - start);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @Override
+    public void index(Book book) {
+        recordWrites(List.of(book.getId()));
+
+        // Known books keep their dbId, only new ones need it looked up
+        if (!bookInvertedIndex.replace(book.getId(), toFields(book))) {
+            bookRepository.findById(mapper.toUuid(book.getId()))
+                    .ifPresent(bookEntity -> bookInvertedIndex.put(
+                            bookEntity.getDbId(),
+                            book.getId(),
+                            toFields(book)
+                    ));
+        }
+    }
+
+    @Override
+    public void indexAll(List<Book> books) {
+        recordWrites(books.stream().map(Book::getId).toList());
+
+        // New books need their dbIds, which are looked up in one query for the whole batch
+        Map<String, Book> newBooks = new HashMap<>();
+        for (Book book : books) {
+            if (!bookInvertedIndex.replace(book.getId(), toFields(book))) {
+                newBooks.put(book.getId(), book);
+            }
+        }
+
+        if (newBooks.isEmpty()) {
+            return;
+        }
+
+        for (BookEntity bookEntity : bookRepository.findAllByIdIn(newBooks.keySet().stream().map(mapper::toUuid).toList())) {
+            Book book = newBooks.get(mapper.toId(bookEntity.getId()));
+            bookInvertedIndex.put(bookEntity.getDbId(), book.getId(), toFields(book));
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        recordWrites(List.of(id));
+        bookInvertedIndex.remove(id);
+    }
+
+    @Override
+    public List<BookSearchHit> search(String query, Collection<String> ids, int limit) {
+        return bookInvertedIndex.search(query, ids, limit).stream()
+                .map(hit -> BookSearchHit.builder()
+                        .id(hit.getId())
+                        .score((double) hit.getScore())
+                        .build())
+                .toList();
+    }
+
+    private void recordWrites(List<String> ids) {
+        writesLock.lock();
+        try {
+            if (rebuildWrites != null) {
+                rebuildWrites.addAll(ids);
+            }
+        } finally {
+            writesLock.unlock();
+        }
+    }
+
+    private void reread(BookInvertedIndex rebuiltIndex, Set<String> ids) {
+        Set<String> removedIds = new HashSet<>(ids);
+        for (BookEntity bookEntity : bookRepository.findAllByIdIn(ids.stream().map(mapper::toUuid).toList())) {
+            String id = mapper.toId(bookEntity.getId());
+            rebuiltIndex.put(bookEntity.getDbId(), id, toFields(bookEntity));
+            removedIds.remove(id);
+        }
+        removedIds.forEach(rebuiltIndex::remove);
+    }
+
+    private String[] toFields(Book book) {
+        return new String[]{
+                book.getTitle(),
+                book.getAuthor(),
+                book.getPublisher(),
+                book.getGenre()
+        };
+    }
+
+    private String[] toFields(BookEntity bookEntity) {
+        return new String[]{
+                bookEntity.getTitle(),
+                bookEntity.getAuthor(),
+                bookEntity.getPublisher(),
+                bookEntity.getGenre()
+        };
+    }
+}
@@ -20,18 +20,26 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class BaseEntity {
 
+    public static final String DB_ID_GENERATOR = "db_id_generator";
+
+    // Sequence ids are known before the insert, so Hibernate can send inserts in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = DB_ID_GENERATOR)
     private Long dbId;
 
     @CreatedDate
-    @Column(name = "created_at", updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
     @LastModifiedDate
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Optimistic lock: a write carries the version it read and only applies while that version is still stored
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public boolean isNew() {
         return updatedAt == null;
     }
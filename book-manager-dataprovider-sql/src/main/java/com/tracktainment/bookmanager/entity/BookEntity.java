@@ -3,8 +3,15 @@ package com.tracktainment.bookmanager.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -12,16 +19,37 @@ import java.time.LocalDate;
 @EqualsAndHashCode(callSuper = true)
 @SuperBuilder
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = BookEntity.CACHE_REGION)
+@NaturalIdCache(region = BookEntity.NATURAL_ID_CACHE_REGION)
+@SequenceGenerator(
+        name = BaseEntity.DB_ID_GENERATOR,
+        sequenceName = BookEntity.DB_ID_SEQUENCE,
+        allocationSize = BookEntity.DB_ID_ALLOCATION_SIZE
+)
+// Partitioned by month of created_at, see the V4 migration
 @Table(name = "books")
+// Deleted books stay as tombstones until BookPurger removes them, no query or load ever returns one
+@SQLRestriction("deleted_at IS NULL")
 public class BookEntity extends BaseEntity {
 
-    @Column(name = "id", nullable = false, length = 36)
-    private String id;
+    public static final String CACHE_REGION = "books";
+    public static final String NATURAL_ID_CACHE_REGION = "books-natural-id";
+    public static final String LIST_QUERY_CACHE_REGION = "books-list";
+    public static final String DB_ID_SEQUENCE = "books_db_id_seq";
+    // Pooled: one nextval reserves a block of ids, rows inserted with nextval outside Hibernate never collide with it
+    public static final int DB_ID_ALLOCATION_SIZE = 50;
+    // Declared on book_titles, which a trigger on books keeps in step, as partitions cannot hold a unique title
+    public static final String TITLE_UNIQUE_CONSTRAINT = "uk_books_title";
+
+    // Native uuid column, kept unique across partitions by book_ids, which also leads lookups to the right partition
+    @NaturalId
+    @Column(name = "id", nullable = false, updatable = false)
+    private UUID id;
 
     @Column(name = "title", nullable = false, length = 200)
     private String title;
 
-    @Column(name = "author", length = 100)
+    @Column(name = "author", nullable = false, length = 100)
     private String author;
 
     @Column(name = "genre", length = 50)
@@ -38,4 +66,7 @@ public class BookEntity extends BaseEntity {
 
     @Column(name = "language", length = 50)
     private String language;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 }
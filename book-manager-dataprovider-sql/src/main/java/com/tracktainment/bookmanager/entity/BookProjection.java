@@ -0,0 +1,46 @@
+package com.tracktainment.bookmanager.entity;
+
+import com.tracktainment.bookmanager.domain.Book;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+public class BookProjection {
+
+    private final Long dbId;
+    private final Book book;
+
+    // Instantiated by Hibernate from a constructor expression, so the row never becomes a managed BookEntity.
+    // Listed books carry no version, their ETag comes with the book itself
+    public BookProjection(
+            Long dbId,
+            UUID id,
+            String title,
+            String author,
+            String genre,
+            String isbn,
+            String publisher,
+            LocalDate publishedDate,
+            String language,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt
+    ) {
+        this.dbId = dbId;
+        this.book = new Book(
+                id != null ? id.toString() : null,
+                title,
+                author,
+                genre,
+                isbn,
+                publisher,
+                publishedDate,
+                language,
+                createdAt,
+                updatedAt,
+                null
+        );
+    }
+}
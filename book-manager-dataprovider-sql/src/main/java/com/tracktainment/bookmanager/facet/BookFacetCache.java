@@ -0,0 +1,105 @@
+package com.tracktainment.bookmanager.facet;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tracktainment.bookmanager.config.ConditionalOnPostgres;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+@ConditionalOnPostgres
+public class BookFacetCache {
+
+    public static final String CACHE_NAME = "books-facets";
+
+    private final SecurityUtil securityUtil;
+    private final Cache<Key, BookFacets> facets;
+    // Bumped by every eviction before it removes entries, so a load can tell whether one ran while it queried
+    private final AtomicLong generation = new AtomicLong();
+
+    public BookFacetCache(
+            SecurityUtil securityUtil,
+            @Value("${books.facets.cache.maximum-size:10000}") long maximumSize,
+            @Value("${books.facets.cache.expire-after-write:10m}") Duration expireAfterWrite,
+            ObjectProvider<MeterRegistry> meterRegistryProvider
+    ) {
+        this.securityUtil = securityUtil;
+        this.facets = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        // Same cache.gets (hit/miss), cache.puts and cache.evictions meters as the second-level cache regions
+        CaffeineCacheMetrics.monitor(meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry), facets, CACHE_NAME);
+    }
+
+    public BookFacets get(ListByCriteriaUseCase.Input criteria, Supplier<BookFacets> loader) {
+        // Only requests of a known user are cached, as only their own writes can invalidate them
+        String userId = currentUserId();
+        if (userId == null) {
+            return loader.get();
+        }
+
+        // Loaded outside of the cache's own compute, which would hold a lock for the whole query and pin the carrier
+        // of a virtual thread. Two concurrent misses both query, the first to finish is kept
+        Key key = new Key(userId, criteria);
+        BookFacets bookFacets = facets.getIfPresent(key);
+        if (bookFacets != null) {
+            return bookFacets;
+        }
+
+        long loadGeneration = generation.get();
+        bookFacets = loader.get();
+        BookFacets cached = facets.asMap().putIfAbsent(key, bookFacets);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Facets counted before a write may be put after the eviction of that write has already run, they are taken
+        // out again. An eviction that bumps the generation after this check removes them itself
+        if (generation.get() != loadGeneration) {
+            facets.asMap().remove(key, bookFacets);
+        }
+        return bookFacets;
+    }
+
+    public void evictCurrentUser() {
+        // Entries are keyed by user and filters, so a user's entries are found by a scan bounded by the maximum size
+        String userId = currentUserId();
+        if (userId == null) {
+            evictAll();
+            return;
+        }
+
+        generation.incrementAndGet();
+        facets.asMap().keySet().removeIf(key -> key.userId().equals(userId));
+    }
+
+    public void evictAll() {
+        generation.incrementAndGet();
+        facets.invalidateAll();
+    }
+
+    private String currentUserId() {
+        return securityUtil.findDigitalUser()
+                .map(DigitalUser::getId)
+                .orElse(null);
+    }
+
+    // The criteria hold the ids resolved for the user, so a library changed outside this service misses the cache too
+    private record Key(String userId, ListByCriteriaUseCase.Input criteria) {
+    }
+}
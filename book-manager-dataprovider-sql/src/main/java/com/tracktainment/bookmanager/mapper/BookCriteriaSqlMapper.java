@@ -0,0 +1,134 @@
+package com.tracktainment.bookmanager.mapper;
+
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class BookCriteriaSqlMapper {
+
+    // One scan of the matching books, grouped once per facet. GROUPING tells which facet a row counts for
+    private static final String FACETS_SELECT = """
+            SELECT CASE
+                       WHEN GROUPING(genre) = 0 THEN 'genre'
+                       WHEN GROUPING(language) = 0 THEN 'language'
+                       WHEN GROUPING(publisher) = 0 THEN 'publisher'
+                       ELSE 'published_year'
+                   END AS facet,
+                   COALESCE(genre, language, publisher, CAST(EXTRACT(YEAR FROM published_date) AS integer)::text) AS value,
+                   count(*) AS books
+            FROM books""";
+    // Appended to the WHERE clause, so it starts with a space like the clauses rendered below
+    private static final String FACETS_GROUP_BY = " GROUP BY GROUPING SETS " +
+            "((genre), (language), (publisher), (CAST(EXTRACT(YEAR FROM published_date) AS integer)))" +
+            " ORDER BY facet, books DESC, value";
+
+    // Native rendering of the conditions and ordering of BookListQueryMapper, for reads that bypass Hibernate
+    public static String toWhereClause(ListByCriteriaUseCase.Input input, MapSqlParameterSource parameters) {
+        // Hibernate adds this from the BookEntity restriction, native reads have to say it, also to use the partial indexes
+        List<String> conditions = new ArrayList<>();
+        conditions.add("deleted_at IS NULL");
+
+        if (input.getIds() != null) {
+            List<UUID> ids = Arrays.stream(input.getIds().split(","))
+                    .map(UUID::fromString)
+                    .toList();
+            conditions.add("id IN (:ids)");
+            parameters.addValue("ids", ids);
+        }
+
+        addContains(conditions, parameters, "title", input.getTitle());
+        addContains(conditions, parameters, "author", input.getAuthor());
+        addContains(conditions, parameters, "genre", input.getGenre());
+        addContains(conditions, parameters, "isbn", input.getIsbn());
+        addContains(conditions, parameters, "publisher", input.getPublisher());
+
+        if (input.getPublishedDate() != null) {
+            conditions.add("published_date = :publishedDate");
+            parameters.addValue("publishedDate", input.getPublishedDate());
+        }
+
+        addContains(conditions, parameters, "language", input.getLanguage());
+
+        if (input.getFrom() != null) {
+            conditions.add("created_at >= :from");
+            parameters.addValue("from", input.getFrom().atStartOfDay());
+        }
+
+        if (input.getTo() != null) {
+            conditions.add("created_at <= :to");
+            parameters.addValue("to", input.getTo().atTime(23, 59, 59, 999999999));
+        }
+
+        if (input.getCreatedAt() != null) {
+            conditions.add("created_at BETWEEN :createdAtStart AND :createdAtEnd");
+            parameters.addValue("createdAtStart", input.getCreatedAt().atStartOfDay());
+            parameters.addValue("createdAtEnd", input.getCreatedAt().atTime(23, 59, 59, 999999999));
+        }
+
+        return " WHERE " + String.join(" AND ", conditions);
+    }
+
+    public static String toCursorCondition(
+            Map<OrderBy, OrderDirection> sorting,
+            BookCursorMapper.Cursor cursor,
+            MapSqlParameterSource parameters
+    ) {
+        // The same seek as the list queries, with the same parameter names
+        for (int i = 0; i < cursor.getValues().size(); i++) {
+            if (cursor.getValues().get(i) != null) {
+                parameters.addValue("cursor" + i, cursor.getValues().get(i));
+            }
+        }
+        parameters.addValue("cursorDbId", cursor.getDbId());
+
+        return BookListQueryMapper.toCursorCondition(sorting, cursor, BookCriteriaSqlMapper::toColumn, "db_id");
+    }
+
+    public static String toFacetsQuery(ListByCriteriaUseCase.Input input, MapSqlParameterSource parameters) {
+        return FACETS_SELECT + toWhereClause(input, parameters) + FACETS_GROUP_BY;
+    }
+
+    public static String toOrderByClause(Map<OrderBy, OrderDirection> sorting) {
+        List<String> orders = new ArrayList<>();
+        sorting.forEach((orderBy, orderDirection) -> orders.add(toColumn(orderBy) + " " + orderDirection.name()));
+
+        // Same dbId tie-breaker as the list queries
+        orders.add("db_id " + BookListQueryMapper.toTieBreakerDirection(sorting).name());
+        return " ORDER BY " + String.join(", ", orders);
+    }
+
+    private static void addContains(
+            List<String> conditions,
+            MapSqlParameterSource parameters,
+            String column,
+            String value
+    ) {
+        if (value == null) {
+            return;
+        }
+
+        String escapedValue = value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+
+        conditions.add("lower(" + column + ") LIKE :" + column + " ESCAPE '\\'");
+        parameters.addValue(column, "%" + escapedValue + "%");
+    }
+
+    private static String toColumn(OrderBy orderBy) {
+        return switch (orderBy) {
+            case TITLE -> "title";
+            case AUTHOR -> "author";
+            case GENRE -> "genre";
+            case CREATED_AT -> "created_at";
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.tracktainment.bookmanager.mapper;
+
+import com.tracktainment.bookmanager.entity.BookEntity;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+public class BookEntityRowMapper implements RowMapper<BookEntity> {
+
+    public static final String COLUMNS =
+            "db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at, updated_at, version";
+
+    @Override
+    public BookEntity mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        Date publishedDate = resultSet.getDate("published_date");
+        Timestamp createdAt = resultSet.getTimestamp("created_at");
+        Timestamp updatedAt = resultSet.getTimestamp("updated_at");
+
+        return BookEntity.builder()
+                .dbId(resultSet.getLong("db_id"))
+                .id(resultSet.getObject("id", UUID.class))
+                .title(resultSet.getString("title"))
+                .author(resultSet.getString("author"))
+                .genre(resultSet.getString("genre"))
+                .isbn(resultSet.getString("isbn"))
+                .publisher(resultSet.getString("publisher"))
+                .publishedDate(publishedDate != null ? publishedDate.toLocalDate() : null)
+                .language(resultSet.getString("language"))
+                .createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+                .updatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null)
+                .version(resultSet.getLong("version"))
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.tracktainment.bookmanager.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class BookJsonRowWriter {
+
+    // Every column comes back as text already formatted like Jackson writes Book, so no value is ever parsed
+    public static final String COLUMNS = "id::text, title, author, genre, isbn, publisher, published_date::text, " +
+            "language, to_char(created_at, 'YYYY-MM-DD\"T\"HH24:MI:SS.US'), to_char(updated_at, 'YYYY-MM-DD\"T\"HH24:MI:SS.US')";
+
+    // Same names and order as the fields of Book
+    private static final SerializableString[] FIELD_NAMES = {
+            new SerializedString("id"),
+            new SerializedString("title"),
+            new SerializedString("author"),
+            new SerializedString("genre"),
+            new SerializedString("isbn"),
+            new SerializedString("publisher"),
+            new SerializedString("publishedDate"),
+            new SerializedString("language"),
+            new SerializedString("createdAt"),
+            new SerializedString("updatedAt")
+    };
+
+    public void write(ResultSet resultSet, JsonGenerator generator) throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            // The driver hands out the raw UTF-8 bytes of text columns, which are escaped and copied as they are
+            byte[] value = resultSet.getBytes(i + 1);
+
+            // Null columns are left out, like Book's NON_NULL inclusion
+            if (value != null) {
+                generator.writeFieldName(FIELD_NAMES[i]);
+                generator.writeUTF8String(value, 0, value.length);
+            }
+        }
+        generator.writeEndObject();
+    }
+}
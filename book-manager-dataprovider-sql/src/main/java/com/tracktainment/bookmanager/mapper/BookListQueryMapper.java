@@ -0,0 +1,307 @@
+package com.tracktainment.bookmanager.mapper;
+
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class BookListQueryMapper {
+
+    // Far more than the filter, sort and cursor combinations clients actually send; past it, shapes are rendered per call
+    private static final int MAX_SHAPES = 1_000;
+
+    private static final String SELECT = "select new com.tracktainment.bookmanager.entity.BookProjection(" +
+            "b.dbId, b.id, b.title, b.author, b.genre, b.isbn, b.publisher, b.publishedDate, b.language, " +
+            "b.createdAt, b.updatedAt) from BookEntity b";
+    private static final Map<String, String> JPQL_BY_SHAPE = new ConcurrentHashMap<>();
+    // Declared NOT NULL by the V3 migration, no null rows follow their last value when ascending
+    private static final Set<OrderBy> NOT_NULL_SORT_KEYS = EnumSet.of(OrderBy.TITLE, OrderBy.AUTHOR, OrderBy.CREATED_AT);
+
+    // Same conditions as BookCriteriaSqlMapper, in the same order
+    private enum Filter {
+        IDS("b.id in :ids"),
+        TITLE("lower(b.title) like :title escape '\\'"),
+        AUTHOR("lower(b.author) like :author escape '\\'"),
+        GENRE("lower(b.genre) like :genre escape '\\'"),
+        ISBN("lower(b.isbn) like :isbn escape '\\'"),
+        PUBLISHER("lower(b.publisher) like :publisher escape '\\'"),
+        PUBLISHED_DATE("b.publishedDate = :publishedDate"),
+        LANGUAGE("lower(b.language) like :language escape '\\'"),
+        FROM("b.createdAt >= :from"),
+        TO("b.createdAt <= :to"),
+        CREATED_AT("b.createdAt between :createdAtStart and :createdAtEnd");
+
+        private final String condition;
+
+        Filter(String condition) {
+            this.condition = condition;
+        }
+    }
+
+    public static ListQuery toListQuery(
+            ListByCriteriaUseCase.Input input,
+            Map<OrderBy, OrderDirection> sorting,
+            BookCursorMapper.Cursor cursor
+    ) {
+        // Values always change between calls, the statement only changes with the shape: which filters are set,
+        // the sorting and, for cursors, which sort values are null
+        Map<String, Object> parameters = new HashMap<>();
+        int filters = 0;
+
+        if (input.getIds() != null) {
+            filters |= bit(Filter.IDS);
+            parameters.put("ids", Arrays.stream(input.getIds().split(","))
+                    .map(UUID::fromString)
+                    .toList());
+        }
+
+        filters |= putContains(parameters, Filter.TITLE, "title", input.getTitle());
+        filters |= putContains(parameters, Filter.AUTHOR, "author", input.getAuthor());
+        filters |= putContains(parameters, Filter.GENRE, "genre", input.getGenre());
+        filters |= putContains(parameters, Filter.ISBN, "isbn", input.getIsbn());
+        filters |= putContains(parameters, Filter.PUBLISHER, "publisher", input.getPublisher());
+
+        if (input.getPublishedDate() != null) {
+            filters |= bit(Filter.PUBLISHED_DATE);
+            parameters.put("publishedDate", input.getPublishedDate());
+        }
+
+        filters |= putContains(parameters, Filter.LANGUAGE, "language", input.getLanguage());
+
+        if (input.getFrom() != null) {
+            filters |= bit(Filter.FROM);
+            parameters.put("from", input.getFrom().atStartOfDay());
+        }
+
+        if (input.getTo() != null) {
+            filters |= bit(Filter.TO);
+            parameters.put("to", input.getTo().atTime(23, 59, 59, 999999999));
+        }
+
+        if (input.getCreatedAt() != null) {
+            filters |= bit(Filter.CREATED_AT);
+            parameters.put("createdAtStart", input.getCreatedAt().atStartOfDay());
+            parameters.put("createdAtEnd", input.getCreatedAt().atTime(23, 59, 59, 999999999));
+        }
+
+        StringBuilder shape = new StringBuilder().append(filters);
+        sorting.forEach((orderBy, orderDirection) -> shape.append(',').append(orderBy.ordinal()).append(orderDirection.ordinal()));
+
+        if (cursor != null) {
+            shape.append('|');
+            for (int i = 0; i < cursor.getValues().size(); i++) {
+                Object value = cursor.getValues().get(i);
+                shape.append(value == null ? '0' : '1');
+                if (value != null) {
+                    parameters.put("cursor" + i, value);
+                }
+            }
+            parameters.put("cursorDbId", cursor.getDbId());
+        }
+
+        String key = shape.toString();
+        String jpql = JPQL_BY_SHAPE.get(key);
+        if (jpql == null) {
+            jpql = toJpql(filters, sorting, cursor);
+            if (JPQL_BY_SHAPE.size() < MAX_SHAPES) {
+                JPQL_BY_SHAPE.putIfAbsent(key, jpql);
+            }
+        }
+
+        return new ListQuery(jpql, parameters);
+    }
+
+    private static String toJpql(int filters, Map<OrderBy, OrderDirection> sorting, BookCursorMapper.Cursor cursor) {
+        List<String> conditions = new ArrayList<>();
+        for (Filter filter : Filter.values()) {
+            if ((filters & bit(filter)) != 0) {
+                conditions.add(filter.condition);
+            }
+        }
+
+        if (cursor != null) {
+            conditions.add(toCursorCondition(sorting, cursor, orderBy -> "b." + orderBy.getValue(), "b.dbId"));
+        }
+
+        List<String> orders = new ArrayList<>();
+        sorting.forEach((orderBy, orderDirection) -> orders.add("b." + orderBy.getValue() + " " + orderDirection.name().toLowerCase()));
+
+        // dbId breaks ties between equal sort keys, giving every row a stable position for cursors
+        orders.add("b.dbId " + toTieBreakerDirection(sorting).name().toLowerCase());
+
+        return SELECT +
+                (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions)) +
+                " order by " + String.join(", ", orders);
+    }
+
+    public static Map<OrderBy, OrderDirection> toSorting(ListByCriteriaUseCase.Input input) {
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+
+        if (input.getOrderByList() != null && input.getOrderDirectionList() != null) {
+            for (int i=0; i<input.getOrderByList().size(); i++) {
+                OrderBy orderBy = input.getOrderByList().get(i);
+                OrderDirection orderDirection = input.getOrderDirectionList().get(i);
+
+                if (orderBy != null && orderDirection != null) {
+                    sorting.putIfAbsent(orderBy, orderDirection);
+                }
+            }
+        }
+
+        return sorting;
+    }
+
+    public static OrderDirection toTieBreakerDirection(Map<OrderBy, OrderDirection> sorting) {
+        // Following the last key, a single key sort reads its (key, db_id) index forwards or backwards, never re-sorted
+        OrderDirection tieBreaker = OrderDirection.ASC;
+        for (OrderDirection orderDirection : sorting.values()) {
+            tieBreaker = orderDirection;
+        }
+        return tieBreaker;
+    }
+
+    // Written against the paths it is given, so BookCriteriaSqlMapper renders the same seek over the columns
+    static String toCursorCondition(
+            Map<OrderBy, OrderDirection> sorting,
+            BookCursorMapper.Cursor cursor,
+            Function<OrderBy, String> path,
+            String dbIdPath
+    ) {
+        OrderDirection tieBreaker = toTieBreakerDirection(sorting);
+        if (isIndexRange(sorting, cursor, tieBreaker)) {
+            // Keys all one way and no nulls in between: the rows after the cursor are one range of the index
+            List<String> paths = new ArrayList<>();
+            List<String> parameters = new ArrayList<>();
+            int i = 0;
+            for (OrderBy orderBy : sorting.keySet()) {
+                paths.add(path.apply(orderBy));
+                parameters.add(":cursor" + i++);
+            }
+
+            String range = "(" + String.join(", ", paths) + ", " + dbIdPath + ") " +
+                    (tieBreaker == OrderDirection.ASC ? ">" : "<") +
+                    " (" + String.join(", ", parameters) + ", :cursorDbId)";
+
+            // Partition pruning does not look into row comparisons, a plain bound on created_at skips the months
+            // before the cursor
+            if (sorting.keySet().iterator().next() == OrderBy.CREATED_AT) {
+                return path.apply(OrderBy.CREATED_AT) + (tieBreaker == OrderDirection.ASC ? " >= " : " <= ") +
+                        ":cursor0 and " + range;
+            }
+            return range;
+        }
+
+        // Rows after the cursor: (k1 > v1) or (k1 = v1 and k2 > v2) or ... or (k1 = v1 and ... and dbId > lastDbId)
+        List<String> alternatives = new ArrayList<>();
+        List<String> equalities = new ArrayList<>();
+        String bound = null;
+
+        int i = 0;
+        for (Map.Entry<OrderBy, OrderDirection> entry : sorting.entrySet()) {
+            String keyPath = path.apply(entry.getKey());
+            boolean isNull = cursor.getValues().get(i) == null;
+            boolean nullable = !NOT_NULL_SORT_KEYS.contains(entry.getKey());
+            String parameter = ":cursor" + i++;
+
+            // The alternatives alone are no index range, a bound on the first key lets the scan start at the cursor
+            if (alternatives.isEmpty() && !isNull && (entry.getValue() == OrderDirection.DESC || !nullable)) {
+                bound = keyPath + (entry.getValue() == OrderDirection.ASC ? " >= " : " <= ") + parameter;
+            }
+
+            String after = toAfterCondition(keyPath, parameter, isNull, nullable, entry.getValue());
+            if (after != null) {
+                alternatives.add(and(equalities, after));
+            }
+
+            equalities.add(isNull ? keyPath + " is null" : keyPath + " = " + parameter);
+        }
+
+        alternatives.add(and(equalities, dbIdPath + " " + (tieBreaker == OrderDirection.ASC ? ">" : "<") + " :cursorDbId"));
+        String condition = "(" + String.join(" or ", alternatives) + ")";
+        return bound != null ? bound + " and " + condition : condition;
+    }
+
+    private static boolean isIndexRange(
+            Map<OrderBy, OrderDirection> sorting,
+            BookCursorMapper.Cursor cursor,
+            OrderDirection tieBreaker
+    ) {
+        if (sorting.isEmpty()) {
+            return false;
+        }
+
+        // Postgres sorts nulls last when ascending, so after a value there can still be nulls outside the range
+        int i = 0;
+        for (Map.Entry<OrderBy, OrderDirection> entry : sorting.entrySet()) {
+            if (entry.getValue() != tieBreaker || cursor.getValues().get(i++) == null ||
+                    (tieBreaker == OrderDirection.ASC && !NOT_NULL_SORT_KEYS.contains(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String toAfterCondition(
+            String path,
+            String parameter,
+            boolean isNull,
+            boolean nullable,
+            OrderDirection orderDirection
+    ) {
+        // Postgres sorts nulls last when ascending and first when descending
+        if (orderDirection == OrderDirection.ASC) {
+            if (isNull) {
+                return null;
+            }
+
+            return nullable ? "(" + path + " > " + parameter + " or " + path + " is null)" : path + " > " + parameter;
+        }
+
+        return isNull ? path + " is not null" : path + " < " + parameter;
+    }
+
+    private static String and(List<String> equalities, String condition) {
+        List<String> conjunction = new ArrayList<>(equalities);
+        conjunction.add(condition);
+        return "(" + String.join(" and ", conjunction) + ")";
+    }
+
+    private static int putContains(Map<String, Object> parameters, Filter filter, String parameter, String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        // lower(column) like '%value%' matches the pg_trgm GIN indexes created by the V2 migration
+        String escapedValue = value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+
+        parameters.put(parameter, "%" + escapedValue + "%");
+        return bit(filter);
+    }
+
+    private static int bit(Filter filter) {
+        return 1 << filter.ordinal();
+    }
+
+    @AllArgsConstructor
+    @Getter
+    public static class ListQuery {
+        private final String jpql;
+        private final Map<String, Object> parameters;
+    }
+}
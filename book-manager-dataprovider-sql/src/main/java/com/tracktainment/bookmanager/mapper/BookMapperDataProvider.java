@@ -17,18 +17,30 @@ public interface BookMapperDataProvider {
 
     Book toBook(BookEntity bookEntity);
 
-    @Mapping(target = "id", expression = "java(java.util.UUID.randomUUID().toString())")
+    @Mapping(target = "id", expression = "java(java.util.UUID.randomUUID())")
     @Mapping(target = "dbId", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     BookEntity toBookEntity(BookCreate bookCreate);
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "dbId", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "deletedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateBookEntity(
             @MappingTarget BookEntity bookEntity,
             BookUpdate bookUpdate
     );
+
+    default UUID toUuid(String id) {
+        return id != null ? UUID.fromString(id) : null;
+    }
+
+    default String toId(UUID id) {
+        return id != null ? id.toString() : null;
+    }
 }
@@ -0,0 +1,136 @@
+package com.tracktainment.bookmanager.partition;
+
+import com.tracktainment.bookmanager.config.ConditionalOnPostgres;
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.facet.BookFacetCache;
+import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+@Component
+@ConditionalOnPostgres
+@RequiredArgsConstructor
+@Slf4j
+public class BookPartitionMaintainer {
+
+    private static final String PARTITION_PREFIX = "books_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String EXPIRED_PARTITIONS = """
+            SELECT c.relname, i.inhdetachpending
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'books'::regclass AND c.relname < :oldestKept
+            ORDER BY c.relname""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final BookSearchDataProvider bookSearchDataProvider;
+    private final BookMapperDataProvider mapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final BookFacetCache bookFacetCache;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${books.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every month
+    @Value("${books.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${books.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        createPartitions(now);
+
+        if (retentionMonths > 0) {
+            detachExpiredPartitions(now);
+        }
+    }
+
+    private void createPartitions(LocalDateTime now) {
+        // Books are stored in the partition of their created_at, there is no default partition to fall back on
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT create_books_partitions(:from, :through)",
+                new MapSqlParameterSource()
+                        .addValue("from", now)
+                        .addValue("through", now.plusMonths(monthsAhead)),
+                Integer.class
+        );
+
+        if (created != null && created > 0) {
+            log.info("Created {} book partitions up to {} months ahead.", created, monthsAhead);
+        }
+    }
+
+    private void detachExpiredPartitions(LocalDateTime now) {
+        // Partition names sort like their months, so every name before the oldest kept month is expired
+        LocalDateTime oldestKeptMonth = now.minusMonths(retentionMonths)
+                .withDayOfMonth(1)
+                .truncatedTo(ChronoUnit.DAYS);
+        List<ExpiredPartition> expiredPartitions = jdbcTemplate.query(
+                EXPIRED_PARTITIONS,
+                new MapSqlParameterSource("oldestKept", PARTITION_PREFIX + PARTITION_MONTH.format(oldestKeptMonth)),
+                (resultSet, rowNum) -> new ExpiredPartition(resultSet.getString(1), resultSet.getBoolean(2))
+        );
+
+        expiredPartitions.forEach(this::detachPartition);
+    }
+
+    private void detachPartition(ExpiredPartition partition) {
+        /* The books are released from the titles and the ids in one transaction while the partition is still attached,
+        so a run interrupted at any point leaves it expired and attached, and the next run releases it again and
+        detaches it. Without their ids the books can no longer be found, updated or deleted by id, and no book is ever
+        created in an expired month, so nothing claims a title or an id from the partition again before it is detached
+         */
+        List<UUID> ids = new TransactionTemplate(transactionManager).execute(status -> {
+            List<UUID> releasedIds = jdbcTemplate.getJdbcTemplate()
+                    .queryForList("SELECT id FROM " + partition.name(), UUID.class);
+            jdbcTemplate.getJdbcTemplate().update(
+                    "DELETE FROM book_titles t USING " + partition.name() + " p WHERE t.db_id = p.db_id"
+            );
+            jdbcTemplate.getJdbcTemplate().update(
+                    "DELETE FROM book_ids i USING " + partition.name() + " p WHERE i.id = p.id"
+            );
+            return releasedIds;
+        });
+
+        // Detaching is a catalog change, not a delete, and concurrently it only waits for the queries already running
+        // on books. It cannot run in a transaction, and one interrupted halfway is finalized on the next run
+        jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE books DETACH PARTITION " + partition.name() +
+                (partition.detachPending() ? " FINALIZE" : " CONCURRENTLY"));
+
+        /* The detached table is left for archiving. The Dux Manager assets of its books are kept on purpose: they can
+        only be deleted with their owner's JWT, which a scheduled job does not have, lists already skip asset ids that
+        match no book, and the assets are valid again if the table is attached back
+         */
+        ids.forEach(id -> bookSearchDataProvider.remove(mapper.toId(id)));
+
+        org.hibernate.Cache cache = entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+        cache.evictEntityData(BookEntity.class);
+        cache.evictNaturalIdData(BookEntity.class);
+        cache.evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+        bookFacetCache.evictAll();
+
+        log.info("Detached book partition {} with {} books.", partition.name(), ids.size());
+    }
+
+    private record ExpiredPartition(String name, boolean detachPending) {
+    }
+}
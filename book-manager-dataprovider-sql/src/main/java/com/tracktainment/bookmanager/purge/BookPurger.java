@@ -0,0 +1,88 @@
+package com.tracktainment.bookmanager.purge;
+
+import com.tracktainment.bookmanager.config.ConditionalOnPostgres;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@ConditionalOnPostgres
+@Slf4j
+public class BookPurger {
+
+    // Tombstones are found through the partial index on deleted_at and removed through the primary key. Rows locked
+    // by another purger are skipped, so instances running at the same time share the work
+    private static final String PURGE_BATCH = """
+            DELETE FROM books
+            WHERE (db_id, created_at) IN (
+                SELECT db_id, created_at FROM books
+                WHERE deleted_at IS NOT NULL
+                LIMIT :batchSize
+                FOR UPDATE SKIP LOCKED
+            )""";
+    private static final String COUNT_PENDING = "SELECT count(*) FROM books WHERE deleted_at IS NOT NULL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Counter purgedBooks;
+    private final Timer batchTimer;
+    private final AtomicLong pendingBooks = new AtomicLong();
+
+    public BookPurger(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            @Value("${books.purge.batch-size:1000}") int batchSize,
+            @Value("${books.purge.max-batches:50}") int maxBatches,
+            ObjectProvider<MeterRegistry> meterRegistryProvider
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+        purgedBooks = Counter.builder("books.purge.purged")
+                .description("Deleted books removed from the table by the purger")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("books.purge.batches")
+                .description("Purge batches, one statement and transaction each")
+                .register(meterRegistry);
+        Gauge.builder("books.purge.pending", pendingBooks, AtomicLong::get)
+                .description("Deleted books left for the next purge, as of the last run")
+                .register(meterRegistry);
+    }
+
+    // At most batch-size * max-batches rows per run; the default schedule keeps it to the night
+    @Scheduled(cron = "${books.purge.cron:0 */10 0-5 * * *}")
+    public void purge() {
+        // Each batch commits on its own, locks stay short and the table is never held for the whole run
+        long purged = 0;
+        int batches = 0;
+        int batchPurged;
+        do {
+            Timer.Sample sample = Timer.start();
+            batchPurged = jdbcTemplate.update(PURGE_BATCH, new MapSqlParameterSource("batchSize", batchSize));
+            sample.stop(batchTimer);
+
+            purgedBooks.increment(batchPurged);
+            purged += batchPurged;
+        } while (batchPurged == batchSize && ++batches < maxBatches);
+
+        Long pending = jdbcTemplate.getJdbcTemplate().queryForObject(COUNT_PENDING, Long.class);
+        pendingBooks.set(pending != null ? pending : 0);
+
+        if (purged > 0) {
+            log.info("Purged {} deleted books, {} left.", purged, pendingBooks.get());
+        }
+    }
+}
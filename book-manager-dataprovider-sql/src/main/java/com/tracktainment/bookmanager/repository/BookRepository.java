@@ -2,16 +2,25 @@ package com.tracktainment.bookmanager.repository;
 
 import com.tracktainment.bookmanager.entity.BookEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface BookRepository extends JpaRepository<BookEntity, Long> {
 
-    Optional<BookEntity> findByTitle(String title);
+    // Joined through book_ids, so each id only reads the partition of its created_at
+    @Query(value = "SELECT b.* FROM book_ids i JOIN books b ON b.created_at = i.created_at AND b.id = i.id " +
+            "WHERE i.id = :id AND b.deleted_at IS NULL", nativeQuery = true)
+    Optional<BookEntity> findById(UUID id);
 
-    Optional<BookEntity> findById(String id);
+    @Query(value = "SELECT b.* FROM book_ids i JOIN books b ON b.created_at = i.created_at AND b.id = i.id " +
+            "WHERE i.id IN (:ids) AND b.deleted_at IS NULL", nativeQuery = true)
+    List<BookEntity> findAllByIdIn(Collection<UUID> ids);
 
-    void deleteById(String id);
+    List<BookEntity> findTop1000ByDbIdGreaterThanOrderByDbIdAsc(Long dbId);
 }
@@ -0,0 +1,276 @@
+package com.tracktainment.bookmanager.stats;
+
+import com.tracktainment.bookmanager.config.ConditionalOnPostgres;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+@Component
+@ConditionalOnPostgres
+@Slf4j
+public class BookQueryStats implements AutoCloseable {
+
+    public static final String QUERIES_METRIC = "books.queries";
+    public static final String ROWS_METRIC = "books.queries.rows";
+    public static final String SLOW_QUERIES_METRIC = "books.queries.slow";
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate explainTransaction;
+    private final long slowThresholdNanos;
+    private final double explainSampleRate;
+    private final Duration explainTimeout;
+    private final int maxShapes;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final Map<String, Meters> metersByOperation = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainExecutor;
+
+    public BookQueryStats(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${books.query-stats.slow-threshold:500ms}") Duration slowThreshold,
+            @Value("${books.query-stats.explain-sample-rate:0.1}") double explainSampleRate,
+            @Value("${books.query-stats.explain-timeout:30s}") Duration explainTimeout,
+            @Value("${books.query-stats.max-shapes:1000}") int maxShapes,
+            ObjectProvider<MeterRegistry> meterRegistryProvider
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.explainSampleRate = explainSampleRate;
+        this.explainTimeout = explainTimeout;
+        this.maxShapes = maxShapes;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry);
+
+        // Plans are read-only transactions of their own, so with replicas configured they run there and not on the primary
+        this.explainTransaction = new TransactionTemplate(transactionManager);
+        this.explainTransaction.setReadOnly(true);
+
+        // One plan at a time, off the request path; slow queries found while it runs are not explained
+        this.explainExecutor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "books-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+    }
+
+    // Timed and counted only: writes and streamed exports would run a second time under EXPLAIN ANALYZE
+    public <T> T record(String operation, String shape, Supplier<T> query, ToLongFunction<? super T> rows) {
+        return measure(operation, shape, null, query, rows);
+    }
+
+    public <T> T recordRead(
+            String operation,
+            String sql,
+            MapSqlParameterSource parameters,
+            Supplier<T> query,
+            ToLongFunction<? super T> rows
+    ) {
+        return measure(operation, sql, () -> new NativeQuery(sql, parameters), query, rows);
+    }
+
+    // For statements Hibernate renders, explained through their native equivalent, only built once a plan is sampled
+    public <T> T recordRead(
+            String operation,
+            String shape,
+            Supplier<NativeQuery> nativeQuery,
+            Supplier<T> query,
+            ToLongFunction<? super T> rows
+    ) {
+        return measure(operation, shape, nativeQuery, query, rows);
+    }
+
+    public List<QueryShape> snapshot() {
+        // Where the database time goes first, which is not always the slowest single call
+        return shapes.values().stream()
+                .map(ShapeStats::toQueryShape)
+                .sorted(Comparator.comparingDouble(QueryShape::totalMillis).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    @Override
+    public void close() {
+        explainExecutor.shutdownNow();
+    }
+
+    private <T> T measure(
+            String operation,
+            String shape,
+            Supplier<NativeQuery> nativeQuery,
+            Supplier<T> query,
+            ToLongFunction<? super T> rows
+    ) {
+        long start = System.nanoTime();
+        T result = query.get();
+        long nanos = System.nanoTime() - start;
+        long rowCount = rows.applyAsLong(result);
+        boolean slow = nanos >= slowThresholdNanos;
+
+        Meters meters = metersByOperation.computeIfAbsent(operation, this::registerMeters);
+        meters.timer().record(nanos, TimeUnit.NANOSECONDS);
+        meters.rows().record(rowCount);
+        if (slow) {
+            meters.slowQueries().increment();
+        }
+
+        // Shapes only vary with the filters and sorting, the cap only guards against a caller that inlines values
+        ShapeStats shapeStats = shapes.get(shape);
+        if (shapeStats == null && shapes.size() < maxShapes) {
+            shapeStats = shapes.computeIfAbsent(shape, key -> new ShapeStats(operation, key));
+        }
+
+        if (shapeStats != null) {
+            shapeStats.add(nanos, rowCount, slow);
+            if (slow && nativeQuery != null && ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+                ShapeStats explained = shapeStats;
+                NativeQuery statement = nativeQuery.get();
+                explainExecutor.execute(() -> explain(explained, statement));
+            }
+        }
+
+        return result;
+    }
+
+    private void explain(ShapeStats shapeStats, NativeQuery nativeQuery) {
+        try {
+            // ANALYZE runs the query again, the timeout keeps a pathological plan from holding a connection for long
+            explainTransaction.executeWithoutResult(status -> {
+                jdbcTemplate.getJdbcTemplate().execute("SET LOCAL statement_timeout = " + explainTimeout.toMillis());
+                List<String> plan = jdbcTemplate.queryForList(
+                        "EXPLAIN (ANALYZE, BUFFERS) " + nativeQuery.sql(),
+                        nativeQuery.parameters(),
+                        String.class
+                );
+                shapeStats.capturePlan(String.join("\n", plan));
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not explain slow {} query: {}", shapeStats.operation, e.getMessage());
+        }
+    }
+
+    private Meters registerMeters(String operation) {
+        return new Meters(
+                Timer.builder(QUERIES_METRIC)
+                        .description("Statements run by the SQL data provider")
+                        .tag("operation", operation)
+                        .register(meterRegistry),
+                DistributionSummary.builder(ROWS_METRIC)
+                        .description("Rows returned or written per statement")
+                        .tag("operation", operation)
+                        .register(meterRegistry),
+                Counter.builder(SLOW_QUERIES_METRIC)
+                        .description("Statements slower than books.query-stats.slow-threshold")
+                        .tag("operation", operation)
+                        .register(meterRegistry)
+        );
+    }
+
+    public record NativeQuery(String sql, MapSqlParameterSource parameters) {
+    }
+
+    public record QueryShape(
+            String operation,
+            String shape,
+            long calls,
+            long rows,
+            double totalMillis,
+            double meanMillis,
+            double maxMillis,
+            long slowCalls,
+            String plan,
+            LocalDateTime planCapturedAt
+    ) {
+    }
+
+    private record Meters(Timer timer, DistributionSummary rows, Counter slowQueries) {
+    }
+
+    private static final class ShapeStats {
+
+        private final String operation;
+        private final String shape;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+        private final LongAdder slowCalls = new LongAdder();
+        private volatile CapturedPlan plan;
+
+        private ShapeStats(String operation, String shape) {
+            this.operation = operation;
+            this.shape = shape;
+        }
+
+        private void add(long nanos, long rowCount, boolean slow) {
+            calls.increment();
+            rows.add(rowCount);
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (slow) {
+                slowCalls.increment();
+            }
+        }
+
+        private void capturePlan(String text) {
+            // The latest plan is kept, it reflects the statistics and data the planner sees now
+            plan = new CapturedPlan(text, LocalDateTime.now());
+        }
+
+        private QueryShape toQueryShape() {
+            long callCount = calls.sum();
+            long total = totalNanos.sum();
+            CapturedPlan capturedPlan = plan;
+            return new QueryShape(
+                    operation,
+                    shape,
+                    callCount,
+                    rows.sum(),
+                    total / NANOS_PER_MILLI,
+                    callCount > 0 ? total / NANOS_PER_MILLI / callCount : 0,
+                    maxNanos.get() / NANOS_PER_MILLI,
+                    slowCalls.sum(),
+                    capturedPlan != null ? capturedPlan.text() : null,
+                    capturedPlan != null ? capturedPlan.capturedAt() : null
+            );
+        }
+    }
+
+    private record CapturedPlan(String text, LocalDateTime capturedAt) {
+    }
+}
@@ -0,0 +1,30 @@
+package com.tracktainment.bookmanager.stats;
+
+import com.tracktainment.bookmanager.config.ConditionalOnPostgres;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// GET /actuator/bookqueries lists the statements per shape, DELETE starts the statistics over, e.g. after an index change
+@Component
+@ConditionalOnPostgres
+@Endpoint(id = "bookqueries")
+@RequiredArgsConstructor
+public class BookQueryStatsEndpoint {
+
+    private final BookQueryStats bookQueryStats;
+
+    @ReadOperation
+    public List<BookQueryStats.QueryShape> queries() {
+        return bookQueryStats.snapshot();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        bookQueryStats.reset();
+    }
+}
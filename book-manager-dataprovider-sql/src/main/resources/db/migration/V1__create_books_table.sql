@@ -0,0 +1,19 @@
+-- Databases last started with ddl-auto create already hold this table, they are baselined at version 0 and kept
+CREATE SEQUENCE IF NOT EXISTS books_db_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS books (
+    db_id bigint NOT NULL,
+    id uuid NOT NULL,
+    title varchar(200) NOT NULL,
+    author varchar(100),
+    genre varchar(50),
+    isbn varchar(17),
+    publisher varchar(150),
+    published_date date,
+    language varchar(50),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    CONSTRAINT books_pkey PRIMARY KEY (db_id),
+    CONSTRAINT uk_books_id UNIQUE (id),
+    CONSTRAINT uk_books_title UNIQUE (title)
+);
@@ -0,0 +1,7 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_books_title_trgm ON books USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_author_trgm ON books USING gin (lower(author) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_genre_trgm ON books USING gin (lower(genre) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_isbn_trgm ON books USING gin (lower(isbn) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_publisher_trgm ON books USING gin (lower(publisher) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_books_language_trgm ON books USING gin (lower(language) gin_trgm_ops);
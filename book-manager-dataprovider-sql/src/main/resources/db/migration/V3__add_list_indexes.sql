@@ -0,0 +1,16 @@
+-- Every create and import sets them, declaring it lets cursor pages on them seek into the index
+ALTER TABLE books ALTER COLUMN author SET NOT NULL;
+ALTER TABLE books ALTER COLUMN created_at SET NOT NULL;
+
+-- One index per sort key, ending in the db_id tie-breaker, which runs the same way as the key. "ORDER BY key, db_id"
+-- reads it forwards, "ORDER BY key DESC, db_id DESC" backwards, and a cursor starts the scan at "(key, db_id) > (...)".
+-- Title needs none, its unique index already gives every row its own position. The created_at one also serves the
+-- from, to and createdAt filters, and bounded counts on it read only the index
+CREATE INDEX IF NOT EXISTS idx_books_author_db_id ON books (author, db_id);
+CREATE INDEX IF NOT EXISTS idx_books_created_at_db_id ON books (created_at, db_id);
+CREATE INDEX IF NOT EXISTS idx_books_genre_db_id ON books (genre, db_id);
+
+-- A genre holds a large share of the catalog, so browsing a genre by author would sort all of it for every page
+CREATE INDEX IF NOT EXISTS idx_books_genre_author_db_id ON books (genre, author, db_id);
+
+CREATE INDEX IF NOT EXISTS idx_books_published_date ON books (published_date);
@@ -0,0 +1,114 @@
+-- Monthly range partitions on created_at: date-bounded lists only read the months they cover, and old months leave the
+-- table by detaching their partition instead of deleting their rows. The table is rebuilt once, here
+ALTER TABLE books RENAME TO books_unpartitioned;
+
+CREATE TABLE books (
+    db_id bigint NOT NULL,
+    id uuid NOT NULL,
+    title varchar(200) NOT NULL,
+    author varchar(100) NOT NULL,
+    genre varchar(50),
+    isbn varchar(17),
+    publisher varchar(150),
+    published_date date,
+    language varchar(50),
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6)
+) PARTITION BY RANGE (created_at);
+
+-- Creates the missing partitions from the month of from_month through the month of through, named books_pYYYY_MM.
+-- There is no default partition, it would stop scans ordered by created_at from reading the partitions one after the
+-- other, so BookPartitionMaintainer keeps a few months ahead of the clock
+CREATE FUNCTION create_books_partitions(from_month timestamp, through timestamp) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_start timestamp := date_trunc('month', from_month);
+    partition_name text;
+    created integer := 0;
+BEGIN
+    -- Every instance runs this at startup
+    PERFORM pg_advisory_xact_lock(hashtext('create_books_partitions'));
+
+    WHILE month_start <= through LOOP
+        partition_name := 'books_p' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format(
+                'CREATE TABLE %I PARTITION OF books FOR VALUES FROM (%L) TO (%L)',
+                partition_name, month_start, month_start + interval '1 month'
+            );
+            created := created + 1;
+        END IF;
+        month_start := month_start + interval '1 month';
+    END LOOP;
+
+    RETURN created;
+END
+$$;
+
+SELECT create_books_partitions(
+    coalesce((SELECT min(created_at) FROM books_unpartitioned), localtimestamp),
+    greatest((SELECT max(created_at) FROM books_unpartitioned), localtimestamp) + interval '3 months'
+);
+
+INSERT INTO books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at, updated_at)
+SELECT db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at, updated_at
+FROM books_unpartitioned;
+
+DROP TABLE books_unpartitioned;
+
+-- Unique indexes of a partitioned table must hold the partition key, so the primary key takes created_at along
+ALTER TABLE books ADD CONSTRAINT books_pkey PRIMARY KEY (db_id, created_at);
+CREATE INDEX idx_books_id ON books (id);
+
+-- Title was sorted through its unique index, which now lives on book_titles
+CREATE INDEX idx_books_title_db_id ON books (title, db_id);
+
+CREATE INDEX idx_books_title_trgm ON books USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX idx_books_author_trgm ON books USING gin (lower(author) gin_trgm_ops);
+CREATE INDEX idx_books_genre_trgm ON books USING gin (lower(genre) gin_trgm_ops);
+CREATE INDEX idx_books_isbn_trgm ON books USING gin (lower(isbn) gin_trgm_ops);
+CREATE INDEX idx_books_publisher_trgm ON books USING gin (lower(publisher) gin_trgm_ops);
+CREATE INDEX idx_books_language_trgm ON books USING gin (lower(language) gin_trgm_ops);
+
+CREATE INDEX idx_books_author_db_id ON books (author, db_id);
+CREATE INDEX idx_books_created_at_db_id ON books (created_at, db_id);
+CREATE INDEX idx_books_genre_db_id ON books (genre, db_id);
+CREATE INDEX idx_books_genre_author_db_id ON books (genre, author, db_id);
+CREATE INDEX idx_books_published_date ON books (published_date);
+
+-- Titles stay unique across partitions through this table. Its primary key keeps the name of the former unique
+-- constraint on books, so a duplicate fails with the same constraint name and "Key (title)=(...)" detail as before
+CREATE TABLE book_titles (
+    title varchar(200) NOT NULL,
+    db_id bigint NOT NULL,
+    CONSTRAINT uk_books_title PRIMARY KEY (title)
+);
+
+INSERT INTO book_titles (title, db_id)
+SELECT title, db_id FROM books;
+
+CREATE FUNCTION claim_book_title() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND NEW.title = OLD.title THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM book_titles WHERE title = OLD.title AND db_id = OLD.db_id;
+    END IF;
+
+    -- Imports claim their titles earlier in the same statement, to skip the ones taken instead of failing
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NOT EXISTS (
+        SELECT 1 FROM book_titles WHERE title = NEW.title AND db_id = NEW.db_id
+    ) THEN
+        INSERT INTO book_titles (title, db_id) VALUES (NEW.title, NEW.db_id);
+    END IF;
+
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER books_claim_title
+AFTER INSERT OR UPDATE OF title OR DELETE ON books
+FOR EACH ROW EXECUTE FUNCTION claim_book_title();
@@ -0,0 +1,47 @@
+-- Deletes only set deleted_at, BookPurger removes the rows later in batches. Every read filters on deleted_at IS NULL,
+-- so the list indexes are rebuilt over live rows only and tombstones never cost a list scan anything.
+-- The id index stays whole, a lookup by id reads a single row either way
+ALTER TABLE books ADD COLUMN deleted_at timestamp(6);
+
+DROP INDEX idx_books_title_db_id;
+DROP INDEX idx_books_author_db_id;
+DROP INDEX idx_books_created_at_db_id;
+DROP INDEX idx_books_genre_db_id;
+DROP INDEX idx_books_genre_author_db_id;
+
+CREATE INDEX idx_books_title_db_id ON books (title, db_id) WHERE deleted_at IS NULL;
+CREATE INDEX idx_books_author_db_id ON books (author, db_id) WHERE deleted_at IS NULL;
+CREATE INDEX idx_books_created_at_db_id ON books (created_at, db_id) WHERE deleted_at IS NULL;
+CREATE INDEX idx_books_genre_db_id ON books (genre, db_id) WHERE deleted_at IS NULL;
+CREATE INDEX idx_books_genre_author_db_id ON books (genre, author, db_id) WHERE deleted_at IS NULL;
+
+-- The tombstones waiting for the purger, which finds its batches here without looking at a live row
+CREATE INDEX idx_books_deleted_at ON books (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- A tombstoned book gives its title up at once, so it can be created again before the purger runs
+CREATE OR REPLACE FUNCTION claim_book_title() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND NEW.title = OLD.title AND (NEW.deleted_at IS NULL) = (OLD.deleted_at IS NULL) THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.deleted_at IS NULL THEN
+        DELETE FROM book_titles WHERE title = OLD.title AND db_id = OLD.db_id;
+    END IF;
+
+    -- Imports claim their titles earlier in the same statement, to skip the ones taken instead of failing
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.deleted_at IS NULL AND NOT EXISTS (
+        SELECT 1 FROM book_titles WHERE title = NEW.title AND db_id = NEW.db_id
+    ) THEN
+        INSERT INTO book_titles (title, db_id) VALUES (NEW.title, NEW.db_id);
+    END IF;
+
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER books_claim_title ON books;
+CREATE TRIGGER books_claim_title
+AFTER INSERT OR UPDATE OF title, deleted_at OR DELETE ON books
+FOR EACH ROW EXECUTE FUNCTION claim_book_title();
@@ -0,0 +1,3 @@
+-- Bumped by every update, which only applies when the version it was read at is still the stored one. A constant
+-- default is only recorded in the catalog, so existing rows are not rewritten and imports start new books at 0
+ALTER TABLE books ADD COLUMN version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,41 @@
+-- The id index only holds per partition, so it neither keeps ids unique across partitions nor lets a lookup by id
+-- skip any. book_ids maps every id to its created_at: the primary key keeps ids unique, and a lookup by id first
+-- reads the created_at of the book here, so only its partition is scanned
+CREATE TABLE book_ids (
+    id uuid NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    CONSTRAINT uk_books_id PRIMARY KEY (id)
+);
+
+INSERT INTO book_ids (id, created_at)
+SELECT id, created_at FROM books;
+
+-- Ids and created_at are never updated, so the id is claimed on insert and released once the row is purged.
+-- A tombstone keeps its id, it is still a row of books until then
+CREATE OR REPLACE FUNCTION claim_book_title() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO book_ids (id, created_at) VALUES (NEW.id, NEW.created_at);
+    ELSIF TG_OP = 'DELETE' THEN
+        DELETE FROM book_ids WHERE id = OLD.id;
+    END IF;
+
+    IF TG_OP = 'UPDATE' AND NEW.title = OLD.title AND (NEW.deleted_at IS NULL) = (OLD.deleted_at IS NULL) THEN
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.deleted_at IS NULL THEN
+        DELETE FROM book_titles WHERE title = OLD.title AND db_id = OLD.db_id;
+    END IF;
+
+    -- Imports claim their titles earlier in the same statement, to skip the ones taken instead of failing
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.deleted_at IS NULL AND NOT EXISTS (
+        SELECT 1 FROM book_titles WHERE title = NEW.title AND db_id = NEW.db_id
+    ) THEN
+        INSERT INTO book_titles (title, db_id) VALUES (NEW.title, NEW.db_id);
+    END IF;
+
+    RETURN NULL;
+END
+$$;
@@ -0,0 +1,244 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderSql;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.dto.BookPage;
+import com.tracktainment.bookmanager.entity.BookProjection;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.tracktainment.bookmanager.util.Constants;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-sql -Dtest=BookExportBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(
+        classes = BookExportBenchmarkTest.BenchmarkApplication.class,
+        properties = "spring.jpa.hibernate.ddl-auto=validate"
+)
+class BookExportBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 100_000);
+    private static final int WARM_UP_RUNS = 5;
+    private static final int RUNS = 7;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final String PROJECTION_QUERY = "select new com.tracktainment.bookmanager.entity.BookProjection(" +
+            "b.dbId, b.id, b.title, b.author, b.genre, b.isbn, b.publisher, b.publishedDate, b.language, b.createdAt, " +
+            "b.updatedAt) from BookEntity b order by b.title, b.dbId";
+
+    private static EmbeddedPostgres embeddedPostgres;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    @Autowired
+    private BookDataProviderSql bookDataProviderSql;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpringBootApplication(scanBasePackages = {
+            "com.tracktainment.bookmanager.dataprovider",
+            "com.tracktainment.bookmanager.mapper"
+    })
+    @EnableJpaRepositories("com.tracktainment.bookmanager.repository")
+    @EntityScan("com.tracktainment.bookmanager.entity")
+    @EnableJpaAuditing
+    static class BenchmarkApplication {
+
+        @Bean
+        DataSource dataSource() throws IOException {
+            embeddedPostgres = EmbeddedPostgres.builder().start();
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void directWriterShouldExportFasterWithLessAllocationThanBookSerialisation() throws IOException {
+        // Arrange
+        jdbcTemplate.execute("""
+                insert into books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at)
+                select nextval('books_db_id_seq'), gen_random_uuid(),
+                       'The ' || md5(i::text) || ' Chronicles',
+                       'Author ' || md5(mod(i, 50000)::text),
+                       (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                       '978-' || lpad(i::text, 13, '0'),
+                       'Publisher ' || md5(mod(i, 2000)::text),
+                       date '1900-01-01' + mod(i, 40000),
+                       (array['English', 'Portuguese', 'Spanish', 'French'])[mod(i, 4) + 1],
+                       now() - mod(i, 1000) * interval '1 minute'
+                from generate_series(1, %d) i""".formatted(CATALOG_SIZE));
+        jdbcTemplate.execute("analyze books");
+
+        // The export before the direct writer: MAX_LIMIT pages of projected Book, serialised by Jackson
+        ExportPath listPages = outputStream -> {
+            long rows = 0;
+            String cursor = null;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                do {
+                    BookPage bookPage = bookDataProviderSql.listByCriteria(listInput(cursor));
+                    for (Book book : bookPage.getBooks()) {
+                        objectMapper.writeValue(generator, book);
+                        generator.writeRaw('\n');
+                        rows++;
+                    }
+                    cursor = bookPage.getNextCursor();
+                } while (cursor != null);
+            }
+            return rows;
+        };
+        // Same single cursor as the direct writer, but every row still becomes a projection, a Book and goes through Jackson
+        ExportPath projectionStream = outputStream -> transactionTemplate.execute(status -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                 Stream<BookProjection> bookProjections = entityManager.createQuery(PROJECTION_QUERY, BookProjection.class)
+                         .setHint(HibernateHints.HINT_READ_ONLY, true)
+                         .setHint(HibernateHints.HINT_FETCH_SIZE, Constants.EXPORT_FETCH_SIZE)
+                         .getResultStream()) {
+                generator.setRootValueSeparator(null);
+                long rows = 0;
+                for (BookProjection bookProjection : (Iterable<BookProjection>) bookProjections::iterator) {
+                    objectMapper.writeValue(generator, bookProjection.getBook());
+                    generator.writeRaw('\n');
+                    rows++;
+                }
+                return rows;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        ExportPath directWriter = outputStream -> bookDataProviderSql.exportByCriteria(listInput(null), outputStream);
+
+        // Act
+        Measurement list = measure(listPages);
+        Measurement stream = measure(projectionStream);
+        Measurement direct = measure(directWriter);
+
+        // Assert
+        System.out.printf("catalog size: %d books%n", CATALOG_SIZE);
+        System.out.printf("%-8s %12s %10s %12s%n", "export", "rows/s", "bytes/row", "cpu us/row");
+        System.out.printf("%-8s %12.0f %10d %12.2f%n", "list", list.rowsPerSecond(), list.bytesPerRow(), list.cpuMicrosPerRow());
+        System.out.printf("%-8s %12.0f %10d %12.2f%n", "stream", stream.rowsPerSecond(), stream.bytesPerRow(), stream.cpuMicrosPerRow());
+        System.out.printf("%-8s %12.0f %10d %12.2f%n", "direct", direct.rowsPerSecond(), direct.bytesPerRow(), direct.cpuMicrosPerRow());
+
+        List<Book> expectedBooks = toBooks(export(listPages));
+        assertEquals(expectedBooks, toBooks(export(projectionStream)));
+        assertEquals(expectedBooks, toBooks(export(directWriter)));
+        assertTrue(direct.bytesPerRow() < stream.bytesPerRow());
+        assertTrue(direct.rowsPerSecond() > stream.rowsPerSecond());
+    }
+
+    private ListByCriteriaUseCase.Input listInput(String cursor) {
+        return ListByCriteriaUseCase.Input.builder()
+                .limit(100)
+                .cursor(cursor)
+                .orderByList(List.of(OrderBy.TITLE))
+                .orderDirectionList(List.of(OrderDirection.ASC))
+                .build();
+    }
+
+    private Measurement measure(ExportPath exportPath) throws IOException {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            assertEquals(CATALOG_SIZE, exportPath.export(OutputStream.nullOutputStream()));
+        }
+
+        long[] bytes = new long[RUNS];
+        long[] cpu = new long[RUNS];
+        long[] wall = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long startBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+            long startCpu = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            long startWall = System.nanoTime();
+            exportPath.export(OutputStream.nullOutputStream());
+            wall[i] = System.nanoTime() - startWall;
+            cpu[i] = THREAD_MX_BEAN.getCurrentThreadCpuTime() - startCpu;
+            bytes[i] = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - startBytes;
+        }
+
+        return new Measurement(
+                CATALOG_SIZE * 1e9 / median(wall),
+                median(bytes) / CATALOG_SIZE,
+                median(cpu) / 1_000.0 / CATALOG_SIZE
+        );
+    }
+
+    private String export(ExportPath exportPath) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exportPath.export(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+
+    private List<Book> toBooks(String ndjson) {
+        List<Book> books = new ArrayList<>();
+        ndjson.lines().forEach(line -> {
+            try {
+                books.add(objectMapper.readValue(line, Book.class));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return books;
+    }
+
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private interface ExportPath {
+        long export(OutputStream outputStream) throws IOException;
+    }
+
+    private record Measurement(double rowsPerSecond, long bytesPerRow, double cpuMicrosPerRow) {
+    }
+}
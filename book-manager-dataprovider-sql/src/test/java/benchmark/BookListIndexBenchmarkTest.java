@@ -0,0 +1,195 @@
+package benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-sql -Dtest=BookListIndexBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookListIndexBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 200_000);
+    private static final int PAGE_SIZE = 10;
+    private static final int RUNS = 9;
+
+    private static final String SELECT = "select db_id, id, title, author, genre, isbn, publisher, published_date, " +
+            "language, created_at, updated_at from books ";
+
+    private static EmbeddedPostgres embeddedPostgres;
+    private static DataSource dataSource;
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        embeddedPostgres = EmbeddedPostgres.builder().start();
+        dataSource = embeddedPostgres.getPostgresDatabase();
+        connection = dataSource.getConnection();
+
+        // The schema as it was before the list indexes: the table and the trigram indexes only
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set plan_cache_mode = force_custom_plan");
+            // Imports share created_at per chunk, so every sort key has runs of equal values
+            statement.execute("""
+                    insert into books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at)
+                    select nextval('books_db_id_seq'), gen_random_uuid(),
+                           'The ' || md5(i::text) || ' Chronicles',
+                           'Author ' || md5(mod(i, 5000)::text),
+                           (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                           '978-' || lpad(i::text, 13, '0'),
+                           'Publisher ' || md5(mod(i, 200)::text),
+                           date '1900-01-01' + mod(i, 40000),
+                           (array['English', 'Portuguese', 'Spanish', 'French'])[mod(i, 4) + 1],
+                           timestamp '2024-01-01' + (i / 1000) * interval '1 minute'
+                    from generate_series(1, %d) i""".formatted(CATALOG_SIZE));
+            statement.execute("analyze books");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void listIndexesShouldSeekDeepCursorPagesInsteadOfScanning() throws Exception {
+        // Arrange
+        List<Sort> sorts = List.of(
+                new Sort("author", "asc"),
+                new Sort("author", "desc"),
+                new Sort("genre", "desc"),
+                new Sort("created_at", "desc")
+        );
+
+        List<Double> scanTimes = new ArrayList<>();
+        for (Sort sort : sorts) {
+            scanTimes.add(medianMillis(sort.before(), sort.beforeCursor()));
+        }
+
+        // Act
+        Flyway.configure().dataSource(dataSource).target("3").load().migrate();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("analyze books");
+        }
+
+        // Assert
+        System.out.printf("catalog size: %d books, cursor halfway through, page size: %d%n", CATALOG_SIZE, PAGE_SIZE);
+        for (int i = 0; i < sorts.size(); i++) {
+            Sort sort = sorts.get(i);
+            Object[] cursor = sort.afterCursor();
+            double seekTime = medianMillis(sort.after(), cursor);
+            System.out.printf(
+                    "%-10s %-4s filtered scan %8.2f ms | index seek %6.2f ms | x%.1f%n",
+                    sort.column(), sort.direction(), scanTimes.get(i), seekTime, scanTimes.get(i) / seekTime
+            );
+
+            assertEquals(PAGE_SIZE, count(sort.after(), cursor));
+            assertTrue(explain(sort.after(), cursor).contains("Index Cond: (ROW(" + sort.column()));
+            assertTrue(seekTime < scanTimes.get(i));
+        }
+    }
+
+    private static double medianMillis(String sql, Object[] cursor) throws Exception {
+        double[] times = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            count(sql, cursor);
+            times[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static int count(String sql, Object[] cursor) throws Exception {
+        try (PreparedStatement statement = prepare(sql, cursor);
+             ResultSet resultSet = statement.executeQuery()) {
+            int rows = 0;
+            while (resultSet.next()) {
+                rows++;
+            }
+            return rows;
+        }
+    }
+
+    private static String explain(String sql, Object[] cursor) throws Exception {
+        try (PreparedStatement statement = prepare("explain " + sql, cursor);
+             ResultSet resultSet = statement.executeQuery()) {
+            StringBuilder plan = new StringBuilder();
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+
+    private static PreparedStatement prepare(String sql, Object[] parameters) throws Exception {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+        return statement;
+    }
+
+    // Same shapes as the JPQL BookListQueryMapper renders for a single sort key, before and after the list indexes
+    private record Sort(String column, String direction) {
+
+        String beforeOrder() {
+            return column + " " + direction + ", db_id asc";
+        }
+
+        String afterOrder() {
+            return column + " " + direction + ", db_id " + direction;
+        }
+
+        String before() {
+            String after = direction.equals("asc") ? "(" + column + " > ? or " + column + " is null)" : column + " < ?";
+            return SELECT + "where (" + after + " or (" + column + " = ? and db_id > ?)) " +
+                    "order by " + beforeOrder() + " limit " + PAGE_SIZE;
+        }
+
+        String after() {
+            return SELECT + "where (" + column + ", db_id) " + (direction.equals("asc") ? ">" : "<") + " (?, ?) " +
+                    "order by " + afterOrder() + " limit " + PAGE_SIZE;
+        }
+
+        Object[] beforeCursor() throws Exception {
+            Object[] cursor = halfway(beforeOrder());
+            return new Object[]{cursor[0], cursor[0], cursor[1]};
+        }
+
+        Object[] afterCursor() throws Exception {
+            return halfway(afterOrder());
+        }
+
+        private Object[] halfway(String order) throws Exception {
+            try (PreparedStatement statement = prepare(
+                    "select " + column + ", db_id from books order by " + order + " offset ? limit 1",
+                    new Object[]{CATALOG_SIZE / 2}
+            ); ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return new Object[]{resultSet.getObject(1), resultSet.getLong(2)};
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package benchmark;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderSql;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.entity.BookProjection;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.FlushMode;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-sql -Dtest=BookListQueryShapeBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(
+        classes = BookListQueryShapeBenchmarkTest.BenchmarkApplication.class,
+        properties = {
+                "spring.jpa.hibernate.ddl-auto=validate",
+                "spring.jpa.properties.hibernate.generate_statistics=true",
+                "spring.jpa.properties.hibernate.query.in_clause_parameter_padding=true"
+        }
+)
+class BookListQueryShapeBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 10_000);
+    private static final int PAGE_SIZE = 10;
+    private static final int CALLS = 500;
+    private static final int WARM_UP_RUNS = 10;
+    private static final int RUNS = 15;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static EmbeddedPostgres embeddedPostgres;
+
+    @Autowired
+    private BookDataProviderSql bookDataProviderSql;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpringBootApplication(scanBasePackages = {
+            "com.tracktainment.bookmanager.dataprovider",
+            "com.tracktainment.bookmanager.mapper"
+    })
+    @EnableJpaRepositories("com.tracktainment.bookmanager.repository")
+    @EntityScan("com.tracktainment.bookmanager.entity")
+    @EnableJpaAuditing
+    static class BenchmarkApplication {
+
+        @Bean
+        DataSource dataSource() throws IOException {
+            embeddedPostgres = EmbeddedPostgres.builder().start();
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void cachedQueryShapeShouldCostLessPerCallThanCriteriaQuery() {
+        // Arrange
+        jdbcTemplate.execute("""
+                insert into books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at)
+                select nextval('books_db_id_seq'), gen_random_uuid(),
+                       'The ' || md5(i::text) || ' Chronicles',
+                       'Author ' || md5(mod(i, 5000)::text),
+                       (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                       '978-' || lpad(i::text, 13, '0'),
+                       'Publisher ' || md5(mod(i, 200)::text),
+                       date '1900-01-01' + mod(i, 40000),
+                       (array['English', 'Portuguese', 'Spanish', 'French'])[mod(i, 4) + 1],
+                       now()
+                from generate_series(1, %d) i""".formatted(CATALOG_SIZE));
+        jdbcTemplate.execute("analyze books");
+
+        // The same shape every call with different values: a few ids, a title filter and a sort, like a client paging
+        List<String> idLists = jdbcTemplate.queryForList("select id::text from books order by db_id limit 300", String.class);
+        IntFunction<ListByCriteriaUseCase.Input> inputs = call -> ListByCriteriaUseCase.Input.builder()
+                .offset(0)
+                .limit(PAGE_SIZE)
+                .ids(String.join(",", idLists.subList(call % 100 * 3, call % 100 * 3 + 3)))
+                .title("chronicles")
+                .orderByList(List.of(OrderBy.TITLE))
+                .orderDirectionList(List.of(OrderDirection.ASC))
+                .build();
+
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+
+        // The list query before shape caching: a new CriteriaQuery per call, which Hibernate interprets from scratch
+        IntFunction<List<Book>> criteriaList = call -> readOnlyTransaction.execute(status -> {
+            ListByCriteriaUseCase.Input input = inputs.apply(call);
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<BookProjection> criteriaQuery = criteriaBuilder.createQuery(BookProjection.class);
+            Root<BookEntity> root = criteriaQuery.from(BookEntity.class);
+            criteriaQuery.select(criteriaBuilder.construct(
+                    BookProjection.class,
+                    root.get("dbId"), root.get("id"), root.get("title"), root.get("author"), root.get("genre"),
+                    root.get("isbn"), root.get("publisher"), root.get("publishedDate"), root.get("language"),
+                    root.get("createdAt"), root.get("updatedAt")
+            ));
+            criteriaQuery.where(
+                    criteriaBuilder.in(root.get("id")).value(Arrays.stream(input.getIds().split(","))
+                            .map(UUID::fromString)
+                            .toList()),
+                    criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), "%" + input.getTitle() + "%", '\\')
+            );
+            criteriaQuery.orderBy(criteriaBuilder.asc(root.get("title")), criteriaBuilder.asc(root.get("dbId")));
+
+            return entityManager.createQuery(criteriaQuery)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL)
+                    .setFirstResult(0)
+                    .setMaxResults(PAGE_SIZE + 1)
+                    .getResultList()
+                    .stream()
+                    .map(BookProjection::getBook)
+                    .toList();
+        });
+        IntFunction<List<Book>> shapeList = call -> bookDataProviderSql.listByCriteria(inputs.apply(call)).getBooks();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        // Act
+        statistics.clear();
+        Measurement criteria = measure(criteriaList);
+        long criteriaPlanHits = statistics.getQueryPlanCacheHitCount();
+
+        statistics.clear();
+        Measurement shape = measure(shapeList);
+        long shapePlanHits = statistics.getQueryPlanCacheHitCount();
+        long shapePlanMisses = statistics.getQueryPlanCacheMissCount();
+
+        // Assert
+        System.out.printf("catalog size: %d books, page size: %d, %d calls per run%n", CATALOG_SIZE, PAGE_SIZE, CALLS);
+        System.out.printf("%-9s %12s %12s %12s %14s%n", "list", "bytes/call", "cpu us/call", "wall us/call", "plan hits");
+        System.out.printf("%-9s %12d %12.1f %12.1f %14d%n", "criteria", criteria.bytesPerCall(), criteria.cpuMicrosPerCall(),
+                criteria.wallMicrosPerCall(), criteriaPlanHits);
+        System.out.printf("%-9s %12d %12.1f %12.1f %14d%n", "shape", shape.bytesPerCall(), shape.cpuMicrosPerCall(),
+                shape.wallMicrosPerCall(), shapePlanHits);
+
+        for (int call = 0; call < 100; call++) {
+            assertEquals(criteriaList.apply(call), shapeList.apply(call));
+        }
+        assertTrue(shapePlanHits > 0);
+        assertTrue(shapePlanMisses <= 1);
+        assertTrue(shape.cpuMicrosPerCall() < criteria.cpuMicrosPerCall());
+    }
+
+    private Measurement measure(IntFunction<List<Book>> list) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            for (int call = 0; call < CALLS; call++) {
+                assertEquals(3, list.apply(call).size());
+            }
+        }
+
+        long[] bytes = new long[RUNS];
+        long[] cpu = new long[RUNS];
+        long[] wall = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long startBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+            long startCpu = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            long startWall = System.nanoTime();
+            for (int call = 0; call < CALLS; call++) {
+                list.apply(call);
+            }
+            wall[i] = System.nanoTime() - startWall;
+            cpu[i] = THREAD_MX_BEAN.getCurrentThreadCpuTime() - startCpu;
+            bytes[i] = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - startBytes;
+        }
+
+        return new Measurement(
+                median(bytes) / CALLS,
+                median(cpu) / 1_000.0 / CALLS,
+                median(wall) / 1_000.0 / CALLS
+        );
+    }
+
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private record Measurement(long bytesPerCall, double cpuMicrosPerCall, double wallMicrosPerCall) {
+    }
+}
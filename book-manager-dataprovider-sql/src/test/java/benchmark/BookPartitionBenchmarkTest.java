@@ -0,0 +1,172 @@
+package benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-sql -Dtest=BookPartitionBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookPartitionBenchmarkTest {
+
+    private static final int MONTHS = 36;
+    private static final int BOOKS_PER_MONTH = Integer.getInteger("benchmark.booksPerMonth", 20_000);
+    private static final int RUNS = 9;
+    private static final LocalDateTime FIRST_MONTH = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final Pattern PARTITION_PATTERN = Pattern.compile("books_p\\d{4}_\\d{2}");
+
+    // Same shape as the query BookListQueryMapper renders for a month-bounded genre filter in the default title order
+    private static final String BOUNDED_QUERY = "select db_id, id, title, author, genre, created_at from books " +
+            "where lower(genre) like ? escape '\\' and created_at >= ? and created_at <= ? " +
+            "order by title asc, db_id asc limit 11";
+
+    private static EmbeddedPostgres embeddedPostgres;
+    private static DataSource dataSource;
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        embeddedPostgres = EmbeddedPostgres.builder().start();
+        dataSource = embeddedPostgres.getPostgresDatabase();
+        connection = dataSource.getConnection();
+
+        // The schema as it was before partitioning
+        Flyway.configure().dataSource(dataSource).target("3").load().migrate();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set plan_cache_mode = force_custom_plan");
+            statement.execute("""
+                    insert into books (db_id, id, title, author, genre, created_at)
+                    select nextval('books_db_id_seq'), gen_random_uuid(),
+                           'The ' || md5(i::text) || ' Chronicles',
+                           'Author ' || md5(mod(i, 5000)::text),
+                           (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                           timestamp '%s' + (i / %d) * interval '1 month' + mod(i, %d) * interval '1 minute'
+                    from generate_series(0, %d) i""".formatted(
+                    FIRST_MONTH, BOOKS_PER_MONTH, BOOKS_PER_MONTH, MONTHS * BOOKS_PER_MONTH - 1
+            ));
+            statement.execute("analyze books");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void partitionsShouldPruneBoundedListsAndDetachOldMonths() throws Exception {
+        // Arrange
+        LocalDateTime from = FIRST_MONTH.plusMonths(MONTHS / 2);
+        LocalDateTime to = from.plusMonths(1).minusNanos(1000);
+        Object[] parameters = {"%mystery%", from, to};
+        double unpartitionedQueryTime = medianMillis(BOUNDED_QUERY, parameters);
+
+        double deleteTime;
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            long start = System.nanoTime();
+            statement.executeUpdate("delete from books where created_at < timestamp '" + FIRST_MONTH.plusMonths(1) + "'");
+            deleteTime = (System.nanoTime() - start) / 1_000_000.0;
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+
+        // Act
+        Flyway.configure().dataSource(dataSource).target("4").load().migrate();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("analyze books");
+        }
+
+        // Assert
+        double partitionedQueryTime = medianMillis(BOUNDED_QUERY, parameters);
+        String plan = explain(BOUNDED_QUERY, parameters);
+        Matcher partitions = PARTITION_PATTERN.matcher(plan);
+        assertTrue(partitions.find());
+        String scanned = partitions.group();
+        while (partitions.find()) {
+            assertEquals(scanned, partitions.group());
+        }
+
+        double detachTime;
+        try (Statement statement = connection.createStatement()) {
+            long start = System.nanoTime();
+            statement.execute("alter table books detach partition books_p2022_01 concurrently");
+            detachTime = (System.nanoTime() - start) / 1_000_000.0;
+        }
+
+        System.out.printf("catalog size: %d books over %d months%n", MONTHS * BOOKS_PER_MONTH, MONTHS);
+        System.out.printf("month-bounded list  unpartitioned %8.2f ms | partitioned %8.2f ms (scans %s only)%n",
+                unpartitionedQueryTime, partitionedQueryTime, scanned);
+        System.out.printf("oldest month        delete        %8.2f ms | detach      %8.2f ms%n", deleteTime, detachTime);
+
+        assertEquals("books_p" + from.getYear() + "_" + String.format("%02d", from.getMonthValue()), scanned);
+        assertTrue(partitionedQueryTime < unpartitionedQueryTime);
+        assertTrue(detachTime < deleteTime);
+        assertEquals(MONTHS - 1, count("select count(*) from books") / BOOKS_PER_MONTH);
+    }
+
+    private static double medianMillis(String sql, Object[] parameters) throws Exception {
+        double[] times = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            try (PreparedStatement statement = prepare(sql, parameters);
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    resultSet.getLong(1);
+                }
+            }
+            times[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static long count(String sql) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static String explain(String sql, Object[] parameters) throws Exception {
+        try (PreparedStatement statement = prepare("explain " + sql, parameters);
+             ResultSet resultSet = statement.executeQuery()) {
+            StringBuilder plan = new StringBuilder();
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+            return plan.toString();
+        }
+    }
+
+    private static PreparedStatement prepare(String sql, Object[] parameters) throws Exception {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+        return statement;
+    }
+}
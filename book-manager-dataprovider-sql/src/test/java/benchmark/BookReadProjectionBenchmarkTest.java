@@ -0,0 +1,176 @@
+package benchmark;
+
+import com.tracktainment.bookmanager.dataprovider.BookDataProviderSql;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-sql -Dtest=BookReadProjectionBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(
+        classes = BookReadProjectionBenchmarkTest.BenchmarkApplication.class,
+        properties = "spring.jpa.hibernate.ddl-auto=validate"
+)
+class BookReadProjectionBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 100_000);
+    private static final int PAGE_SIZE = 1000;
+    private static final int WARM_UP_RUNS = 30;
+    private static final int RUNS = 31;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static EmbeddedPostgres embeddedPostgres;
+
+    @Autowired
+    private BookDataProviderSql bookDataProviderSql;
+
+    @Autowired
+    private BookMapperDataProvider mapper;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @SpringBootApplication(scanBasePackages = {
+            "com.tracktainment.bookmanager.dataprovider",
+            "com.tracktainment.bookmanager.mapper"
+    })
+    @EnableJpaRepositories("com.tracktainment.bookmanager.repository")
+    @EntityScan("com.tracktainment.bookmanager.entity")
+    @EnableJpaAuditing
+    static class BenchmarkApplication {
+
+        @Bean
+        DataSource dataSource() throws IOException {
+            embeddedPostgres = EmbeddedPostgres.builder().start();
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void projectionShouldAllocateLessPerRowThanManagedEntities() {
+        // Arrange
+        jdbcTemplate.execute("""
+                insert into books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at)
+                select nextval('books_db_id_seq'), gen_random_uuid(),
+                       'The ' || md5(i::text) || ' Chronicles',
+                       'Author ' || md5(mod(i, 50000)::text),
+                       (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                       '978-' || lpad(i::text, 13, '0'),
+                       'Publisher ' || md5(mod(i, 2000)::text),
+                       date '1900-01-01' + mod(i, 40000),
+                       (array['English', 'Portuguese', 'Spanish', 'French'])[mod(i, 4) + 1],
+                       now()
+                from generate_series(1, %d) i""".formatted(CATALOG_SIZE));
+        jdbcTemplate.execute("analyze books");
+
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .offset(CATALOG_SIZE / 2)
+                .limit(PAGE_SIZE)
+                .build();
+
+        // The read path before projections: managed entities in a read-write transaction, copied by the mapper
+        Supplier<List<Book>> entityRead = () -> transactionTemplate.execute(status -> {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<BookEntity> criteriaQuery = criteriaBuilder.createQuery(BookEntity.class);
+            Root<BookEntity> root = criteriaQuery.from(BookEntity.class);
+            criteriaQuery.orderBy(criteriaBuilder.asc(root.get("dbId")));
+
+            return entityManager.createQuery(criteriaQuery)
+                    .setFirstResult(input.getOffset())
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList()
+                    .stream()
+                    .map(mapper::toBook)
+                    .toList();
+        });
+        Supplier<List<Book>> projectionRead = () -> bookDataProviderSql.listByCriteria(input).getBooks();
+
+        // Act
+        Measurement entity = measure(entityRead);
+        Measurement projection = measure(projectionRead);
+
+        // Assert
+        System.out.printf("catalog size: %d books, page size: %d%n", CATALOG_SIZE, PAGE_SIZE);
+        System.out.printf("%-10s %10s %12s %12s%n", "read path", "bytes/row", "cpu us/row", "wall us/row");
+        System.out.printf("%-10s %10d %12.2f %12.2f%n", "entity", entity.bytesPerRow(), entity.cpuMicrosPerRow(), entity.wallMicrosPerRow());
+        System.out.printf("%-10s %10d %12.2f %12.2f%n", "projection", projection.bytesPerRow(), projection.cpuMicrosPerRow(), projection.wallMicrosPerRow());
+
+        assertEquals(entityRead.get(), projectionRead.get());
+        assertTrue(projection.bytesPerRow() < entity.bytesPerRow());
+    }
+
+    private Measurement measure(Supplier<List<Book>> read) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            assertEquals(PAGE_SIZE, read.get().size());
+        }
+
+        long[] bytes = new long[RUNS];
+        long[] cpu = new long[RUNS];
+        long[] wall = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long startBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+            long startCpu = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+            long startWall = System.nanoTime();
+            read.get();
+            wall[i] = System.nanoTime() - startWall;
+            cpu[i] = THREAD_MX_BEAN.getCurrentThreadCpuTime() - startCpu;
+            bytes[i] = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - startBytes;
+        }
+
+        return new Measurement(
+                median(bytes) / PAGE_SIZE,
+                median(cpu) / 1_000.0 / PAGE_SIZE,
+                median(wall) / 1_000.0 / PAGE_SIZE
+        );
+    }
+
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private record Measurement(long bytesPerRow, double cpuMicrosPerRow, double wallMicrosPerRow) {
+    }
+}
@@ -0,0 +1,185 @@
+package benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Run with: mvn test -pl book-manager-dataprovider-sql -Dtest=BookTrigramSearchBenchmarkTest -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookTrigramSearchBenchmarkTest {
+
+    private static final int CATALOG_SIZE = Integer.getInteger("benchmark.catalogSize", 1_000_000);
+    private static final int RUNS = 9;
+    private static final String TRIGRAM_MIGRATION = "/db/migration/V2__add_trigram_indexes.sql";
+
+    // Same shape as the query Hibernate renders for listByCriteria
+    private static final String LIST_QUERY_TEMPLATE =
+            "select db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at, updated_at " +
+            "from books where lower(%s) like ? escape '\\' order by db_id offset 0 rows fetch first 10 rows only";
+
+    private static EmbeddedPostgres embeddedPostgres;
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        embeddedPostgres = EmbeddedPostgres.builder().start();
+        connection = embeddedPostgres.getPostgresDatabase().getConnection();
+
+        try (Statement statement = connection.createStatement()) {
+            // Same session setting as spring.datasource.hikari.connection-init-sql
+            statement.execute("set plan_cache_mode = force_custom_plan");
+            statement.execute("""
+                    create table books (
+                        db_id bigint generated by default as identity primary key,
+                        id uuid not null unique,
+                        title varchar(200) not null,
+                        author varchar(100),
+                        genre varchar(50),
+                        isbn varchar(17),
+                        publisher varchar(150),
+                        published_date date,
+                        language varchar(50),
+                        created_at timestamp(6),
+                        updated_at timestamp(6)
+                    )""");
+            statement.execute("""
+                    insert into books (db_id, id, title, author, genre, isbn, publisher, published_date, language, created_at)
+                    select nextval('books_db_id_seq'), gen_random_uuid(),
+                           'The ' || md5(i::text) || ' Chronicles',
+                           'Author ' || md5(mod(i, 50000)::text),
+                           (array['Fiction', 'Fantasy', 'Mystery', 'Biography', 'History'])[mod(i, 5) + 1],
+                           '978-' || lpad(i::text, 13, '0'),
+                           'Publisher ' || md5(mod(i, 2000)::text),
+                           date '1900-01-01' + mod(i, 40000),
+                           (array['English', 'Portuguese', 'Spanish', 'French'])[mod(i, 4) + 1],
+                           now()
+                    from generate_series(1, %d) i""".formatted(CATALOG_SIZE));
+            statement.execute("analyze books");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+        if (embeddedPostgres != null) {
+            embeddedPostgres.close();
+        }
+    }
+
+    @Test
+    void trigramIndexesShouldBeatSequentialScan() throws Exception {
+        // Arrange
+        List<Search> searches = List.of(
+                new Search("title", "%" + md5Fragment(CATALOG_SIZE / 2) + "%"),
+                new Search("title", "%no such book title%"),
+                new Search("author", "%" + md5Fragment(4242) + "%"),
+                new Search("publisher", "%" + md5Fragment(1234) + "%"),
+                new Search("isbn", "%" + String.format("%08d", CATALOG_SIZE / 3) + "%")
+        );
+
+        List<Double> scanTimes = new ArrayList<>();
+        List<Integer> scanRows = new ArrayList<>();
+        for (Search search : searches) {
+            scanTimes.add(medianMillis(search));
+            scanRows.add(count(search));
+        }
+
+        // Act
+        runTrigramMigration();
+
+        // Assert
+        System.out.printf("catalog size: %d books%n", CATALOG_SIZE);
+        for (int i = 0; i < searches.size(); i++) {
+            Search search = searches.get(i);
+            double indexedTime = medianMillis(search);
+            System.out.printf(
+                    "%-10s %-24s seq scan %9.2f ms | trigram %7.2f ms | x%.1f%n",
+                    search.column(), search.pattern(), scanTimes.get(i), indexedTime, scanTimes.get(i) / indexedTime
+            );
+
+            assertEquals(scanRows.get(i), count(search));
+            assertTrue(explain(search).contains("idx_books_" + search.column() + "_trgm"));
+            assertTrue(indexedTime < scanTimes.get(i));
+        }
+    }
+
+    private static String md5Fragment(int i) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("select substr(md5(?::text), 5, 10)")) {
+            statement.setInt(1, i);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    private static void runTrigramMigration() throws Exception {
+        try (InputStream inputStream = BookTrigramSearchBenchmarkTest.class.getResourceAsStream(TRIGRAM_MIGRATION);
+             Statement statement = connection.createStatement()) {
+            assertNotNull(inputStream);
+            for (String sql : new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql);
+                }
+            }
+            statement.execute("analyze books");
+        }
+    }
+
+    private static double medianMillis(Search search) throws Exception {
+        double[] times = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            count(search);
+            times[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+
+    private static int count(Search search) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(LIST_QUERY_TEMPLATE.formatted(search.column()))) {
+            statement.setString(1, search.pattern());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int rows = 0;
+                while (resultSet.next()) {
+                    rows++;
+                }
+                return rows;
+            }
+        }
+    }
+
+    private static String explain(Search search) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("explain " + LIST_QUERY_TEMPLATE.formatted(search.column()))) {
+            statement.setString(1, search.pattern());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+    }
+
+    private record Search(String column, String pattern) {
+    }
+}
@@ -0,0 +1,97 @@
+package config;
+
+import com.tracktainment.bookmanager.config.BookDataSourceConfig;
+import com.tracktainment.bookmanager.config.BookRoutingDataSource;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookDataSourceConfigTest {
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final BookDataSourceConfig bookDataSourceConfig = new BookDataSourceConfig();
+
+    @Test
+    void shouldNamePrimaryPool() {
+        // Arrange
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl("jdbc:postgresql://primary:5432/bookmanager");
+
+        // Act
+        HikariDataSource primaryDataSource = bookDataSourceConfig.primaryDataSource(dataSourceProperties);
+
+        // Assert
+        assertEquals("books-primary", primaryDataSource.getPoolName());
+        assertEquals("jdbc:postgresql://primary:5432/bookmanager", primaryDataSource.getJdbcUrl());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCreateReadOnlyReplicaPoolsWithPrimarySettings() {
+        // Arrange
+        HikariDataSource primaryDataSource = new HikariDataSource();
+        primaryDataSource.setJdbcUrl("jdbc:postgresql://primary:5432/bookmanager");
+        primaryDataSource.setUsername("books");
+        primaryDataSource.setConnectionInitSql("SET plan_cache_mode = force_custom_plan");
+        primaryDataSource.setPoolName("books-primary");
+        when(meterRegistryProvider.getIfAvailable(any(Supplier.class)))
+                .thenReturn(new SimpleMeterRegistry());
+
+        // Act
+        BookRoutingDataSource routingDataSource = bookDataSourceConfig.routingDataSource(
+                primaryDataSource,
+                List.of("jdbc:postgresql://replica-a:5432/bookmanager", " jdbc:postgresql://replica-b:5432/bookmanager"),
+                Duration.ofSeconds(5),
+                securityUtil,
+                meterRegistryProvider
+        );
+
+        // Assert
+        List<HikariDataSource> replicas =
+                (List<HikariDataSource>) ReflectionTestUtils.getField(routingDataSource, "replicaDataSources");
+        assertNotNull(replicas);
+        assertEquals(2, replicas.size());
+        assertEquals("books-replica-1", replicas.get(0).getPoolName());
+        assertEquals("jdbc:postgresql://replica-a:5432/bookmanager", replicas.get(0).getJdbcUrl());
+        assertEquals("books-replica-2", replicas.get(1).getPoolName());
+        assertEquals("jdbc:postgresql://replica-b:5432/bookmanager", replicas.get(1).getJdbcUrl());
+        assertTrue(replicas.get(1).isReadOnly());
+        assertEquals("books", replicas.get(1).getUsername());
+        assertEquals("SET plan_cache_mode = force_custom_plan", replicas.get(1).getConnectionInitSql());
+        assertNotNull(primaryDataSource.getMetricsTrackerFactory());
+        assertFalse(primaryDataSource.isReadOnly());
+    }
+
+    @Test
+    void shouldTakeConnectionsLazily() {
+        // Act
+        DataSource dataSource = bookDataSourceConfig.dataSource(mock(BookRoutingDataSource.class));
+
+        // Assert
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+    }
+}
@@ -0,0 +1,63 @@
+package config;
+
+import com.tracktainment.bookmanager.config.BookPostgresEnvironmentPostProcessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookPostgresEnvironmentPostProcessorTest {
+
+    private static final String R2DBC_AUTO_CONFIGURATION =
+            "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration";
+
+    private final BookPostgresEnvironmentPostProcessor postProcessor = new BookPostgresEnvironmentPostProcessor();
+
+    @Test
+    void shouldExcludePostgresAlongTheConfiguredExclusionsWhenBooksAreNotKeptThere() {
+        // Arrange
+        StandardEnvironment environment = environment(Map.of(
+                "books.dataprovider", "memory",
+                "spring.autoconfigure.exclude[0]", R2DBC_AUTO_CONFIGURATION
+        ));
+
+        // Act
+        postProcessor.postProcessEnvironment(environment, new SpringApplication());
+
+        // Assert
+        List<String> excluded = List.of(environment.getProperty("spring.autoconfigure.exclude", String[].class));
+        assertTrue(excluded.contains(R2DBC_AUTO_CONFIGURATION));
+        assertTrue(excluded.contains(DataSourceAutoConfiguration.class.getName()));
+        assertTrue(excluded.contains(HibernateJpaAutoConfiguration.class.getName()));
+        assertTrue(excluded.contains(FlywayAutoConfiguration.class.getName()));
+    }
+
+    @Test
+    void shouldLeavePostgresConfiguredForSqlByDefaultAndForR2dbc() {
+        // Arrange
+        StandardEnvironment sqlEnvironment = environment(Map.of());
+        StandardEnvironment r2dbcEnvironment = environment(Map.of("books.dataprovider", "r2dbc"));
+
+        // Act
+        postProcessor.postProcessEnvironment(sqlEnvironment, new SpringApplication());
+        postProcessor.postProcessEnvironment(r2dbcEnvironment, new SpringApplication());
+
+        // Assert
+        assertNull(sqlEnvironment.getProperty("spring.autoconfigure.exclude"));
+        assertNull(r2dbcEnvironment.getProperty("spring.autoconfigure.exclude"));
+    }
+
+    private StandardEnvironment environment(Map<String, Object> properties) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+        return environment;
+    }
+}
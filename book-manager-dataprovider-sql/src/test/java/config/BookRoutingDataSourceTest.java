@@ -0,0 +1,181 @@
+package config;
+
+import com.tracktainment.bookmanager.config.BookRoutingDataSource;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookRoutingDataSourceTest {
+
+    @Mock
+    private HikariDataSource primaryDataSource;
+
+    @Mock
+    private HikariDataSource firstReplicaDataSource;
+
+    @Mock
+    private HikariDataSource secondReplicaDataSource;
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        routingDataSource = new BookRoutingDataSource(
+                primaryDataSource,
+                List.of(firstReplicaDataSource, secondReplicaDataSource),
+                Duration.ofSeconds(5),
+                securityUtil,
+                meterRegistry
+        );
+        routingDataSource.afterPropertiesSet();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void shouldRouteReadWriteTransactionsToPrimary() throws Exception {
+        // Arrange
+        when(securityUtil.findDigitalUser()).thenReturn(Optional.empty());
+        when(primaryDataSource.getConnection()).thenReturn(mock(Connection.class));
+
+        // Act
+        routingDataSource.getConnection();
+
+        // Assert
+        verify(primaryDataSource).getConnection();
+        verifyNoInteractions(firstReplicaDataSource, secondReplicaDataSource);
+        assertEquals(1, routes(BookRoutingDataSource.PRIMARY, "read-write"));
+    }
+
+    @Test
+    void shouldSpreadReadOnlyTransactionsAcrossReplicas() throws Exception {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(securityUtil.findDigitalUser()).thenReturn(Optional.empty());
+        when(firstReplicaDataSource.getConnection()).thenReturn(mock(Connection.class));
+        when(secondReplicaDataSource.getConnection()).thenReturn(mock(Connection.class));
+
+        // Act
+        routingDataSource.getConnection();
+        routingDataSource.getConnection();
+        routingDataSource.getConnection();
+
+        // Assert
+        verify(firstReplicaDataSource, times(2)).getConnection();
+        verify(secondReplicaDataSource).getConnection();
+        verifyNoInteractions(primaryDataSource);
+        assertEquals(3, routes("replica", "read-only"));
+    }
+
+    @Test
+    void shouldPinUserToPrimaryAfterCommittedWrite() throws Exception {
+        // Arrange
+        DigitalUser digitalUser = new DigitalUser();
+        digitalUser.setId("user-1");
+        when(securityUtil.findDigitalUser()).thenReturn(Optional.of(digitalUser));
+        when(primaryDataSource.getConnection()).thenReturn(mock(Connection.class));
+
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        routingDataSource.getConnection();
+
+        // Assert
+        verify(primaryDataSource, times(2)).getConnection();
+        verifyNoInteractions(firstReplicaDataSource, secondReplicaDataSource);
+        assertEquals(1, routes(BookRoutingDataSource.PRIMARY, "read-your-writes"));
+    }
+
+    @Test
+    void shouldNotPinUserWhenWriteIsRolledBack() throws Exception {
+        // Arrange
+        DigitalUser digitalUser = new DigitalUser();
+        digitalUser.setId("user-1");
+        when(securityUtil.findDigitalUser()).thenReturn(Optional.of(digitalUser));
+        when(primaryDataSource.getConnection()).thenReturn(mock(Connection.class));
+        when(firstReplicaDataSource.getConnection()).thenReturn(mock(Connection.class));
+
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        routingDataSource.getConnection();
+
+        // Assert
+        verify(firstReplicaDataSource).getConnection();
+        assertEquals(0, routes(BookRoutingDataSource.PRIMARY, "read-your-writes"));
+    }
+
+    @Test
+    void shouldKeepOtherUsersOnReplicasWhileOneIsPinned() throws Exception {
+        // Arrange
+        DigitalUser writer = new DigitalUser();
+        writer.setId("writer");
+        DigitalUser reader = new DigitalUser();
+        reader.setId("reader");
+        when(securityUtil.findDigitalUser()).thenReturn(Optional.of(writer), Optional.of(reader));
+        when(primaryDataSource.getConnection()).thenReturn(mock(Connection.class));
+        when(firstReplicaDataSource.getConnection()).thenReturn(mock(Connection.class));
+
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        routingDataSource.getConnection();
+
+        // Assert
+        verify(firstReplicaDataSource).getConnection();
+        assertEquals(1, routes("replica", "read-only"));
+    }
+
+    @Test
+    void shouldCloseReplicaPools() {
+        // Act
+        routingDataSource.close();
+
+        // Assert
+        verify(firstReplicaDataSource).close();
+        verify(secondReplicaDataSource).close();
+        verify(primaryDataSource, never()).close();
+    }
+
+    private double routes(String route, String reason) {
+        return meterRegistry.get(BookRoutingDataSource.ROUTES_METRIC)
+                .tag("route", route)
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+}
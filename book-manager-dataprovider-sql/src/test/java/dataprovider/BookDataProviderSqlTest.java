@@ -5,24 +5,62 @@ import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.domain.OrderBy;
 import com.tracktainment.bookmanager.domain.OrderDirection;
 import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportResult;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookPage;
 import com.tracktainment.bookmanager.dto.BookUpdate;
 import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.entity.BookProjection;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
 import com.tracktainment.bookmanager.exception.ResourceAlreadyExistsException;
 import com.tracktainment.bookmanager.exception.ResourceNotFoundException;
+import com.tracktainment.bookmanager.facet.BookFacetCache;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.mapper.BookEntityRowMapper;
+import com.tracktainment.bookmanager.mapper.BookJsonRowWriter;
 import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
 import com.tracktainment.bookmanager.repository.BookRepository;
+import com.tracktainment.bookmanager.stats.BookQueryStats;
 import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import com.tracktainment.bookmanager.util.Constants;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.TypedQuery;
-import jakarta.persistence.criteria.*;
+import org.hibernate.FlushMode;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jpa.HibernateHints;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import testutil.TestBookDataUtil;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,6 +69,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class BookDataProviderSqlTest {
 
+    private static final String ID_CONDITION = "created_at = (SELECT created_at FROM book_ids WHERE id = :id) AND id = :id";
+
     @Mock
     private BookMapperDataProvider mapper;
 
@@ -41,16 +81,25 @@ class BookDataProviderSqlTest {
     private EntityManager entityManager;
 
     @Mock
-    private CriteriaBuilder criteriaBuilder;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private BookFacetCache bookFacetCache;
+
+    @Mock
+    private BookQueryStats bookQueryStats;
 
     @Mock
-    private CriteriaQuery<BookEntity> criteriaQuery;
+    private EntityManagerFactory entityManagerFactory;
 
     @Mock
-    private Root<BookEntity> root;
+    private Cache cache;
 
     @Mock
-    private TypedQuery<BookEntity> typedQuery;
+    private org.hibernate.Cache hibernateCache;
+
+    @Mock
+    private TypedQuery<BookProjection> typedQuery;
 
     @InjectMocks
     private BookDataProviderSql bookDataProviderSql;
@@ -59,17 +108,32 @@ class BookDataProviderSqlTest {
     private BookUpdate bookUpdate;
     private Book book;
     private BookEntity bookEntity;
+    private BookProjection bookProjection;
+    private UUID bookUuid;
     private String bookId;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
-        bookId = UUID.randomUUID().toString();
+        // Statements are recorded around the query they run, which runs as is
+        lenient().when(bookQueryStats.record(anyString(), anyString(), any(Supplier.class), any(ToLongFunction.class)))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+        lenient().when(bookQueryStats.recordRead(
+                anyString(), anyString(), any(MapSqlParameterSource.class), any(Supplier.class), any(ToLongFunction.class)
+        )).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+        lenient().when(bookQueryStats.recordRead(
+                anyString(), anyString(), any(Supplier.class), any(Supplier.class), any(ToLongFunction.class)
+        )).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+
+        bookUuid = UUID.randomUUID();
+        bookId = bookUuid.toString();
         bookCreate = TestBookDataUtil.createTestBookCreate();
         bookUpdate = TestBookDataUtil.createTestBookUpdate();
         book = TestBookDataUtil.createTestBook();
 
         bookEntity = BookEntity.builder()
-                .id(bookId)
+                .dbId(7L)
+                .id(bookUuid)
                 .title(bookCreate.getTitle())
                 .author(bookCreate.getAuthor())
                 .isbn(bookCreate.getIsbn())
@@ -77,14 +141,27 @@ class BookDataProviderSqlTest {
                 .publishedDate(bookCreate.getPublishedDate())
                 .language(bookCreate.getLanguage())
                 .build();
+
+        bookProjection = new BookProjection(
+                7L,
+                bookUuid,
+                bookCreate.getTitle(),
+                bookCreate.getAuthor(),
+                bookCreate.getGenre(),
+                bookCreate.getIsbn(),
+                bookCreate.getPublisher(),
+                bookCreate.getPublishedDate(),
+                bookCreate.getLanguage(),
+                LocalDateTime.now(),
+                null
+        );
     }
 
     @Test
     void shouldCreateBookSuccessfully() {
         // Arrange
-        when(bookRepository.findByTitle(bookCreate.getTitle())).thenReturn(Optional.empty());
         when(mapper.toBookEntity(bookCreate)).thenReturn(bookEntity);
-        when(bookRepository.save(bookEntity)).thenReturn(bookEntity);
+        when(bookRepository.saveAndFlush(bookEntity)).thenReturn(bookEntity);
         when(mapper.toBook(bookEntity)).thenReturn(book);
 
         // Act
@@ -94,29 +171,157 @@ class BookDataProviderSqlTest {
         assertNotNull(result);
         assertEquals(book, result);
 
-        verify(bookRepository).findByTitle(bookCreate.getTitle());
         verify(mapper).toBookEntity(bookCreate);
-        verify(bookRepository).save(bookEntity);
+        verify(bookRepository).saveAndFlush(bookEntity);
         verify(mapper).toBook(bookEntity);
+        verifyNoMoreInteractions(bookRepository);
     }
 
     @Test
     void shouldThrowResourceAlreadyExistsException() {
         // Arrange
-        when(bookRepository.findByTitle(bookCreate.getTitle())).thenReturn(Optional.of(bookEntity));
+        when(mapper.toBookEntity(bookCreate)).thenReturn(bookEntity);
+        when(bookRepository.saveAndFlush(bookEntity)).thenThrow(createConstraintViolation(BookEntity.TITLE_UNIQUE_CONSTRAINT));
 
         // Act & Assert
         assertThrows(ResourceAlreadyExistsException.class, () -> bookDataProviderSql.create(bookCreate));
 
-        verify(bookRepository).findByTitle(bookCreate.getTitle());
-        verify(mapper, never()).toBookEntity(any());
-        verify(bookRepository, never()).save(any());
+        verify(bookRepository).saveAndFlush(bookEntity);
+        verify(mapper, never()).toBook(any());
     }
 
     @Test
-    void shouldFindBookByIdSuccessfully() {
+    void shouldPropagateOtherConstraintViolationsOnCreate() {
         // Arrange
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(bookEntity));
+        DataIntegrityViolationException exception = createConstraintViolation("books_pkey");
+        when(mapper.toBookEntity(bookCreate)).thenReturn(bookEntity);
+        when(bookRepository.saveAndFlush(bookEntity)).thenThrow(exception);
+
+        // Act & Assert
+        assertSame(exception, assertThrows(
+                DataIntegrityViolationException.class,
+                () -> bookDataProviderSql.create(bookCreate)
+        ));
+    }
+
+    @Test
+    void shouldCreateAllBooksInOneFlush() {
+        // Arrange
+        BookCreate anotherBookCreate = BookCreate.builder().title("Tender Is the Night").author("F. Scott Fitzgerald").build();
+        BookEntity anotherBookEntity = BookEntity.builder().dbId(8L).id(UUID.randomUUID()).title(anotherBookCreate.getTitle()).build();
+        Book anotherBook = TestBookDataUtil.createTestBook();
+
+        when(mapper.toBookEntity(bookCreate)).thenReturn(bookEntity);
+        when(mapper.toBookEntity(anotherBookCreate)).thenReturn(anotherBookEntity);
+        when(bookRepository.saveAllAndFlush(List.of(bookEntity, anotherBookEntity))).thenReturn(List.of(bookEntity, anotherBookEntity));
+        when(mapper.toBook(bookEntity)).thenReturn(book);
+        when(mapper.toBook(anotherBookEntity)).thenReturn(anotherBook);
+
+        // Act
+        List<Book> result = bookDataProviderSql.createAll(List.of(bookCreate, anotherBookCreate));
+
+        // Assert
+        assertEquals(List.of(book, anotherBook), result);
+
+        verify(bookRepository).saveAllAndFlush(anyList());
+        verifyNoMoreInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldRejectBatchWithRepeatedTitle() {
+        // Act & Assert
+        ResourceAlreadyExistsException exception = assertThrows(
+                ResourceAlreadyExistsException.class,
+                () -> bookDataProviderSql.createAll(List.of(bookCreate, bookCreate))
+        );
+
+        assertTrue(exception.getMessage().contains(bookCreate.getTitle()));
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void shouldReportStoredTitleWhenBatchHitsUniqueConstraint() {
+        // Arrange
+        SQLException batchException = new SQLException(
+                "Batch entry 0 was aborted: ERROR: duplicate key value violates unique constraint \"uk_books_title\"\n" +
+                        "  Detail: Key (title)=(" + bookCreate.getTitle() + ") already exists.",
+                "23505"
+        );
+        when(mapper.toBookEntity(bookCreate)).thenReturn(bookEntity);
+        when(bookRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException(
+                "could not execute batch",
+                new ConstraintViolationException("duplicate key", batchException, BookEntity.TITLE_UNIQUE_CONSTRAINT)
+        ));
+
+        // Act & Assert
+        ResourceAlreadyExistsException exception = assertThrows(
+                ResourceAlreadyExistsException.class,
+                () -> bookDataProviderSql.createAll(List.of(bookCreate))
+        );
+
+        assertEquals("BookEntity " + bookCreate.getTitle() + " already exists.", exception.getMessage());
+        verify(mapper, never()).toBook(any());
+    }
+
+    @Test
+    void shouldCopyChunkAndReportTitlesAlreadyStored() throws Exception {
+        // Arrange
+        BookImportRow importedRow = BookImportRow.builder().line(1).bookCreate(bookCreate).build();
+        BookImportRow duplicateRow = BookImportRow.builder()
+                .line(2)
+                .bookCreate(BookCreate.builder().title("Say \"Hi\", Moby").author("Herman Melville").build())
+                .build();
+
+        JdbcTemplate plainJdbcTemplate = mock(JdbcTemplate.class);
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        StringBuilder copied = new StringBuilder();
+
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+        doNothing().when(plainJdbcTemplate).execute(anyString());
+        when(plainJdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Long>>any()))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<Long>>getArgument(0).doInConnection(connection));
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenAnswer(invocation -> {
+            new BufferedReader(invocation.<Reader>getArgument(1)).lines().forEach(line -> copied.append(line).append('\n'));
+            return 2L;
+        });
+        when(jdbcTemplate.query(contains("ON CONFLICT (title) DO NOTHING"), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenAnswer(invocation -> {
+                    // The first copied row is stored, the second one conflicts
+                    bookEntity.setId(UUID.fromString(copied.toString().split(",")[1]));
+                    return List.of(bookEntity);
+                });
+        when(mapper.toBook(bookEntity)).thenReturn(book);
+        mockCache();
+
+        // Act
+        BookImportResult result = bookDataProviderSql.importAll(List.of(importedRow, duplicateRow));
+
+        // Assert
+        assertEquals(List.of(book), result.getBooks());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals("BookEntity Say \"Hi\", Moby already exists.", result.getErrors().get(0).getMessage());
+
+        String[] lines = copied.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("1,"));
+        assertTrue(lines[0].endsWith(",\"The Great Gatsby\",\"F. Scott Fitzgerald\",,\"978-3-16-148410-0\",\"Penguin Books\",\"1925-04-10\",\"English\""));
+        assertTrue(lines[1].endsWith(",\"Say \"\"Hi\"\", Moby\",\"Herman Melville\",,,,,"));
+        verify(plainJdbcTemplate).execute(contains("CREATE TEMPORARY TABLE IF NOT EXISTS books_import"));
+        verify(hibernateCache).evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+        verify(cache, never()).evict(any(), any());
+    }
+
+    @Test
+    void shouldFindLiveBookByIdInThePartitionOfItsCreatedAt() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(List.of(bookEntity));
         when(mapper.toBook(bookEntity)).thenReturn(book);
 
         // Act
@@ -126,85 +331,260 @@ class BookDataProviderSqlTest {
         assertNotNull(result);
         assertEquals(book, result);
 
-        verify(bookRepository).findById(bookId);
-        verify(mapper).toBook(bookEntity);
+        verify(jdbcTemplate).query(
+                eq("SELECT " + BookEntityRowMapper.COLUMNS + " FROM books WHERE " + ID_CONDITION + " AND deleted_at IS NULL"),
+                argThat((MapSqlParameterSource parameters) -> bookUuid.equals(parameters.getValue("id"))),
+                any(BookEntityRowMapper.class)
+        );
+        verifyNoInteractions(bookRepository, entityManager);
     }
 
     @Test
     void shouldThrowResourceNotFoundExceptionWhenBookNotFound() {
         // Arrange
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(Collections.emptyList());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> bookDataProviderSql.findById(bookId));
 
-        verify(bookRepository).findById(bookId);
         verify(mapper, never()).toBook(any());
     }
 
     @Test
-    void shouldUpdateBookSuccessfully() {
+    void shouldUpdateOnlyNonNullFieldsInOneStatement() {
         // Arrange
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(bookEntity));
-        when(bookRepository.save(bookEntity)).thenReturn(bookEntity);
+        BookUpdate titleOnlyUpdate = BookUpdate.builder()
+                .title("The Great Gatsby: Special Edition")
+                .build();
+
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(List.of(bookEntity));
         when(mapper.toBook(bookEntity)).thenReturn(book);
+        mockCache();
 
         // Act
-        Book result = bookDataProviderSql.update(bookId, bookUpdate);
+        Book result = bookDataProviderSql.update(bookId, titleOnlyUpdate, null);
 
         // Assert
-        assertNotNull(result);
         assertEquals(book, result);
+        verify(cache).evict(BookEntity.class, bookEntity.getDbId());
+        verify(hibernateCache).evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).query(sqlCaptor.capture(), parametersCaptor.capture(), any(BookEntityRowMapper.class));
+        assertEquals(
+                "UPDATE books SET title = :title, updated_at = :updated_at, version = version + 1 " +
+                        "WHERE " + ID_CONDITION + " AND deleted_at IS NULL RETURNING " + BookEntityRowMapper.COLUMNS,
+                sqlCaptor.getValue()
+        );
+        assertEquals(bookUuid, parametersCaptor.getValue().getValue("id"));
+        assertEquals(titleOnlyUpdate.getTitle(), parametersCaptor.getValue().getValue("title"));
+        assertFalse(parametersCaptor.getValue().hasValue("author"));
+        assertFalse(parametersCaptor.getValue().hasValue("version"));
+        verifyNoInteractions(bookRepository);
+    }
 
-        verify(bookRepository).findById(bookId);
-        verify(mapper).updateBookEntity(bookEntity, bookUpdate);
-        verify(bookRepository).save(bookEntity);
-        verify(mapper).toBook(bookEntity);
+    @Test
+    void shouldUpdateOnlyTheGivenVersion() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(List.of(bookEntity));
+        when(mapper.toBook(bookEntity)).thenReturn(book);
+        mockCache();
+
+        // Act
+        bookDataProviderSql.update(bookId, bookUpdate, 3L);
+
+        // Assert
+        verify(jdbcTemplate).query(
+                contains("WHERE " + ID_CONDITION + " AND deleted_at IS NULL AND version = :version RETURNING "),
+                argThat((MapSqlParameterSource parameters) -> Long.valueOf(3).equals(parameters.getValue("version"))),
+                any(BookEntityRowMapper.class)
+        );
+    }
+
+    @Test
+    void shouldThrowPreconditionFailedExceptionWhenUpdatingStaleVersion() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(anyString(), any(MapSqlParameterSource.class), eq(Integer.class)))
+                .thenReturn(List.of(1));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> bookDataProviderSql.update(bookId, bookUpdate, 3L));
+
+        verify(mapper, never()).toBook(any());
+        verify(entityManager, never()).getEntityManagerFactory();
+    }
+
+    @Test
+    void shouldThrowResourceNotFoundExceptionWhenUpdatingVersionOfNonExistingBook() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(anyString(), any(MapSqlParameterSource.class), eq(Integer.class)))
+                .thenReturn(Collections.emptyList());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderSql.update(bookId, bookUpdate, 3L));
+    }
+
+    @Test
+    void shouldThrowPreconditionFailedExceptionWhenUpdateHasNoFieldsAndVersionIsStale() {
+        // Arrange
+        bookEntity.setVersion(4L);
+        book.setVersion(4L);
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(startsWith("SELECT "), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(List.of(bookEntity));
+        when(mapper.toBook(bookEntity)).thenReturn(book);
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> bookDataProviderSql.update(bookId, new BookUpdate(), 3L));
+
+        verify(jdbcTemplate, never()).query(startsWith("UPDATE "), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class));
+    }
+
+    @Test
+    void shouldReturnBookUnchangedWhenUpdateHasNoFields() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(startsWith("SELECT "), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(List.of(bookEntity));
+        when(mapper.toBook(bookEntity)).thenReturn(book);
+
+        // Act
+        Book result = bookDataProviderSql.update(bookId, new BookUpdate(), null);
+
+        // Assert
+        assertEquals(book, result);
+        verify(jdbcTemplate, never()).query(startsWith("UPDATE "), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class));
+    }
+
+    @Test
+    void shouldThrowResourceAlreadyExistsExceptionWhenUpdatingToExistingTitle() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenThrow(new DuplicateKeyException("duplicate key value violates unique constraint"));
+
+        // Act & Assert
+        assertThrows(ResourceAlreadyExistsException.class, () -> bookDataProviderSql.update(bookId, bookUpdate, null));
+
+        verify(mapper, never()).toBook(any());
     }
 
     @Test
     void shouldThrowResourceNotFoundExceptionWhenUpdatingNonExistingBook() {
         // Arrange
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(Collections.emptyList());
 
         // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderSql.update(bookId, bookUpdate));
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderSql.update(bookId, bookUpdate, null));
+
+        verify(mapper, never()).toBook(any());
+    }
 
-        verify(bookRepository).findById(bookId);
-        verify(mapper, never()).updateBookEntity(any(), any());
-        verify(bookRepository, never()).save(any());
+    @Test
+    void shouldTombstoneBookOnDelete() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.queryForList(anyString(), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(7L));
+        mockCache();
+
+        // Act
+        assertDoesNotThrow(() -> bookDataProviderSql.delete(bookId, null));
+
+        // Assert
+        verify(jdbcTemplate).queryForList(
+                eq("UPDATE books SET deleted_at = :deletedAt WHERE " + ID_CONDITION + " AND deleted_at IS NULL RETURNING db_id"),
+                argThat((MapSqlParameterSource parameters) -> bookUuid.equals(parameters.getValue("id")) &&
+                        parameters.getValue("deletedAt") instanceof LocalDateTime),
+                eq(Long.class)
+        );
+        verify(cache).evict(BookEntity.class, 7L);
+        verify(hibernateCache).evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+        verifyNoInteractions(bookRepository);
     }
 
     @Test
-    void shouldDeleteBookSuccessfully() {
+    @SuppressWarnings("unchecked")
+    void shouldTombstoneBooksAtTheirVersionsInOneStatement() {
         // Arrange
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(bookEntity));
-        doNothing().when(bookRepository).deleteById(bookId);
+        Book otherBook = TestBookDataUtil.createTestBook();
+        otherBook.setId(UUID.randomUUID().toString());
+        book.setId(bookId);
+        book.setVersion(0L);
+        otherBook.setVersion(2L);
+        when(mapper.toUuid(anyString())).thenAnswer(invocation -> UUID.fromString(invocation.getArgument(0)));
+        when(jdbcTemplate.queryForList(anyString(), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(List.of(7L, 8L));
+        mockCache();
 
         // Act
-        assertDoesNotThrow(() -> bookDataProviderSql.delete(bookId));
+        bookDataProviderSql.deleteAll(List.of(book, otherBook));
 
         // Assert
-        verify(bookRepository).findById(bookId);
-        verify(bookRepository).deleteById(bookId);
+        ArgumentCaptor<MapSqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).queryForList(contains("(b.id, b.version) IN (:versions)"), parametersCaptor.capture(), eq(Long.class));
+        assertEquals(List.of(bookUuid, UUID.fromString(otherBook.getId())), parametersCaptor.getValue().getValue("ids"));
+        List<Object[]> versions = (List<Object[]>) parametersCaptor.getValue().getValue("versions");
+        assertArrayEquals(new Object[]{bookUuid, 0L}, versions.get(0));
+        assertArrayEquals(new Object[]{UUID.fromString(otherBook.getId()), 2L}, versions.get(1));
+        verify(cache).evict(BookEntity.class, 7L);
+        verify(cache).evict(BookEntity.class, 8L);
+        verify(hibernateCache).evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
     }
 
     @Test
     void shouldThrowResourceNotFoundExceptionWhenDeletingNonExistingBook() {
         // Arrange
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.queryForList(anyString(), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(Collections.emptyList());
 
         // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderSql.delete(bookId));
+        assertThrows(ResourceNotFoundException.class, () -> bookDataProviderSql.delete(bookId, null));
+
+        verify(entityManager, never()).getEntityManagerFactory();
+    }
 
-        verify(bookRepository).findById(bookId);
-        verify(bookRepository, never()).deleteById((String) any());
+    @Test
+    void shouldThrowPreconditionFailedExceptionWhenDeletingStaleVersion() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.queryForList(anyString(), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(anyString(), any(MapSqlParameterSource.class), eq(Integer.class)))
+                .thenReturn(List.of(1));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> bookDataProviderSql.delete(bookId, 3L));
+
+        verify(jdbcTemplate).queryForList(
+                eq("UPDATE books SET deleted_at = :deletedAt WHERE " + ID_CONDITION + " AND deleted_at IS NULL " +
+                        "AND version = :version RETURNING db_id"),
+                argThat((MapSqlParameterSource parameters) -> Long.valueOf(3).equals(parameters.getValue("version"))),
+                eq(Long.class)
+        );
+        verify(entityManager, never()).getEntityManagerFactory();
     }
 
     @Test
     void shouldListBooksByCriteriaSuccessfully() {
         // Arrange
-        List<BookEntity> bookEntities = Collections.singletonList(bookEntity);
+        List<BookProjection> bookProjections = Collections.singletonList(bookProjection);
 
         ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
                 .offset(0)
@@ -214,47 +594,78 @@ class BookDataProviderSqlTest {
                 .build();
 
         // Setup only the mocks that are actually used in this test
-        when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
-        when(criteriaBuilder.createQuery(BookEntity.class)).thenReturn(criteriaQuery);
-        when(criteriaQuery.from(BookEntity.class)).thenReturn(root);
-        when(criteriaQuery.where(any(Predicate[].class))).thenReturn(criteriaQuery);
-        when(entityManager.createQuery(criteriaQuery)).thenReturn(typedQuery);
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
         when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
         when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
-        when(typedQuery.getResultList()).thenReturn(bookEntities);
-
-        // For ordering logic
-        Path<Object> pathMock = mock(Path.class);
-        when(root.get("title")).thenReturn(pathMock);
-        when(criteriaBuilder.asc(pathMock)).thenReturn(mock(Order.class));
-        when(criteriaQuery.orderBy(anyList())).thenReturn(criteriaQuery);
-
-        when(mapper.toBook(bookEntity)).thenReturn(book);
+        when(typedQuery.getResultList()).thenReturn(bookProjections);
 
         // Act
-        List<Book> results = bookDataProviderSql.listByCriteria(input);
+        BookPage results = bookDataProviderSql.listByCriteria(input);
 
         // Assert
         assertNotNull(results);
-        assertEquals(1, results.size());
-        assertEquals(book, results.get(0));
+        assertEquals(1, results.getBooks().size());
+        assertEquals(bookProjection.getBook(), results.getBooks().get(0));
+        assertNull(results.getNextCursor());
 
         // Verify all the mocks were used
-        verify(entityManager).getCriteriaBuilder();
-        verify(criteriaBuilder).createQuery(BookEntity.class);
-        verify(criteriaQuery).from(BookEntity.class);
-        verify(criteriaQuery).where(any(Predicate[].class));
-        verify(entityManager).createQuery(criteriaQuery);
+        verify(entityManager).createQuery(anyString(), eq(BookProjection.class));
         verify(typedQuery).setFirstResult(anyInt());
         verify(typedQuery).setMaxResults(anyInt());
+        verify(typedQuery).setHint(HibernateHints.HINT_READ_ONLY, true);
+        verify(typedQuery).setHint(HibernateHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+        verify(typedQuery).setHint(HibernateHints.HINT_CACHEABLE, true);
+        verify(typedQuery).setHint(HibernateHints.HINT_CACHE_REGION, BookEntity.LIST_QUERY_CACHE_REGION);
         verify(typedQuery).getResultList();
-        verify(mapper).toBook(bookEntity);
+        verify(mapper, never()).toBook(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRecordListQueryWithItsNativeEquivalentToExplain() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .author("fitzgerald")
+                .offset(20)
+                .limit(10)
+                .orderByList(Collections.singletonList(OrderBy.TITLE))
+                .orderDirectionList(Collections.singletonList(OrderDirection.ASC))
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(Collections.singletonList(bookProjection));
+
+        // Act
+        bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        ArgumentCaptor<String> jpqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Supplier<BookQueryStats.NativeQuery>> nativeQueryCaptor = ArgumentCaptor.forClass(Supplier.class);
+        verify(entityManager).createQuery(jpqlCaptor.capture(), eq(BookProjection.class));
+        verify(bookQueryStats).recordRead(
+                eq("list"),
+                eq(jpqlCaptor.getValue()),
+                nativeQueryCaptor.capture(),
+                any(Supplier.class),
+                any(ToLongFunction.class)
+        );
+
+        BookQueryStats.NativeQuery nativeQuery = nativeQueryCaptor.getValue().get();
+        assertTrue(nativeQuery.sql().contains(" FROM books WHERE deleted_at IS NULL AND lower(author) LIKE :author"));
+        assertTrue(nativeQuery.sql().endsWith(" ORDER BY title ASC, db_id ASC LIMIT :limit OFFSET :offset"));
+        assertEquals("%fitzgerald%", nativeQuery.parameters().getValue("author"));
+        assertEquals(11, nativeQuery.parameters().getValue("limit"));
+        assertEquals(20, nativeQuery.parameters().getValue("offset"));
     }
 
     @Test
     void shouldReturnEmptyListWhenNoBooksMatch() {
         // Arrange
-        List<BookEntity> bookEntities = Collections.emptyList();
+        List<BookProjection> bookProjections = Collections.emptyList();
 
         ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
                 .offset(0)
@@ -262,31 +673,331 @@ class BookDataProviderSqlTest {
                 .build();
 
         // Setup only the mocks that are actually used in this test
-        when(entityManager.getCriteriaBuilder()).thenReturn(criteriaBuilder);
-        when(criteriaBuilder.createQuery(BookEntity.class)).thenReturn(criteriaQuery);
-        when(criteriaQuery.from(BookEntity.class)).thenReturn(root);
-        when(criteriaQuery.where(any(Predicate[].class))).thenReturn(criteriaQuery);
-        when(entityManager.createQuery(criteriaQuery)).thenReturn(typedQuery);
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
         when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
         when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
-        when(typedQuery.getResultList()).thenReturn(bookEntities);
+        when(typedQuery.getResultList()).thenReturn(bookProjections);
 
         // Act
-        List<Book> results = bookDataProviderSql.listByCriteria(input);
+        BookPage results = bookDataProviderSql.listByCriteria(input);
 
         // Assert
         assertNotNull(results);
-        assertTrue(results.isEmpty());
+        assertTrue(results.getBooks().isEmpty());
+        assertNull(results.getNextCursor());
 
         // Verify all the mocks were used
-        verify(entityManager).getCriteriaBuilder();
-        verify(criteriaBuilder).createQuery(BookEntity.class);
-        verify(criteriaQuery).from(BookEntity.class);
-        verify(criteriaQuery).where(any(Predicate[].class));
-        verify(entityManager).createQuery(criteriaQuery);
+        verify(entityManager).createQuery(anyString(), eq(BookProjection.class));
         verify(typedQuery).setFirstResult(anyInt());
         verify(typedQuery).setMaxResults(anyInt());
         verify(typedQuery).getResultList();
         verify(mapper, never()).toBook(any());
     }
+
+    @Test
+    void shouldReturnNextCursorWhenMoreBooksFollow() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .offset(0)
+                .limit(1)
+                .orderByList(Collections.singletonList(OrderBy.TITLE))
+                .orderDirectionList(Collections.singletonList(OrderDirection.ASC))
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(List.of(bookProjection, bookProjection));
+
+        // Act
+        BookPage results = bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        assertEquals(1, results.getBooks().size());
+        assertNotNull(results.getNextCursor());
+        assertTrue(results.isHasMore());
+        assertNull(results.getTotalCount());
+        verify(typedQuery).setMaxResults(2);
+        verify(typedQuery).setFirstResult(0);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shouldNotReturnNextCursorWhenLastPageIsFull() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .offset(0)
+                .limit(1)
+                .orderByList(Collections.singletonList(OrderBy.TITLE))
+                .orderDirectionList(Collections.singletonList(OrderDirection.ASC))
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(Collections.singletonList(bookProjection));
+
+        // Act
+        BookPage results = bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        assertEquals(1, results.getBooks().size());
+        assertNull(results.getNextCursor());
+        assertFalse(results.isHasMore());
+    }
+
+    @Test
+    void shouldCountExactlyWhenFilterIsSelective() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .offset(0)
+                .limit(10)
+                .title("gatsby")
+                .withTotalCount(true)
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(Collections.singletonList(bookProjection));
+        when(jdbcTemplate.queryForList(startsWith("EXPLAIN "), any(MapSqlParameterSource.class), eq(String.class)))
+                .thenReturn(List.of("Bitmap Heap Scan on books  (cost=17.22..130.82 rows=30 width=4)"));
+        when(jdbcTemplate.queryForObject(anyString(), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn(1L);
+
+        // Act
+        BookPage results = bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        assertEquals(1L, results.getTotalCount());
+        assertFalse(results.getTotalCountEstimated());
+        verify(jdbcTemplate).queryForList(
+                eq("EXPLAIN SELECT 1 FROM books WHERE deleted_at IS NULL AND lower(title) LIKE :title ESCAPE '\\'"),
+                any(MapSqlParameterSource.class),
+                eq(String.class)
+        );
+        verify(jdbcTemplate).queryForObject(
+                eq("SELECT count(*) FROM (SELECT 1 FROM books WHERE deleted_at IS NULL AND lower(title) LIKE :title ESCAPE '\\' " +
+                        "LIMIT :countLimit) matching"),
+                argThat((MapSqlParameterSource parameters) ->
+                        parameters.getValue("countLimit").equals(Constants.EXACT_COUNT_LIMIT + 1)),
+                eq(Long.class)
+        );
+    }
+
+    @Test
+    void shouldEstimateCountWithoutCountingWhenQueryIsBroad() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .offset(0)
+                .limit(10)
+                .withTotalCount(true)
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(Collections.singletonList(bookProjection));
+        when(jdbcTemplate.queryForList(eq("EXPLAIN SELECT 1 FROM books WHERE deleted_at IS NULL"), any(MapSqlParameterSource.class), eq(String.class)))
+                .thenReturn(List.of("Index Only Scan using books_pkey on books  (cost=0.42..7800.42 rows=300000 width=4)"));
+
+        // Act
+        BookPage results = bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        assertEquals(300_000L, results.getTotalCount());
+        assertTrue(results.getTotalCountEstimated());
+        verify(jdbcTemplate, never()).queryForObject(anyString(), any(MapSqlParameterSource.class), eq(Long.class));
+    }
+
+    @Test
+    void shouldFallBackToEstimateWhenExactCountReachesLimit() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .offset(0)
+                .limit(10)
+                .genre("fiction")
+                .withTotalCount(true)
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(Collections.singletonList(bookProjection));
+        when(jdbcTemplate.queryForList(startsWith("EXPLAIN "), any(MapSqlParameterSource.class), eq(String.class)))
+                .thenReturn(List.of("Seq Scan on books  (cost=0.00..9050.00 rows=1500 width=4)"));
+        when(jdbcTemplate.queryForObject(anyString(), any(MapSqlParameterSource.class), eq(Long.class)))
+                .thenReturn((long) Constants.EXACT_COUNT_LIMIT + 1);
+
+        // Act
+        BookPage results = bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        assertEquals(Constants.EXACT_COUNT_LIMIT + 1, results.getTotalCount());
+        assertTrue(results.getTotalCountEstimated());
+    }
+
+    @Test
+    void shouldSeekPastCursorInsteadOfApplyingOffset() {
+        // Arrange
+        LinkedHashMap<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+        sorting.put(OrderBy.TITLE, OrderDirection.ASC);
+
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .limit(10)
+                .cursor(BookCursorMapper.toCursor(bookProjection.getBook(), bookProjection.getDbId(), sorting))
+                .orderByList(Collections.singletonList(OrderBy.TITLE))
+                .orderDirectionList(Collections.singletonList(OrderDirection.ASC))
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(Collections.emptyList());
+
+        // Act
+        BookPage results = bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        assertTrue(results.getBooks().isEmpty());
+        assertNull(results.getNextCursor());
+        verify(entityManager).createQuery(contains("(b.title, b.dbId) > (:cursor0, :cursorDbId)"), eq(BookProjection.class));
+        verify(typedQuery).setParameter("cursorDbId", 7L);
+        verify(typedQuery, never()).setFirstResult(anyInt());
+    }
+
+    @Test
+    void shouldMatchTextFiltersCaseInsensitivelyWithEscapedWildcards() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .offset(0)
+                .limit(10)
+                .title("100% Gat_sby")
+                .build();
+
+        when(entityManager.createQuery(anyString(), eq(BookProjection.class))).thenReturn(typedQuery);
+        when(typedQuery.setFirstResult(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.setHint(anyString(), any())).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+        when(typedQuery.getResultList()).thenReturn(Collections.emptyList());
+
+        // Act
+        bookDataProviderSql.listByCriteria(input);
+
+        // Assert
+        verify(entityManager).createQuery(contains("lower(b.title) like :title escape '\\'"), eq(BookProjection.class));
+        verify(typedQuery).setParameter("title", "%100\\% gat\\_sby%");
+    }
+
+    @Test
+    void shouldExportRowsAsNdjsonThroughCursor() throws Exception {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .title("gatsby")
+                .orderByList(Collections.singletonList(OrderBy.TITLE))
+                .orderDirectionList(Collections.singletonList(OrderDirection.ASC))
+                .build();
+
+        PreparedStatement preparedStatement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getBytes(anyInt())).thenReturn(null);
+        when(resultSet.getBytes(1)).thenReturn(bookId.getBytes(StandardCharsets.UTF_8));
+        when(jdbcTemplate.execute(anyString(), any(MapSqlParameterSource.class), ArgumentMatchers.<PreparedStatementCallback<Long>>any()))
+                .thenAnswer(invocation -> invocation.<PreparedStatementCallback<Long>>getArgument(2).doInPreparedStatement(preparedStatement));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Act
+        long exported = bookDataProviderSql.exportByCriteria(input, outputStream);
+
+        // Assert
+        assertEquals(2, exported);
+        String line = "{\"id\":\"" + bookId + "\"}\n";
+        assertEquals(line + line, outputStream.toString(StandardCharsets.UTF_8));
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).execute(sqlCaptor.capture(), parametersCaptor.capture(), ArgumentMatchers.<PreparedStatementCallback<Long>>any());
+        assertTrue(sqlCaptor.getValue().startsWith("SELECT " + BookJsonRowWriter.COLUMNS + " FROM books WHERE deleted_at IS NULL AND lower(title) LIKE :title"));
+        assertTrue(sqlCaptor.getValue().endsWith(" ORDER BY title ASC, db_id ASC"));
+        assertEquals("%gatsby%", parametersCaptor.getValue().getValue("title"));
+        verify(preparedStatement).setFetchSize(Constants.EXPORT_FETCH_SIZE);
+        verify(entityManager, never()).createQuery(anyString(), eq(BookProjection.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCountFacetsInOneGroupedQueryThroughTheCache() throws Exception {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .author("fitzgerald")
+                .build();
+
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString("facet")).thenReturn("genre", "language", "published_year");
+        when(resultSet.getString("value")).thenReturn("Drama", null, "English", "1925");
+        when(resultSet.getLong("books")).thenReturn(3L, 2L, 1L);
+        when(bookFacetCache.get(eq(input), any(Supplier.class)))
+                .thenAnswer(invocation -> invocation.<Supplier<BookFacets>>getArgument(1).get());
+        doAnswer(invocation -> {
+            RowCallbackHandler rowCallbackHandler = invocation.getArgument(2);
+            for (int i = 0; i < 4; i++) {
+                rowCallbackHandler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(MapSqlParameterSource.class), any(RowCallbackHandler.class));
+
+        // Act
+        BookFacets bookFacets = bookDataProviderSql.facetsByCriteria(input);
+
+        // Assert
+        assertEquals(List.of(new BookFacetCount("Drama", 3)), bookFacets.getGenres());
+        assertEquals(List.of(new BookFacetCount("English", 2)), bookFacets.getLanguages());
+        assertTrue(bookFacets.getPublishers().isEmpty());
+        assertEquals(List.of(new BookFacetCount("1925", 1)), bookFacets.getPublishedYears());
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<MapSqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).query(sqlCaptor.capture(), parametersCaptor.capture(), any(RowCallbackHandler.class));
+        assertTrue(sqlCaptor.getValue().contains("\nFROM books WHERE deleted_at IS NULL AND lower(author) LIKE :author"));
+        assertTrue(sqlCaptor.getValue().contains(" ESCAPE '\\' GROUP BY GROUPING SETS ((genre), (language), (publisher), "));
+        assertEquals("%fitzgerald%", parametersCaptor.getValue().getValue("author"));
+    }
+
+    @Test
+    void shouldDropFacetsOfTheWriterOnUpdate() {
+        // Arrange
+        when(mapper.toUuid(bookId)).thenReturn(bookUuid);
+        when(jdbcTemplate.query(anyString(), any(MapSqlParameterSource.class), any(BookEntityRowMapper.class)))
+                .thenReturn(List.of(bookEntity));
+        when(mapper.toBook(bookEntity)).thenReturn(book);
+        mockCache();
+
+        // Act
+        bookDataProviderSql.update(bookId, bookUpdate, null);
+
+        // Assert
+        verify(bookFacetCache).evictCurrentUser();
+    }
+
+    private void mockCache() {
+        when(entityManager.getEntityManagerFactory()).thenReturn(entityManagerFactory);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(cache.unwrap(org.hibernate.Cache.class)).thenReturn(hibernateCache);
+    }
+
+    private DataIntegrityViolationException createConstraintViolation(String constraintName) {
+        return new DataIntegrityViolationException(
+                "could not execute statement",
+                new ConstraintViolationException("duplicate key", new SQLException("duplicate key", "23505"), constraintName)
+        );
+    }
 }
@@ -0,0 +1,194 @@
+package dataprovider;
+
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProviderSql;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
+import com.tracktainment.bookmanager.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import testutil.TestBookDataUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookSearchDataProviderSqlTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Spy
+    private BookMapperDataProvider mapper = Mappers.getMapper(BookMapperDataProvider.class);
+
+    @InjectMocks
+    private BookSearchDataProviderSql bookSearchDataProviderSql;
+
+    @Test
+    void shouldWarmUpIndexPageByPage() {
+        // Arrange
+        List<BookEntity> firstPage = new ArrayList<>();
+        for (long dbId = 1; dbId <= 1000; dbId++) {
+            firstPage.add(createBookEntity(dbId, "Filler " + dbId));
+        }
+        BookEntity lastBookEntity = createBookEntity(1001L, "The Great Gatsby");
+
+        when(bookRepository.findTop1000ByDbIdGreaterThanOrderByDbIdAsc(0L)).thenReturn(firstPage);
+        when(bookRepository.findTop1000ByDbIdGreaterThanOrderByDbIdAsc(1000L)).thenReturn(List.of(lastBookEntity));
+
+        // Act
+        bookSearchDataProviderSql.warmUp();
+
+        // Assert
+        List<BookSearchHit> hits = bookSearchDataProviderSql.search("gatsby", null, 10);
+        assertEquals(1, hits.size());
+        assertEquals(lastBookEntity.getId().toString(), hits.get(0).getId());
+        assertNull(hits.get(0).getBook());
+        verify(bookRepository, times(2)).findTop1000ByDbIdGreaterThanOrderByDbIdAsc(anyLong());
+    }
+
+    @Test
+    void shouldRereadBooksWrittenWhileRebuilding() {
+        // Arrange
+        BookEntity staleBookEntity = createBookEntity(1L, "Tender Is the Night");
+        BookEntity updatedBookEntity = createBookEntity(1L, "The Great Gatsby");
+        updatedBookEntity.setId(staleBookEntity.getId());
+        BookEntity deletedBookEntity = createBookEntity(2L, "Moby Dick");
+
+        // The page is read before the two writes, which land while the rebuild still runs
+        when(bookRepository.findTop1000ByDbIdGreaterThanOrderByDbIdAsc(0L)).thenAnswer(invocation -> {
+            bookSearchDataProviderSql.index(Book.builder()
+                    .id(updatedBookEntity.getId().toString())
+                    .title(updatedBookEntity.getTitle())
+                    .build());
+            bookSearchDataProviderSql.remove(deletedBookEntity.getId().toString());
+            return List.of(staleBookEntity, deletedBookEntity);
+        });
+        when(bookRepository.findAllByIdIn(anyCollection())).thenReturn(List.of(updatedBookEntity));
+
+        // Act
+        bookSearchDataProviderSql.rebuild();
+
+        // Assert
+        assertEquals(updatedBookEntity.getId().toString(), bookSearchDataProviderSql.search("gatsby", null, 10).get(0).getId());
+        assertTrue(bookSearchDataProviderSql.search("night", null, 10).isEmpty());
+        assertTrue(bookSearchDataProviderSql.search("moby", null, 10).isEmpty());
+        verify(bookRepository).findAllByIdIn(argThat(ids -> ids.size() == 2));
+    }
+
+    @Test
+    void shouldRereadBooksWrittenWhileRereadingWithoutBlockingWriters() {
+        // Arrange
+        BookEntity updatedBookEntity = createBookEntity(1L, "The Great Gatsby");
+        BookEntity deletedBookEntity = createBookEntity(2L, "Moby Dick");
+
+        when(bookRepository.findTop1000ByDbIdGreaterThanOrderByDbIdAsc(0L)).thenAnswer(invocation -> {
+            bookSearchDataProviderSql.remove(updatedBookEntity.getId().toString());
+            return List.of(updatedBookEntity, deletedBookEntity);
+        });
+        // The delete lands on another thread while the first round is read, and must not wait for that read
+        when(bookRepository.findAllByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Thread writer = new Thread(() -> bookSearchDataProviderSql.remove(deletedBookEntity.getId().toString()));
+            writer.start();
+            writer.join(5_000);
+            assertFalse(writer.isAlive());
+            return List.of(updatedBookEntity);
+        }).thenReturn(Collections.emptyList());
+
+        // Act
+        bookSearchDataProviderSql.rebuild();
+
+        // Assert
+        assertEquals(updatedBookEntity.getId().toString(), bookSearchDataProviderSql.search("gatsby", null, 10).get(0).getId());
+        assertTrue(bookSearchDataProviderSql.search("moby", null, 10).isEmpty());
+        verify(bookRepository, times(2)).findAllByIdIn(argThat(ids -> ids.size() == 1));
+    }
+
+    @Test
+    void shouldLookUpDbIdOnlyForNewBooks() {
+        // Arrange
+        Book book = TestBookDataUtil.createTestBook();
+        when(bookRepository.findById(UUID.fromString(book.getId()))).thenReturn(Optional.of(createBookEntity(7L, book.getTitle())));
+
+        // Act
+        bookSearchDataProviderSql.index(book);
+        book.setTitle("Tender Is the Night");
+        bookSearchDataProviderSql.index(book);
+
+        // Assert
+        assertTrue(bookSearchDataProviderSql.search("gatsby", null, 10).isEmpty());
+        assertEquals(book.getId(), bookSearchDataProviderSql.search("night", null, 10).get(0).getId());
+        verify(bookRepository, times(1)).findById(UUID.fromString(book.getId()));
+    }
+
+    @Test
+    void shouldLookUpDbIdsOfNewBooksInOneQuery() {
+        // Arrange
+        Book indexedBook = TestBookDataUtil.createTestBook();
+        when(bookRepository.findById(UUID.fromString(indexedBook.getId())))
+                .thenReturn(Optional.of(createBookEntity(1L, indexedBook.getTitle())));
+        bookSearchDataProviderSql.index(indexedBook);
+
+        Book newBook = TestBookDataUtil.createTestBook();
+        newBook.setTitle("Tender Is the Night");
+        BookEntity newBookEntity = createBookEntity(2L, newBook.getTitle());
+        newBookEntity.setId(UUID.fromString(newBook.getId()));
+        when(bookRepository.findAllByIdIn(List.of(UUID.fromString(newBook.getId())))).thenReturn(List.of(newBookEntity));
+
+        // Act
+        bookSearchDataProviderSql.indexAll(List.of(indexedBook, newBook));
+
+        // Assert
+        assertEquals(newBook.getId(), bookSearchDataProviderSql.search("night", null, 10).get(0).getId());
+        assertEquals(indexedBook.getId(), bookSearchDataProviderSql.search("gatsby", null, 10).get(0).getId());
+        verify(bookRepository).findAllByIdIn(anyCollection());
+    }
+
+    @Test
+    void shouldSkipBooksNoLongerStored() {
+        // Arrange
+        Book book = TestBookDataUtil.createTestBook();
+        when(bookRepository.findById(UUID.fromString(book.getId()))).thenReturn(Optional.empty());
+
+        // Act
+        bookSearchDataProviderSql.index(book);
+
+        // Assert
+        assertTrue(bookSearchDataProviderSql.search(book.getTitle(), null, 10).isEmpty());
+    }
+
+    @Test
+    void shouldRemoveBookFromIndex() {
+        // Arrange
+        Book book = TestBookDataUtil.createTestBook();
+        when(bookRepository.findById(UUID.fromString(book.getId()))).thenReturn(Optional.of(createBookEntity(7L, book.getTitle())));
+        bookSearchDataProviderSql.index(book);
+
+        // Act
+        bookSearchDataProviderSql.remove(book.getId());
+
+        // Assert
+        assertTrue(bookSearchDataProviderSql.search(book.getTitle(), Collections.singletonList(book.getId()), 10).isEmpty());
+    }
+
+    private BookEntity createBookEntity(Long dbId, String title) {
+        return BookEntity.builder()
+                .dbId(dbId)
+                .id(UUID.randomUUID())
+                .title(title)
+                .build();
+    }
+}
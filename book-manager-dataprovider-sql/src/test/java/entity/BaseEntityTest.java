@@ -85,14 +85,16 @@ class BaseEntityTest {
         Long dbId = 3L;
         LocalDateTime createdAt = LocalDateTime.now();
         LocalDateTime updatedAt = LocalDateTime.now().plusDays(1);
+        Long version = 2L;
 
         // Act
-        BaseEntity baseEntity = new BaseEntity(dbId, createdAt, updatedAt);
+        BaseEntity baseEntity = new BaseEntity(dbId, createdAt, updatedAt, version);
 
         // Assert
         assertEquals(dbId, baseEntity.getDbId());
         assertEquals(createdAt, baseEntity.getCreatedAt());
         assertEquals(updatedAt, baseEntity.getUpdatedAt());
+        assertEquals(version, baseEntity.getVersion());
     }
 
     @Test
@@ -16,7 +16,7 @@ class BookEntityTest {
     void shouldCreateBookEntityUsingBuilder() {
         // Arrange
         Long dbId = 1L;
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
         String title = "The Great Gatsby";
         String author = "F. Scott Fitzgerald";
         String genre = "Drama";
@@ -80,7 +80,7 @@ class BookEntityTest {
         // Arrange
         BookEntity bookEntity = new BookEntity();
         Long dbId = 2L;
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
         String title = "The Great Gatsby";
         String author = "F. Scott Fitzgerald";
         String genre = "Drama";
@@ -130,8 +130,8 @@ class BookEntityTest {
     @Test
     void shouldImplementEqualsAndHashCodeCorrectly() {
         // Arrange
-        String id1 = UUID.randomUUID().toString();
-        String id2 = UUID.randomUUID().toString();
+        UUID id1 = UUID.randomUUID();
+        UUID id2 = UUID.randomUUID();
 
         BookEntity entity1 = BookEntity.builder().id(id1).build();
         BookEntity entity2 = BookEntity.builder().id(id1).build(); // Same ID
@@ -147,7 +147,7 @@ class BookEntityTest {
     @Test
     void shouldImplementToString() {
         // Arrange
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
         BookEntity bookEntity = BookEntity.builder()
                 .id(id)
                 .title("The Great Gatsby")
@@ -160,7 +160,7 @@ class BookEntityTest {
         assertNotNull(toString);
         assertFalse(toString.isEmpty());
         assertTrue(toString.contains("BookEntity"));
-        assertTrue(toString.contains(id));
+        assertTrue(toString.contains(id.toString()));
         assertTrue(toString.contains("The Great Gatsby"));
     }
 
@@ -168,7 +168,7 @@ class BookEntityTest {
     void shouldCreateBookEntityWithAllArgsConstructor() {
         // Arrange
         Long dbId = 3L;
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
         String title = "To Kill a Mockingbird";
         String author = "Harper Lee";
         String genre = "Fiction";
@@ -178,9 +178,11 @@ class BookEntityTest {
         String language = "English";
         LocalDateTime createdAt = LocalDateTime.now();
         LocalDateTime updatedAt = LocalDateTime.now().plusDays(1);
+        LocalDateTime deletedAt = LocalDateTime.now().plusDays(2);
+        Long version = 2L;
 
         // Create a base entity first to pass to the constructor
-        BaseEntity baseEntity = new BaseEntity(dbId, createdAt, updatedAt);
+        BaseEntity baseEntity = new BaseEntity(dbId, createdAt, updatedAt, version);
 
         // Act
         BookEntity bookEntity = new BookEntity(
@@ -191,13 +193,15 @@ class BookEntityTest {
                 isbn,
                 publisher,
                 publishedDate,
-                language
+                language,
+                deletedAt
         );
 
         // Set the base entity properties
         bookEntity.setDbId(baseEntity.getDbId());
         bookEntity.setCreatedAt(baseEntity.getCreatedAt());
         bookEntity.setUpdatedAt(baseEntity.getUpdatedAt());
+        bookEntity.setVersion(baseEntity.getVersion());
 
         // Assert
         assertEquals(dbId, bookEntity.getDbId());
@@ -209,7 +213,9 @@ class BookEntityTest {
         assertEquals(publisher, bookEntity.getPublisher());
         assertEquals(publishedDate, bookEntity.getPublishedDate());
         assertEquals(language, bookEntity.getLanguage());
+        assertEquals(deletedAt, bookEntity.getDeletedAt());
         assertEquals(createdAt, bookEntity.getCreatedAt());
         assertEquals(updatedAt, bookEntity.getUpdatedAt());
+        assertEquals(version, bookEntity.getVersion());
     }
 }
@@ -0,0 +1,149 @@
+package facet;
+
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.facet.BookFacetCache;
+import com.tracktainment.bookmanager.security.context.DigitalUser;
+import com.tracktainment.bookmanager.security.util.SecurityUtil;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookFacetCacheTest {
+
+    @Mock
+    private SecurityUtil securityUtil;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private BookFacetCache bookFacetCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(meterRegistryProvider.getIfAvailable(any(Supplier.class))).thenReturn(new SimpleMeterRegistry());
+        bookFacetCache = new BookFacetCache(securityUtil, 100, Duration.ofMinutes(10), meterRegistryProvider);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void shouldLoadFacetsOncePerUserAndCriteria() {
+        // Arrange
+        asUser("user-1");
+        ListByCriteriaUseCase.Input criteria = criteria("Drama");
+
+        // Act
+        BookFacets first = bookFacetCache.get(criteria, this::load);
+        BookFacets second = bookFacetCache.get(criteria("Drama"), this::load);
+        bookFacetCache.get(criteria("Poetry"), this::load);
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldOnlyEvictTheEntriesOfTheWritingUser() {
+        // Arrange
+        ListByCriteriaUseCase.Input criteria = criteria("Drama");
+        asUser("user-1");
+        bookFacetCache.get(criteria, this::load);
+        asUser("user-2");
+        bookFacetCache.get(criteria, this::load);
+
+        // Act
+        bookFacetCache.evictCurrentUser();
+
+        // Assert
+        bookFacetCache.get(criteria, this::load);
+        asUser("user-1");
+        bookFacetCache.get(criteria, this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void shouldLoadWithoutHoldingTheCache() {
+        // Arrange
+        asUser("user-1");
+        ListByCriteriaUseCase.Input criteria = criteria("Drama");
+
+        // Act
+        BookFacets bookFacets = bookFacetCache.get(criteria, () -> {
+            // Within a compute of the same key this would be a recursive update
+            bookFacetCache.get(criteria, this::load);
+            return load();
+        });
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertSame(bookFacets, bookFacetCache.get(criteria, this::load));
+    }
+
+    @Test
+    void shouldNotKeepFacetsLoadedBeforeAnEvictionDuringTheLoad() {
+        // Arrange
+        asUser("user-1");
+        ListByCriteriaUseCase.Input criteria = criteria("Drama");
+
+        // Act
+        BookFacets stale = bookFacetCache.get(criteria, () -> {
+            // A write commits and evicts while the facets are counted, before they are put
+            BookFacets bookFacets = load();
+            bookFacetCache.evictCurrentUser();
+            return bookFacets;
+        });
+        BookFacets reloaded = bookFacetCache.get(criteria, this::load);
+
+        // Assert
+        assertNotSame(stale, reloaded);
+        assertEquals(2, loads.get());
+        assertSame(reloaded, bookFacetCache.get(criteria, this::load));
+    }
+
+    @Test
+    void shouldNotCacheWithoutUser() {
+        // Arrange
+        when(securityUtil.findDigitalUser()).thenReturn(Optional.empty());
+
+        // Act
+        bookFacetCache.get(criteria("Drama"), this::load);
+        bookFacetCache.get(criteria("Drama"), this::load);
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    private BookFacets load() {
+        loads.incrementAndGet();
+        return new BookFacets();
+    }
+
+    private void asUser(String userId) {
+        DigitalUser digitalUser = new DigitalUser();
+        digitalUser.setId(userId);
+        when(securityUtil.findDigitalUser()).thenReturn(Optional.of(digitalUser));
+    }
+
+    private static ListByCriteriaUseCase.Input criteria(String genre) {
+        return ListByCriteriaUseCase.Input.builder()
+                .genre(genre)
+                .build();
+    }
+}
@@ -0,0 +1,100 @@
+package mapper;
+
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.mapper.BookCriteriaSqlMapper;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCriteriaSqlMapperTest {
+
+    @Test
+    void shouldRenderEveryFilterAsBoundCondition() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .ids(id.toString())
+                .title("100% Gat_sby")
+                .publishedDate(LocalDate.of(1925, 4, 10))
+                .from(LocalDate.of(2024, 1, 1))
+                .to(LocalDate.of(2024, 1, 31))
+                .build();
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+        // Act
+        String where = BookCriteriaSqlMapper.toWhereClause(input, parameters);
+
+        // Assert
+        assertEquals(" WHERE deleted_at IS NULL AND id IN (:ids) AND lower(title) LIKE :title ESCAPE '\\' AND published_date = :publishedDate" +
+                " AND created_at >= :from AND created_at <= :to", where);
+        assertEquals(List.of(id), parameters.getValue("ids"));
+        assertEquals("%100\\% gat\\_sby%", parameters.getValue("title"));
+        assertEquals(LocalDate.of(2024, 1, 1).atStartOfDay(), parameters.getValue("from"));
+        assertEquals(LocalDate.of(2024, 1, 31).atTime(23, 59, 59, 999999999), parameters.getValue("to"));
+    }
+
+    @Test
+    void shouldOnlyExcludeDeletedBooksWithoutFilters() {
+        // Act & Assert
+        assertEquals(" WHERE deleted_at IS NULL",
+                BookCriteriaSqlMapper.toWhereClause(new ListByCriteriaUseCase.Input(), new MapSqlParameterSource()));
+    }
+
+    @Test
+    void shouldRenderFacetsQueryAroundWhereClause() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .genre("drama")
+                .build();
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+        // Act
+        String sql = BookCriteriaSqlMapper.toFacetsQuery(input, parameters);
+
+        // Assert
+        assertTrue(sql.contains("\nFROM books WHERE deleted_at IS NULL AND lower(genre) LIKE :genre ESCAPE '\\'" +
+                " GROUP BY GROUPING SETS ((genre), (language), (publisher), (CAST(EXTRACT(YEAR FROM published_date) AS integer)))" +
+                " ORDER BY facet, books DESC, value"));
+        assertTrue(sql.endsWith(" ORDER BY facet, books DESC, value"));
+        assertEquals("%drama%", parameters.getValue("genre"));
+    }
+
+    @Test
+    void shouldOrderBySortingThenDbIdInDirectionOfLastKey() {
+        // Arrange
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+        sorting.put(OrderBy.CREATED_AT, OrderDirection.DESC);
+        sorting.put(OrderBy.TITLE, OrderDirection.ASC);
+
+        // Act & Assert
+        assertEquals(" ORDER BY created_at DESC, title ASC, db_id ASC", BookCriteriaSqlMapper.toOrderByClause(sorting));
+        assertEquals(" ORDER BY db_id ASC", BookCriteriaSqlMapper.toOrderByClause(Map.of()));
+        assertEquals(" ORDER BY title DESC, db_id DESC",
+                BookCriteriaSqlMapper.toOrderByClause(Map.of(OrderBy.TITLE, OrderDirection.DESC)));
+    }
+
+    @Test
+    void shouldSeekPastCursorOverColumns() {
+        // Arrange
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        BookCursorMapper.Cursor cursor = new BookCursorMapper.Cursor(List.of("Gatsby"), 42L);
+
+        // Act
+        String condition = BookCriteriaSqlMapper.toCursorCondition(Map.of(OrderBy.TITLE, OrderDirection.ASC), cursor, parameters);
+
+        // Assert
+        assertEquals("(title, db_id) > (:cursor0, :cursorDbId)", condition);
+        assertEquals("Gatsby", parameters.getValue("cursor0"));
+        assertEquals(42L, parameters.getValue("cursorDbId"));
+    }
+}
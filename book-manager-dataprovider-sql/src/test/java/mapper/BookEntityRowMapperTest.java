@@ -0,0 +1,56 @@
+package mapper;
+
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.mapper.BookEntityRowMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookEntityRowMapperTest {
+
+    @Mock
+    private ResultSet resultSet;
+
+    private final BookEntityRowMapper rowMapper = new BookEntityRowMapper();
+
+    @Test
+    void shouldMapRowToBookEntity() throws Exception {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 10, 15, 30);
+
+        when(resultSet.getLong("db_id")).thenReturn(42L);
+        when(resultSet.getObject("id", UUID.class)).thenReturn(id);
+        when(resultSet.getString("title")).thenReturn("The Great Gatsby");
+        when(resultSet.getString("author")).thenReturn("F. Scott Fitzgerald");
+        when(resultSet.getDate("published_date")).thenReturn(Date.valueOf(LocalDate.of(1925, 4, 10)));
+        when(resultSet.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(createdAt));
+        when(resultSet.getLong("version")).thenReturn(3L);
+
+        // Act
+        BookEntity bookEntity = rowMapper.mapRow(resultSet, 0);
+
+        // Assert
+        assertEquals(42L, bookEntity.getDbId());
+        assertEquals(id, bookEntity.getId());
+        assertEquals("The Great Gatsby", bookEntity.getTitle());
+        assertEquals("F. Scott Fitzgerald", bookEntity.getAuthor());
+        assertEquals(LocalDate.of(1925, 4, 10), bookEntity.getPublishedDate());
+        assertEquals(createdAt, bookEntity.getCreatedAt());
+        assertEquals(3L, bookEntity.getVersion());
+        assertNull(bookEntity.getGenre());
+        assertNull(bookEntity.getUpdatedAt());
+    }
+}
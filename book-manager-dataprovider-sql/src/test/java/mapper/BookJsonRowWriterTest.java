@@ -0,0 +1,94 @@
+package mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tracktainment.bookmanager.domain.Book;
+import com.tracktainment.bookmanager.mapper.BookJsonRowWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookJsonRowWriterTest {
+
+    @Mock
+    private ResultSet resultSet;
+
+    private final BookJsonRowWriter rowWriter = new BookJsonRowWriter();
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void shouldWriteRowLikeJacksonWritesBook() throws Exception {
+        // Arrange
+        Book book = Book.builder()
+                .id(UUID.randomUUID().toString())
+                .title("Crime & \"Punishment\" – Преступление")
+                .author("Fyodor Dostoevsky")
+                .genre("Novel")
+                .isbn("978-0-14-044913-6")
+                .publisher("The Russian Messenger")
+                .publishedDate(LocalDate.of(1866, 1, 1))
+                .language("Russian")
+                .createdAt(LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123456000))
+                .build();
+
+        mockRow(book.getId(), book.getTitle(), book.getAuthor(), book.getGenre(), book.getIsbn(), book.getPublisher(),
+                "1866-01-01", book.getLanguage(), "2024-05-01T10:15:30.123456", null);
+
+        // Act
+        String json = write();
+
+        // Assert
+        assertEquals(objectMapper.writeValueAsString(book), json);
+        assertEquals(book, objectMapper.readValue(json, Book.class));
+    }
+
+    @Test
+    void shouldLeaveOutNullColumns() throws Exception {
+        // Arrange
+        String id = UUID.randomUUID().toString();
+        mockRow(id, "Beloved", "Toni Morrison", null, null, null, null, null, "2024-05-01T10:15:30.000000", null);
+
+        // Act
+        String json = write();
+
+        // Assert
+        Book book = objectMapper.readValue(json, Book.class);
+        assertEquals(id, book.getId());
+        assertEquals("Beloved", book.getTitle());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 15, 30), book.getCreatedAt());
+        assertFalse(json.contains("genre"));
+        assertFalse(json.contains("updatedAt"));
+        assertFalse(json.contains("null"));
+    }
+
+    private void mockRow(String... columns) throws Exception {
+        for (int i = 0; i < columns.length; i++) {
+            when(resultSet.getBytes(i + 1)).thenReturn(columns[i] != null ? columns[i].getBytes(StandardCharsets.UTF_8) : null);
+        }
+    }
+
+    private String write() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            rowWriter.write(resultSet, generator);
+        }
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
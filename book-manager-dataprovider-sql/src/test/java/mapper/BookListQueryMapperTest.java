@@ -0,0 +1,240 @@
+package mapper;
+
+import com.tracktainment.bookmanager.domain.OrderBy;
+import com.tracktainment.bookmanager.domain.OrderDirection;
+import com.tracktainment.bookmanager.mapper.BookCursorMapper;
+import com.tracktainment.bookmanager.mapper.BookListQueryMapper;
+import com.tracktainment.bookmanager.usecases.ListByCriteriaUseCase;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookListQueryMapperTest {
+
+    private static final String SELECT = "select new com.tracktainment.bookmanager.entity.BookProjection(" +
+            "b.dbId, b.id, b.title, b.author, b.genre, b.isbn, b.publisher, b.publishedDate, b.language, " +
+            "b.createdAt, b.updatedAt) from BookEntity b";
+
+    @Test
+    void shouldRenderEveryFilterAsBoundCondition() {
+        // Arrange
+        UUID id = UUID.randomUUID();
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .ids(id.toString())
+                .title("100% Gat_sby")
+                .publishedDate(LocalDate.of(1925, 4, 10))
+                .from(LocalDate.of(2024, 1, 1))
+                .to(LocalDate.of(2024, 1, 31))
+                .build();
+
+        // Act
+        BookListQueryMapper.ListQuery listQuery = BookListQueryMapper.toListQuery(input, Map.of(), null);
+
+        // Assert
+        assertEquals(SELECT + " where b.id in :ids and lower(b.title) like :title escape '\\' and " +
+                "b.publishedDate = :publishedDate and b.createdAt >= :from and b.createdAt <= :to order by b.dbId asc",
+                listQuery.getJpql());
+        assertEquals(List.of(id), listQuery.getParameters().get("ids"));
+        assertEquals("%100\\% gat\\_sby%", listQuery.getParameters().get("title"));
+        assertEquals(LocalDate.of(1925, 4, 10), listQuery.getParameters().get("publishedDate"));
+        assertEquals(LocalDate.of(2024, 1, 1).atStartOfDay(), listQuery.getParameters().get("from"));
+        assertEquals(LocalDate.of(2024, 1, 31).atTime(23, 59, 59, 999999999), listQuery.getParameters().get("to"));
+    }
+
+    @Test
+    void shouldReuseJpqlForSameShapeWithDifferentValues() {
+        // Arrange
+        Map<OrderBy, OrderDirection> sorting = Map.of(OrderBy.AUTHOR, OrderDirection.DESC);
+        ListByCriteriaUseCase.Input first = ListByCriteriaUseCase.Input.builder()
+                .genre("fantasy")
+                .createdAt(LocalDate.of(2024, 1, 1))
+                .build();
+        ListByCriteriaUseCase.Input second = ListByCriteriaUseCase.Input.builder()
+                .genre("mystery")
+                .createdAt(LocalDate.of(2024, 6, 1))
+                .build();
+
+        // Act
+        BookListQueryMapper.ListQuery firstQuery = BookListQueryMapper.toListQuery(first, sorting, null);
+        BookListQueryMapper.ListQuery secondQuery = BookListQueryMapper.toListQuery(second, sorting, null);
+
+        // Assert
+        assertSame(firstQuery.getJpql(), secondQuery.getJpql());
+        assertEquals(SELECT + " where lower(b.genre) like :genre escape '\\' and " +
+                "b.createdAt between :createdAtStart and :createdAtEnd order by b.author desc, b.dbId desc",
+                secondQuery.getJpql());
+        assertEquals("%mystery%", secondQuery.getParameters().get("genre"));
+        assertEquals(LocalDate.of(2024, 6, 1).atStartOfDay(), secondQuery.getParameters().get("createdAtStart"));
+    }
+
+    @Test
+    void shouldRenderDifferentJpqlForDifferentShapes() {
+        // Arrange
+        ListByCriteriaUseCase.Input input = ListByCriteriaUseCase.Input.builder()
+                .title("gatsby")
+                .build();
+
+        // Act
+        String ascending = BookListQueryMapper.toListQuery(input, Map.of(OrderBy.TITLE, OrderDirection.ASC), null)
+                .getJpql();
+        String descending = BookListQueryMapper.toListQuery(input, Map.of(OrderBy.TITLE, OrderDirection.DESC), null)
+                .getJpql();
+        String unfiltered = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                Map.of(OrderBy.TITLE, OrderDirection.ASC),
+                null
+        ).getJpql();
+
+        // Assert
+        assertTrue(ascending.endsWith(" order by b.title asc, b.dbId asc"));
+        assertTrue(descending.endsWith(" order by b.title desc, b.dbId desc"));
+        assertEquals(SELECT + " order by b.title asc, b.dbId asc", unfiltered);
+    }
+
+    @Test
+    void shouldSeekPastCursorWithNullsLastWhenAscendingAndFirstWhenDescending() {
+        // Arrange
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+        sorting.put(OrderBy.GENRE, OrderDirection.ASC);
+        sorting.put(OrderBy.AUTHOR, OrderDirection.DESC);
+        BookCursorMapper.Cursor cursor = new BookCursorMapper.Cursor(Arrays.asList("Fiction", null), 7L);
+
+        // Act
+        BookListQueryMapper.ListQuery listQuery = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                sorting,
+                cursor
+        );
+
+        // Assert
+        assertEquals(SELECT + " where (((b.genre > :cursor0 or b.genre is null)) or " +
+                "(b.genre = :cursor0 and b.author is not null) or " +
+                "(b.genre = :cursor0 and b.author is null and b.dbId < :cursorDbId)) " +
+                "order by b.genre asc, b.author desc, b.dbId desc", listQuery.getJpql());
+        assertEquals(Map.of("cursor0", "Fiction", "cursorDbId", 7L), listQuery.getParameters());
+    }
+
+    @Test
+    void shouldRenderCursorShapeForNonNullValuesSeparately() {
+        // Arrange
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+        sorting.put(OrderBy.GENRE, OrderDirection.ASC);
+        sorting.put(OrderBy.AUTHOR, OrderDirection.DESC);
+        BookCursorMapper.Cursor cursor = new BookCursorMapper.Cursor(Arrays.asList("Fiction", "Tolkien"), 7L);
+
+        // Act
+        BookListQueryMapper.ListQuery listQuery = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                sorting,
+                cursor
+        );
+
+        // Assert
+        assertEquals(SELECT + " where (((b.genre > :cursor0 or b.genre is null)) or " +
+                "(b.genre = :cursor0 and b.author < :cursor1) or " +
+                "(b.genre = :cursor0 and b.author = :cursor1 and b.dbId < :cursorDbId)) " +
+                "order by b.genre asc, b.author desc, b.dbId desc", listQuery.getJpql());
+        assertEquals(Map.of("cursor0", "Fiction", "cursor1", "Tolkien", "cursorDbId", 7L), listQuery.getParameters());
+    }
+
+    @Test
+    void shouldSeekIndexRangeWhenKeysRunOneWayWithoutNullsAfterCursor() {
+        // Arrange
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+        sorting.put(OrderBy.AUTHOR, OrderDirection.ASC);
+        sorting.put(OrderBy.TITLE, OrderDirection.ASC);
+        BookCursorMapper.Cursor cursor = new BookCursorMapper.Cursor(List.of("Tolkien", "The Hobbit"), 7L);
+
+        // Act
+        BookListQueryMapper.ListQuery ascending = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                sorting,
+                cursor
+        );
+        String descending = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                Map.of(OrderBy.GENRE, OrderDirection.DESC),
+                new BookCursorMapper.Cursor(List.of("Fiction"), 7L)
+        ).getJpql();
+
+        // Assert
+        assertEquals(SELECT + " where (b.author, b.title, b.dbId) > (:cursor0, :cursor1, :cursorDbId) " +
+                "order by b.author asc, b.title asc, b.dbId asc", ascending.getJpql());
+        assertEquals(Map.of("cursor0", "Tolkien", "cursor1", "The Hobbit", "cursorDbId", 7L), ascending.getParameters());
+        assertEquals(SELECT + " where (b.genre, b.dbId) < (:cursor0, :cursorDbId) " +
+                "order by b.genre desc, b.dbId desc", descending);
+    }
+
+    @Test
+    void shouldBoundCreatedAtBesideIndexRangeSoPartitionsArePruned() {
+        // Arrange
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        BookCursorMapper.Cursor cursor = new BookCursorMapper.Cursor(List.of(createdAt), 7L);
+
+        // Act
+        String descending = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                Map.of(OrderBy.CREATED_AT, OrderDirection.DESC),
+                cursor
+        ).getJpql();
+        String ascending = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                Map.of(OrderBy.CREATED_AT, OrderDirection.ASC),
+                cursor
+        ).getJpql();
+
+        // Assert
+        assertEquals(SELECT + " where b.createdAt <= :cursor0 and (b.createdAt, b.dbId) < (:cursor0, :cursorDbId) " +
+                "order by b.createdAt desc, b.dbId desc", descending);
+        assertEquals(SELECT + " where b.createdAt >= :cursor0 and (b.createdAt, b.dbId) > (:cursor0, :cursorDbId) " +
+                "order by b.createdAt asc, b.dbId asc", ascending);
+    }
+
+    @Test
+    void shouldBoundFirstSortKeyWhenKeysRunDifferentWays() {
+        // Arrange
+        Map<OrderBy, OrderDirection> sorting = new LinkedHashMap<>();
+        sorting.put(OrderBy.CREATED_AT, OrderDirection.DESC);
+        sorting.put(OrderBy.TITLE, OrderDirection.ASC);
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 10, 0);
+        BookCursorMapper.Cursor cursor = new BookCursorMapper.Cursor(List.of(createdAt, "The Hobbit"), 7L);
+
+        // Act
+        BookListQueryMapper.ListQuery listQuery = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                sorting,
+                cursor
+        );
+
+        // Assert
+        assertEquals(SELECT + " where b.createdAt <= :cursor0 and ((b.createdAt < :cursor0) or " +
+                "(b.createdAt = :cursor0 and b.title > :cursor1) or " +
+                "(b.createdAt = :cursor0 and b.title = :cursor1 and b.dbId > :cursorDbId)) " +
+                "order by b.createdAt desc, b.title asc, b.dbId asc", listQuery.getJpql());
+    }
+
+    @Test
+    void shouldNotBoundNullableSortKeyWhenAscending() {
+        // Arrange
+        BookCursorMapper.Cursor cursor = new BookCursorMapper.Cursor(List.of("Fiction"), 7L);
+
+        // Act
+        String jpql = BookListQueryMapper.toListQuery(
+                new ListByCriteriaUseCase.Input(),
+                Map.of(OrderBy.GENRE, OrderDirection.ASC),
+                cursor
+        ).getJpql();
+
+        // Assert
+        assertEquals(SELECT + " where (((b.genre > :cursor0 or b.genre is null)) or " +
+                "(b.genre = :cursor0 and b.dbId > :cursorDbId)) order by b.genre asc, b.dbId asc", jpql);
+    }
+}
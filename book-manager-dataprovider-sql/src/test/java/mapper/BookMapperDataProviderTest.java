@@ -30,7 +30,7 @@ class BookMapperDataProviderTest {
     @Test
     void shouldMapBookEntityToBook() {
         // Arrange
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
         LocalDateTime createdAt = LocalDateTime.now();
         LocalDateTime updatedAt = LocalDateTime.now().plusDays(1);
         LocalDate publishedDate = LocalDate.of(1925, 4, 10);
@@ -53,7 +53,7 @@ class BookMapperDataProviderTest {
 
         // Assert
         assertNotNull(result);
-        assertEquals(id, result.getId());
+        assertEquals(id.toString(), result.getId());
         assertEquals("The Great Gatsby", result.getTitle());
         assertEquals("F. Scott Fitzgerald", result.getAuthor());
         assertEquals("Drama", result.getGenre());
@@ -76,7 +76,7 @@ class BookMapperDataProviderTest {
         // Assert
         assertNotNull(result);
         assertNotNull(result.getId());
-        assertTrue(UUID_PATTERN.matcher(result.getId()).matches(), "ID should be a valid UUID");
+        assertTrue(UUID_PATTERN.matcher(result.getId().toString()).matches(), "ID should be a valid UUID");
         assertEquals(bookCreate.getTitle(), result.getTitle());
         assertEquals(bookCreate.getAuthor(), result.getAuthor());
         assertEquals(bookCreate.getIsbn(), result.getIsbn());
@@ -93,7 +93,7 @@ class BookMapperDataProviderTest {
     @Test
     void shouldUpdateBookEntityFromBookUpdate() {
         // Arrange
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
         BookEntity bookEntity = BookEntity.builder()
                 .id(id)
                 .title("The Great Gatsby")
@@ -128,7 +128,7 @@ class BookMapperDataProviderTest {
     @Test
     void shouldHandleNullBookUpdateValues() {
         // Arrange
-        String id = UUID.randomUUID().toString();
+        UUID id = UUID.randomUUID();
         LocalDate publishedDate = LocalDate.of(1925, 4, 10);
         BookEntity bookEntity = BookEntity.builder()
                 .id(id)
@@ -180,4 +180,16 @@ class BookMapperDataProviderTest {
         assertNotNull(result2.getId());
         assertNotEquals(result1.getId(), result2.getId(), "Generated IDs should be different");
     }
+
+    @Test
+    void shouldConvertBetweenIdAndUuid() {
+        // Arrange
+        UUID uuid = UUID.randomUUID();
+
+        // Act & Assert
+        assertEquals(uuid, mapper.toUuid(uuid.toString()));
+        assertEquals(uuid.toString(), mapper.toId(uuid));
+        assertNull(mapper.toUuid(null));
+        assertNull(mapper.toId(null));
+    }
 }
@@ -0,0 +1,151 @@
+package partition;
+
+import com.tracktainment.bookmanager.dataprovider.BookSearchDataProvider;
+import com.tracktainment.bookmanager.entity.BookEntity;
+import com.tracktainment.bookmanager.facet.BookFacetCache;
+import com.tracktainment.bookmanager.mapper.BookMapperDataProvider;
+import com.tracktainment.bookmanager.partition.BookPartitionMaintainer;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookPartitionMaintainerTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JdbcTemplate plainJdbcTemplate;
+
+    @Mock
+    private BookSearchDataProvider bookSearchDataProvider;
+
+    @Mock
+    private BookMapperDataProvider mapper;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private BookFacetCache bookFacetCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private org.hibernate.Cache hibernateCache;
+
+    @InjectMocks
+    private BookPartitionMaintainer bookPartitionMaintainer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bookPartitionMaintainer, "monthsAhead", 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCreatePartitionsAheadAndKeepEveryMonthWithoutRetention() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), any(MapSqlParameterSource.class), eq(Integer.class)))
+                .thenReturn(1);
+
+        // Act
+        bookPartitionMaintainer.maintain();
+
+        // Assert
+        ArgumentCaptor<MapSqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).queryForObject(
+                eq("SELECT create_books_partitions(:from, :through)"),
+                parametersCaptor.capture(),
+                eq(Integer.class)
+        );
+
+        LocalDateTime from = (LocalDateTime) parametersCaptor.getValue().getValue("from");
+        LocalDateTime through = (LocalDateTime) parametersCaptor.getValue().getValue("through");
+        assertEquals(from.plusMonths(3), through);
+        verify(jdbcTemplate, never()).query(anyString(), any(MapSqlParameterSource.class), any(RowMapper.class));
+        verifyNoInteractions(plainJdbcTemplate, bookSearchDataProvider, entityManagerFactory, transactionManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReleaseBooksOfExpiredPartitionsBeforeDetachingThem() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(bookPartitionMaintainer, "retentionMonths", 12);
+        UUID bookUuid = UUID.randomUUID();
+        ResultSet expired = mock(ResultSet.class);
+        ResultSet pending = mock(ResultSet.class);
+        when(expired.getString(1)).thenReturn("books_p2020_01");
+        when(expired.getBoolean(2)).thenReturn(false);
+        when(pending.getString(1)).thenReturn("books_p2020_02");
+        when(pending.getBoolean(2)).thenReturn(true);
+
+        when(jdbcTemplate.query(contains("FROM pg_inherits"), any(MapSqlParameterSource.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> rowMapper = invocation.getArgument(2);
+                    return List.of(rowMapper.mapRow(expired, 0), rowMapper.mapRow(pending, 1));
+                });
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+        when(plainJdbcTemplate.queryForList("SELECT id FROM books_p2020_01", UUID.class)).thenReturn(List.of(bookUuid));
+        when(plainJdbcTemplate.queryForList("SELECT id FROM books_p2020_02", UUID.class)).thenReturn(List.of());
+        when(mapper.toId(bookUuid)).thenReturn(bookUuid.toString());
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(cache.unwrap(org.hibernate.Cache.class)).thenReturn(hibernateCache);
+
+        // Act
+        bookPartitionMaintainer.maintain();
+
+        // Assert
+        ArgumentCaptor<MapSqlParameterSource> parametersCaptor = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).query(contains("FROM pg_inherits"), parametersCaptor.capture(), any(RowMapper.class));
+        String oldestKept = "books_p" + LocalDate.now().minusMonths(12).format(DateTimeFormatter.ofPattern("yyyy_MM"));
+        assertEquals(oldestKept, parametersCaptor.getValue().getValue("oldestKept"));
+
+        // Titles and ids are released and committed while the partition is still attached
+        InOrder inOrder = inOrder(transactionManager, plainJdbcTemplate);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(plainJdbcTemplate).update("DELETE FROM book_titles t USING books_p2020_01 p WHERE t.db_id = p.db_id");
+        inOrder.verify(plainJdbcTemplate).update("DELETE FROM book_ids i USING books_p2020_01 p WHERE i.id = p.id");
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(plainJdbcTemplate).execute("ALTER TABLE books DETACH PARTITION books_p2020_01 CONCURRENTLY");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(plainJdbcTemplate).update("DELETE FROM book_titles t USING books_p2020_02 p WHERE t.db_id = p.db_id");
+        inOrder.verify(plainJdbcTemplate).update("DELETE FROM book_ids i USING books_p2020_02 p WHERE i.id = p.id");
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(plainJdbcTemplate).execute("ALTER TABLE books DETACH PARTITION books_p2020_02 FINALIZE");
+        verify(bookSearchDataProvider).remove(bookUuid.toString());
+        verify(hibernateCache, times(2)).evictEntityData(BookEntity.class);
+        verify(hibernateCache, times(2)).evictNaturalIdData(BookEntity.class);
+        verify(hibernateCache, times(2)).evictQueryRegion(BookEntity.LIST_QUERY_CACHE_REGION);
+        verify(bookFacetCache, times(2)).evictAll();
+    }
+}
@@ -0,0 +1,80 @@
+package purge;
+
+import com.tracktainment.bookmanager.purge.BookPurger;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookPurgerTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JdbcTemplate plainJdbcTemplate;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable(any(Supplier.class))).thenReturn(meterRegistry);
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+    }
+
+    @Test
+    void shouldPurgeInBatchesUntilTombstonesRunOut() {
+        // Arrange
+        BookPurger bookPurger = new BookPurger(jdbcTemplate, 100, 50, meterRegistryProvider);
+        when(jdbcTemplate.update(contains("FOR UPDATE SKIP LOCKED"), any(MapSqlParameterSource.class)))
+                .thenReturn(100, 100, 30);
+        when(plainJdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L);
+
+        // Act
+        bookPurger.purge();
+
+        // Assert
+        verify(jdbcTemplate, times(3)).update(
+                anyString(),
+                argThat((MapSqlParameterSource parameters) -> Integer.valueOf(100).equals(parameters.getValue("batchSize")))
+        );
+        assertEquals(230, meterRegistry.get("books.purge.purged").counter().count());
+        assertEquals(3, meterRegistry.get("books.purge.batches").timer().count());
+        assertEquals(0, meterRegistry.get("books.purge.pending").gauge().value());
+    }
+
+    @Test
+    void shouldStopAtMaxBatchesAndReportWhatIsLeft() {
+        // Arrange
+        BookPurger bookPurger = new BookPurger(jdbcTemplate, 100, 2, meterRegistryProvider);
+        when(jdbcTemplate.update(anyString(), any(MapSqlParameterSource.class))).thenReturn(100);
+        when(plainJdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(450L);
+
+        // Act
+        bookPurger.purge();
+
+        // Assert
+        verify(jdbcTemplate, times(2)).update(anyString(), any(MapSqlParameterSource.class));
+        assertEquals(200, meterRegistry.get("books.purge.purged").counter().count());
+        assertEquals(450, meterRegistry.get("books.purge.pending").gauge().value());
+    }
+}
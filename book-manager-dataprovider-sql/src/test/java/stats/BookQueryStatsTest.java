@@ -0,0 +1,153 @@
+package stats;
+
+import com.tracktainment.bookmanager.stats.BookQueryStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookQueryStatsTest {
+
+    private static final String SQL = "SELECT count(*) FROM books WHERE deleted_at IS NULL AND lower(genre) LIKE :genre";
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private JdbcTemplate plainJdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BookQueryStats bookQueryStats;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(meterRegistryProvider.getIfAvailable(any(Supplier.class))).thenReturn(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookQueryStats.close();
+    }
+
+    @Test
+    void shouldAggregateCallsRowsAndTimePerShape() {
+        // Arrange
+        bookQueryStats = createBookQueryStats(Duration.ofHours(1), 1.0);
+        MapSqlParameterSource parameters = new MapSqlParameterSource("genre", "%drama%");
+
+        // Act
+        bookQueryStats.recordRead("count", SQL, parameters, () -> List.of(1, 2, 3), List::size);
+        bookQueryStats.recordRead("count", SQL, parameters, () -> List.of(4), List::size);
+        bookQueryStats.record("delete", "UPDATE books SET deleted_at = :deletedAt", () -> 1, deleted -> deleted);
+
+        // Assert
+        List<BookQueryStats.QueryShape> queryShapes = bookQueryStats.snapshot();
+        assertEquals(2, queryShapes.size());
+
+        BookQueryStats.QueryShape count = queryShapes.stream()
+                .filter(queryShape -> queryShape.operation().equals("count"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(SQL, count.shape());
+        assertEquals(2, count.calls());
+        assertEquals(4, count.rows());
+        assertEquals(0, count.slowCalls());
+        assertNull(count.plan());
+
+        assertEquals(2, meterRegistry.get(BookQueryStats.QUERIES_METRIC).tag("operation", "count").timer().count());
+        assertEquals(4, meterRegistry.get(BookQueryStats.ROWS_METRIC).tag("operation", "count").summary().totalAmount());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void shouldExplainSlowReadsInAReadOnlyTransaction() {
+        // Arrange
+        bookQueryStats = createBookQueryStats(Duration.ZERO, 1.0);
+        MapSqlParameterSource parameters = new MapSqlParameterSource("genre", "%drama%");
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(plainJdbcTemplate);
+        when(jdbcTemplate.queryForList("EXPLAIN (ANALYZE, BUFFERS) " + SQL, parameters, String.class))
+                .thenReturn(List.of("Aggregate  (actual time=0.020..0.021 rows=1 loops=1)", "  Buffers: shared hit=3"));
+
+        // Act
+        bookQueryStats.recordRead("count", SQL, parameters, () -> 1L, counted -> 1);
+
+        // Assert
+        verify(transactionManager, timeout(5000)).commit(any());
+        ArgumentCaptor<TransactionDefinition> definitionCaptor = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definitionCaptor.capture());
+        assertTrue(definitionCaptor.getValue().isReadOnly());
+        verify(plainJdbcTemplate).execute("SET LOCAL statement_timeout = 30000");
+
+        BookQueryStats.QueryShape count = bookQueryStats.snapshot().get(0);
+        assertEquals(1, count.slowCalls());
+        assertEquals("Aggregate  (actual time=0.020..0.021 rows=1 loops=1)\n  Buffers: shared hit=3", count.plan());
+        assertNotNull(count.planCapturedAt());
+        assertEquals(1, meterRegistry.get(BookQueryStats.SLOW_QUERIES_METRIC).tag("operation", "count").counter().count());
+    }
+
+    @Test
+    void shouldNeverExplainWrites() {
+        // Arrange
+        bookQueryStats = createBookQueryStats(Duration.ZERO, 1.0);
+
+        // Act
+        bookQueryStats.record("update", "UPDATE books SET title = :title", () -> List.of(1), List::size);
+
+        // Assert
+        assertEquals(1, bookQueryStats.snapshot().get(0).slowCalls());
+        verifyNoInteractions(transactionManager, jdbcTemplate);
+    }
+
+    @Test
+    void shouldStartOverOnReset() {
+        // Arrange
+        bookQueryStats = createBookQueryStats(Duration.ofHours(1), 0.0);
+        bookQueryStats.record("delete", "UPDATE books SET deleted_at = :deletedAt", () -> 1, deleted -> deleted);
+
+        // Act
+        bookQueryStats.reset();
+
+        // Assert
+        assertTrue(bookQueryStats.snapshot().isEmpty());
+    }
+
+    private BookQueryStats createBookQueryStats(Duration slowThreshold, double explainSampleRate) {
+        return new BookQueryStats(
+                jdbcTemplate,
+                transactionManager,
+                slowThreshold,
+                explainSampleRate,
+                Duration.ofSeconds(30),
+                100,
+                meterRegistryProvider
+        );
+    }
+}
@@ -4,10 +4,14 @@ import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.domain.OrderBy;
 import com.tracktainment.bookmanager.domain.OrderDirection;
 import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportReport;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
 import com.tracktainment.bookmanager.dto.BookUpdate;
 import com.tracktainment.bookmanager.util.Constants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -17,12 +21,16 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -47,17 +55,69 @@ public interface BookRestApi {
     })
     ResponseEntity<Book> create(@RequestBody @Valid BookCreate bookCreate);
 
+    @PostMapping(
+            path = "/batch",
+            produces = MediaType.APPLICATION_JSON_VALUE,
+            consumes = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(
+            summary = "Create a batch of books",
+            description = "Creates all the given books or none of them. The batch fails as a whole if any title " +
+                    "already exists or is repeated within it"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Books created successfully",
+                    content = @Content(schema = @Schema(implementation = Book.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "409", description = "Book already exists")
+    })
+    ResponseEntity<List<Book>> createBatch(
+            @RequestBody
+            @Size(min = Constants.MIN_BATCH_SIZE, max = Constants.MAX_BATCH_SIZE, message = Constants.BATCH_SIZE_INVALID_MSG)
+            List<@Valid BookCreate> bookCreates
+    );
+
+    @PostMapping(
+            path = "/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, Constants.CSV_MEDIA_TYPE},
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(
+            summary = "Import books",
+            description = "Streams books from an NDJSON file (one BookCreate per line) or a CSV file (header row with " +
+                    "BookCreate field names) into the catalog. Rows are validated like a single create and loaded in " +
+                    "chunks of " + Constants.IMPORT_CHUNK_SIZE + ". Invalid rows and already stored titles are " +
+                    "skipped and reported. Imported books belong to the calling user, like created ones"
+    )
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(content = {
+            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE),
+            @Content(mediaType = Constants.CSV_MEDIA_TYPE)
+    })
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import report",
+                    content = @Content(schema = @Schema(implementation = BookImportReport.class))),
+            @ApiResponse(responseCode = "400", description = "Unsupported file format")
+    })
+    ResponseEntity<BookImportReport> importBooks(
+            @Parameter(hidden = true)
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+
+            @Parameter(hidden = true) InputStream body
+    );
+
     @GetMapping(
             path ="/{id}",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
     @Operation(
             summary = "Find a book by ID",
-            description = "Returns a book based on its ID"
+            description = "Returns a book based on its ID. The ETag header carries its version, to be sent back in " +
+                    "If-Match so an update or delete only applies to the version that was read"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book found",
-                    content = @Content(schema = @Schema(implementation = Book.class))),
+                    content = @Content(schema = @Schema(implementation = Book.class)),
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of the book")),
             @ApiResponse(responseCode = "404", description = "Book not found")
     })
     ResponseEntity<Book> findById(
@@ -68,11 +128,23 @@ public interface BookRestApi {
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
             summary = "List books by criteria",
-            description = "Returns a list of books filtered by various criteria"
+            description = "Returns a list of books filtered by various criteria. Pages followed by another one carry a " +
+                    "cursor in the " + Constants.NEXT_CURSOR_HEADER + " header which fetches the next page at constant " +
+                    "cost. The total count is only computed on request, exactly for selective filters and estimated " +
+                    "by the query planner for broad ones"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "List of books",
-                    content = @Content(schema = @Schema(implementation = Book.class)))
+                    content = @Content(schema = @Schema(implementation = Book.class)),
+                    headers = {
+                            @Header(name = Constants.NEXT_CURSOR_HEADER, description = "Cursor of the next page"),
+                            @Header(name = Constants.HAS_MORE_HEADER, description = "Whether another page follows"),
+                            @Header(name = Constants.TOTAL_COUNT_HEADER,
+                                    description = "Number of books matching the filters, when requested"),
+                            @Header(name = Constants.TOTAL_COUNT_ESTIMATED_HEADER,
+                                    description = "Whether the total count is a planner estimate")
+                    }),
+            @ApiResponse(responseCode = "400", description = "Invalid input")
     })
     ResponseEntity<List<Book>> listByCriteria(
             @Parameter(description = "Result offset (pagination)")
@@ -84,6 +156,81 @@ public interface BookRestApi {
             @Min(value = Constants.MIN_LIMIT, message = Constants.LIMIT_INVALID_MSG)
             @Max(value = Constants.MAX_LIMIT, message = Constants.LIMIT_INVALID_MSG) Integer limit,
 
+            @Parameter(description = "Cursor returned by the previous page (keyset pagination, replaces offset)")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.CURSOR_REGEX, message = Constants.CURSOR_INVALID_MSG) String cursor,
+
+            @Parameter(description = "Filter by IDs (comma-separated)")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.ID_LIST_REGEX, message = Constants.IDS_INVALID_MSG) String ids,
+
+            @Parameter(description = "Filter by title")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.TITLE_REGEX, message = Constants.TITLE_INVALID_MSG) String title,
+
+            @Parameter(description = "Filter by author")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.AUTHOR_REGEX, message = Constants.AUTHOR_INVALID_MSG) String author,
+
+            @Parameter(description = "Filter by genre")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.GENRE_REGEX, message = Constants.GENRE_INVALID_MSG) String genre,
+
+            @Parameter(description = "Filter by ISBN")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.ISBN_REGEX, message = Constants.ISBN_INVALID_MSG) String isbn,
+
+            @Parameter(description = "Filter by publisher")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.PUBLISHER_REGEX, message = Constants.PUBLISHER_INVALID_MSG) String publisher,
+
+            @Parameter(description = "Filter by publication date")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedDate,
+
+            @Parameter(description = "Filter by language")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.LANGUAGE_REGEX, message = Constants.LANGUAGE_INVALID_MSG) String language,
+
+            @Parameter(description = "Filter by creation date")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdAt,
+
+            @Parameter(description = "Filter by date range start")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Filter by date range end")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+
+            @Parameter(description = "Order by fields")
+            @RequestParam(required = false, defaultValue = Constants.DEFAULT_ORDER) List<OrderBy> orderByList,
+
+            @Parameter(description = "Order direction for each field")
+            @RequestParam(required = false, defaultValue = Constants.DEFAULT_DIRECTION) List<OrderDirection> orderDirectionList,
+
+            @Parameter(description = "Return the number of books matching the filters in the " +
+                    Constants.TOTAL_COUNT_HEADER + " header")
+            @RequestParam(required = false, defaultValue = "false") Boolean totalCount
+    );
+
+    @GetMapping(
+            path = "/export",
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    @Operation(
+            summary = "Export books by criteria",
+            description = "Streams every book matching the criteria as NDJSON (one Book per line), in a single " +
+                    "response read through a database cursor. Takes the same filters and sorting as listing by criteria"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of books",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = Book.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input")
+    })
+    ResponseEntity<StreamingResponseBody> export(
             @Parameter(description = "Filter by IDs (comma-separated)")
             @RequestParam(required = false)
             @Pattern(regexp = Constants.ID_LIST_REGEX, message = Constants.IDS_INVALID_MSG) String ids,
@@ -135,6 +282,92 @@ public interface BookRestApi {
             @RequestParam(required = false, defaultValue = Constants.DEFAULT_DIRECTION) List<OrderDirection> orderDirectionList
     );
 
+    @GetMapping(
+            path = "/search",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(
+            summary = "Search books by relevance",
+            description = "Returns the books matching the query in their title, author, publisher or genre, " +
+                    "most relevant first (BM25)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ranked list of books",
+                    content = @Content(schema = @Schema(implementation = BookSearchHit.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input")
+    })
+    ResponseEntity<List<BookSearchHit>> search(
+            @Parameter(description = "Free text query", required = true)
+            @RequestParam
+            @Pattern(regexp = Constants.SEARCH_QUERY_REGEX, message = Constants.SEARCH_QUERY_INVALID_MSG) String query,
+
+            @Parameter(description = "Maximum number of results to return")
+            @RequestParam(required = false, defaultValue = Constants.DEFAULT_LIMIT)
+            @Min(value = Constants.MIN_LIMIT, message = Constants.LIMIT_INVALID_MSG)
+            @Max(value = Constants.MAX_LIMIT, message = Constants.LIMIT_INVALID_MSG) Integer limit
+    );
+
+    @GetMapping(
+            path = "/facets",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(
+            summary = "Count books by facet",
+            description = "Returns how many of the books matching the filters have each genre, language, publisher " +
+                    "and year of publication, all from one grouped query. Takes the same filters as listing by " +
+                    "criteria. Counts are cached per user and filters until the user writes a book"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Book counts per facet",
+                    content = @Content(schema = @Schema(implementation = BookFacets.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input")
+    })
+    ResponseEntity<BookFacets> facets(
+            @Parameter(description = "Filter by IDs (comma-separated)")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.ID_LIST_REGEX, message = Constants.IDS_INVALID_MSG) String ids,
+
+            @Parameter(description = "Filter by title")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.TITLE_REGEX, message = Constants.TITLE_INVALID_MSG) String title,
+
+            @Parameter(description = "Filter by author")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.AUTHOR_REGEX, message = Constants.AUTHOR_INVALID_MSG) String author,
+
+            @Parameter(description = "Filter by genre")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.GENRE_REGEX, message = Constants.GENRE_INVALID_MSG) String genre,
+
+            @Parameter(description = "Filter by ISBN")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.ISBN_REGEX, message = Constants.ISBN_INVALID_MSG) String isbn,
+
+            @Parameter(description = "Filter by publisher")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.PUBLISHER_REGEX, message = Constants.PUBLISHER_INVALID_MSG) String publisher,
+
+            @Parameter(description = "Filter by publication date")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate publishedDate,
+
+            @Parameter(description = "Filter by language")
+            @RequestParam(required = false)
+            @Pattern(regexp = Constants.LANGUAGE_REGEX, message = Constants.LANGUAGE_INVALID_MSG) String language,
+
+            @Parameter(description = "Filter by creation date")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdAt,
+
+            @Parameter(description = "Filter by date range start")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+
+            @Parameter(description = "Filter by date range end")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    );
+
     @PatchMapping(
             path = "/{id}",
             consumes = MediaType.APPLICATION_JSON_VALUE,
@@ -142,31 +375,43 @@ public interface BookRestApi {
     )
     @Operation(
             summary = "Update a book",
-            description = "Updates an existing book with the provided details"
+            description = "Updates an existing book with the provided details. With If-Match, only if the book is " +
+                    "still at the version of that ETag"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Book updated successfully",
-                    content = @Content(schema = @Schema(implementation = Book.class))),
+                    content = @Content(schema = @Schema(implementation = Book.class)),
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of the updated book")),
             @ApiResponse(responseCode = "400", description = "Invalid input"),
-            @ApiResponse(responseCode = "404", description = "Book not found")
+            @ApiResponse(responseCode = "404", description = "Book not found"),
+            @ApiResponse(responseCode = "412", description = "Book changed since the If-Match version")
     })
     ResponseEntity<Book> update(
             @Parameter(description = "Book ID", required = true)
             @PathVariable @Pattern(regexp = Constants.ID_REGEX, message = Constants.ID_INVALID_MSG) String id,
 
+            @Parameter(description = "ETag of the version the update applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+
             @RequestBody @Valid BookUpdate bookUpdate
     );
+
     @DeleteMapping(path = "/{id}")
     @Operation(
             summary = "Delete a book",
-            description = "Deletes a book based on its ID"
+            description = "Deletes a book based on its ID. With If-Match, only if the book is still at the version " +
+                    "of that ETag"
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Book deleted successfully"),
-            @ApiResponse(responseCode = "404", description = "Book not found")
+            @ApiResponse(responseCode = "404", description = "Book not found"),
+            @ApiResponse(responseCode = "412", description = "Book changed since the If-Match version")
     })
     ResponseEntity<Void> delete(
             @Parameter(description = "Book ID", required = true)
-            @PathVariable @Pattern(regexp = Constants.ID_REGEX, message = Constants.ID_INVALID_MSG) String id
+            @PathVariable @Pattern(regexp = Constants.ID_REGEX, message = Constants.ID_INVALID_MSG) String id,
+
+            @Parameter(description = "ETag of the version the delete applies to")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     );
 }
@@ -1,23 +1,39 @@
 package com.tracktainment.bookmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tracktainment.bookmanager.api.BookRestApi;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.domain.OrderBy;
 import com.tracktainment.bookmanager.domain.OrderDirection;
 import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportReport;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
 import com.tracktainment.bookmanager.dto.BookUpdate;
 import com.tracktainment.bookmanager.exception.ParameterValidationFailedException;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.reader.CsvBookImportReader;
+import com.tracktainment.bookmanager.reader.NdjsonBookImportReader;
 import com.tracktainment.bookmanager.usecases.*;
+import com.tracktainment.bookmanager.util.Constants;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @RestController
 @RequiredArgsConstructor
@@ -25,12 +41,20 @@ import java.util.List;
 @Slf4j
 public class BookController implements BookRestApi {
 
+    private static final Pattern ETAG_PATTERN = Pattern.compile("\"(\\d{1,18})\"");
+
     private final CreateUseCase createUseCase;
+    private final CreateBatchUseCase createBatchUseCase;
+    private final ImportUseCase importUseCase;
+    private final ExportUseCase exportUseCase;
     private final FindByIdUseCase findByIdUseCase;
     private final ListByCriteriaUseCase listByCriteriaUseCase;
+    private final SearchUseCase searchUseCase;
+    private final FacetsUseCase facetsUseCase;
     private final UpdateUseCase updateUseCase;
     private final DeleteUseCase deleteUseCase;
     private final HttpServletRequest httpServletRequest;
+    private final ObjectMapper objectMapper;
 
     @Override
     public ResponseEntity<Book> create(BookCreate bookCreate) {
@@ -46,6 +70,39 @@ public class BookController implements BookRestApi {
         return new ResponseEntity<>(output.getBook(), HttpStatus.CREATED);
     }
 
+    @Override
+    public ResponseEntity<List<Book>> createBatch(List<BookCreate> bookCreates) {
+        log.info("Creating batch of {} books.", bookCreates.size());
+        String jwt = httpServletRequest.getHeader("Authorization");
+
+        CreateBatchUseCase.Input input = CreateBatchUseCase.Input.builder()
+                .jwt(jwt)
+                .bookCreates(bookCreates)
+                .build();
+
+        CreateBatchUseCase.Output output = createBatchUseCase.execute(input);
+        return new ResponseEntity<>(output.getBooks(), HttpStatus.CREATED);
+    }
+
+    @Override
+    public ResponseEntity<BookImportReport> importBooks(String contentType, InputStream body) {
+        log.info("Importing books from {}.", contentType);
+        String jwt = httpServletRequest.getHeader("Authorization");
+
+        // The body is read row by row while the import runs, it is never held in memory as a whole
+        Iterator<BookImportRow> rows = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON) ?
+                new NdjsonBookImportReader(body, objectMapper) :
+                new CsvBookImportReader(body);
+
+        ImportUseCase.Input input = ImportUseCase.Input.builder()
+                .jwt(jwt)
+                .rows(rows)
+                .build();
+
+        ImportUseCase.Output output = importUseCase.execute(input);
+        return new ResponseEntity<>(output.getReport(), HttpStatus.OK);
+    }
+
     @Override
     public ResponseEntity<Book> findById(String id) {
         log.info("Finding book: {}.", id);
@@ -57,13 +114,14 @@ public class BookController implements BookRestApi {
                 .build();
 
         FindByIdUseCase.Output output = findByIdUseCase.execute(input);
-        return new ResponseEntity<>(output.getBook(), HttpStatus.OK);
+        return new ResponseEntity<>(output.getBook(), toEtagHeaders(output.getBook()), HttpStatus.OK);
     }
 
     @Override
     public ResponseEntity<List<Book>> listByCriteria(
             Integer offset,
             Integer limit,
+            String cursor,
             String ids,
             String title,
             String author,
@@ -76,7 +134,8 @@ public class BookController implements BookRestApi {
             LocalDate from,
             LocalDate to,
             List<OrderBy> orderByList,
-            List<OrderDirection> orderDirectionList
+            List<OrderDirection> orderDirectionList,
+            Boolean totalCount
     ) {
         // Input treatment
         if (createdAt != null) {
@@ -85,17 +144,10 @@ public class BookController implements BookRestApi {
         }
 
         // Input validation
-        if (to != null && from != null && to.isBefore(from)) {
-            throw new ParameterValidationFailedException("Invalid dates input: 'to' must be 'later' than from");
-        }
+        validateCriteria(from, to, orderByList, orderDirectionList);
 
-        if (orderByList.size() != orderDirectionList.size()) {
-            throw new ParameterValidationFailedException(String.format(
-                    "Invalid orderBy and orderDirection pair. " +
-                            "'orderBy' size is %s and orderDirection size is %s. Both sizes must match",
-                    orderByList.size(),
-                    orderDirectionList.size()
-            ));
+        if (cursor != null && offset != null && offset != Constants.MIN_OFFSET) {
+            throw new ParameterValidationFailedException("Invalid pagination input: 'offset' cannot be combined with 'cursor'");
         }
 
         // Get JWT
@@ -105,6 +157,7 @@ public class BookController implements BookRestApi {
                 .jwt(jwt)
                 .offset(offset)
                 .limit(limit)
+                .cursor(cursor)
                 .ids(ids)
                 .title(title)
                 .author(author)
@@ -118,15 +171,145 @@ public class BookController implements BookRestApi {
                 .to(to)
                 .orderByList(orderByList)
                 .orderDirectionList(orderDirectionList)
+                .withTotalCount(Boolean.TRUE.equals(totalCount))
                 .build();
 
         log.info("Listing books by criteria: {}.", input);
         ListByCriteriaUseCase.Output output = listByCriteriaUseCase.execute(input);
-        return new ResponseEntity<>(output.getBooks(), HttpStatus.OK);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (output.getNextCursor() != null) {
+            headers.add(Constants.NEXT_CURSOR_HEADER, output.getNextCursor());
+        }
+
+        headers.add(Constants.HAS_MORE_HEADER, String.valueOf(output.isHasMore()));
+        if (output.getTotalCount() != null) {
+            headers.add(Constants.TOTAL_COUNT_HEADER, String.valueOf(output.getTotalCount()));
+            headers.add(Constants.TOTAL_COUNT_ESTIMATED_HEADER, String.valueOf(output.getTotalCountEstimated()));
+        }
+
+        return new ResponseEntity<>(output.getBooks(), headers, HttpStatus.OK);
     }
 
     @Override
-    public ResponseEntity<Book> update(String id, BookUpdate bookUpdate) {
+    public ResponseEntity<StreamingResponseBody> export(
+            String ids,
+            String title,
+            String author,
+            String genre,
+            String isbn,
+            String publisher,
+            LocalDate publishedDate,
+            String language,
+            LocalDate createdAt,
+            LocalDate from,
+            LocalDate to,
+            List<OrderBy> orderByList,
+            List<OrderDirection> orderDirectionList
+    ) {
+        // Input treatment
+        if (createdAt != null) {
+            from = null;
+            to = null;
+        }
+
+        // Input validation
+        validateCriteria(from, to, orderByList, orderDirectionList);
+
+        // Get JWT before the body is written on another thread
+        String jwt = httpServletRequest.getHeader("Authorization");
+
+        ExportUseCase.Input input = ExportUseCase.Input.builder()
+                .jwt(jwt)
+                .ids(ids)
+                .title(title)
+                .author(author)
+                .genre(genre)
+                .isbn(isbn)
+                .publisher(publisher)
+                .publishedDate(publishedDate)
+                .language(language)
+                .createdAt(createdAt)
+                .from(from)
+                .to(to)
+                .orderByList(orderByList)
+                .orderDirectionList(orderDirectionList)
+                .build();
+
+        log.info("Exporting books by criteria: {}.", input);
+        StreamingResponseBody body = outputStream -> {
+            input.setOutputStream(outputStream);
+            exportUseCase.execute(input);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Override
+    public ResponseEntity<List<BookSearchHit>> search(String query, Integer limit) {
+        log.info("Searching books: {}.", query);
+        String jwt = httpServletRequest.getHeader("Authorization");
+
+        SearchUseCase.Input input = SearchUseCase.Input.builder()
+                .jwt(jwt)
+                .query(query)
+                .limit(limit)
+                .build();
+
+        SearchUseCase.Output output = searchUseCase.execute(input);
+        return new ResponseEntity<>(output.getHits(), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<BookFacets> facets(
+            String ids,
+            String title,
+            String author,
+            String genre,
+            String isbn,
+            String publisher,
+            LocalDate publishedDate,
+            String language,
+            LocalDate createdAt,
+            LocalDate from,
+            LocalDate to
+    ) {
+        // Input treatment
+        if (createdAt != null) {
+            from = null;
+            to = null;
+        }
+
+        // Input validation
+        validateDates(from, to);
+
+        // Get JWT
+        String jwt = httpServletRequest.getHeader("Authorization");
+
+        FacetsUseCase.Input input = FacetsUseCase.Input.builder()
+                .jwt(jwt)
+                .ids(ids)
+                .title(title)
+                .author(author)
+                .genre(genre)
+                .isbn(isbn)
+                .publisher(publisher)
+                .publishedDate(publishedDate)
+                .language(language)
+                .createdAt(createdAt)
+                .from(from)
+                .to(to)
+                .build();
+
+        log.info("Counting book facets by criteria: {}.", input);
+        FacetsUseCase.Output output = facetsUseCase.execute(input);
+        return new ResponseEntity<>(output.getFacets(), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<Book> update(String id, String ifMatch, BookUpdate bookUpdate) {
         log.info("Updating book: {}. Updated book data: {}.", id, bookUpdate);
         String jwt = httpServletRequest.getHeader("Authorization");
 
@@ -134,23 +317,73 @@ public class BookController implements BookRestApi {
                 .jwt(jwt)
                 .id(id)
                 .bookUpdate(bookUpdate)
+                .version(toVersion(id, ifMatch))
                 .build();
 
         UpdateUseCase.Output output = updateUseCase.execute(input);
-        return new ResponseEntity<>(output.getBook(), HttpStatus.OK);
+        return new ResponseEntity<>(output.getBook(), toEtagHeaders(output.getBook()), HttpStatus.OK);
     }
 
     @Override
-    public ResponseEntity<Void> delete(String id) {
+    public ResponseEntity<Void> delete(String id, String ifMatch) {
         log.info("Deleting book: {}.", id);
         String jwt = httpServletRequest.getHeader("Authorization");
 
         DeleteUseCase.Input input = DeleteUseCase.Input.builder()
                 .jwt(jwt)
                 .id(id)
+                .version(toVersion(id, ifMatch))
                 .build();
 
         deleteUseCase.execute(input);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    private HttpHeaders toEtagHeaders(Book book) {
+        HttpHeaders headers = new HttpHeaders();
+        if (book.getVersion() != null) {
+            headers.setETag("\"" + book.getVersion() + "\"");
+        }
+
+        return headers;
+    }
+
+    private Long toVersion(String id, String ifMatch) {
+        // No If-Match, or "*", applies the write to whatever version is stored
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        // If-Match compares strongly, so only the quoted version this controller sends as ETag can ever match
+        Matcher matcher = ETAG_PATTERN.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new PreconditionFailedException(Book.class, id, ifMatch);
+        }
+
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private void validateCriteria(
+            LocalDate from,
+            LocalDate to,
+            List<OrderBy> orderByList,
+            List<OrderDirection> orderDirectionList
+    ) {
+        validateDates(from, to);
+
+        if (orderByList.size() != orderDirectionList.size()) {
+            throw new ParameterValidationFailedException(String.format(
+                    "Invalid orderBy and orderDirection pair. " +
+                            "'orderBy' size is %s and orderDirection size is %s. Both sizes must match",
+                    orderByList.size(),
+                    orderDirectionList.size()
+            ));
+        }
+    }
+
+    private void validateDates(LocalDate from, LocalDate to) {
+        if (to != null && from != null && to.isBefore(from)) {
+            throw new ParameterValidationFailedException("Invalid dates input: 'to' must be 'later' than from");
+        }
+    }
 }
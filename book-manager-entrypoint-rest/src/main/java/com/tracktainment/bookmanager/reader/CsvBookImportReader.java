@@ -0,0 +1,73 @@
+package com.tracktainment.bookmanager.reader;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class CsvBookImportReader implements Iterator<BookImportRow> {
+
+    // Columns are matched by the header row, using the BookCreate field names
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final MappingIterator<BookCreate> iterator;
+
+    public CsvBookImportReader(InputStream inputStream) {
+        try {
+            this.iterator = CSV_MAPPER.readerFor(BookCreate.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return iterator.hasNextValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public BookImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        long line = iterator.getCurrentLocation().getLineNr();
+        try {
+            return BookImportRow.builder()
+                    .line(line)
+                    .bookCreate(iterator.nextValue())
+                    .build();
+
+        // The parser resumes at the next record, so a bad value only rejects its own row
+        } catch (JsonProcessingException e) {
+            return BookImportRow.builder()
+                    .line(line)
+                    .error("Invalid CSV: " + e.getOriginalMessage())
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tracktainment.bookmanager.reader;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class NdjsonBookImportReader implements Iterator<BookImportRow> {
+
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long line;
+    private BookImportRow next;
+
+    public NdjsonBookImportReader(InputStream inputStream, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        this.objectReader = objectMapper.readerFor(BookCreate.class);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRow();
+        }
+
+        return next != null;
+    }
+
+    @Override
+    public BookImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        BookImportRow row = next;
+        next = null;
+        return row;
+    }
+
+    private BookImportRow readRow() {
+        try {
+            String json;
+            do {
+                json = reader.readLine();
+                line++;
+            } while (json != null && json.isBlank());
+
+            if (json == null) {
+                return null;
+            }
+
+            // A malformed line only rejects its own row, the next line is a new document
+            try {
+                return BookImportRow.builder()
+                        .line(line)
+                        .bookCreate(objectReader.readValue(json))
+                        .build();
+            } catch (JsonProcessingException e) {
+                return BookImportRow.builder()
+                        .line(line)
+                        .error("Invalid JSON: " + e.getOriginalMessage())
+                        .build();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.tracktainment.bookmanager.security;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -28,4 +30,11 @@ public class SecurityConfig {
 
         return http.build();
     }
+
+    // Applied by Spring Boot to the application task executor, which also writes the streamed responses. Tasks run with
+    // the security context, and so the JWT, of the request that submitted them, on platform or virtual threads alike
+    @Bean
+    public TaskDecorator securityContextTaskDecorator() {
+        return DelegatingSecurityContextRunnable::new;
+    }
 }
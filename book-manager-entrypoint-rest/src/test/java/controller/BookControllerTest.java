@@ -1,24 +1,39 @@
 package controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tracktainment.bookmanager.controller.BookController;
 import com.tracktainment.bookmanager.domain.Book;
 import com.tracktainment.bookmanager.domain.OrderBy;
 import com.tracktainment.bookmanager.domain.OrderDirection;
 import com.tracktainment.bookmanager.dto.BookCreate;
+import com.tracktainment.bookmanager.dto.BookFacetCount;
+import com.tracktainment.bookmanager.dto.BookFacets;
+import com.tracktainment.bookmanager.dto.BookImportReport;
+import com.tracktainment.bookmanager.dto.BookSearchHit;
 import com.tracktainment.bookmanager.dto.BookUpdate;
 import com.tracktainment.bookmanager.exception.ParameterValidationFailedException;
+import com.tracktainment.bookmanager.exception.PreconditionFailedException;
+import com.tracktainment.bookmanager.reader.CsvBookImportReader;
+import com.tracktainment.bookmanager.reader.NdjsonBookImportReader;
 import com.tracktainment.bookmanager.usecases.*;
+import com.tracktainment.bookmanager.util.Constants;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import testutil.TestBookDataUtil;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
@@ -27,6 +42,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,12 +51,27 @@ class BookControllerTest {
     @Mock
     private CreateUseCase createUseCase;
 
+    @Mock
+    private CreateBatchUseCase createBatchUseCase;
+
+    @Mock
+    private ImportUseCase importUseCase;
+
+    @Mock
+    private ExportUseCase exportUseCase;
+
     @Mock
     private FindByIdUseCase findByIdUseCase;
 
     @Mock
     private ListByCriteriaUseCase listByCriteriaUseCase;
 
+    @Mock
+    private SearchUseCase searchUseCase;
+
+    @Mock
+    private FacetsUseCase facetsUseCase;
+
     @Mock
     private UpdateUseCase updateUseCase;
 
@@ -50,6 +81,9 @@ class BookControllerTest {
     @Mock
     private HttpServletRequest httpServletRequest;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private BookController bookController;
 
@@ -91,6 +125,68 @@ class BookControllerTest {
         verify(createUseCase).execute(any(CreateUseCase.Input.class));
     }
 
+    @Test
+    void shouldCreateBookBatchSuccessfully() {
+        // Arrange
+        CreateBatchUseCase.Output output = CreateBatchUseCase.Output.builder()
+                .books(List.of(book))
+                .build();
+
+        when(createBatchUseCase.execute(any(CreateBatchUseCase.Input.class))).thenReturn(output);
+
+        // Act
+        ResponseEntity<List<Book>> response = bookController.createBatch(List.of(bookCreate));
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertEquals(List.of(book), response.getBody());
+
+        verify(createBatchUseCase).execute(argThat(input ->
+                input.getJwt().equals(jwt) &&
+                        input.getBookCreates().equals(List.of(bookCreate))
+        ));
+    }
+
+    @Test
+    void shouldImportNdjsonRows() {
+        // Arrange
+        BookImportReport report = BookImportReport.builder().rows(2).imported(2).build();
+        when(importUseCase.execute(any(ImportUseCase.Input.class))).thenReturn(ImportUseCase.Output.builder()
+                .report(report)
+                .build());
+        String ndjson = "{\"title\":\"The Great Gatsby\",\"author\":\"F. Scott Fitzgerald\"}\n";
+
+        // Act
+        ResponseEntity<BookImportReport> response = bookController.importBooks(
+                "application/x-ndjson;charset=UTF-8",
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))
+        );
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(report, response.getBody());
+        verify(importUseCase).execute(argThat(input ->
+                input.getRows() instanceof NdjsonBookImportReader && jwt.equals(input.getJwt())));
+    }
+
+    @Test
+    void shouldImportCsvRows() {
+        // Arrange
+        when(importUseCase.execute(any(ImportUseCase.Input.class))).thenReturn(ImportUseCase.Output.builder()
+                .report(BookImportReport.builder().build())
+                .build());
+
+        // Act
+        bookController.importBooks(
+                Constants.CSV_MEDIA_TYPE,
+                new ByteArrayInputStream("title,author\n".getBytes(StandardCharsets.UTF_8))
+        );
+
+        // Assert
+        verify(importUseCase).execute(argThat(input -> input.getRows() instanceof CsvBookImportReader));
+    }
+
     @Test
     void shouldFindBookByIdSuccessfully() {
         // Arrange
@@ -125,10 +221,11 @@ class BookControllerTest {
 
         // Act
         ResponseEntity<List<Book>> response = bookController.listByCriteria(
-                0, 10, null, null, null, null, null,
+                0, 10, null, null, null, null, null, null,
                 null, null, null, null, null, null,
                 Collections.singletonList(OrderBy.TITLE),
-                Collections.singletonList(OrderDirection.ASC)
+                Collections.singletonList(OrderDirection.ASC),
+                false
         );
 
         // Assert
@@ -150,9 +247,9 @@ class BookControllerTest {
         // Act & Assert
         assertThrows(ParameterValidationFailedException.class, () ->
                 bookController.listByCriteria(
-                        0, 10, null, null, null, null, null,
+                        0, 10, null, null, null, null, null, null,
                         null, null, null, null, null, null,
-                        orderByList, orderDirectionList
+                        orderByList, orderDirectionList, false
                 )
         );
 
@@ -168,10 +265,11 @@ class BookControllerTest {
         // Act & Assert
         assertThrows(ParameterValidationFailedException.class, () ->
                 bookController.listByCriteria(
-                        0, 10, null, null, null, null, null,
+                        0, 10, null, null, null, null, null, null,
                         null, null, null, null, from, to,
                         Collections.singletonList(OrderBy.TITLE),
-                        Collections.singletonList(OrderDirection.ASC)
+                        Collections.singletonList(OrderDirection.ASC),
+                        false
                 )
         );
 
@@ -194,10 +292,11 @@ class BookControllerTest {
 
         // Act
         ResponseEntity<List<Book>> response = bookController.listByCriteria(
-                0, 10, null, null, null, null, null,
+                0, 10, null, null, null, null, null, null,
                 null, null, null, createdAt, from, to,
                 Collections.singletonList(OrderBy.TITLE),
-                Collections.singletonList(OrderDirection.ASC)
+                Collections.singletonList(OrderDirection.ASC),
+                false
         );
 
         // Assert
@@ -212,6 +311,210 @@ class BookControllerTest {
         ));
     }
 
+    @Test
+    void shouldExposeNextCursorHeader() {
+        // Arrange
+        ListByCriteriaUseCase.Output output = ListByCriteriaUseCase.Output.builder()
+                .books(Collections.singletonList(book))
+                .nextCursor("next-cursor")
+                .build();
+
+        when(listByCriteriaUseCase.execute(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(output);
+
+        // Act
+        ResponseEntity<List<Book>> response = bookController.listByCriteria(
+                0, 1, "previous-cursor", null, null, null, null, null,
+                null, null, null, null, null, null,
+                Collections.singletonList(OrderBy.TITLE),
+                Collections.singletonList(OrderDirection.ASC),
+                false
+        );
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("next-cursor", response.getHeaders().getFirst(Constants.NEXT_CURSOR_HEADER));
+        verify(listByCriteriaUseCase).execute(argThat(input -> "previous-cursor".equals(input.getCursor())));
+    }
+
+    @Test
+    void shouldExposeHasMoreAndTotalCountHeadersWhenCountIsRequested() {
+        // Arrange
+        ListByCriteriaUseCase.Output output = ListByCriteriaUseCase.Output.builder()
+                .books(Collections.singletonList(book))
+                .nextCursor("next-cursor")
+                .hasMore(true)
+                .totalCount(250_000L)
+                .totalCountEstimated(true)
+                .build();
+
+        when(listByCriteriaUseCase.execute(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(output);
+
+        // Act
+        ResponseEntity<List<Book>> response = bookController.listByCriteria(
+                0, 1, null, null, null, null, null, null,
+                null, null, null, null, null, null,
+                Collections.singletonList(OrderBy.TITLE),
+                Collections.singletonList(OrderDirection.ASC),
+                true
+        );
+
+        // Assert
+        assertEquals("true", response.getHeaders().getFirst(Constants.HAS_MORE_HEADER));
+        assertEquals("250000", response.getHeaders().getFirst(Constants.TOTAL_COUNT_HEADER));
+        assertEquals("true", response.getHeaders().getFirst(Constants.TOTAL_COUNT_ESTIMATED_HEADER));
+        verify(listByCriteriaUseCase).execute(argThat(ListByCriteriaUseCase.Input::isWithTotalCount));
+    }
+
+    @Test
+    void shouldNotExposeTotalCountHeadersWhenCountIsNotRequested() {
+        // Arrange
+        ListByCriteriaUseCase.Output output = ListByCriteriaUseCase.Output.builder()
+                .books(Collections.singletonList(book))
+                .build();
+
+        when(listByCriteriaUseCase.execute(any(ListByCriteriaUseCase.Input.class)))
+                .thenReturn(output);
+
+        // Act
+        ResponseEntity<List<Book>> response = bookController.listByCriteria(
+                0, 10, null, null, null, null, null, null,
+                null, null, null, null, null, null,
+                Collections.singletonList(OrderBy.TITLE),
+                Collections.singletonList(OrderDirection.ASC),
+                false
+        );
+
+        // Assert
+        assertEquals("false", response.getHeaders().getFirst(Constants.HAS_MORE_HEADER));
+        assertFalse(response.getHeaders().containsKey(Constants.TOTAL_COUNT_HEADER));
+        assertFalse(response.getHeaders().containsKey(Constants.TOTAL_COUNT_ESTIMATED_HEADER));
+        verify(listByCriteriaUseCase).execute(argThat(input -> !input.isWithTotalCount()));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenOffsetIsCombinedWithCursor() {
+        // Act & Assert
+        assertThrows(ParameterValidationFailedException.class, () ->
+                bookController.listByCriteria(
+                        20, 10, "cursor", null, null, null, null, null,
+                        null, null, null, null, null, null,
+                        Collections.singletonList(OrderBy.TITLE),
+                        Collections.singletonList(OrderDirection.ASC),
+                        false
+                )
+        );
+
+        verify(listByCriteriaUseCase, never()).execute(any());
+    }
+
+    @Test
+    void shouldStreamExportAsNdjson() throws Exception {
+        // Arrange
+        when(exportUseCase.execute(any(ExportUseCase.Input.class))).thenAnswer(invocation -> {
+            ExportUseCase.Input input = invocation.getArgument(0);
+            input.getOutputStream().write("{}\n".getBytes(StandardCharsets.UTF_8));
+            return ExportUseCase.Output.builder().exported(1).build();
+        });
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = bookController.export(
+                null, null, null, null, null, null, null, null,
+                LocalDate.now(), LocalDate.now().minusDays(1), LocalDate.now(),
+                Collections.singletonList(OrderBy.TITLE),
+                Collections.singletonList(OrderDirection.ASC)
+        );
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals("{}\n", outputStream.toString(StandardCharsets.UTF_8));
+
+        verify(exportUseCase).execute(argThat(input ->
+                jwt.equals(input.getJwt()) && input.getFrom() == null && input.getTo() == null));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenExportOrderSizesDoNotMatch() {
+        // Act & Assert
+        assertThrows(ParameterValidationFailedException.class, () -> bookController.export(
+                null, null, null, null, null, null, null, null, null, null, null,
+                Arrays.asList(OrderBy.TITLE, OrderBy.AUTHOR),
+                Collections.singletonList(OrderDirection.ASC)
+        ));
+        verify(exportUseCase, never()).execute(any());
+    }
+
+    @Test
+    void shouldSearchBooksSuccessfully() {
+        // Arrange
+        BookSearchHit hit = BookSearchHit.builder()
+                .id(book.getId())
+                .score(2.5)
+                .book(book)
+                .build();
+
+        when(searchUseCase.execute(any(SearchUseCase.Input.class)))
+                .thenReturn(SearchUseCase.Output.builder().hits(List.of(hit)).build());
+
+        // Act
+        ResponseEntity<List<BookSearchHit>> response = bookController.search("gatsby", 10);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(hit), response.getBody());
+
+        verify(searchUseCase).execute(argThat(input ->
+                input.getJwt().equals(jwt) &&
+                        input.getQuery().equals("gatsby") &&
+                        input.getLimit() == 10
+        ));
+    }
+
+    @Test
+    void shouldCountFacetsSuccessfully() {
+        // Arrange
+        BookFacets bookFacets = BookFacets.builder()
+                .genres(List.of(new BookFacetCount("Drama", 2)))
+                .build();
+        LocalDate createdAt = LocalDate.of(2024, 3, 1);
+
+        when(facetsUseCase.execute(any(FacetsUseCase.Input.class)))
+                .thenReturn(FacetsUseCase.Output.builder().facets(bookFacets).build());
+
+        // Act
+        ResponseEntity<BookFacets> response = bookController.facets(
+                null, null, "fitzgerald", null, null, null, null, null,
+                createdAt, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)
+        );
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(bookFacets, response.getBody());
+
+        verify(facetsUseCase).execute(argThat(input ->
+                input.getJwt().equals(jwt) &&
+                        input.getAuthor().equals("fitzgerald") &&
+                        input.getCreatedAt().equals(createdAt) &&
+                        input.getFrom() == null &&
+                        input.getTo() == null
+        ));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenFacetDatesAreInvalid() {
+        // Act & Assert
+        assertThrows(ParameterValidationFailedException.class, () -> bookController.facets(
+                null, null, null, null, null, null, null, null,
+                null, LocalDate.of(2024, 12, 31), LocalDate.of(2024, 1, 1)
+        ));
+
+        verify(facetsUseCase, never()).execute(any());
+    }
+
     @Test
     void shouldUpdateBookSuccessfully() {
         // Arrange
@@ -223,7 +526,7 @@ class BookControllerTest {
         when(updateUseCase.execute(any(UpdateUseCase.Input.class))).thenReturn(output);
 
         // Act
-        ResponseEntity<Book> response = bookController.update(bookId, bookUpdate);
+        ResponseEntity<Book> response = bookController.update(bookId, null, bookUpdate);
 
         // Assert
         assertNotNull(response);
@@ -240,7 +543,7 @@ class BookControllerTest {
         doNothing().when(deleteUseCase).execute(any(DeleteUseCase.Input.class));
 
         // Act
-        ResponseEntity<Void> response = bookController.delete(bookId);
+        ResponseEntity<Void> response = bookController.delete(bookId, null);
 
         // Assert
         assertNotNull(response);
@@ -251,6 +554,62 @@ class BookControllerTest {
         verify(deleteUseCase).execute(any(DeleteUseCase.Input.class));
     }
 
+    @Test
+    void shouldReturnVersionAsEtagWhenFindingBookById() {
+        // Arrange
+        book.setVersion(3L);
+        FindByIdUseCase.Output output = FindByIdUseCase.Output.builder()
+                .book(book)
+                .build();
+
+        when(findByIdUseCase.execute(any(FindByIdUseCase.Input.class))).thenReturn(output);
+
+        // Act
+        ResponseEntity<Book> response = bookController.findById(bookId);
+
+        // Assert
+        assertEquals("\"3\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldPassIfMatchVersionToUpdateUseCaseAndReturnNewEtag() {
+        // Arrange
+        Book updatedBook = TestBookDataUtil.createTestBookWithUpdate();
+        updatedBook.setVersion(4L);
+        UpdateUseCase.Output output = UpdateUseCase.Output.builder()
+                .book(updatedBook)
+                .build();
+
+        when(updateUseCase.execute(any(UpdateUseCase.Input.class))).thenReturn(output);
+
+        // Act
+        ResponseEntity<Book> response = bookController.update(bookId, "\"3\"", bookUpdate);
+
+        // Assert
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        verify(updateUseCase).execute(argThat(input -> Long.valueOf(3).equals(input.getVersion())));
+    }
+
+    @Test
+    void shouldWriteAnyVersionWhenIfMatchIsWildcard() {
+        // Arrange
+        doNothing().when(deleteUseCase).execute(any(DeleteUseCase.Input.class));
+
+        // Act
+        bookController.delete(bookId, "*");
+
+        // Assert
+        verify(deleteUseCase).execute(argThat(input -> input.getVersion() == null));
+    }
+
+    @Test
+    void shouldThrowPreconditionFailedExceptionWhenIfMatchIsWeak() {
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> bookController.delete(bookId, "W/\"3\""));
+
+        verify(deleteUseCase, never()).execute(any());
+    }
+
     @Test
     void shouldPassCorrectInputToCreateUseCase() {
         // Arrange
@@ -299,7 +658,7 @@ class BookControllerTest {
         when(updateUseCase.execute(any(UpdateUseCase.Input.class))).thenReturn(output);
 
         // Act
-        bookController.update(bookId, bookUpdate);
+        bookController.update(bookId, null, bookUpdate);
 
         // Assert
         verify(updateUseCase).execute(argThat(input ->
@@ -315,7 +674,7 @@ class BookControllerTest {
         doNothing().when(deleteUseCase).execute(any(DeleteUseCase.Input.class));
 
         // Act
-        bookController.delete(bookId);
+        bookController.delete(bookId, null);
 
         // Assert
         verify(deleteUseCase).execute(argThat(input ->
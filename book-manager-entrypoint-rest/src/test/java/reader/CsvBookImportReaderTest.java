@@ -0,0 +1,72 @@
+package reader;
+
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.reader.CsvBookImportReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvBookImportReaderTest {
+
+    @Test
+    void shouldReadRowsByHeader() {
+        // Arrange
+        String csv = """
+                title,author,publishedDate,language
+                The Great Gatsby,F. Scott Fitzgerald,1925-04-10,English
+                "Tender Is the Night, Again",F. Scott Fitzgerald,,
+                """;
+
+        // Act
+        List<BookImportRow> rows = readAll(csv);
+
+        // Assert
+        assertEquals(2, rows.size());
+        assertEquals(2, rows.get(0).getLine());
+        assertEquals("The Great Gatsby", rows.get(0).getBookCreate().getTitle());
+        assertEquals(LocalDate.of(1925, 4, 10), rows.get(0).getBookCreate().getPublishedDate());
+        assertEquals(3, rows.get(1).getLine());
+        assertEquals("Tender Is the Night, Again", rows.get(1).getBookCreate().getTitle());
+        assertNull(rows.get(1).getBookCreate().getPublishedDate());
+        assertNull(rows.get(1).getBookCreate().getLanguage());
+    }
+
+    @Test
+    void shouldRejectOnlyTheMalformedRow() {
+        // Arrange
+        String csv = """
+                title,author,publishedDate
+                The Great Gatsby,F. Scott Fitzgerald,not-a-date
+                Moby Dick,Herman Melville,1851-10-18
+                """;
+
+        // Act
+        List<BookImportRow> rows = readAll(csv);
+
+        // Assert
+        assertEquals(2, rows.size());
+        assertEquals(2, rows.get(0).getLine());
+        assertNull(rows.get(0).getBookCreate());
+        assertTrue(rows.get(0).getError().startsWith("Invalid CSV"));
+        assertEquals("Moby Dick", rows.get(1).getBookCreate().getTitle());
+    }
+
+    @Test
+    void shouldReadNothingFromHeaderOnly() {
+        // Act & Assert
+        assertTrue(readAll("title,author\n").isEmpty());
+    }
+
+    private List<BookImportRow> readAll(String csv) {
+        CsvBookImportReader reader = new CsvBookImportReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+        List<BookImportRow> rows = new ArrayList<>();
+        reader.forEachRemaining(rows::add);
+        return rows;
+    }
+}
@@ -0,0 +1,79 @@
+package reader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.tracktainment.bookmanager.dto.BookImportRow;
+import com.tracktainment.bookmanager.reader.NdjsonBookImportReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonBookImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void shouldReadOneBookPerLineSkippingBlankLines() {
+        // Arrange
+        String ndjson = """
+                {"title":"The Great Gatsby","author":"F. Scott Fitzgerald","publishedDate":"1925-04-10"}
+
+                {"title":"Moby Dick","author":"Herman Melville"}
+                """;
+
+        // Act
+        List<BookImportRow> rows = readAll(ndjson);
+
+        // Assert
+        assertEquals(2, rows.size());
+        assertEquals(1, rows.get(0).getLine());
+        assertEquals(LocalDate.of(1925, 4, 10), rows.get(0).getBookCreate().getPublishedDate());
+        assertEquals(3, rows.get(1).getLine());
+        assertEquals("Moby Dick", rows.get(1).getBookCreate().getTitle());
+    }
+
+    @Test
+    void shouldRejectOnlyTheMalformedLine() {
+        // Arrange
+        String ndjson = """
+                {"title":"The Great Gatsby",
+                {"title":"Moby Dick","author":"Herman Melville"}
+                """;
+
+        // Act
+        List<BookImportRow> rows = readAll(ndjson);
+
+        // Assert
+        assertEquals(2, rows.size());
+        assertNull(rows.get(0).getBookCreate());
+        assertTrue(rows.get(0).getError().startsWith("Invalid JSON"));
+        assertEquals("Moby Dick", rows.get(1).getBookCreate().getTitle());
+    }
+
+    @Test
+    void shouldThrowWhenExhausted() {
+        // Arrange
+        NdjsonBookImportReader reader = new NdjsonBookImportReader(new ByteArrayInputStream(new byte[0]), objectMapper);
+
+        // Act & Assert
+        assertFalse(reader.hasNext());
+        assertThrows(NoSuchElementException.class, reader::next);
+    }
+
+    private List<BookImportRow> readAll(String ndjson) {
+        NdjsonBookImportReader reader = new NdjsonBookImportReader(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)),
+                objectMapper
+        );
+        List<BookImportRow> rows = new ArrayList<>();
+        reader.forEachRemaining(rows::add);
+        return rows;
+    }
+}
@@ -1,11 +1,16 @@
 package security;
 
+import com.tracktainment.bookmanager.security.SecurityConfig;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -15,6 +20,9 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 import static org.springframework.security.config.Customizer.withDefaults;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -52,6 +60,29 @@ class SecurityConfigTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void shouldRunDecoratedTasksWithTheSecurityContextOfTheSubmitter() throws Exception {
+        // Arrange
+        TaskDecorator taskDecorator = new SecurityConfig().securityContextTaskDecorator();
+        Authentication authentication = new TestingAuthenticationToken("user-1", null);
+        AtomicReference<Authentication> seen = new AtomicReference<>();
+
+        Runnable task;
+        try {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            task = taskDecorator.decorate(() -> seen.set(SecurityContextHolder.getContext().getAuthentication()));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // Act
+        Thread thread = Thread.ofVirtual().start(task);
+        thread.join();
+
+        // Assert
+        assertSame(authentication, seen.get());
+    }
+
     /**
      * Test-specific security configuration that mimics the actual SecurityConfig
      * but doesn't rely on JWT configuration that's defined in application.yaml